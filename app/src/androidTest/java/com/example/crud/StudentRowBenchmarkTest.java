@@ -0,0 +1,85 @@
+package com.example.crud;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.crud.views.StudentRowView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+/**
+ * Creating, measuring and laying out one list row: {@code item_student} against
+ * {@link StudentRowView}. Views cannot be created on the JVM, so this runs on a device rather
+ * than in the JMH benchmark module. Median times are logged under {@code StudentRowBenchmark}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentRowBenchmarkTest {
+
+    private static final String TAG = "StudentRowBenchmark";
+    private static final int WARMUP = 50;
+    private static final int RUNS = 300;
+
+    @Test
+    public void flatRowIsCheaperToCreateAndLayOut() {
+        Context context = new ContextThemeWrapper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), R.style.Theme_CRUD);
+        long[] medians = new long[2];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            RecyclerView parent = new RecyclerView(context);
+            int width = context.getResources().getDisplayMetrics().widthPixels;
+            medians[0] = median(() -> {
+                View row = LayoutInflater.from(context).inflate(R.layout.item_student, parent, false);
+                ((TextView) row.findViewById(R.id.tv_student_initial)).setText("A");
+                ((TextView) row.findViewById(R.id.tv_student_name)).setText("Ada Lovelace");
+                ((TextView) row.findViewById(R.id.tv_student_id)).setText("ID: 20250001");
+                return row;
+            }, width);
+            medians[1] = median(() -> {
+                StudentRowView row = new StudentRowView(context);
+                row.setLayoutParams(new RecyclerView.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+                row.setInitial("A");
+                row.setName("Ada Lovelace");
+                row.setIdLabel("ID: 20250001");
+                return row;
+            }, width);
+        });
+        Log.i(TAG, "item_student " + medians[0] / 1000 + " µs, StudentRowView " + medians[1] / 1000 + " µs");
+        assertTrue("flat " + medians[1] + " ns, inflated " + medians[0] + " ns", medians[1] < medians[0]);
+    }
+
+    private interface RowFactory {
+        View create();
+    }
+
+    private static long median(RowFactory factory, int width) {
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        long[] times = new long[RUNS];
+        for (int i = -WARMUP; i < RUNS; i++) {
+            long start = System.nanoTime();
+            View row = factory.create();
+            row.measure(widthSpec, heightSpec);
+            row.layout(0, 0, row.getMeasuredWidth(), row.getMeasuredHeight());
+            if (i >= 0) {
+                times[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
@@ -1,50 +1,275 @@
 package com.example.crud.activities;
 
+import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.text.Editable;
 import android.text.InputType;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.OrientationHelper;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.crud.R;
+import com.example.crud.adapters.FrameChangeDispatcher;
+import com.example.crud.adapters.SectionHeaderDecoration;
 import com.example.crud.adapters.StudentAdapter;
+import com.example.crud.adapters.StudentRowPrewarmer;
+import com.example.crud.data.PositionRuns;
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.StudentValidator;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.history.StudentChange;
+import com.example.crud.history.StudentCommand;
+import com.example.crud.history.StudentCommandLog;
+import com.example.crud.io.StudentCsvImporter;
+import com.example.crud.io.StudentExporter;
+import com.example.crud.metrics.Metrics;
 import com.example.crud.models.Student;
+import com.example.crud.paging.PagedStudentList;
+import com.example.crud.paging.RosterPageSource;
+import com.example.crud.persistence.CohortRoster;
+import com.example.crud.persistence.RosterSavedState;
+import com.example.crud.persistence.StudentMutation;
+import com.example.crud.search.StudentSearch;
+import com.example.crud.sort.SectionIndex;
+import com.example.crud.sort.SortMode;
+import com.example.crud.sort.SortedStudentView;
+import com.example.crud.sort.StudentOrder;
+import com.example.crud.sync.HttpSyncTransport;
+import com.example.crud.sync.SyncEngine;
+import com.example.crud.views.SectionRailView;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.snackbar.Snackbar;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
+    // Metrics are on when this tag is loggable: adb shell setprop log.tag.StudentMetrics DEBUG
+    private static final String METRICS_TAG = "StudentMetrics";
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    // Batch changes spread over more runs than this refresh the whole list instead
+    private static final int MAX_RANGE_NOTIFICATIONS = 32;
+    // Saved instance state key for the RosterSavedState blob
+    private static final String STATE_ROSTER = "roster";
+    // Preferences holding the class that was open last
+    private static final String PREFS_ROSTER = "roster";
+
     // UI Components - Updated to match new layout
     private TextInputLayout tilStudentName, tilStudentId;
-    private TextInputEditText etStudentName, etStudentId;
-    private MaterialButton btnAddStudent;
+    private TextInputEditText etStudentName, etStudentId, etSearch;
+    private MaterialButton btnAddStudent, btnImportStudents, btnExportStudents, btnUndo, btnRedo, btnSort, btnSync, btnCohort;
+    private View cardInputForm, tilSearch;
     private RecyclerView rvStudents;
+    private View layoutStudentList;
+    private SectionRailView sectionRail;
     private TextView tvStudentCount;
     private LinearLayout layoutEmptyState;
+    private View layoutLoading;
+    private LinearLayout layoutSelectionBar;
+    private TextView tvSelectionCount;
+    private MaterialButton btnSelectAll, btnRenameSelected, btnDeleteSelected, btnClearSelection;
 
-    // Data and Adapter
+    // Data and Adapter. The data outlives this activity in the store; the fields below
+    // are shortcuts to it, set in onCreate()
+    private RosterViewModel store;
     private StudentAdapter adapter;
-    private List<Student> studentList;
+    private StudentRowPrewarmer rowPrewarmer;
+    private FrameChangeDispatcher listChanges;
+    private StudentRepository repository;
+    // Immutable snapshots of the students for work off the main thread
+    private VersionedRoster roster;
+    private StudentCommandLog commandLog;
+
+    // Sorted views are built in the background the first time their order is picked,
+    // then kept up to date; sortMode only changes once the view for it is ready
+    private final ExecutorService sortExecutor = Executors.newSingleThreadExecutor();
+    private SortMode sortMode = SortMode.INSERTION;
+    private SortMode requestedSortMode = SortMode.INSERTION;
+    private SortedStudentView byName, byId;
+
+    // Section headers and the letter rail, shown while sorted by name
+    private SectionIndex sections;
+    private SectionHeaderDecoration sectionHeaders;
+
+    // Sync with the central registry, when sync_server_url is set; runs in the store
+    private Snackbar syncProgress;
+
+    // Search
+    private StudentSearch studentSearch;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::runSearch;
+    private String currentQuery = "";
+
+    // Work that arrived before the roster was loaded, e.g. a document picked just before
+    // process death; run once it is shown
+    private final List<Runnable> afterLoad = new ArrayList<>();
+
+    // Row to scroll to once the restored order is shown, after process death
+    private String pendingAnchorId;
+    private int pendingAnchorOffset;
+
+    // Bulk import, run by the store so it outlives this activity
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importStudents);
+    private Snackbar importProgress;
+    // What the store's import and sync report to this activity, while it shows the roster
+    private final RosterViewModel.Listener jobListener = new RosterViewModel.Listener() {
+        @Override
+        public void onImportProgress(long rowsRead) {
+            if (importProgress != null) {
+                importProgress.setText("Importing students... " + rowsRead + " rows read");
+            }
+        }
+
+        @Override
+        public void onStudentsImported(int start, int count) {
+            notifyStudentsInserted(start, count);
+            listChanges.requestFlush();
+        }
+
+        @Override
+        public void onImportFinished(StudentCsvImporter.Result result, int skipped) {
+            MainActivity.this.onImportFinished(result, skipped);
+        }
+
+        @Override
+        public void onSyncApplied(SyncEngine.SyncResult result) {
+            MainActivity.this.onSyncApplied(result);
+        }
+
+        @Override
+        public void onSyncFinished(SyncEngine.SyncResult result, IOException error) {
+            MainActivity.this.onSyncFinished(result, error);
+        }
+
+        @Override
+        public void onSaveFailed() {
+            showSnackbar("Could not save changes", true);
+        }
+    };
+
+    // Pages of the list of every class, loaded as it is scrolled
+    private final ExecutorService pageExecutor = Executors.newSingleThreadExecutor();
+
+    // Export, streamed from a roster snapshot in the background
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+    private final ActivityResultLauncher<String> csvExportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(StudentExporter.Format.CSV.mimeType),
+            uri -> exportStudents(uri, StudentExporter.Format.CSV));
+    private final ActivityResultLauncher<String> jsonExportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(StudentExporter.Format.JSON.mimeType),
+            uri -> exportStudents(uri, StudentExporter.Format.JSON));
+    private StudentExporter runningExport;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        long start = Metrics.start();
+        Metrics.REGISTRY.setEnabled(Log.isLoggable(METRICS_TAG, Log.DEBUG));
         setContentView(R.layout.activity_main);
 
+        store = new ViewModelProvider(this).get(RosterViewModel.class);
         initializeViews();
-        setupRecyclerView();
-        setupClickListeners();
-        updateEmptyState();
+        // Rows are created in the background while the roster loads
+        rowPrewarmer = new StudentRowPrewarmer(rvStudents, getResources().getBoolean(R.bool.flat_student_rows));
+        rowPrewarmer.start();
+
+        // After a rotation or theme switch the store still has everything
+        if (store.isLoaded()) {
+            showStudents(null);
+            showRetainedOrder();
+            applyCohortMode();
+            Metrics.ACTIVITY_RECREATE.recordSince(start);
+            return;
+        }
+        // Otherwise the open class is read from disk in the background. After process death
+        // the saved blob gets back to the same place; opening another class starts at the top.
+        RosterSavedState savedState = savedInstanceState != null
+                ? RosterSavedState.fromBytes(savedInstanceState.getByteArray(STATE_ROSTER)) : null;
+        showLoading();
+        loadStudents(savedState).whenComplete((loaded, error) ->
+                runOnUiThread(() -> onStudentsLoaded(loaded, error, start)));
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (repository != null) {
+            outState.putByteArray(STATE_ROSTER, savedState().toBytes());
+        } else if (store.getPendingRestore() != null) {
+            // Still loading: pass on the state that is waiting to be restored
+            outState.putByteArray(STATE_ROSTER, store.getPendingRestore().toBytes());
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        store.savePendingChanges();
+        // Lets the next launch trust the on-disk ID index instead of rebuilding it
+        store.checkpoint();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (listChanges != null) {
+            listChanges.cancel();
+        }
+        // A running import or sync carries on in the store and reports to the next activity
+        store.setListener(null);
+        if (runningExport != null) {
+            runningExport.cancel();
+        }
+        exportExecutor.shutdown();
+        sortExecutor.shutdownNow();
+        pageExecutor.shutdownNow();
+        searchHandler.removeCallbacks(searchRunnable);
+        // The store outlives this activity and releases the roster itself once it is
+        // cleared; until then it must not call back into this activity
+        if (sections != null) {
+            sections.setListener(null);
+        }
+        if (byName != null) {
+            byName.setListener(null);
+        }
+        if (byId != null) {
+            byId.setListener(null);
+        }
     }
 
     /**
@@ -56,45 +281,853 @@ public class MainActivity extends AppCompatActivity {
         tilStudentId = findViewById(R.id.til_student_id);
         etStudentName = findViewById(R.id.et_student_name);
         etStudentId = findViewById(R.id.et_student_id);
+        etSearch = findViewById(R.id.et_search);
 
         // Buttons and other views
         btnAddStudent = findViewById(R.id.btn_add_student);
+        btnImportStudents = findViewById(R.id.btn_import_students);
+        btnExportStudents = findViewById(R.id.btn_export_students);
+        btnUndo = findViewById(R.id.btn_undo);
+        btnRedo = findViewById(R.id.btn_redo);
+        btnSort = findViewById(R.id.btn_sort);
+        btnSync = findViewById(R.id.btn_sync);
+        btnCohort = findViewById(R.id.btn_cohort);
+        cardInputForm = findViewById(R.id.card_input_form);
+        tilSearch = findViewById(R.id.til_search);
         rvStudents = findViewById(R.id.rv_students);
+        layoutStudentList = findViewById(R.id.layout_student_list);
+        sectionRail = findViewById(R.id.section_rail);
         tvStudentCount = findViewById(R.id.tv_student_count);
         layoutEmptyState = findViewById(R.id.layout_empty_state);
+        layoutSelectionBar = findViewById(R.id.layout_selection_bar);
+        tvSelectionCount = findViewById(R.id.tv_selection_count);
+        btnSelectAll = findViewById(R.id.btn_select_all);
+        btnRenameSelected = findViewById(R.id.btn_rename_selected);
+        btnDeleteSelected = findViewById(R.id.btn_delete_selected);
+        btnClearSelection = findViewById(R.id.btn_clear_selection);
+        layoutLoading = findViewById(R.id.layout_loading);
+    }
+
+    /**
+     * Open the roster if needed, then replay the open class's journal on top of its last
+     * snapshot, in the background. Other classes stay on disk until they are opened.
+     */
+    private CompletableFuture<RosterViewModel.LoadedCohort> loadStudents(RosterSavedState savedState) {
+        return store.load(new File(getFilesDir(), "roster"), new File(getFilesDir(), "sync-pending"),
+                getSharedPreferences(PREFS_ROSTER, MODE_PRIVATE), savedState);
+    }
+
+    /**
+     * Show the class that finished loading. Every activity waiting for it is told; the first
+     * one still alive puts it in the store.
+     */
+    private void onStudentsLoaded(RosterViewModel.LoadedCohort loaded, Throwable error, long start) {
+        if (isDestroyed()) {
+            return;
+        }
+        if (!store.isLoaded()) {
+            useLoadedCohort(loaded, error);
+        }
+        RosterSavedState savedState = store.takePendingRestore();
+        showStudents(savedState);
+        if (savedState != null) {
+            restorePosition(savedState);
+        }
+        applyCohortMode();
+        Metrics.ROSTER_LOAD.recordSince(start);
+        for (Runnable work : afterLoad) {
+            work.run();
+        }
+        afterLoad.clear();
+    }
+
+    private void useLoadedCohort(RosterViewModel.LoadedCohort loaded, Throwable error) {
+        if (loaded == null) {
+            // The store opens an empty roster that is neither saved nor synced
+            Log.e(TAG, "Could not load saved students", error);
+            showSnackbar("Could not load saved students", true);
+        }
+        store.adopt(loaded);
+    }
+
+    /**
+     * A spinner in place of the list while the open class loads; the controls wait for it too
+     */
+    private void showLoading() {
+        layoutLoading.setVisibility(View.VISIBLE);
+        layoutStudentList.setVisibility(View.GONE);
+        layoutEmptyState.setVisibility(View.GONE);
+        btnCohort.setVisibility(View.GONE);
+        btnSync.setVisibility(View.GONE);
+        btnAddStudent.setEnabled(false);
+        btnImportStudents.setEnabled(false);
+        btnExportStudents.setEnabled(false);
+        btnSort.setEnabled(false);
+    }
+
+    /**
+     * Show the loaded class and make the controls work on it
+     */
+    private void showStudents(RosterSavedState savedState) {
+        layoutLoading.setVisibility(View.GONE);
+        btnAddStudent.setEnabled(true);
+        btnImportStudents.setEnabled(true);
+        btnExportStudents.setEnabled(true);
+        btnSort.setEnabled(true);
+        useStore();
+        if (savedState != null) {
+            restoreSelection(savedState);
+        }
+        setupSync();
+        setupRecyclerView();
+        setupSearch();
+        setupClickListeners();
+        updateStudentCount();
+        updateEmptyState();
+        if (store.isImporting()) {
+            showImportProgress();
+        }
+        if (store.isSyncing()) {
+            showSyncProgress();
+        }
+        store.setListener(jobListener);
+    }
+
+    private void useStore() {
+        repository = store.getRepository();
+        roster = store.getRoster();
+        commandLog = store.getCommandLog();
+        studentSearch = store.getStudentSearch();
+        byName = store.getByName();
+        byId = store.getById();
+        sections = store.getSections();
+        sortMode = store.getSortMode();
+        requestedSortMode = sortMode;
+    }
+
+    /**
+     * Show the order the previous activity had, with views that are already sorted
+     */
+    private void showRetainedOrder() {
+        if (byName != null) {
+            watchSortedView(byName);
+        }
+        if (byId != null) {
+            watchSortedView(byId);
+        }
+        if (sections != null) {
+            sections.setListener(this::updateSectionRail);
+        }
+        if (sortMode != SortMode.INSERTION) {
+            adapter.showList(currentList());
+        }
+        updateSectionRail();
+    }
+
+    /**
+     * Compact screen state for process death: the order, the ID of the top row and the
+     * selection. The students themselves come back from the journal.
+     */
+    private RosterSavedState savedState() {
+        String anchorId = null;
+        int anchorOffset = 0;
+        LinearLayoutManager layoutManager = (LinearLayoutManager) rvStudents.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        View row = first != RecyclerView.NO_POSITION ? layoutManager.findViewByPosition(first) : null;
+        Student student = row != null && !isFiltering() ? adapter.getStudent(first) : null;
+        if (student != null) {
+            OrientationHelper helper = OrientationHelper.createVerticalHelper(layoutManager);
+            anchorId = student.getId();
+            anchorOffset = helper.getDecoratedStart(row) - helper.getStartAfterPadding();
+        }
+        return new RosterSavedState(sortMode.name(), anchorId, anchorOffset, repository.size(), store.getSelectedIds());
+    }
+
+    private void restoreSelection(RosterSavedState state) {
+        for (String id : state.getSelectedIds()) {
+            if (repository.containsId(id)) {
+                store.getSelectedIds().add(id);
+            }
+        }
+    }
+
+    /**
+     * Go back to the saved order and top row. The order may have to be sorted first, so the
+     * scroll waits for it in applySortMode().
+     */
+    private void restorePosition(RosterSavedState state) {
+        if (state.getRosterSize() != repository.size()) {
+            Log.w(TAG, "Restored " + repository.size() + " students, " + state.getRosterSize() + " were shown");
+        }
+        pendingAnchorId = state.getAnchorId();
+        pendingAnchorOffset = state.getAnchorOffset();
+        SortMode mode;
+        try {
+            mode = SortMode.valueOf(state.getSortMode());
+        } catch (IllegalArgumentException e) {
+            mode = SortMode.INSERTION;
+        }
+        if (mode == SortMode.INSERTION) {
+            scrollToPendingAnchor();
+        } else {
+            setSortMode(mode);
+        }
+    }
+
+    private boolean scrollToPendingAnchor() {
+        String id = pendingAnchorId;
+        pendingAnchorId = null;
+        int position = id != null ? adapter.findStudentById(id) : -1;
+        if (position < 0) {
+            return false;
+        }
+        ((LinearLayoutManager) rvStudents.getLayoutManager()).scrollToPositionWithOffset(position, pendingAnchorOffset);
+        return true;
+    }
+
+    /**
+     * Queue a change for the background journal writer
+     */
+    private void persist(StudentMutation mutation) {
+        store.persist(mutation);
+    }
+
+    /**
+     * Connect the retained change tracker to the registry, if one is configured. The engine
+     * lives in the store, so only the first activity to show the class creates it.
+     */
+    private void setupSync() {
+        String url = getString(R.string.sync_server_url);
+        if (url.isEmpty() || !store.canSync()) {
+            btnSync.setVisibility(View.GONE);
+            return;
+        }
+        if (store.hasSyncEngine()) {
+            return;
+        }
+        SharedPreferences preferences = getSharedPreferences("sync", MODE_PRIVATE);
+        String clientId = preferences.getString("client_id", null);
+        if (clientId == null) {
+            clientId = UUID.randomUUID().toString();
+            preferences.edit().putString("client_id", clientId).apply();
+        }
+        store.setupSync(new HttpSyncTransport(url, clientId), preferences, new File(getFilesDir(), "sync-pending"));
+    }
+
+    /**
+     * Start a sync in the store, which carries on across a rotation
+     */
+    private void syncStudents() {
+        if (!store.hasSyncEngine() || store.isSyncing()) {
+            return;
+        }
+        store.sync();
+        showSyncProgress();
+    }
+
+    private void showSyncProgress() {
+        btnSync.setEnabled(false);
+        btnCohort.setEnabled(false);
+        syncProgress = Snackbar.make(findViewById(android.R.id.content),
+                "Syncing students...", Snackbar.LENGTH_INDEFINITE);
+        syncProgress.show();
+    }
+
+    /**
+     * Notify the list about the changes a sync pulled in; the store has already written them
+     * to the journal
+     */
+    private void onSyncApplied(SyncEngine.SyncResult result) {
+        if (result.removed.length > 0) {
+            adapter.clearSelection();
+            notifyStudents(StudentChange.Kind.REMOVED, result.removedPositions);
+        }
+        if (result.renamedPositions.length > 0) {
+            notifyStudents(StudentChange.Kind.CHANGED, result.renamedPositions);
+        }
+        if (!result.inserted.isEmpty()) {
+            notifyStudentsInserted(result.insertedStart, result.inserted.size());
+        }
+        updateUndoButtons();
+        listChanges.requestFlush();
+    }
 
-        // Initialize data
-        studentList = new ArrayList<>();
+    private void onSyncFinished(SyncEngine.SyncResult result, IOException error) {
+        if (syncProgress != null) {
+            syncProgress.dismiss();
+            syncProgress = null;
+        }
+        btnSync.setEnabled(true);
+        btnCohort.setEnabled(!store.isImporting());
+        if (error != null) {
+            showSnackbar("Could not sync students", true);
+            return;
+        }
+        String message = "Synced: " + result.pulled + " received, " + result.pushed + " sent";
+        if (result.rejected > 0) {
+            message += ", " + result.rejected + " skipped (ID used in another class)";
+        }
+        showSnackbar(message, result.rejected > 0);
     }
 
     /**
      * Setup RecyclerView with adapter and layout manager
      */
     private void setupRecyclerView() {
-        adapter = new StudentAdapter(studentList, new StudentAdapter.OnStudentClickListener() {
+        adapter = new StudentAdapter(repository, store.getSelectedIds(), new StudentAdapter.OnStudentClickListener() {
             @Override
             public void onEditClick(int position) {
-                showEditStudentDialog(position);
+                Student student = adapter.getStudent(position);
+                if (student != null) {
+                    showEditStudentDialog(student);
+                }
             }
 
             @Override
             public void onDeleteClick(int position) {
-                showDeleteConfirmationDialog(position);
+                Student student = adapter.getStudent(position);
+                if (student != null) {
+                    showDeleteConfirmationDialog(student);
+                }
+            }
+
+            @Override
+            public void onSelectionChanged(boolean selectionMode, int selectedCount) {
+                layoutSelectionBar.setVisibility(selectionMode ? View.VISIBLE : View.GONE);
+                tvSelectionCount.setText(selectedCount + " selected");
+                btnRenameSelected.setEnabled(selectedCount > 0);
+                btnDeleteSelected.setEnabled(selectedCount > 0);
             }
         });
 
+        adapter.setPrewarmer(rowPrewarmer);
+
         rvStudents.setLayoutManager(new LinearLayoutManager(this));
         rvStudents.setAdapter(adapter);
+        rowPrewarmer.fillPoolWhenReady(rvStudents);
+        // Row changes reach the list once per frame, and the count and empty state with them
+        listChanges = new FrameChangeDispatcher(rvStudents, adapter, () -> {
+            updateStudentCount();
+            updateEmptyState();
+        });
+        adapter.setChangeDispatcher(listChanges);
+        sectionHeaders = new SectionHeaderDecoration(this);
+        rvStudents.addItemDecoration(sectionHeaders);
+        sectionRail.setOnSectionSelectedListener(section -> {
+            if (sections != null && section < sections.getSectionCount()) {
+                ((LinearLayoutManager) rvStudents.getLayoutManager())
+                        .scrollToPositionWithOffset(sections.getPositionForSection(section), 0);
+            }
+        });
 
         // Add item decoration for better spacing (optional)
         // rvStudents.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
     }
 
+    /**
+     * Index the roster for search and filter the list as the user types
+     */
+    private void setupSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                onQueryChanged(s.toString().trim());
+            }
+        });
+    }
+
+    /**
+     * Debounce typing; an empty query shows the full list again right away
+     */
+    private void onQueryChanged(String query) {
+        if (query.equals(currentQuery)) {
+            return;
+        }
+        currentQuery = query;
+        searchHandler.removeCallbacks(searchRunnable);
+
+        updateSectionRail();
+        if (query.isEmpty()) {
+            studentSearch.cancelPending();
+            adapter.updateList(currentList());
+        } else {
+            searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+        }
+    }
+
+    private void runSearch() {
+        studentSearch.search(currentQuery, StudentSearch.DEFAULT_LIMIT, (query, results) ->
+                runOnUiThread(() -> {
+                    if (query.equals(currentQuery)) {
+                        adapter.updateList(results);
+                    }
+                }));
+    }
+
+    private boolean isFiltering() {
+        return !currentQuery.isEmpty();
+    }
+
+    /**
+     * Tell the adapter about inserted rows, or refresh the results while a search is shown
+     */
+    private void notifyStudentsInserted(int position, int count) {
+        if (isFiltering()) {
+            runSearch();
+        } else if (canNotifyRepositoryPositions()) {
+            listChanges.inserted(position, count);
+        }
+    }
+
+    private void notifyStudentsRemoved(int position, int count) {
+        if (isFiltering()) {
+            runSearch();
+        } else if (canNotifyRepositoryPositions()) {
+            listChanges.removed(position, count);
+        }
+    }
+
+    /**
+     * Report a batch change as one range notification per run of consecutive positions.
+     * Removed positions are the ones rows had before the removal; inserted and changed
+     * positions are where the rows are now.
+     */
+    private void notifyStudents(StudentChange.Kind kind, int[] sortedPositions) {
+        if (isFiltering()) {
+            runSearch();
+            return;
+        }
+        if (!canNotifyRepositoryPositions()) {
+            return;
+        }
+        int[] runs = PositionRuns.of(sortedPositions);
+        if (runs.length / 2 > MAX_RANGE_NOTIFICATIONS) {
+            listChanges.reset();
+            return;
+        }
+
+        if (kind == StudentChange.Kind.REMOVED) {
+            // Back to front, so earlier runs keep their positions
+            for (int i = runs.length - 2; i >= 0; i -= 2) {
+                listChanges.removed(runs[i], runs[i + 1]);
+            }
+        } else {
+            for (int i = 0; i < runs.length; i += 2) {
+                if (kind == StudentChange.Kind.INSERTED) {
+                    listChanges.inserted(runs[i], runs[i + 1]);
+                } else {
+                    listChanges.renamed(runs[i], runs[i + 1]);
+                }
+            }
+        }
+    }
+
+    private void notifyStudentChanged(int position, boolean nameChanged, boolean idChanged) {
+        if (isFiltering()) {
+            runSearch();
+        } else if (canNotifyRepositoryPositions()) {
+            listChanges.edited(position, nameChanged, idChanged);
+        }
+    }
+
+    /**
+     * Check if a change at repository positions can be passed to the list as it is. Sorted
+     * views report their own changes. Right after a search is cleared the list may still show
+     * its results while the diff back to the full list runs; the full list is shown at once
+     * instead, since the diff no longer lines up with the roster.
+     */
+    private boolean canNotifyRepositoryPositions() {
+        if (adapter.isShowing(repository.asList())) {
+            return true;
+        }
+        if (!isSorted() && !store.isShowingAllCohorts()) {
+            adapter.showList(repository.asList());
+        }
+        return false;
+    }
+
+    /**
+     * Check if a sorted view is shown. It reports its own changes to the adapter,
+     * since repository positions do not match its rows.
+     */
+    private boolean isSorted() {
+        return sortMode != SortMode.INSERTION;
+    }
+
+    /**
+     * The full list in the current sort order
+     */
+    private List<Student> currentList() {
+        switch (sortMode) {
+            case NAME:
+                return byName;
+            case ID_ASCENDING:
+            case ID_DESCENDING:
+                return byId;
+            default:
+                return repository.asList();
+        }
+    }
+
+    private void watchSortedView(SortedStudentView view) {
+        view.setListener(new SortedStudentView.Listener() {
+            @Override
+            public void onInserted(int position) {
+                if (adapter.isShowing(view)) {
+                    adapter.collapseAll();
+                    listChanges.inserted(position, 1);
+                    refreshSectionHeaders(view);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                if (adapter.isShowing(view)) {
+                    adapter.collapseAll();
+                    listChanges.removed(position, 1);
+                    refreshSectionHeaders(view);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                if (adapter.isShowing(view)) {
+                    adapter.collapseAll();
+                    listChanges.moved(fromPosition, toPosition);
+                    refreshSectionHeaders(view);
+                }
+            }
+
+            @Override
+            public void onChanged(int position) {
+                if (adapter.isShowing(view)) {
+                    listChanges.edited(position, true, true);
+                }
+            }
+
+            @Override
+            public void onReset() {
+                if (adapter.isShowing(view)) {
+                    adapter.showList(view);
+                }
+            }
+        });
+    }
+
+    /**
+     * Let the user open another class, every class at once, or a new class
+     */
+    private void showCohortDialog() {
+        List<String> cohorts = store.getCohortRoster().getCohorts();
+        String[] labels = new String[cohorts.size() + 2];
+        for (int i = 0; i < cohorts.size(); i++) {
+            labels[i] = cohortLabel(cohorts.get(i));
+        }
+        labels[cohorts.size()] = getString(R.string.cohort_all);
+        labels[cohorts.size() + 1] = getString(R.string.cohort_new);
+        int checked = store.isShowingAllCohorts() ? cohorts.size() : cohorts.indexOf(store.getCohort());
+        new AlertDialog.Builder(this)
+                .setTitle("Open Class")
+                .setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    if (which < cohorts.size()) {
+                        openCohort(cohorts.get(which));
+                    } else if (which == cohorts.size()) {
+                        openAllCohorts();
+                    } else {
+                        showNewCohortDialog();
+                    }
+                })
+                .show();
+    }
+
+    private void showNewCohortDialog() {
+        TextInputLayout tilName = new TextInputLayout(this);
+        TextInputEditText etName = new TextInputEditText(this);
+        etName.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_WORDS);
+        tilName.addView(etName);
+        tilName.setHint("Class Name");
+
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(50, 30, 50, 10);
+        layout.addView(tilName);
+
+        new AlertDialog.Builder(this)
+                .setTitle("New Class")
+                .setView(layout)
+                .setPositiveButton("Create", (dialog, which) -> {
+                    String name = etName.getText().toString().trim();
+                    if (name.isEmpty()) {
+                        showSnackbar("Class name is required", true);
+                        return;
+                    }
+                    openCohort(name);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Open one class. Only its shard is read from disk, if it is not loaded already; the
+     * activity is recreated around it so nothing built on the previous class is kept.
+     */
+    private void openCohort(String cohort) {
+        if (cohort.equals(store.getCohort())) {
+            if (store.isShowingAllCohorts()) {
+                store.showOpenCohort();
+                applyCohortMode();
+            }
+            return;
+        }
+        store.switchCohort(cohort, getSharedPreferences(PREFS_ROSTER, MODE_PRIVATE));
+        recreate();
+    }
+
+    /**
+     * List the students of every class together. Shards not loaded yet are read in parallel.
+     */
+    private void openAllCohorts() {
+        Snackbar progress = Snackbar.make(findViewById(android.R.id.content),
+                "Loading classes...", Snackbar.LENGTH_INDEFINITE);
+        progress.show();
+        btnCohort.setEnabled(false);
+        store.getCohortRoster().loadAll().whenComplete((shards, error) -> runOnUiThread(() -> {
+            progress.dismiss();
+            btnCohort.setEnabled(true);
+            if (isDestroyed()) {
+                return;
+            }
+            if (error != null) {
+                Log.e(TAG, "Could not load every class", error);
+                showSnackbar("Could not load every class", true);
+                return;
+            }
+            store.showAllCohorts(CohortRoster.mergedView(shards));
+            applyCohortMode();
+        }));
+    }
+
+    /**
+     * Show the open class, or every class together. The list of every class is read-only,
+     * since there is no one class to add to, undo in or sort.
+     */
+    private void applyCohortMode() {
+        boolean all = store.isShowingAllCohorts();
+        btnCohort.setVisibility(store.getCohortRoster() != null ? View.VISIBLE : View.GONE);
+        btnCohort.setText(all ? getString(R.string.cohort_all) : cohortLabel(store.getCohort()));
+        int editable = all ? View.GONE : View.VISIBLE;
+        cardInputForm.setVisibility(editable);
+        tilSearch.setVisibility(editable);
+        btnUndo.setVisibility(editable);
+        btnRedo.setVisibility(editable);
+        btnSort.setVisibility(editable);
+        btnImportStudents.setVisibility(editable);
+        btnExportStudents.setVisibility(editable);
+        btnSync.setVisibility(store.hasSyncEngine() && !all ? View.VISIBLE : View.GONE);
+
+        if (all) {
+            etSearch.setText("");
+            adapter.setReadOnly(true);
+            adapter.setShowCohorts(true);
+            adapter.showPaged(pageAllStudents());
+        } else {
+            adapter.setReadOnly(false);
+            adapter.setShowCohorts(false);
+            if (!adapter.isShowing(currentList()) && !isFiltering()) {
+                adapter.showList(currentList());
+            }
+        }
+        updateSectionRail();
+        updateStudentCount();
+        updateEmptyState();
+    }
+
+    /**
+     * Page the list of every class, so rows are only looked at as they are scrolled to.
+     * Loads that finish after the list was replaced are ignored.
+     */
+    private PagedStudentList pageAllStudents() {
+        PagedStudentList[] paged = new PagedStudentList[1];
+        paged[0] = new PagedStudentList(new RosterPageSource(store.getAllStudents()), pageExecutor,
+                this::runOnUiThread, new PagedStudentList.Listener() {
+                    @Override
+                    public void onRangeLoaded(int start, int count) {
+                        if (!isDestroyed() && adapter.isShowing(paged[0])) {
+                            adapter.notifyItemRangeChanged(start, count);
+                        }
+                    }
+
+                    @Override
+                    public void onLoadFailed(Exception error) {
+                        Log.e(TAG, "Could not load students", error);
+                        if (!isDestroyed()) {
+                            showSnackbar("Could not load students", true);
+                        }
+                    }
+                });
+        return paged[0];
+    }
+
+    private String cohortLabel(String cohort) {
+        return cohort.isEmpty() ? getString(R.string.cohort_none) : cohort;
+    }
+
+    /**
+     * Let the user pick the list order
+     */
+    private void showSortDialog() {
+        SortMode[] modes = SortMode.values();
+        String[] labels = new String[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            labels[i] = modes[i].getLabel();
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Sort Students")
+                .setSingleChoiceItems(labels, requestedSortMode.ordinal(), (dialog, which) -> {
+                    dialog.dismiss();
+                    setSortMode(modes[which]);
+                })
+                .show();
+    }
+
+    /**
+     * Show the list in another order. The first switch to an order sorts the roster off the
+     * main thread; after that switching is O(1).
+     */
+    private void setSortMode(SortMode mode) {
+        requestedSortMode = mode;
+        boolean byNameMissing = mode == SortMode.NAME && byName == null;
+        boolean byIdMissing = (mode == SortMode.ID_ASCENDING || mode == SortMode.ID_DESCENDING) && byId == null;
+        if (!byNameMissing && !byIdMissing) {
+            applySortMode(mode);
+            return;
+        }
+
+        Snackbar progress = Snackbar.make(findViewById(android.R.id.content),
+                "Sorting students...", Snackbar.LENGTH_INDEFINITE);
+        progress.show();
+        SortedStudentView.create(repository, roster, byNameMissing ? StudentOrder.BY_NAME : StudentOrder.BY_ID,
+                sortExecutor, this::runOnUiThread, view -> {
+                    progress.dismiss();
+                    SortedStudentView existing = byNameMissing ? byName : byId;
+                    if (isDestroyed() || existing != null) {
+                        // Gone, or the same order was picked twice while sorting
+                        view.detach();
+                        if (isDestroyed()) {
+                            return;
+                        }
+                    } else {
+                        watchSortedView(view);
+                        if (byNameMissing) {
+                            byName = view;
+                            store.setByName(view);
+                            createSectionIndex();
+                        } else {
+                            byId = view;
+                            store.setById(view);
+                        }
+                    }
+                    // Only if no other order was picked while sorting
+                    if (requestedSortMode == mode) {
+                        applySortMode(mode);
+                    }
+                });
+    }
+
+    private void applySortMode(SortMode mode) {
+        if (mode == sortMode) {
+            return;
+        }
+        sortMode = mode;
+        store.setSortMode(mode);
+        if (byId != null) {
+            byId.setDescending(mode == SortMode.ID_DESCENDING);
+        }
+        updateSectionRail();
+        if (isFiltering()) {
+            // Search results keep their ranking; the order applies once the search is cleared
+            return;
+        }
+        adapter.showList(currentList());
+        if (!scrollToPendingAnchor()) {
+            rvStudents.scrollToPosition(0);
+        }
+    }
+
+    /**
+     * Count students per initial off the main thread; the rail shows up once it is ready
+     */
+    private void createSectionIndex() {
+        SectionIndex.create(repository, roster, sortExecutor, this::runOnUiThread, index -> {
+            if (isDestroyed()) {
+                index.detach();
+                return;
+            }
+            sections = index;
+            store.setSections(index);
+            sections.setListener(this::updateSectionRail);
+            updateSectionRail();
+        });
+    }
+
+    /**
+     * Show headers and the rail only over the full list in name order, where sections are contiguous
+     */
+    private void updateSectionRail() {
+        boolean show = sections != null && sortMode == SortMode.NAME && !isFiltering()
+                && !store.isShowingAllCohorts();
+        sectionHeaders.setIndex(show ? sections : null);
+        sectionRail.setVisibility(show ? View.VISIBLE : View.GONE);
+        sectionRail.setSections(show ? sections.getSections() : new String[0]);
+        // Keep the rows clear of the rail
+        rvStudents.setPaddingRelative(rvStudents.getPaddingStart(), rvStudents.getPaddingTop(),
+                show ? sectionRail.getLayoutParams().width : 0, rvStudents.getPaddingBottom());
+        rvStudents.invalidateItemDecorations();
+    }
+
+    /**
+     * A row moving in or out of a section can add or drop the header of the row next to it
+     */
+    private void refreshSectionHeaders(SortedStudentView view) {
+        if (view == byName && sortMode == SortMode.NAME) {
+            rvStudents.invalidateItemDecorations();
+        }
+    }
+
     /**
      * Setup click listeners for UI components
      */
     private void setupClickListeners() {
         btnAddStudent.setOnClickListener(v -> addStudent());
+        btnImportStudents.setOnClickListener(v ->
+                importLauncher.launch(new String[] {"text/csv", "text/comma-separated-values", "text/plain"}));
+        btnExportStudents.setOnClickListener(v -> showExportDialog());
+        btnUndo.setOnClickListener(v -> undo());
+        btnRedo.setOnClickListener(v -> redo());
+        btnSort.setOnClickListener(v -> showSortDialog());
+        btnSync.setOnClickListener(v -> syncStudents());
+        btnCohort.setOnClickListener(v -> showCohortDialog());
+        tvStudentCount.setOnLongClickListener(v -> {
+            // Developer hook: dump latency percentiles while metrics are on
+            if (!Metrics.REGISTRY.isEnabled()) {
+                return false;
+            }
+            dumpMetrics();
+            return true;
+        });
+        btnSelectAll.setOnClickListener(v -> adapter.selectAll());
+        btnRenameSelected.setOnClickListener(v -> showBatchRenameDialog());
+        btnDeleteSelected.setOnClickListener(v -> showBatchDeleteDialog());
+        btnClearSelection.setOnClickListener(v -> adapter.clearSelection());
 
         // Optional: Add keyboard "Done" action support
         etStudentId.setOnEditorActionListener((v, actionId, event) -> {
@@ -107,6 +1140,7 @@ public class MainActivity extends AppCompatActivity {
      * Add a new student to the list
      */
     private void addStudent() {
+        long start = Metrics.start();
         String name = etStudentName.getText().toString().trim();
         String id = etStudentId.getText().toString().trim();
 
@@ -119,71 +1153,252 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        // Check for duplicate ID
-        if (isStudentIdExists(id)) {
-            tilStudentId.setError("Student ID already exists");
-            etStudentId.requestFocus();
+        // Check for duplicate ID: in this class now, in the others in the background. This
+        // class is checked again once they answer, in case the ID was added meanwhile.
+        if (repository.containsId(id)) {
+            showIdTaken();
             return;
         }
+        whenFreeInOtherCohorts(id, () -> {
+            if (repository.containsId(id)) {
+                showIdTaken();
+            } else {
+                addCheckedStudent(name, id, start);
+            }
+        }, this::showIdTaken);
+    }
 
+    private void showIdTaken() {
+        tilStudentId.setError("Student ID already exists");
+        etStudentId.requestFocus();
+    }
+
+    private void addCheckedStudent(String name, String id, long start) {
         // Create and add student
         Student student = new Student(name, id);
-        studentList.add(student);
-        adapter.notifyItemInserted(studentList.size() - 1);
+        repository.add(student);
+        notifyStudentsInserted(repository.size() - 1, 1);
+        persist(StudentMutation.add(repository.size() - 1, student));
+        record(StudentCommand.added(repository.size() - 1, student));
 
         // Clear input fields
         clearInputFields();
 
         // Update UI
-        updateStudentCount();
-        updateEmptyState();
+        listChanges.requestFlush();
 
         // Show success message
         showSnackbar("Student added successfully", false);
 
         // Scroll to newly added item
-        rvStudents.smoothScrollToPosition(studentList.size() - 1);
+        if (!isFiltering()) {
+            int position = isSorted() ? adapter.findStudentById(id) : repository.size() - 1;
+            listChanges.flush();
+            rvStudents.smoothScrollToPosition(position);
+        }
+        Metrics.STUDENT_ADD.recordSince(start);
+    }
+
+    /**
+     * Import students from a CSV file in the background, adding accepted rows in large batches.
+     * The store runs it, so it carries on across a rotation.
+     */
+    private void importStudents(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        if (repository == null) {
+            afterLoad.add(() -> importStudents(uri));
+            return;
+        }
+        if (store.isImporting()) {
+            return;
+        }
+        // Not this activity's resolver, which the store would keep alive
+        store.importStudents(getApplicationContext().getContentResolver(), uri);
+        showImportProgress();
+    }
+
+    private void showImportProgress() {
+        btnImportStudents.setEnabled(false);
+        btnCohort.setEnabled(false);
+        importProgress = Snackbar.make(findViewById(android.R.id.content),
+                "Importing students...", Snackbar.LENGTH_INDEFINITE);
+        if (store.getImportRowsRead() > 0) {
+            importProgress.setText("Importing students... " + store.getImportRowsRead() + " rows read");
+        }
+        importProgress.show();
+    }
+
+    /**
+     * @param result null if the import failed; the rows added before the failure are still
+     *               recorded as one undoable command
+     */
+    private void onImportFinished(StudentCsvImporter.Result result, int skipped) {
+        if (importProgress != null) {
+            importProgress.dismiss();
+            importProgress = null;
+        }
+        btnImportStudents.setEnabled(true);
+        btnCohort.setEnabled(!store.isSyncing());
+        updateUndoButtons();
+        if (result == null) {
+            showSnackbar("Could not import students", true);
+        } else {
+            showImportResult(result, skipped);
+        }
+    }
+
+    private void showExportDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle("Export Students")
+                .setItems(new String[] {"CSV", "JSON"}, (dialog, which) -> {
+                    if (which == 0) {
+                        csvExportLauncher.launch("students." + StudentExporter.Format.CSV.extension);
+                    } else {
+                        jsonExportLauncher.launch("students." + StudentExporter.Format.JSON.extension);
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * Stream the current roster to a document in the background. A cancelled or failed export
+     * deletes the partial document.
+     */
+    private void exportStudents(Uri uri, StudentExporter.Format format) {
+        if (uri == null) {
+            return;
+        }
+        if (repository == null) {
+            afterLoad.add(() -> exportStudents(uri, format));
+            return;
+        }
+        List<Student> students = roster.current().getStudents();
+        StudentExporter exporter = new StudentExporter();
+        runningExport = exporter;
+        btnExportStudents.setEnabled(false);
+        Snackbar progress = Snackbar.make(findViewById(android.R.id.content),
+                "Exporting students...", Snackbar.LENGTH_INDEFINITE);
+        progress.setAction("Cancel", v -> exporter.cancel());
+        progress.show();
+
+        exportExecutor.execute(() -> {
+            StudentExporter.Result result = null;
+            try (ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "wt")) {
+                if (descriptor == null) {
+                    throw new IOException("Could not open " + uri);
+                }
+                try (FileOutputStream out = new FileOutputStream(descriptor.getFileDescriptor())) {
+                    result = exporter.export(students, format, out.getChannel(), (rows, total) ->
+                            runOnUiThread(() -> progress.setText("Exporting students... " + rows + " of " + total)));
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Export failed", e);
+            }
+
+            if (result == null || result.cancelled) {
+                try {
+                    DocumentsContract.deleteDocument(getContentResolver(), uri);
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "Could not delete incomplete export", e);
+                }
+            }
+            StudentExporter.Result finished = result;
+            runOnUiThread(() -> {
+                runningExport = null;
+                progress.dismiss();
+                btnExportStudents.setEnabled(true);
+                if (finished == null) {
+                    showSnackbar("Could not export students", true);
+                } else if (finished.cancelled) {
+                    showSnackbar("Export cancelled", false);
+                } else {
+                    showSnackbar(finished.rowsWritten + " students exported", false);
+                }
+            });
+        });
+    }
+
+    /**
+     * Summarise an import, listing the first rejected rows
+     */
+    private void showImportResult(StudentCsvImporter.Result result, int skipped) {
+        long imported = result.accepted - skipped;
+        if (result.rejected == 0 && skipped == 0) {
+            showSnackbar("Imported " + imported + " students", false);
+            return;
+        }
+
+        StringBuilder message = new StringBuilder()
+                .append("Imported ").append(imported).append(" of ").append(result.rowsRead).append(" rows.\n");
+        if (skipped > 0) {
+            message.append(skipped).append(" rows skipped: student ID already exists.\n");
+        }
+        int shown = Math.min(result.errors.size(), 20);
+        for (int i = 0; i < shown; i++) {
+            message.append('\n').append(result.errors.get(i));
+        }
+        if (result.rejected > shown) {
+            message.append("\n...and ").append(result.rejected - shown).append(" more");
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Import Finished")
+                .setMessage(message)
+                .setPositiveButton("OK", null)
+                .show();
     }
 
     /**
      * Validate user input
      */
     private boolean validateInput(String name, String id) {
+        long start = Metrics.start();
         boolean isValid = true;
 
-        if (name.isEmpty()) {
-            tilStudentName.setError("Student name is required");
-            etStudentName.requestFocus();
-            isValid = false;
-        } else if (name.length() < 2) {
-            tilStudentName.setError("Name must be at least 2 characters");
+        String nameError = StudentValidator.validateName(name);
+        if (nameError != null) {
+            tilStudentName.setError(nameError);
             etStudentName.requestFocus();
             isValid = false;
         }
 
-        if (id.isEmpty()) {
-            tilStudentId.setError("Student ID is required");
-            if (isValid) etStudentId.requestFocus();
-            isValid = false;
-        } else if (!id.matches("\\d+")) {
-            tilStudentId.setError("Student ID must contain only numbers");
+        String idError = StudentValidator.validateId(id);
+        if (idError != null) {
+            tilStudentId.setError(idError);
             if (isValid) etStudentId.requestFocus();
             isValid = false;
         }
 
+        Metrics.STUDENT_VALIDATE.recordSince(start);
         return isValid;
     }
 
     /**
-     * Check if student ID already exists
+     * Check the other classes for an ID in the background, then run {@code ifFree} or
+     * {@code ifTaken} on the main thread. The open class is the caller's to check.
      */
-    private boolean isStudentIdExists(String id) {
-        for (Student student : studentList) {
-            if (student.getId().equals(id)) {
-                return true;
-            }
+    private void whenFreeInOtherCohorts(String id, Runnable ifFree, Runnable ifTaken) {
+        CohortRoster cohorts = store.getCohortRoster();
+        if (cohorts == null) {
+            ifFree.run();
+            return;
         }
-        return false;
+        cohorts.findTakenIds(store.getCohort(), Collections.singletonList(id))
+                .whenComplete((taken, error) -> runOnUiThread(() -> {
+                    if (isDestroyed()) {
+                        return;
+                    }
+                    if (error != null) {
+                        Log.e(TAG, "Could not check other classes for " + id, error);
+                        showSnackbar("Could not check other classes", true);
+                    } else if (taken.isEmpty()) {
+                        ifFree.run();
+                    } else {
+                        ifTaken.run();
+                    }
+                }));
     }
 
     /**
@@ -203,9 +1418,7 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Show edit student dialog
      */
-    private void showEditStudentDialog(int position) {
-        Student student = studentList.get(position);
-
+    private void showEditStudentDialog(Student student) {
         // Create input fields for dialog
         TextInputLayout tilName = new TextInputLayout(this);
         TextInputEditText etName = new TextInputEditText(this);
@@ -234,37 +1447,60 @@ public class MainActivity extends AppCompatActivity {
                     String newName = etName.getText().toString().trim();
                     String newId = etId.getText().toString().trim();
 
-                    if (validateEditInput(newName, newId, position)) {
-                        student.setName(newName);
-                        student.setId(newId);
-                        adapter.notifyItemChanged(position);
-                        showSnackbar("Student updated successfully", false);
+                    int position = repository.indexOf(student.getId());
+                    if (position == -1 || !validateEditInput(newName, newId, position)) {
+                        return;
+                    }
+                    if (newId.equals(student.getId())) {
+                        editStudent(student, newName, newId);
+                    } else {
+                        // A new ID must not be taken in another class either
+                        whenFreeInOtherCohorts(newId, () -> editStudent(student, newName, newId),
+                                () -> showSnackbar("Student ID already exists", true));
                     }
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
+    private void editStudent(Student student, String newName, String newId) {
+        // Resolve the position now; the list may have changed while the dialog was open, or
+        // while other classes were checked
+        int position = repository.indexOf(student.getId());
+        if (position == -1 || !validateEditInput(newName, newId, position)) {
+            return;
+        }
+        long start = Metrics.start();
+        String oldName = student.getName();
+        String oldId = student.getId();
+        repository.update(position, newName, newId);
+        persist(StudentMutation.update(oldId, newName, newId));
+        record(StudentCommand.edited(oldName, oldId, newName, newId));
+        notifyStudentChanged(position, !oldName.equals(newName), !oldId.equals(newId));
+        Metrics.STUDENT_EDIT.recordSince(start);
+        showSnackbar("Student updated successfully", false);
+    }
+
     /**
      * Validate input for editing (similar to add but allows same ID if it's the same student)
      */
     private boolean validateEditInput(String name, String id, int currentPosition) {
-        if (name.isEmpty() || name.length() < 2) {
+        if (StudentValidator.validateName(name) != null) {
             showSnackbar("Invalid name. Name must be at least 2 characters.", true);
             return false;
         }
 
-        if (id.isEmpty() || !id.matches("\\d+")) {
+        if (StudentValidator.validateId(id) != null) {
             showSnackbar("Invalid ID. ID must contain only numbers.", true);
             return false;
         }
 
-        // Check if ID exists (but allow same student to keep their ID)
-        for (int i = 0; i < studentList.size(); i++) {
-            if (i != currentPosition && studentList.get(i).getId().equals(id)) {
-                showSnackbar("Student ID already exists", true);
-                return false;
-            }
+        // Check if ID exists in this class (but allow same student to keep their ID); other
+        // classes are checked in the background
+        int existingPosition = repository.indexOf(id);
+        if (existingPosition != -1 && existingPosition != currentPosition) {
+            showSnackbar("Student ID already exists", true);
+            return false;
         }
 
         return true;
@@ -273,26 +1509,29 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Show delete confirmation dialog
      */
-    private void showDeleteConfirmationDialog(int position) {
-        Student student = studentList.get(position);
-
+    private void showDeleteConfirmationDialog(Student student) {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Student")
                 .setMessage("Are you sure you want to delete " + student.getName() + "?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    // Store student info for undo functionality
-                    Student deletedStudent = studentList.get(position);
+                    int position = repository.indexOf(student.getId());
+                    if (position == -1) {
+                        return;
+                    }
 
                     // Remove student
-                    studentList.remove(position);
-                    adapter.notifyItemRemoved(position);
+                    long start = Metrics.start();
+                    Student deletedStudent = repository.remove(position);
+                    notifyStudentsRemoved(position, 1);
+                    persist(StudentMutation.delete(deletedStudent.getId()));
+                    record(StudentCommand.deleted(position, deletedStudent));
 
                     // Update UI
-                    updateStudentCount();
-                    updateEmptyState();
+                    listChanges.requestFlush();
+                    Metrics.STUDENT_DELETE.recordSince(start);
 
                     // Show snackbar with undo option
-                    showUndoSnackbar(deletedStudent, position);
+                    showUndoSnackbar(deletedStudent);
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -301,37 +1540,267 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Show snackbar with undo option for delete
      */
-    private void showUndoSnackbar(Student deletedStudent, int position) {
+    private void showUndoSnackbar(Student deletedStudent) {
+        StudentCommand command = commandLog.peekUndo();
         Snackbar.make(findViewById(android.R.id.content),
                         deletedStudent.getName() + " deleted", Snackbar.LENGTH_LONG)
                 .setAction("UNDO", v -> {
-                    // Restore student
-                    int insertPosition = Math.min(position, studentList.size());
-                    studentList.add(insertPosition, deletedStudent);
-                    adapter.notifyItemInserted(insertPosition);
-                    updateStudentCount();
-                    updateEmptyState();
-                    showSnackbar("Student restored", false);
+                    // Only if the delete is still the latest change; otherwise use the undo button
+                    if (commandLog.peekUndo() == command) {
+                        undo();
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * Remember an applied change so it can be undone
+     */
+    private void record(StudentCommand command) {
+        commandLog.record(command);
+        updateUndoButtons();
+    }
+
+    private void undo() {
+        if (commandLog.canUndo()) {
+            applyChange(commandLog.undo(repository), true);
+        }
+    }
+
+    private void redo() {
+        if (commandLog.canRedo()) {
+            applyChange(commandLog.redo(repository), false);
+        }
+    }
+
+    /**
+     * Notify the list and the journal about an undo or redo, with one notification per change
+     */
+    private void applyChange(StudentChange change, boolean undone) {
+        switch (change.getKind()) {
+            case INSERTED:
+            case REMOVED:
+                notifyStudents(change.getKind(), change.getPositions());
+                break;
+            case CHANGED:
+                if (change.getCount() == 1) {
+                    notifyStudentChanged(change.getFirstPosition(), change.isNameChanged(), change.isIdChanged());
+                } else {
+                    notifyStudents(change.getKind(), change.getPositions());
+                }
+                break;
+            default:
+                showSnackbar((undone ? "Could not undo" : "Could not redo") + ": the students have changed since", true);
+                updateUndoButtons();
+                return;
+        }
+
+        persist(change.toMutation());
+        listChanges.requestFlush();
+        updateUndoButtons();
+        String message = undone ? "Undone" : "Redone";
+        if (change.getCount() > 1) {
+            message += " (" + change.getCount() + " students)";
+        }
+        showSnackbar(message, false);
+    }
+
+    private void updateUndoButtons() {
+        btnUndo.setEnabled(commandLog.canUndo());
+        btnRedo.setEnabled(commandLog.canRedo());
+    }
+
+    /**
+     * Positions of the selected students that are still in the list, ascending
+     */
+    private int[] selectedPositions() {
+        Set<String> ids = adapter.getSelectedIds();
+        int[] positions = new int[ids.size()];
+        int count = 0;
+        for (String id : ids) {
+            int position = repository.indexOf(id);
+            if (position != -1) {
+                positions[count++] = position;
+            }
+        }
+        positions = Arrays.copyOf(positions, count);
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Delete every selected student in one pass, as one journal record and one undo step
+     */
+    private void showBatchDeleteDialog() {
+        int[] positions = selectedPositions();
+        if (positions.length == 0) {
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Delete Students")
+                .setMessage("Are you sure you want to delete " + positions.length + " students?")
+                .setPositiveButton("Delete", (dialog, which) -> {
+                    // Recheck: the list may have changed while the dialog was open
+                    int[] current = selectedPositions();
+                    if (current.length == 0) {
+                        return;
+                    }
+                    Student[] removed = repository.removeAll(current);
+                    List<StudentMutation> mutations = new ArrayList<>(removed.length);
+                    for (Student student : removed) {
+                        mutations.add(StudentMutation.delete(student.getId()));
+                    }
+
+                    adapter.clearSelection();
+                    notifyStudents(StudentChange.Kind.REMOVED, current);
+                    persist(StudentMutation.batch(mutations));
+                    record(StudentCommand.deletedAll(current, removed));
+                    listChanges.requestFlush();
+                    showSnackbar(removed.length + " students deleted", false);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Find and replace text in the names of every selected student
+     */
+    private void showBatchRenameDialog() {
+        if (selectedPositions().length == 0) {
+            return;
+        }
+
+        TextInputLayout tilFind = new TextInputLayout(this);
+        TextInputEditText etFind = new TextInputEditText(this);
+        etFind.setInputType(InputType.TYPE_CLASS_TEXT);
+        tilFind.addView(etFind);
+        tilFind.setHint("Find");
+
+        TextInputLayout tilReplace = new TextInputLayout(this);
+        TextInputEditText etReplace = new TextInputEditText(this);
+        etReplace.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_WORDS);
+        tilReplace.addView(etReplace);
+        tilReplace.setHint("Replace with");
+
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(50, 30, 50, 10);
+        layout.addView(tilFind);
+        layout.addView(tilReplace);
+
+        new AlertDialog.Builder(this)
+                .setTitle("Rename Students")
+                .setView(layout)
+                .setPositiveButton("Rename", (dialog, which) -> {
+                    String find = etFind.getText().toString();
+                    String replace = etReplace.getText().toString();
+                    if (find.isEmpty()) {
+                        showSnackbar("Enter the text to find", true);
+                        return;
+                    }
+                    renameSelected(find, replace);
                 })
+                .setNegativeButton("Cancel", null)
                 .show();
     }
 
+    private void renameSelected(String find, String replace) {
+        int[] positions = selectedPositions();
+        String[] ids = new String[positions.length];
+        String[] oldNames = new String[positions.length];
+        String[] newNames = new String[positions.length];
+        int[] renamed = new int[positions.length];
+        int count = 0;
+        int invalid = 0;
+        for (int position : positions) {
+            Student student = repository.get(position);
+            String newName = student.getName().replace(find, replace).trim();
+            if (newName.equals(student.getName())) {
+                continue;
+            }
+            if (StudentValidator.validateName(newName) != null) {
+                invalid++;
+                continue;
+            }
+            ids[count] = student.getId();
+            oldNames[count] = student.getName();
+            newNames[count] = newName;
+            renamed[count++] = position;
+        }
+        if (count == 0) {
+            showSnackbar(invalid > 0 ? "Renaming would leave names too short" : "No names matched", true);
+            return;
+        }
+
+        List<StudentMutation> mutations = new ArrayList<>(count);
+        repository.beginBatch();
+        try {
+            for (int i = 0; i < count; i++) {
+                repository.update(renamed[i], newNames[i], ids[i]);
+                mutations.add(StudentMutation.update(ids[i], newNames[i], ids[i]));
+            }
+        } finally {
+            repository.endBatch();
+        }
+
+        adapter.clearSelection();
+        notifyStudents(StudentChange.Kind.CHANGED, Arrays.copyOf(renamed, count));
+        persist(StudentMutation.batch(mutations));
+        record(StudentCommand.renamedAll(Arrays.copyOf(ids, count), Arrays.copyOf(oldNames, count),
+                Arrays.copyOf(newNames, count)));
+        String message = count + " students renamed";
+        if (invalid > 0) {
+            message += ", " + invalid + " skipped: name would be too short";
+        }
+        showSnackbar(message, false);
+    }
+
     /**
      * Update the student count display
      */
     private void updateStudentCount() {
-        tvStudentCount.setText(String.valueOf(studentList.size()));
+        tvStudentCount.setText(String.valueOf(shownRosterSize()));
+        Metrics.LIST_SIZE.set(shownRosterSize());
+    }
+
+    /**
+     * Students in the open class, or in every class while they are listed together
+     */
+    private int shownRosterSize() {
+        return store.isShowingAllCohorts() ? store.getAllStudents().size() : repository.size();
+    }
+
+    /**
+     * Write the metrics report to the log and to metrics.txt in the app's files directory,
+     * then start counting afresh
+     */
+    private void dumpMetrics() {
+        StringBuilder report = new StringBuilder();
+        try {
+            Metrics.REGISTRY.dump(report);
+        } catch (IOException e) {
+            // Appending to a StringBuilder does not fail
+        }
+        Log.i(METRICS_TAG, "\n" + report);
+        File file = new File(getFilesDir(), "metrics.txt");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(report.toString());
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write metrics", e);
+        }
+        Metrics.REGISTRY.reset();
+        showSnackbar("Metrics written to " + file.getName(), false);
     }
 
     /**
      * Update empty state visibility
      */
     private void updateEmptyState() {
-        if (studentList.isEmpty()) {
-            rvStudents.setVisibility(View.GONE);
+        if (shownRosterSize() == 0) {
+            layoutStudentList.setVisibility(View.GONE);
             layoutEmptyState.setVisibility(View.VISIBLE);
         } else {
-            rvStudents.setVisibility(View.VISIBLE);
+            layoutStudentList.setVisibility(View.VISIBLE);
             layoutEmptyState.setVisibility(View.GONE);
         }
     }
@@ -355,10 +1824,12 @@ public class MainActivity extends AppCompatActivity {
      */
     @Override
     public void onBackPressed() {
-        if (studentList.size() > 0) {
+        if (adapter.isSelectionMode()) {
+            adapter.clearSelection();
+        } else if (!repository.isEmpty()) {
             new AlertDialog.Builder(this)
                     .setTitle("Exit App")
-                    .setMessage("Are you sure you want to exit? You have " + studentList.size() + " students in your list.")
+                    .setMessage("Are you sure you want to exit? You have " + repository.size() + " students in your list.")
                     .setPositiveButton("Exit", (dialog, which) -> super.onBackPressed())
                     .setNegativeButton("Stay", null)
                     .show();
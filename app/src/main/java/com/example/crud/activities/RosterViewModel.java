@@ -0,0 +1,755 @@
+package com.example.crud.activities;
+
+import android.content.ContentResolver;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.ViewModel;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.history.StudentCommand;
+import com.example.crud.history.StudentCommandLog;
+import com.example.crud.io.StudentCsvImporter;
+import com.example.crud.models.Student;
+import com.example.crud.persistence.CohortRoster;
+import com.example.crud.persistence.JournalWriter;
+import com.example.crud.persistence.RosterSavedState;
+import com.example.crud.persistence.StudentMutation;
+import com.example.crud.search.StudentSearch;
+import com.example.crud.sort.SectionIndex;
+import com.example.crud.sort.SortMode;
+import com.example.crud.sort.SortedStudentView;
+import com.example.crud.sync.ChangeTracker;
+import com.example.crud.sync.SyncEngine;
+import com.example.crud.sync.SyncTransport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The roster and everything that follows it, kept across activity recreation. A rotation or
+ * theme switch hands the same objects to the new {@link MainActivity}, so nothing is loaded,
+ * copied, indexed or sorted again and recreation takes the same time for any roster size.
+ *
+ * None of these objects may hold on to an activity: whatever listens to them from the
+ * activity is detached in {@link MainActivity#onDestroy()}.
+ *
+ * The fields from {@code repository} on belong to the open class. Opening another class
+ * releases them and builds them afresh from that class's shard; the shards already loaded
+ * stay loaded.
+ *
+ * Imports and syncs run here too, so a rotation neither aborts them nor loses their undo
+ * step: the store changes the repository, the journal and the undo history, and tells
+ * whichever activity is attached as its {@link Listener}.
+ */
+public class RosterViewModel extends ViewModel {
+
+    private static final String TAG = "RosterViewModel";
+    // In the roster preferences: the class the next launch opens
+    private static final String KEY_COHORT = "cohort";
+
+    // Closes the rosters of cleared stores, which waits for their journal writers. Lives as
+    // long as the process, so the close finishes after the activity is gone and does not
+    // hold up the main thread.
+    private static final ExecutorService CLOSER = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "roster-close"));
+
+    /**
+     * What the attached activity shows of a running import or sync. Called on the main thread.
+     * Without an activity the list changes are dropped, since the next one lists the
+     * repository afresh, and the outcome waits for it.
+     */
+    interface Listener {
+        void onImportProgress(long rowsRead);
+
+        /** The import appended {@code count} students at {@code start} */
+        void onStudentsImported(int start, int count);
+
+        /** @param result null if the import failed */
+        void onImportFinished(StudentCsvImporter.Result result, int skipped);
+
+        /** A sync changed the repository; the list has to follow */
+        void onSyncApplied(SyncEngine.SyncResult result);
+
+        /** @param error null if the sync succeeded */
+        void onSyncFinished(SyncEngine.SyncResult result, IOException error);
+
+        void onSaveFailed();
+    }
+
+    // Every class's shard; opened by the first load()
+    private CohortRoster cohorts;
+    private String cohort = Student.NO_COHORT;
+    // The open class while it is read in the background; null once the fields below are set
+    private CompletableFuture<LoadedCohort> loading;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+    // Screen state saved before process death, restored once the roster is loaded
+    private RosterSavedState pendingRestore;
+    // Students of every class, while they are listed together; null otherwise
+    private List<Student> allStudents;
+
+    // Set by adopt() for the open class once it is loaded; null until then
+    private StudentRepository repository;
+    private VersionedRoster roster;
+    private CohortRoster.Shard shard;
+    private StudentCommandLog commandLog;
+    private ChangeTracker changeTracker;
+    private StudentSearch studentSearch;
+    // Sync with the central registry, set up by the first activity to show the open class
+    private SyncEngine syncEngine;
+    private SharedPreferences syncPreferences;
+    private File syncPending;
+
+    // Built on demand when an order is first picked
+    private SortedStudentView byName, byId;
+    private SectionIndex sections;
+    private SortMode sortMode = SortMode.INSERTION;
+
+    // Shared with the adapter, which changes it in place
+    private final Set<String> selectedIds = new HashSet<>();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean cleared;
+    // Posts to the main thread, unless the store has been cleared by then
+    private final Executor main = task -> mainHandler.post(() -> {
+        if (!cleared) {
+            task.run();
+        }
+    });
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+    private Listener listener;
+    // Outcomes that finished with no activity attached
+    private final List<Consumer<Listener>> undelivered = new ArrayList<>();
+
+    private boolean importing;
+    private long importRowsRead;
+    // Rows added by the running import, recorded as one undoable command when it finishes
+    private List<Student> importedStudents = new ArrayList<>();
+    private int[] importedPositions = new int[0];
+
+    /**
+     * What {@link #load} reads from disk in the background
+     */
+    static final class LoadedCohort {
+        final CohortRoster cohorts;
+        final String cohort;
+        final CohortRoster.Shard shard;
+        // Null for a class, which is not synced
+        final ChangeTracker changeTracker;
+
+        LoadedCohort(CohortRoster cohorts, String cohort, CohortRoster.Shard shard, ChangeTracker changeTracker) {
+            this.cohorts = cohorts;
+            this.cohort = cohort;
+            this.shard = shard;
+            this.changeTracker = changeTracker;
+        }
+    }
+
+    /**
+     * Read the open class in the background, unless that is under way already, opening the
+     * roster in {@code directory} first if this store has none. {@code savedState} is the
+     * screen saved before process death; it is kept for {@link #takePendingRestore()} only
+     * when the roster is opened afresh, since opening another class starts at the top.
+     */
+    CompletableFuture<LoadedCohort> load(File directory, File syncPending, SharedPreferences preferences,
+                                         RosterSavedState savedState) {
+        if (loading != null) {
+            return loading;
+        }
+        CohortRoster opened = cohorts;
+        String openCohort = cohort;
+        if (opened == null) {
+            pendingRestore = savedState;
+        }
+        loading = CompletableFuture.supplyAsync(() -> {
+            CohortRoster cohorts = opened;
+            try {
+                if (cohorts == null) {
+                    // A store cleared just before may still be flushing its journals
+                    awaitRostersClosed();
+                    cohorts = CohortRoster.open(directory);
+                }
+                String cohort = opened != null ? openCohort : preferences.getString(KEY_COHORT, Student.NO_COHORT);
+                CohortRoster.Shard shard = cohorts.load(cohort);
+                // The registry only knows students in no class
+                ChangeTracker changeTracker = cohort.isEmpty() ? readChangeTracker(syncPending) : null;
+                return new LoadedCohort(cohorts, cohort, shard, changeTracker);
+            } catch (IOException e) {
+                if (opened == null && cohorts != null) {
+                    try {
+                        cohorts.close();
+                    } catch (IOException closeError) {
+                        e.addSuppressed(closeError);
+                    }
+                }
+                throw new UncheckedIOException(e);
+            }
+        }, loader);
+        return loading;
+    }
+
+    /**
+     * Changes not yet pushed, kept in sync-pending across restarts
+     */
+    private static ChangeTracker readChangeTracker(File pending) {
+        ChangeTracker changeTracker = new ChangeTracker();
+        if (pending.exists()) {
+            try (InputStream in = new FileInputStream(pending)) {
+                changeTracker.readFrom(in);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not read pending sync changes", e);
+            }
+        }
+        return changeTracker;
+    }
+
+    /**
+     * Make the class that finished loading the open class, with everything built on it.
+     * With null, because it could not be read, an empty roster is opened that is neither
+     * saved nor synced, so it cannot overwrite the real one.
+     */
+    void adopt(LoadedCohort loaded) {
+        loading = null;
+        StudentRepository repository;
+        if (loaded != null) {
+            cohorts = loaded.cohorts;
+            cohort = loaded.cohort;
+            shard = loaded.shard;
+            repository = loaded.shard.getRepository();
+        } else {
+            repository = new StudentRepository();
+        }
+        this.repository = repository;
+        roster = new VersionedRoster(repository);
+        commandLog = new StudentCommandLog();
+        if (loaded != null && loaded.changeTracker != null) {
+            // After the journal replay, so restored students are not counted as new
+            repository.addListener(loaded.changeTracker);
+            changeTracker = loaded.changeTracker;
+        }
+        studentSearch = new StudentSearch();
+        studentSearch.attach(repository);
+    }
+
+    boolean isLoaded() {
+        return repository != null;
+    }
+
+    /**
+     * The screen state waiting to be restored, without taking it; null if there is none
+     */
+    RosterSavedState getPendingRestore() {
+        return pendingRestore;
+    }
+
+    /**
+     * The screen state to restore once the class is shown; returned only once
+     */
+    RosterSavedState takePendingRestore() {
+        RosterSavedState savedState = pendingRestore;
+        pendingRestore = null;
+        return savedState;
+    }
+
+    StudentRepository getRepository() {
+        return repository;
+    }
+
+    VersionedRoster getRoster() {
+        return roster;
+    }
+
+    StudentCommandLog getCommandLog() {
+        return commandLog;
+    }
+
+    StudentSearch getStudentSearch() {
+        return studentSearch;
+    }
+
+    Set<String> getSelectedIds() {
+        return selectedIds;
+    }
+
+    /**
+     * Every class's shard; null until the first class is loaded, or if it could not be
+     */
+    CohortRoster getCohortRoster() {
+        return cohorts;
+    }
+
+    String getCohort() {
+        return cohort;
+    }
+
+    /**
+     * Let go of the open class and everything built on it, and remember {@code cohort} as
+     * the class the next {@link #load} reads, here and, through {@code preferences}, after
+     * a restart
+     */
+    void switchCohort(String cohort, SharedPreferences preferences) {
+        preferences.edit().putString(KEY_COHORT, cohort).apply();
+        releaseCohort();
+        this.cohort = cohort;
+    }
+
+    /**
+     * List the students of every class together, read-only, until {@link #showOpenCohort()}
+     */
+    void showAllCohorts(List<Student> students) {
+        allStudents = students;
+    }
+
+    void showOpenCohort() {
+        allStudents = null;
+    }
+
+    boolean isShowingAllCohorts() {
+        return allStudents != null;
+    }
+
+    /**
+     * Students of every class, while they are listed together; null otherwise
+     */
+    List<Student> getAllStudents() {
+        return allStudents;
+    }
+
+    SortMode getSortMode() {
+        return sortMode;
+    }
+
+    void setSortMode(SortMode sortMode) {
+        this.sortMode = sortMode;
+    }
+
+    SortedStudentView getByName() {
+        return byName;
+    }
+
+    /**
+     * Keep the name-ordered view; it is detached when the class is released
+     */
+    void setByName(SortedStudentView byName) {
+        this.byName = byName;
+    }
+
+    SortedStudentView getById() {
+        return byId;
+    }
+
+    void setById(SortedStudentView byId) {
+        this.byId = byId;
+    }
+
+    SectionIndex getSections() {
+        return sections;
+    }
+
+    void setSections(SectionIndex sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Make the ID index durable in the background, so the next launch can trust it
+     */
+    void checkpoint() {
+        if (cohorts != null) {
+            cohorts.checkpoint().exceptionally(e -> {
+                Log.e(TAG, "Could not save the student ID index", e);
+                return null;
+            });
+        }
+    }
+
+    boolean isImporting() {
+        return importing;
+    }
+
+    long getImportRowsRead() {
+        return importRowsRead;
+    }
+
+    /**
+     * True for the class that is synced with the registry, once loaded
+     */
+    boolean canSync() {
+        return changeTracker != null;
+    }
+
+    boolean hasSyncEngine() {
+        return syncEngine != null;
+    }
+
+    boolean isSyncing() {
+        return syncEngine != null && syncEngine.isRunning();
+    }
+
+    /**
+     * Attach the activity showing the store, or detach it with null. An attached activity
+     * hears at once about the outcomes it missed.
+     */
+    void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null) {
+            for (Consumer<Listener> outcome : undelivered) {
+                outcome.accept(listener);
+            }
+            undelivered.clear();
+        }
+    }
+
+    private void deliver(Consumer<Listener> outcome) {
+        if (listener != null) {
+            outcome.accept(listener);
+        } else {
+            undelivered.add(outcome);
+        }
+    }
+
+    /**
+     * Queue a change for the background journal writer, compacting once the journal grows large
+     */
+    void persist(StudentMutation mutation) {
+        if (shard != null) {
+            JournalWriter journalWriter = shard.getJournalWriter();
+            onPersisted(journalWriter, journalWriter.submit(mutation));
+        }
+    }
+
+    /**
+     * Queue many changes as one entry of the journal writer's queue, made durable with one
+     * fsync; for imports, where a batch can hold thousands of rows
+     */
+    private void persistAll(List<StudentMutation> mutations) {
+        if (shard != null) {
+            JournalWriter journalWriter = shard.getJournalWriter();
+            onPersisted(journalWriter, journalWriter.submitAll(mutations));
+        }
+    }
+
+    private void onPersisted(JournalWriter journalWriter, CompletableFuture<Void> written) {
+        written.exceptionally(e -> {
+            Log.e(TAG, "Could not save change", e);
+            main.execute(() -> {
+                if (listener != null) {
+                    listener.onSaveFailed();
+                }
+            });
+            return null;
+        });
+        if (journalWriter.needsCompaction()) {
+            // The snapshot is copied on the writer thread instead of here
+            VersionedRoster.Snapshot snapshot = roster.current();
+            if (snapshot.getVersion() == repository.getModificationCount()) {
+                journalWriter.compact(snapshot.getStudents());
+            } else {
+                journalWriter.compact(repository);
+            }
+        }
+    }
+
+    /**
+     * Import students from a CSV document in the background, adding accepted rows in large
+     * batches, and record them as one undoable command at the end
+     */
+    void importStudents(ContentResolver resolver, Uri uri) {
+        importing = true;
+        importRowsRead = 0;
+        CohortRoster cohorts = this.cohorts;
+        String cohort = this.cohort;
+
+        importExecutor.execute(() -> {
+            int cores = Runtime.getRuntime().availableProcessors();
+            ExecutorService validationPool = Executors.newFixedThreadPool(cores);
+            StudentCsvImporter importer = new StudentCsvImporter(validationPool, cores);
+            int[] skipped = new int[1];
+
+            try (InputStream input = resolver.openInputStream(uri)) {
+                if (input == null) {
+                    throw new IOException("Could not open " + uri);
+                }
+                Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+                StudentCsvImporter.Result result = importer.importFrom(reader, new StudentCsvImporter.Listener() {
+                    @Override
+                    public void onBatch(List<Student> students) throws InterruptedException, IOException {
+                        // Other classes are checked here, off the main thread, all at once
+                        Set<String> takenElsewhere = Collections.emptySet();
+                        if (cohorts != null) {
+                            List<String> ids = new ArrayList<>(students.size());
+                            for (Student student : students) {
+                                ids.add(student.getId());
+                            }
+                            takenElsewhere = cohorts.takenIds(cohort, ids);
+                        }
+                        Set<String> taken = takenElsewhere;
+                        // The main thread is the repository's only writer (see VersionedRoster); wait
+                        // for it so at most one batch is in flight and a slow frame slows the import
+                        // rather than queueing batches
+                        CountDownLatch applied = new CountDownLatch(1);
+                        main.execute(() -> {
+                            skipped[0] += addImportedStudents(students, taken);
+                            applied.countDown();
+                        });
+                        applied.await();
+                    }
+
+                    @Override
+                    public void onProgress(long rowsRead, long accepted, long rejected) {
+                        main.execute(() -> {
+                            importRowsRead = rowsRead;
+                            if (listener != null) {
+                                listener.onImportProgress(rowsRead);
+                            }
+                        });
+                    }
+                });
+                main.execute(() -> finishImport(result, skipped[0]));
+            } catch (IOException e) {
+                Log.e(TAG, "Import failed", e);
+                // Rows added before the failure can still be undone together
+                main.execute(() -> finishImport(null, skipped[0]));
+            } catch (InterruptedException e) {
+                // Only when the store is cleared
+                Thread.currentThread().interrupt();
+            } finally {
+                validationPool.shutdown();
+            }
+        });
+    }
+
+    /**
+     * Append a validated batch in one repository batch. Returns how many rows were skipped
+     * because their ID is already in this class, or in {@code takenElsewhere}, the IDs other
+     * classes have.
+     */
+    private int addImportedStudents(List<Student> students, Set<String> takenElsewhere) {
+        int start = repository.size();
+        List<Student> accepted = new ArrayList<>(students.size());
+        Set<String> batchIds = new HashSet<>();
+        for (Student student : students) {
+            String id = student.getId();
+            if (!takenElsewhere.contains(id) && !repository.containsId(id) && batchIds.add(id)) {
+                accepted.add(student);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return students.size();
+        }
+
+        // One repository batch, so sorted views refresh once instead of per row
+        repository.addAll(accepted);
+        List<StudentMutation> mutations = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Student student = accepted.get(i);
+            mutations.add(StudentMutation.add(start + i, student));
+            if (importedStudents.size() == importedPositions.length) {
+                importedPositions = Arrays.copyOf(importedPositions, Math.max(16, importedPositions.length * 2));
+            }
+            importedPositions[importedStudents.size()] = start + i;
+            importedStudents.add(student);
+        }
+        persistAll(mutations);
+        if (listener != null) {
+            listener.onStudentsImported(start, accepted.size());
+        }
+        return students.size() - accepted.size();
+    }
+
+    private void finishImport(StudentCsvImporter.Result result, int skipped) {
+        if (!importedStudents.isEmpty()) {
+            commandLog.record(StudentCommand.addedAll(
+                    Arrays.copyOf(importedPositions, importedStudents.size()), importedStudents));
+        }
+        importedStudents = new ArrayList<>();
+        importedPositions = new int[0];
+        importing = false;
+        deliver(attached -> attached.onImportFinished(result, skipped));
+    }
+
+    /**
+     * Create the sync engine for the open class, once; {@code pending} keeps the changes not
+     * yet pushed across restarts
+     */
+    void setupSync(SyncTransport transport, SharedPreferences preferences, File pending) {
+        syncEngine = new SyncEngine(repository, changeTracker, transport,
+                preferences.getLong("cursor", SyncEngine.NEVER_SYNCED));
+        // Students pulled from the registry must not take an ID used in a class
+        CohortRoster cohorts = this.cohorts;
+        String cohort = this.cohort;
+        syncEngine.setIdCheck(ids -> cohorts.takenIds(cohort, ids));
+        syncPreferences = preferences;
+        syncPending = pending;
+    }
+
+    /**
+     * Pull other devices' changes and push ours; the network runs in the background and the
+     * pulled changes are applied as one batch
+     */
+    void sync() {
+        syncEngine.sync(syncExecutor, main, new SyncEngine.Callback() {
+            @Override
+            public void onSynced(SyncEngine.SyncResult result) {
+                applySyncResult(result);
+                syncPreferences.edit().putLong("cursor", syncEngine.getCursor()).apply();
+                savePendingChanges();
+                deliver(attached -> attached.onSyncFinished(result, null));
+            }
+
+            @Override
+            public void onSyncFailed(IOException error, SyncEngine.SyncResult applied) {
+                Log.e(TAG, "Sync failed", error);
+                if (applied != null) {
+                    applySyncResult(applied);
+                    syncPreferences.edit().putLong("cursor", syncEngine.getCursor()).apply();
+                }
+                deliver(attached -> attached.onSyncFinished(applied, error));
+            }
+        });
+    }
+
+    /**
+     * Write the changes a sync pulled in to the journal, and tell the list
+     */
+    private void applySyncResult(SyncEngine.SyncResult result) {
+        if (!result.changedRoster()) {
+            return;
+        }
+        List<StudentMutation> mutations = new ArrayList<>();
+        for (Student student : result.removed) {
+            mutations.add(StudentMutation.delete(student.getId()));
+        }
+        for (int position : result.renamedPositions) {
+            Student student = repository.get(position);
+            mutations.add(StudentMutation.update(student.getId(), student.getName(), student.getId()));
+        }
+        for (int i = 0; i < result.inserted.size(); i++) {
+            mutations.add(StudentMutation.add(result.insertedStart + i, result.inserted.get(i)));
+        }
+        persist(StudentMutation.batch(mutations));
+        // Undo steps hold positions from before the sync
+        commandLog.clear();
+        if (listener != null) {
+            listener.onSyncApplied(result);
+        }
+    }
+
+    /**
+     * Changes not yet pushed, kept in sync-pending across restarts
+     */
+    void savePendingChanges() {
+        if (changeTracker == null || syncPending == null) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(syncPending)) {
+            changeTracker.writeTo(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save pending sync changes", e);
+        }
+    }
+
+    /**
+     * Let go of the open class and everything built on it, before another class is opened.
+     * Its shard stays loaded in {@code cohorts}.
+     */
+    private void releaseCohort() {
+        if (!isLoaded()) {
+            return;
+        }
+        // The shard stays loaded, so nothing of this class may keep listening to it
+        studentSearch.detach(repository);
+        studentSearch.shutdown();
+        if (sections != null) {
+            sections.detach();
+        }
+        if (byName != null) {
+            byName.detach();
+        }
+        if (byId != null) {
+            byId.detach();
+        }
+        roster.detach();
+        if (changeTracker != null) {
+            repository.removeListener(changeTracker);
+        }
+        repository = null;
+        roster = null;
+        shard = null;
+        commandLog = null;
+        changeTracker = null;
+        studentSearch = null;
+        syncEngine = null;
+        syncPreferences = null;
+        syncPending = null;
+        byName = byId = null;
+        sections = null;
+        sortMode = SortMode.INSERTION;
+        allStudents = null;
+        selectedIds.clear();
+    }
+
+    @Override
+    protected void onCleared() {
+        // Nothing posted from here on reaches the released roster
+        cleared = true;
+        listener = null;
+        importExecutor.shutdownNow();
+        syncExecutor.shutdownNow();
+        releaseCohort();
+        loader.shutdown();
+        CompletableFuture<LoadedCohort> loading = this.loading;
+        CohortRoster cohorts = this.cohorts;
+        CLOSER.execute(() -> {
+            CohortRoster opened = cohorts;
+            if (loading != null) {
+                // No activity is left to take the class still loading; close what it opened
+                try {
+                    opened = loading.join().cohorts;
+                } catch (CompletionException e) {
+                    // Nothing new was left open
+                }
+            }
+            if (opened != null) {
+                try {
+                    // Waits for every class's queued writes so the next launch replays them
+                    opened.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not close roster", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait until the rosters of cleared stores are closed, before the roster directory is
+     * opened again. Called in the background.
+     */
+    private static void awaitRostersClosed() {
+        CompletableFuture.runAsync(() -> { }, CLOSER).join();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.crud.adapters;
+
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.crud.data.ChangeCoalescer;
+import com.example.crud.metrics.Metrics;
+
+/**
+ * Passes list changes to the adapter once per frame instead of as they happen. A burst of
+ * changes (a sync, an import, a batch undo) is merged by a {@link ChangeCoalescer} and reaches
+ * the list as a few range notifications, or one reset, just before the next layout pass.
+ * Whatever else depends on the changes (the count badge, the empty state) is updated once,
+ * right after.
+ *
+ * The list must not act on rows it has not been told about yet, so changes go out at once while
+ * it is scrolling, and before it handles a touch.
+ */
+public class FrameChangeDispatcher implements Choreographer.FrameCallback {
+
+    private final RecyclerView recyclerView;
+    private final StudentAdapter adapter;
+    private final Runnable onFlushed;
+    private final ChangeCoalescer pending = new ChangeCoalescer();
+    private boolean scheduled;
+
+    private final ChangeCoalescer.Target target = new ChangeCoalescer.Target() {
+        @Override
+        public void onInserted(int position, int count) {
+            adapter.notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            adapter.notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            adapter.notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            adapter.notifyItemRangeChanged(position, count, payload);
+        }
+
+        @Override
+        public void onReset() {
+            adapter.notifyDataSetChanged();
+        }
+    };
+
+    /**
+     * @param onFlushed run after each flush, to update views that follow the list's contents
+     */
+    public FrameChangeDispatcher(RecyclerView recyclerView, StudentAdapter adapter, Runnable onFlushed) {
+        this.recyclerView = recyclerView;
+        this.adapter = adapter;
+        this.onFlushed = onFlushed;
+        recyclerView.addOnItemTouchListener(new RecyclerView.SimpleOnItemTouchListener() {
+            @Override
+            public boolean onInterceptTouchEvent(@NonNull RecyclerView view, @NonNull MotionEvent event) {
+                flush();
+                return false;
+            }
+        });
+    }
+
+    public void inserted(int position, int count) {
+        pending.inserted(position, count);
+        schedule();
+    }
+
+    public void removed(int position, int count) {
+        pending.removed(position, count);
+        schedule();
+    }
+
+    public void moved(int fromPosition, int toPosition) {
+        pending.moved(fromPosition, toPosition);
+        schedule();
+    }
+
+    /**
+     * Rebind only the fields of a row that were edited
+     */
+    public void edited(int position, boolean nameChanged, boolean idChanged) {
+        if (nameChanged) {
+            pending.changed(position, 1, StudentAdapter.PAYLOAD_NAME);
+        }
+        if (idChanged) {
+            pending.changed(position, 1, StudentAdapter.PAYLOAD_ID);
+        }
+        schedule();
+    }
+
+    /**
+     * Rebind only the names of a run of rows, e.g. after a batch rename
+     */
+    public void renamed(int start, int count) {
+        pending.changed(start, count, StudentAdapter.PAYLOAD_NAME);
+        schedule();
+    }
+
+    public void reset() {
+        pending.reset();
+        schedule();
+    }
+
+    /**
+     * Run the flush callback on the next frame even though no row changed, e.g. when the
+     * roster changed outside the rows shown
+     */
+    public void requestFlush() {
+        schedule();
+    }
+
+    /**
+     * Send the pending changes now. Call before anything that reads the list's own state of
+     * its rows, or replaces what it shows.
+     */
+    public void flush() {
+        if (!scheduled) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(this);
+        doFrame(0);
+    }
+
+    /**
+     * Drop the pending frame, e.g. when the activity goes away
+     */
+    public void cancel() {
+        if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            scheduled = false;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        if (!pending.isEmpty()) {
+            Metrics.CHANGE_NOTIFICATIONS.add(pending.dispatchTo(target));
+        }
+        Metrics.CHANGE_FLUSHES.increment();
+        onFlushed.run();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+        if (recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.crud.adapters;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.crud.R;
+import com.example.crud.sort.SectionIndex;
+
+/**
+ * Draws a letter header above the first row of each section, with the current section's
+ * header pinned to the top of the list. Headers take no adapter positions; whether a row
+ * starts a section is an O(log k) lookup in the {@link SectionIndex}.
+ *
+ * Call {@link RecyclerView#invalidateItemDecorations()} after rows move between sections,
+ * since a row's header space is otherwise only measured when it is bound.
+ */
+public class SectionHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final int headerHeight;
+    private final int textStart;
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint backgroundPaint = new Paint();
+    private SectionIndex index;
+
+    public SectionHeaderDecoration(Context context) {
+        headerHeight = dp(context, 28);
+        textStart = context.getResources().getDimensionPixelSize(R.dimen.spacing_medium) + dp(context, 4);
+        textPaint.setColor(ContextCompat.getColor(context, R.color.primary_color));
+        textPaint.setFakeBoldText(true);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14,
+                context.getResources().getDisplayMetrics()));
+        backgroundPaint.setColor(ContextCompat.getColor(context, R.color.background_color));
+    }
+
+    /**
+     * Index for the list being shown, or null to draw no headers
+     */
+    public void setIndex(SectionIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view, @NonNull RecyclerView parent,
+                               @NonNull RecyclerView.State state) {
+        int position = parent.getChildAdapterPosition(view);
+        if (isSectionStart(position)) {
+            outRect.top = headerHeight;
+        } else {
+            outRect.setEmpty();
+        }
+    }
+
+    @Override
+    public void onDraw(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        if (index == null || layoutManager == null) {
+            return;
+        }
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (isSectionStart(position)) {
+                int top = layoutManager.getDecoratedTop(child) + Math.round(child.getTranslationY());
+                drawHeader(canvas, parent, index.getLabel(index.getSectionForPosition(position)), top);
+            }
+        }
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        if (index == null || layoutManager == null || parent.getChildCount() == 0) {
+            return;
+        }
+        View first = parent.getChildAt(0);
+        int position = parent.getChildAdapterPosition(first);
+        if (!isInRange(position)) {
+            return;
+        }
+        int section = index.getSectionForPosition(position);
+
+        // The next section's header pushes the pinned one up as it arrives
+        int top = 0;
+        if (section + 1 < index.getSectionCount()) {
+            int nextStart = index.getPositionForSection(section + 1);
+            for (int i = 1; i < parent.getChildCount(); i++) {
+                View child = parent.getChildAt(i);
+                if (parent.getChildAdapterPosition(child) == nextStart) {
+                    top = Math.min(0, layoutManager.getDecoratedTop(child) - headerHeight);
+                    break;
+                }
+            }
+        }
+        drawHeader(canvas, parent, index.getLabel(section), top);
+    }
+
+    private void drawHeader(Canvas canvas, RecyclerView parent, String label, int top) {
+        canvas.drawRect(parent.getPaddingLeft(), top, parent.getWidth() - parent.getPaddingRight(),
+                top + headerHeight, backgroundPaint);
+        float baseline = top + (headerHeight - textPaint.descent() - textPaint.ascent()) / 2;
+        canvas.drawText(label, parent.getPaddingLeft() + textStart, baseline, textPaint);
+    }
+
+    private boolean isSectionStart(int position) {
+        return isInRange(position) && index.isSectionStart(position);
+    }
+
+    /**
+     * Rows being added or removed can briefly fall outside the index
+     */
+    private boolean isInRange(int position) {
+        return index != null && position != RecyclerView.NO_POSITION && position < index.size();
+    }
+
+    private static int dp(Context context, int value) {
+        return Math.round(value * context.getResources().getDisplayMetrics().density);
+    }
+}
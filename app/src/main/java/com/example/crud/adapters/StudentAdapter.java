@@ -1,5 +1,7 @@
 package com.example.crud.adapters;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,41 +9,293 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.crud.R;
+import com.example.crud.data.StudentIds;
+import com.example.crud.data.StudentRepository;
+import com.example.crud.display.StudentDisplay;
+import com.example.crud.display.StudentDisplayCache;
+import com.example.crud.metrics.Metrics;
 import com.example.crud.models.Student;
+import com.example.crud.paging.PagedStudentList;
+import com.example.crud.sort.SortedStudentView;
+import com.example.crud.views.StudentRowView;
 import com.google.android.material.button.MaterialButton;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentViewHolder> {
 
+    // Updates estimated to need more edits than this are swapped in without diffing: the diff
+    // is quadratic in the number of differences, not in the length of the lists, so long lists
+    // that differ in a few rows are still diffed
+    private static final int MAX_DIFF_EDITS = 2000;
+    // Shared by all adapters; list diffs are computed here, one at a time
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Measures row text ahead of binding so bind only assigns prepared values
+    private static final ExecutorService TEXT_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-text");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // How many rows past the one being bound get their text measured in advance
+    private static final int PREPARE_AHEAD = 12;
+    private static final String LABEL_EXPANDED = "×";
+    private static final String LABEL_COLLAPSED = "⋯";
+
+    // Partial rebind payloads; a change with any of these only touches the affected views
+    static final Object PAYLOAD_EXPANSION = new Object();
+    static final Object PAYLOAD_NAME = new Object();
+    static final Object PAYLOAD_ID = new Object();
+    static final Object PAYLOAD_SELECTION = new Object();
+
+    static final int VIEW_TYPE_STUDENT = 0;
+
+    private final StudentRepository repository;
     private List<Student> studentList;
     private OnStudentClickListener listener;
     private int expandedPosition = -1; // Track which item has expanded actions
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile int diffGeneration; // Bumped on every updateList so stale diffs are dropped
+    private final StudentDisplayCache displayCache = new StudentDisplayCache();
+    private PrecomputedTextCompat.Params nameTextParams; // Taken from the first row's name view
+    private boolean flatRows;
+    private StudentRowPrewarmer prewarmer;
+    private FrameChangeDispatcher changeDispatcher;
+    private boolean showCohorts; // Rows name their class, for a list mixing classes
+    private boolean readOnly;
+
+    // Multi-select: tracked by ID so selections survive rows moving around
+    private final Set<String> selectedIds;
+    private boolean selectionMode;
 
     public interface OnStudentClickListener {
         void onEditClick(int position);
         void onDeleteClick(int position);
+
+        /**
+         * Selection mode was entered or left, or the number of selected students changed
+         */
+        default void onSelectionChanged(boolean selectionMode, int selectedCount) {
+        }
     }
 
-    public StudentAdapter(List<Student> studentList, OnStudentClickListener listener) {
-        this.studentList = studentList;
+    public StudentAdapter(StudentRepository repository, OnStudentClickListener listener) {
+        this(repository, new HashSet<>(), listener);
+    }
+
+    /**
+     * Keep the selection in a set owned by the caller, so it can outlive this adapter.
+     * A set that is not empty starts the adapter in selection mode.
+     */
+    public StudentAdapter(StudentRepository repository, Set<String> selectedIds, OnStudentClickListener listener) {
+        this.repository = repository;
+        this.studentList = repository.asList();
         this.listener = listener;
+        this.selectedIds = selectedIds;
+        setHasStableIds(true);
+        if (!selectedIds.isEmpty()) {
+            selectionMode = true;
+            dispatchSelectionChanged();
+        }
+    }
+
+    /**
+     * Draw rows with {@link StudentRowView} instead of inflating {@code item_student}.
+     * Call before the adapter is set on a list.
+     */
+    public void setFlatRows(boolean flatRows) {
+        this.flatRows = flatRows;
+    }
+
+    /**
+     * Take rows from a prewarmer before creating new ones; the row kind follows the prewarmer.
+     * Call before the adapter is set on a list.
+     */
+    public void setPrewarmer(StudentRowPrewarmer prewarmer) {
+        this.prewarmer = prewarmer;
+        this.flatRows = prewarmer.isFlatRows();
+    }
+
+    /**
+     * Changes waiting in {@code changeDispatcher} are sent before any notification the adapter
+     * makes itself, so the list always gets them in order
+     */
+    public void setChangeDispatcher(FrameChangeDispatcher changeDispatcher) {
+        this.changeDispatcher = changeDispatcher;
+    }
+
+    /**
+     * Show each student's class after the ID, e.g. while every class is listed together
+     */
+    public void setShowCohorts(boolean showCohorts) {
+        if (this.showCohorts != showCohorts) {
+            flushPendingChanges();
+            this.showCohorts = showCohorts;
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_ID);
+        }
+    }
+
+    /**
+     * Rows cannot be expanded or selected, so the students can only be looked at
+     */
+    public void setReadOnly(boolean readOnly) {
+        if (this.readOnly == readOnly) {
+            return;
+        }
+        if (readOnly) {
+            collapseAll();
+            clearSelection();
+        }
+        flushPendingChanges();
+        this.readOnly = readOnly;
+        // Shows or hides the more-actions button
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_EXPANSION);
+    }
+
+    private void flushPendingChanges() {
+        if (changeDispatcher != null) {
+            changeDispatcher.flush();
+        }
     }
 
     @NonNull
     @Override
     public StudentViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_student, parent, false);
-        return new StudentViewHolder(view);
+        long start = Metrics.start();
+        View view = prewarmer != null ? prewarmer.take() : null;
+        if (view != null) {
+            Metrics.PREWARMED_ROWS.increment();
+        } else {
+            view = createRow(parent, flatRows);
+        }
+        StudentViewHolder holder = new StudentViewHolder(view);
+        if (nameTextParams == null && holder.tvStudentName != null) {
+            // Flat rows ellipsize on draw, so they get no measuring ahead
+            nameTextParams = TextViewCompat.getTextMetricsParams(holder.tvStudentName);
+        }
+        Metrics.ADAPTER_CREATE.recordSince(start);
+        return holder;
+    }
+
+    /**
+     * A new, unbound row for the list; safe to call off the main thread
+     */
+    static View createRow(ViewGroup parent, boolean flat) {
+        if (!flat) {
+            return LayoutInflater.from(parent.getContext()).inflate(R.layout.item_student, parent, false);
+        }
+        StudentRowView row = new StudentRowView(parent.getContext());
+        // Same margins as item_student
+        RecyclerView.LayoutParams params = new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        int horizontal = parent.getResources().getDimensionPixelSize(R.dimen.spacing_medium);
+        int vertical = parent.getResources().getDimensionPixelSize(R.dimen.spacing_small);
+        params.setMargins(horizontal, vertical, horizontal, vertical);
+        row.setLayoutParams(params);
+        return row;
     }
 
     @Override
     public void onBindViewHolder(@NonNull StudentViewHolder holder, int position) {
+        long start = Metrics.start();
+        Student student = studentList.get(position);
+        if (student == null) {
+            // Paged mode: the row's page is still loading
+            holder.bindPlaceholder();
+            return;
+        }
+        holder.bind(displayCache.get(student), position);
+        prepareAhead(position);
+        Metrics.ADAPTER_BIND.recordSince(start);
+        Metrics.FULL_BINDS.increment();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull StudentViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Student student = payloads.isEmpty() ? null : studentList.get(position);
+        if (student == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        long start = Metrics.start();
+        StudentDisplay display = displayCache.get(student);
+        for (Object payload : payloads) {
+            if (payload == PAYLOAD_EXPANSION) {
+                holder.bindExpansion(position);
+            } else if (payload == PAYLOAD_SELECTION) {
+                holder.bindSelection(student);
+                holder.bindExpansion(position);
+            } else if (payload == PAYLOAD_NAME) {
+                holder.bindName(display);
+            } else if (payload == PAYLOAD_ID) {
+                holder.bindId(display);
+            } else {
+                holder.bind(display, position);
+                Metrics.ADAPTER_BIND.recordSince(start);
+                Metrics.FULL_BINDS.increment();
+                return;
+            }
+        }
+        Metrics.ADAPTER_REBIND.recordSince(start);
+        Metrics.PARTIAL_BINDS.increment();
+    }
+
+    /**
+     * Item IDs come from the student ID, so rows keep their holder across list changes.
+     * Placeholder rows of a paged list get a small negative ID that a student ID never maps to.
+     */
+    @Override
+    public long getItemId(int position) {
         Student student = studentList.get(position);
-        holder.bind(student, position);
+        if (student == null) {
+            return -2 - position;
+        }
+        return StudentIds.stableId(student.getId());
+    }
+
+    /**
+     * Measure the name text of the next few rows in the background, so that by the time
+     * they are bound the layout work is already done
+     */
+    private void prepareAhead(int position) {
+        if (nameTextParams == null || isPaged()) {
+            // Reading ahead in a paged list would move its load window
+            return;
+        }
+        int end = Math.min(position + PREPARE_AHEAD, studentList.size() - 1);
+        for (int i = position + 1; i <= end; i++) {
+            Student student = studentList.get(i);
+            if (student == null) {
+                continue;
+            }
+            StudentDisplay display = displayCache.get(student);
+            if (display.startPreparing()) {
+                PrecomputedTextCompat.Params params = nameTextParams;
+                TEXT_EXECUTOR.execute(() ->
+                        display.setPreparedName(PrecomputedTextCompat.create(display.getName(), params)));
+            }
+        }
     }
 
     @Override
@@ -53,16 +307,18 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
      * Add a new student to the list
      */
     public void addStudent(Student student) {
-        studentList.add(student);
-        notifyItemInserted(studentList.size() - 1);
+        flushPendingChanges();
+        repository.add(student);
+        notifyItemInserted(repository.size() - 1);
     }
 
     /**
      * Remove student at specific position
      */
     public void removeStudent(int position) {
-        if (position >= 0 && position < studentList.size()) {
-            studentList.remove(position);
+        if (position >= 0 && position < repository.size()) {
+            flushPendingChanges();
+            repository.remove(position);
             notifyItemRemoved(position);
 
             // Reset expanded position if needed
@@ -78,9 +334,32 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
      * Update student at specific position
      */
     public void updateStudent(int position, Student student) {
-        if (position >= 0 && position < studentList.size()) {
-            studentList.set(position, student);
-            notifyItemChanged(position);
+        if (position >= 0 && position < repository.size()) {
+            flushPendingChanges();
+            Student current = repository.get(position);
+            boolean nameChanged = !current.getName().equals(student.getName());
+            boolean idChanged = !current.getId().equals(student.getId());
+            repository.update(position, student.getName(), student.getId());
+            notifyStudentEdited(position, nameChanged, idChanged);
+        }
+    }
+
+    /**
+     * Rebind only the names of a run of rows, e.g. after a batch rename
+     */
+    public void notifyStudentsRenamed(int start, int count) {
+        notifyItemRangeChanged(start, count, PAYLOAD_NAME);
+    }
+
+    /**
+     * Rebind only the fields of a row that were edited
+     */
+    public void notifyStudentEdited(int position, boolean nameChanged, boolean idChanged) {
+        if (nameChanged) {
+            notifyItemChanged(position, PAYLOAD_NAME);
+        }
+        if (idChanged) {
+            notifyItemChanged(position, PAYLOAD_ID);
         }
     }
 
@@ -98,6 +377,7 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
      * Toggle action buttons visibility for a specific item
      */
     private void toggleActions(int position) {
+        flushPendingChanges();
         int previousExpandedPosition = expandedPosition;
 
         if (expandedPosition == position) {
@@ -108,22 +388,114 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
             expandedPosition = position;
         }
 
-        // Notify changes
+        // Notify changes; only the action row visibility needs rebinding
         if (previousExpandedPosition != -1) {
-            notifyItemChanged(previousExpandedPosition);
+            notifyItemChanged(previousExpandedPosition, PAYLOAD_EXPANSION);
         }
         if (expandedPosition != -1) {
-            notifyItemChanged(expandedPosition);
+            notifyItemChanged(expandedPosition, PAYLOAD_EXPANSION);
+        }
+    }
+
+    /**
+     * Enter selection mode with one row selected
+     */
+    public void startSelection(int position) {
+        flushPendingChanges();
+        if (!selectionMode) {
+            selectionMode = true;
+            collapseAll();
+            // Every visible row hides its more-actions button
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        }
+        toggleSelection(position);
+    }
+
+    /**
+     * Select or deselect a row. Placeholder rows of a paged list cannot be selected.
+     */
+    public void toggleSelection(int position) {
+        Student student = getStudent(position);
+        if (student == null) {
+            return;
+        }
+        flushPendingChanges();
+        if (!selectedIds.remove(student.getId())) {
+            selectedIds.add(student.getId());
+        }
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Select every student currently shown (all of them, or the search results)
+     */
+    public void selectAll() {
+        flushPendingChanges();
+        selectionMode = true;
+        if (isPaged()) {
+            // Take the IDs from the source rather than paging in every row
+            Collections.addAll(selectedIds, ((PagedStudentList) studentList).getIds());
+        } else {
+            for (Student student : studentList) {
+                selectedIds.add(student.getId());
+            }
+        }
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Leave selection mode and deselect everything
+     */
+    public void clearSelection() {
+        if (!selectionMode && selectedIds.isEmpty()) {
+            return;
+        }
+        flushPendingChanges();
+        selectionMode = false;
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        dispatchSelectionChanged();
+    }
+
+    public boolean isSelectionMode() {
+        return selectionMode;
+    }
+
+    /**
+     * IDs of the selected students
+     */
+    public Set<String> getSelectedIds() {
+        return new HashSet<>(selectedIds);
+    }
+
+    private void dispatchSelectionChanged() {
+        if (listener != null) {
+            listener.onSelectionChanged(selectionMode, selectedIds.size());
         }
     }
 
     public class StudentViewHolder extends RecyclerView.ViewHolder {
+        // A flat row draws everything itself and has no child views until it is expanded
+        private final StudentRowView row;
         private TextView tvStudentName, tvStudentId, tvStudentInitial;
         private MaterialButton btnMoreActions, btnEditStudent, btnDeleteStudent;
         private LinearLayout layoutActions;
 
         public StudentViewHolder(@NonNull View itemView) {
             super(itemView);
+            if (itemView instanceof StudentRowView) {
+                row = (StudentRowView) itemView;
+                row.setOnActionsInflatedListener(actions -> {
+                    btnEditStudent = actions.findViewById(R.id.btn_edit_student);
+                    btnDeleteStudent = actions.findViewById(R.id.btn_delete_student);
+                    setupActionClickListeners();
+                });
+                setupRowClickListeners();
+                return;
+            }
+            row = null;
             initializeViews();
             setupClickListeners();
         }
@@ -150,6 +522,11 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
                 }
             });
 
+            setupActionClickListeners();
+            setupRowClickListeners();
+        }
+
+        private void setupActionClickListeners() {
             // Edit button
             btnEditStudent.setOnClickListener(v -> {
                 int position = getAdapterPosition();
@@ -165,48 +542,99 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
                     listener.onDeleteClick(position);
                 }
             });
+        }
 
-            // Item click (tap anywhere to expand actions)
+        private void setupRowClickListeners() {
+            // Item click (tap anywhere to expand actions, or to select while selecting)
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION) {
+                if (position == RecyclerView.NO_POSITION || readOnly) {
+                    return;
+                }
+                if (selectionMode) {
+                    toggleSelection(position);
+                } else {
                     toggleActions(position);
                 }
             });
+
+            // Long press starts multi-select
+            itemView.setOnLongClickListener(v -> {
+                int position = getAdapterPosition();
+                if (position == RecyclerView.NO_POSITION || readOnly) {
+                    return false;
+                }
+                startSelection(position);
+                return true;
+            });
+        }
+
+        public void bind(StudentDisplay display, int position) {
+            // Set student information; all text was formatted ahead of time
+            bindName(display);
+            bindId(display);
+            bindSelection(studentList.get(position));
+            bindExpansion(position);
         }
 
-        public void bind(Student student, int position) {
-            // Set student information
-            tvStudentName.setText(student.getName());
-            tvStudentId.setText(formatStudentId(student.getId()));
+        void bindSelection(Student student) {
+            itemView.setActivated(selectedIds.contains(student.getId()));
+        }
+
+        void bindName(StudentDisplay display) {
+            CharSequence name = display.getNameText();
+            if (row != null) {
+                row.setName(name);
+                row.setInitial(display.getInitial());
+            } else if (name instanceof PrecomputedTextCompat) {
+                TextViewCompat.setPrecomputedText(tvStudentName, (PrecomputedTextCompat) name);
+                tvStudentInitial.setText(display.getInitial());
+            } else {
+                tvStudentName.setText(name);
+                tvStudentInitial.setText(display.getInitial());
+            }
+        }
 
-            // Set student initial (first letter of name)
-            String initial = getStudentInitial(student.getName());
-            tvStudentInitial.setText(initial);
+        void bindId(StudentDisplay display) {
+            String label = showCohorts ? display.getIdCohortLabel() : display.getIdLabel();
+            if (row != null) {
+                row.setIdLabel(label);
+            } else {
+                tvStudentId.setText(label);
+            }
+        }
 
+        void bindExpansion(int position) {
             // Handle action buttons visibility
             boolean isExpanded = (position == expandedPosition);
+            if (row != null) {
+                row.setActionsVisible(isExpanded);
+                row.setMoreVisible(!selectionMode && !readOnly);
+                row.setMoreLabel(isExpanded ? LABEL_EXPANDED : LABEL_COLLAPSED);
+                return;
+            }
             layoutActions.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
+            btnMoreActions.setVisibility(selectionMode || readOnly ? View.INVISIBLE : View.VISIBLE);
 
             // Simple visual feedback for more button
-            btnMoreActions.setText(isExpanded ? "×" : "⋯");
+            btnMoreActions.setText(isExpanded ? LABEL_EXPANDED : LABEL_COLLAPSED);
         }
 
-        /**
-         * Format student ID with "ID: " prefix
-         */
-        private String formatStudentId(String id) {
-            return "ID: " + id;
-        }
-
-        /**
-         * Get the first letter of student name for initial
-         */
-        private String getStudentInitial(String name) {
-            if (name != null && !name.isEmpty()) {
-                return name.substring(0, 1).toUpperCase();
+        public void bindPlaceholder() {
+            itemView.setActivated(false);
+            if (row != null) {
+                row.setName(itemView.getContext().getString(R.string.student_loading));
+                row.setIdLabel("");
+                row.setInitial("");
+                row.setActionsVisible(false);
+                row.setMoreLabel(LABEL_COLLAPSED);
+                return;
             }
-            return "?";
+            tvStudentName.setText(R.string.student_loading);
+            tvStudentId.setText("");
+            tvStudentInitial.setText("");
+            layoutActions.setVisibility(View.GONE);
+            btnMoreActions.setText(LABEL_COLLAPSED);
         }
     }
 
@@ -230,9 +658,13 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
      * Clear all students from the list
      */
     public void clearAllStudents() {
+        flushPendingChanges();
         int size = studentList.size();
-        studentList.clear();
+        repository.clear();
+        studentList = repository.asList();
+        displayCache.clear();
         expandedPosition = -1;
+        selectedIds.clear();
         notifyItemRangeRemoved(0, size);
     }
 
@@ -240,6 +672,18 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
      * Find student by ID
      */
     public int findStudentById(String id) {
+        if (studentList == repository.asList()) {
+            return repository.indexOf(id);
+        }
+        if (studentList instanceof SortedStudentView) {
+            return ((SortedStudentView) studentList).indexOfId(id);
+        }
+        if (isPaged()) {
+            // Scanning the rows would page in the whole source
+            return ((PagedStudentList) studentList).indexOfId(id);
+        }
+
+        // A filtered list is shown, so positions do not match the repository
         for (int i = 0; i < studentList.size(); i++) {
             if (studentList.get(i).getId().equals(id)) {
                 return i;
@@ -259,6 +703,13 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
      * Get all student IDs
      */
     public String[] getAllStudentIds() {
+        if (studentList == repository.asList()) {
+            return repository.getAllIds();
+        }
+        if (isPaged()) {
+            return ((PagedStudentList) studentList).getIds();
+        }
+
         String[] ids = new String[studentList.size()];
         for (int i = 0; i < studentList.size(); i++) {
             ids[i] = studentList.get(i).getId();
@@ -267,22 +718,199 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
     }
 
     /**
-     * Update the entire list (useful for search/filter functionality)
+     * Show a paged list that only keeps a window of the roster in memory.
+     * Rows that are not loaded yet are drawn as placeholders; call
+     * {@link #notifyItemRangeChanged(int, int)} from the list's listener when pages arrive.
      */
-    public void updateList(List<Student> newList) {
-        this.studentList = newList;
+    public void showPaged(PagedStudentList pagedList) {
+        showList(pagedList);
+        displayCache.clear();
+        selectionMode = false;
+        selectedIds.clear();
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Switch to another list without diffing, e.g. the same students in a different order.
+     * The selection is kept, since it is tracked by ID.
+     */
+    public void showList(List<Student> list) {
+        flushPendingChanges();
+        // Drop any diff still in flight for the previous list
+        diffGeneration++;
+        studentList = list;
         expandedPosition = -1;
         notifyDataSetChanged();
     }
 
+    /**
+     * Check if the adapter is currently showing this list
+     */
+    public boolean isShowing(List<Student> list) {
+        return studentList == list;
+    }
+
+    /**
+     * Check if the adapter is showing a paged list
+     */
+    public boolean isPaged() {
+        return studentList instanceof PagedStudentList;
+    }
+
+    /**
+     * Update the entire list (useful for search/filter functionality).
+     * The diff is computed in the background and dispatched as minimal change events;
+     * if another update arrives first, this one is dropped. Updates that change too many rows,
+     * and paged lists whose whole source a diff would page in, are shown as they are instead.
+     */
+    public void updateList(List<Student> newList) {
+        if (isPaged()) {
+            showList(newList);
+            return;
+        }
+        flushPendingChanges();
+        int generation = ++diffGeneration;
+
+        // Snapshot IDs and names now: students are mutable and the lists may change meanwhile.
+        // Every list shown is the roster or built from it, so its counter tells if they did.
+        int modifications = repository.getModificationCount();
+        String[] oldIds = new String[studentList.size()];
+        String[] oldNames = new String[oldIds.length];
+        snapshot(studentList, oldIds, oldNames);
+        String[] newIds = new String[newList.size()];
+        String[] newNames = new String[newIds.length];
+        snapshot(newList, newIds, newNames);
+        String expandedId = expandedPosition != -1 && expandedPosition < oldIds.length
+                ? oldIds[expandedPosition] : null;
+
+        DIFF_EXECUTOR.execute(() -> {
+            if (generation != diffGeneration) {
+                return;
+            }
+            DiffUtil.DiffResult result = estimateEdits(oldIds, newIds) <= MAX_DIFF_EDITS
+                    ? DiffUtil.calculateDiff(new StudentDiffCallback(oldIds, oldNames, newIds, newNames), true)
+                    : null;
+            int newExpanded = expandedId != null ? indexOf(newIds, expandedId) : -1;
+
+            mainHandler.post(() -> {
+                if (generation != diffGeneration) {
+                    return;
+                }
+                flushPendingChanges();
+                boolean changedMeanwhile = repository.getModificationCount() != modifications;
+                studentList = newList;
+                if (result == null || changedMeanwhile) {
+                    // Too many changes to diff, or the lists were mutated while diffing so the
+                    // result no longer lines up
+                    expandedPosition = -1;
+                    notifyDataSetChanged();
+                } else {
+                    expandedPosition = newExpanded;
+                    result.dispatchUpdatesTo(this);
+                }
+            });
+        });
+    }
+
+    private static void snapshot(List<Student> students, String[] ids, String[] names) {
+        for (int i = 0; i < ids.length; i++) {
+            Student student = students.get(i);
+            ids[i] = student.getId();
+            names[i] = student.getName();
+        }
+    }
+
+    /**
+     * Upper bound on the edits between two lists, in linear time: every removed and inserted
+     * ID, plus a removal and an insertion for each kept ID that is out of order
+     */
+    private static int estimateEdits(String[] oldIds, String[] newIds) {
+        Map<String, Integer> newPositions = new HashMap<>(newIds.length * 2);
+        for (int i = 0; i < newIds.length; i++) {
+            newPositions.put(newIds[i], i);
+        }
+        // New positions of the kept IDs, in old order; the longest increasing run stays in place
+        int[] kept = new int[oldIds.length];
+        int keptCount = 0;
+        for (String id : oldIds) {
+            Integer position = newPositions.get(id);
+            if (position != null) {
+                kept[keptCount++] = position;
+            }
+        }
+        int[] tails = new int[keptCount];
+        int inOrder = 0;
+        for (int i = 0; i < keptCount; i++) {
+            int at = Arrays.binarySearch(tails, 0, inOrder, kept[i]);
+            if (at < 0) {
+                at = -at - 1;
+            }
+            tails[at] = kept[i];
+            if (at == inOrder) {
+                inOrder++;
+            }
+        }
+        return (oldIds.length - keptCount) + (newIds.length - keptCount) + 2 * (keptCount - inOrder);
+    }
+
+    private static int indexOf(String[] ids, String id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares list snapshots: same item when the ID matches, same content when the name matches
+     */
+    private static class StudentDiffCallback extends DiffUtil.Callback {
+        private final String[] oldIds, oldNames, newIds, newNames;
+
+        StudentDiffCallback(String[] oldIds, String[] oldNames, String[] newIds, String[] newNames) {
+            this.oldIds = oldIds;
+            this.oldNames = oldNames;
+            this.newIds = newIds;
+            this.newNames = newNames;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldIds.length;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newIds.length;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldIds[oldItemPosition].equals(newIds[newItemPosition]);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldNames[oldItemPosition].equals(newNames[newItemPosition]);
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            // Same ID with different contents can only mean a renamed student
+            return PAYLOAD_NAME;
+        }
+    }
+
     /**
      * Collapse any expanded actions
      */
     public void collapseAll() {
         if (expandedPosition != -1) {
+            flushPendingChanges();
             int previousExpanded = expandedPosition;
             expandedPosition = -1;
-            notifyItemChanged(previousExpanded);
+            notifyItemChanged(previousExpanded, PAYLOAD_EXPANSION);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.example.crud.adapters;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.crud.metrics.Metrics;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates student rows in the background while the roster is still loading, so the first
+ * screen and the first fling take ready-made rows instead of inflating them on the main thread.
+ *
+ * Rows are handed out one at a time to {@link StudentAdapter#onCreateViewHolder}; once all of
+ * them exist, the rest are wrapped in holders and parked in the list's RecycledViewPool.
+ */
+public class StudentRowPrewarmer {
+
+    private static final String TAG = "StudentRowPrewarmer";
+
+    // Shared by all prewarmers; one activity's rows at a time
+    private static final ExecutorService INFLATE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-inflate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Rows a screen shows, plus as many again for the first fling and a couple for edges
+    private static final int SCREENS = 2;
+    private static final int EXTRA_ROWS = 2;
+
+    private final ViewGroup parent;
+    private final boolean flatRows;
+    private final ConcurrentLinkedQueue<View> rows = new ConcurrentLinkedQueue<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int count;
+    private boolean inflated;
+    private RecyclerView target;
+    private StudentAdapter targetAdapter;
+
+    /**
+     * @param parent   the list the rows are for; only used for its context and layout params
+     * @param flatRows create {@link com.example.crud.views.StudentRowView} rows instead of
+     *                 inflating {@code item_student}
+     */
+    public StudentRowPrewarmer(ViewGroup parent, boolean flatRows) {
+        this.parent = parent;
+        this.flatRows = flatRows;
+    }
+
+    public boolean isFlatRows() {
+        return flatRows;
+    }
+
+    /**
+     * Start creating enough rows for two screens of the list. Call on the main thread.
+     */
+    public void start() {
+        float density = parent.getResources().getDisplayMetrics().density;
+        // A row is about 72dp high plus 16dp of margins; a guess is enough to size the pool
+        int rowHeight = Math.round(88 * density);
+        int screenHeight = parent.getResources().getDisplayMetrics().heightPixels;
+        count = SCREENS * (screenHeight / rowHeight + 1) + EXTRA_ROWS;
+        int total = count;
+        INFLATE_EXECUTOR.execute(() -> {
+            long start = Metrics.start();
+            try {
+                for (int i = 0; i < total; i++) {
+                    rows.add(StudentAdapter.createRow(parent, flatRows));
+                }
+            } catch (RuntimeException e) {
+                // Whatever was not created here is inflated on demand as before
+                Log.w(TAG, "Could not create rows in the background", e);
+            }
+            Metrics.ROW_PREWARM.recordSince(start);
+            mainHandler.post(this::onInflated);
+        });
+    }
+
+    /**
+     * Take a ready row, or null if none is left or none is ready yet
+     */
+    View take() {
+        return rows.poll();
+    }
+
+    /**
+     * Put the rows the adapter has not taken into the list's pool once they are all created.
+     * Call on the main thread after the adapter is set on the list.
+     */
+    public void fillPoolWhenReady(RecyclerView recyclerView) {
+        target = recyclerView;
+        targetAdapter = (StudentAdapter) recyclerView.getAdapter();
+        if (inflated) {
+            fillPool();
+        }
+    }
+
+    private void onInflated() {
+        inflated = true;
+        if (target != null) {
+            fillPool();
+        }
+    }
+
+    private void fillPool() {
+        if (target.getAdapter() != targetAdapter) {
+            // The list moved on, e.g. the activity is going away
+            rows.clear();
+            return;
+        }
+        RecyclerView.RecycledViewPool pool = target.getRecycledViewPool();
+        pool.setMaxRecycledViews(StudentAdapter.VIEW_TYPE_STUDENT, count);
+        while (!rows.isEmpty()) {
+            // createViewHolder goes through onCreateViewHolder, which takes the next ready row
+            pool.putRecycledView(targetAdapter.createViewHolder(target, StudentAdapter.VIEW_TYPE_STUDENT));
+        }
+        target = null;
+        targetAdapter = null;
+    }
+}
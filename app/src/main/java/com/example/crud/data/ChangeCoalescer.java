@@ -0,0 +1,176 @@
+package com.example.crud.data;
+
+/**
+ * Collects list change notifications until they are dispatched, merging each one into the
+ * changes before it where possible: rows inserted or removed next to the previous insert or
+ * remove extend it, rows removed right after being inserted cancel out, and changed rows join
+ * an overlapping or adjacent change with the same payload. Notifications keep their order, so
+ * every position means what it meant when it was reported.
+ *
+ * More than {@value #MAX_OPERATIONS} notifications that cannot be merged collapse into a single
+ * reset, which costs the list one full rebind instead of a long series of range updates.
+ */
+public final class ChangeCoalescer {
+
+    /**
+     * Receives the merged notifications, e.g. a RecyclerView adapter
+     */
+    public interface Target {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count, Object payload);
+
+        /**
+         * Anything may have changed
+         */
+        void onReset();
+    }
+
+    public static final int MAX_OPERATIONS = 64;
+
+    private static final int INSERTED = 0;
+    private static final int REMOVED = 1;
+    private static final int MOVED = 2;
+    private static final int CHANGED = 3;
+
+    // One entry per pending notification; a move keeps its target position in counts
+    private final int[] kinds = new int[MAX_OPERATIONS];
+    private final int[] positions = new int[MAX_OPERATIONS];
+    private final int[] counts = new int[MAX_OPERATIONS];
+    private final Object[] payloads = new Object[MAX_OPERATIONS];
+    private int size;
+    private boolean reset;
+
+    public void inserted(int position, int count) {
+        if (reset || count <= 0) {
+            return;
+        }
+        int last = size - 1;
+        if (last >= 0 && kinds[last] == INSERTED
+                && position >= positions[last] && position <= positions[last] + counts[last]) {
+            counts[last] += count;
+            return;
+        }
+        append(INSERTED, position, count, null);
+    }
+
+    public void removed(int position, int count) {
+        if (reset || count <= 0) {
+            return;
+        }
+        int last = size - 1;
+        if (last >= 0 && kinds[last] == INSERTED
+                && position >= positions[last] && position + count <= positions[last] + counts[last]) {
+            // The rows never reached the list
+            counts[last] -= count;
+            if (counts[last] == 0) {
+                size--;
+            }
+            return;
+        }
+        if (last >= 0 && kinds[last] == REMOVED) {
+            if (position == positions[last]) {
+                counts[last] += count;
+                return;
+            }
+            if (position + count == positions[last]) {
+                positions[last] = position;
+                counts[last] += count;
+                return;
+            }
+        }
+        append(REMOVED, position, count, null);
+    }
+
+    public void moved(int fromPosition, int toPosition) {
+        if (reset || fromPosition == toPosition) {
+            return;
+        }
+        append(MOVED, fromPosition, toPosition, null);
+    }
+
+    public void changed(int position, int count, Object payload) {
+        if (reset || count <= 0) {
+            return;
+        }
+        int last = size - 1;
+        if (last >= 0 && kinds[last] == INSERTED
+                && position >= positions[last] && position + count <= positions[last] + counts[last]) {
+            // Inserted rows are bound in full anyway
+            return;
+        }
+        // Changes do not move rows, so any of the trailing changes can take this one
+        for (int i = last; i >= 0 && kinds[i] == CHANGED; i--) {
+            int end = positions[i] + counts[i];
+            if (payloads[i] == payload && position <= end && position + count >= positions[i]) {
+                positions[i] = Math.min(positions[i], position);
+                counts[i] = Math.max(end, position + count) - positions[i];
+                return;
+            }
+        }
+        append(CHANGED, position, count, payload);
+    }
+
+    public void reset() {
+        reset = true;
+        clearOperations();
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !reset;
+    }
+
+    /**
+     * Send everything collected so far to {@code target} and start afresh.
+     * Returns the number of notifications sent.
+     */
+    public int dispatchTo(Target target) {
+        if (reset) {
+            reset = false;
+            target.onReset();
+            return 1;
+        }
+        int dispatched = size;
+        for (int i = 0; i < dispatched; i++) {
+            switch (kinds[i]) {
+                case INSERTED:
+                    target.onInserted(positions[i], counts[i]);
+                    break;
+                case REMOVED:
+                    target.onRemoved(positions[i], counts[i]);
+                    break;
+                case MOVED:
+                    target.onMoved(positions[i], counts[i]);
+                    break;
+                default:
+                    target.onChanged(positions[i], counts[i], payloads[i]);
+                    break;
+            }
+        }
+        clearOperations();
+        return dispatched;
+    }
+
+    private void append(int kind, int position, int count, Object payload) {
+        if (size == MAX_OPERATIONS) {
+            reset();
+            return;
+        }
+        kinds[size] = kind;
+        positions[size] = position;
+        counts[size] = count;
+        payloads[size] = payload;
+        size++;
+    }
+
+    private void clearOperations() {
+        for (int i = 0; i < size; i++) {
+            payloads[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.crud.data;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative long keys to int values.
+ * Uses linear probing with backward-shift deletion, so there are no tombstones
+ * and lookups stay constant-time no matter how many removals happen.
+ */
+public class LongIntHashMap {
+
+    /** Returned by {@link #get(long)} when the key is not present */
+    public static final int NO_VALUE = -1;
+
+    private static final long FREE = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Get the value for a key, or {@link #NO_VALUE} if absent
+     */
+    public int get(long key) {
+        checkKey(key);
+        int slot = slotOf(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == FREE) {
+                return NO_VALUE;
+            }
+            if (current == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Check if a key is present
+     */
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Insert or replace a mapping, returning the previous value or {@link #NO_VALUE}
+     */
+    public int put(long key, int value) {
+        checkKey(key);
+        int slot = slotOf(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == FREE) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size >= resizeAt) {
+                    rehash(keys.length << 1);
+                }
+                return NO_VALUE;
+            }
+            if (current == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove a mapping, returning the removed value or {@link #NO_VALUE}
+     */
+    public int remove(long key) {
+        checkKey(key);
+        int slot = slotOf(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == FREE) {
+                return NO_VALUE;
+            }
+            if (current == key) {
+                int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copy every key into {@code target}, which must hold {@link #size()} of them, in no
+     * particular order
+     */
+    public void copyKeys(long[] target) {
+        int next = 0;
+        for (long key : keys) {
+            if (key != FREE) {
+                target[next++] = key;
+            }
+        }
+    }
+
+    /**
+     * Remove all mappings, keeping the current capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * Close the gap left at {@code slot} by moving later entries of the same probe run back
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = slotOf(keys[next]);
+            // Move the entry if its home slot is not between the gap and its current slot
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE) {
+                int slot = slotOf(key);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slotOf(long key) {
+        // Murmur3 finalizer so sequential IDs spread across the table
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkKey(long key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must be non-negative: " + key);
+        }
+    }
+}
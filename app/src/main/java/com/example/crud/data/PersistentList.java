@@ -0,0 +1,256 @@
+package com.example.crud.data;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list that is changed by making new versions: {@link #with(int, Object)},
+ * {@link #plus(int, Object)} and {@link #minus(int)} return a new list in O(log n) and leave
+ * this one untouched. The new version shares all but O(log n) nodes with the old one, so
+ * keeping many versions around costs little.
+ *
+ * It is a weight-balanced tree indexed by position. Being immutable, it can be read from any
+ * thread without locks once it has been safely published, e.g. through a volatile field.
+ */
+public final class PersistentList<T> extends AbstractList<T> {
+
+    // Weight-balance parameters (3, 2), as in Adams' trees and Haskell's Data.Map
+    private static final int DELTA = 3;
+    private static final int GAMMA = 2;
+
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null);
+
+    private static final class Node<T> {
+        final T value;
+        final Node<T> left;
+        final Node<T> right;
+        final int size;
+
+        Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Node<T> root;
+
+    private PersistentList(Node<T> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    /**
+     * A perfectly balanced list of the given elements, built in O(n)
+     */
+    public static <T> PersistentList<T> of(List<? extends T> elements) {
+        return elements.isEmpty() ? empty() : new PersistentList<>(build(elements, 0, elements.size()));
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Element at a position, O(log n)
+     */
+    @Override
+    public T get(int index) {
+        checkIndex(index, size());
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * A copy with the element at a position replaced
+     */
+    public PersistentList<T> with(int index, T value) {
+        checkIndex(index, size());
+        return new PersistentList<>(set(root, index, value));
+    }
+
+    /**
+     * A copy with an element inserted at a position; {@code size()} appends
+     */
+    public PersistentList<T> plus(int index, T value) {
+        checkIndex(index, size() + 1);
+        return new PersistentList<>(insert(root, index, value));
+    }
+
+    public PersistentList<T> plus(T value) {
+        return plus(size(), value);
+    }
+
+    /**
+     * A copy without the element at a position
+     */
+    public PersistentList<T> minus(int index) {
+        checkIndex(index, size());
+        Node<T> removed = remove(root, index);
+        return removed == null ? empty() : new PersistentList<>(removed);
+    }
+
+    /**
+     * In-order walk, O(1) amortized per element rather than O(log n) per {@link #get(int)}
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            // Path of nodes whose value and right subtree are still to come; the height of the
+            // tree is under 2.5 log2(n)
+            @SuppressWarnings("unchecked")
+            private final Node<T>[] stack =
+                    (Node<T>[]) new Node<?>[3 * (32 - Integer.numberOfLeadingZeros(size() + 1)) + 2];
+            private int top = pushLeft(root, 0);
+
+            private int pushLeft(Node<T> node, int at) {
+                while (node != null) {
+                    stack[at++] = node;
+                    node = node.left;
+                }
+                return at;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public T next() {
+                if (top == 0) {
+                    throw new NoSuchElementException();
+                }
+                Node<T> node = stack[--top];
+                top = pushLeft(node.right, top);
+                return node.value;
+            }
+        };
+    }
+
+    private static <T> Node<T> build(List<? extends T> elements, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node<>(elements.get(middle), build(elements, from, middle), build(elements, middle + 1, to));
+    }
+
+    private static <T> Node<T> set(Node<T> node, int index, T value) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(node.value, set(node.left, index, value), node.right);
+        } else if (index > leftSize) {
+            return new Node<>(node.value, node.left, set(node.right, index - leftSize - 1, value));
+        }
+        return new Node<>(value, node.left, node.right);
+    }
+
+    private static <T> Node<T> insert(Node<T> node, int index, T value) {
+        if (node == null) {
+            return new Node<>(value, null, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.value, insert(node.left, index, value), node.right);
+        }
+        return balance(node.value, node.left, insert(node.right, index - leftSize - 1, value));
+    }
+
+    private static <T> Node<T> remove(Node<T> node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.value, remove(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return balance(node.value, node.left, remove(node.right, index - leftSize - 1));
+        }
+        return glue(node.left, node.right);
+    }
+
+    /**
+     * Join two balanced subtrees whose sizes are within the balance bound of each other
+     */
+    private static <T> Node<T> glue(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.size > right.size) {
+            return balance(last(left), remove(left, left.size - 1), right);
+        }
+        return balance(first(right), left, remove(right, 0));
+    }
+
+    private static <T> T first(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.value;
+    }
+
+    private static <T> T last(Node<T> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.value;
+    }
+
+    /**
+     * Make a node, rotating once or twice if one side became too heavy after a single
+     * insert or remove
+     */
+    private static <T> Node<T> balance(T value, Node<T> left, Node<T> right) {
+        int leftSize = size(left);
+        int rightSize = size(right);
+        if (leftSize + rightSize <= 1) {
+            return new Node<>(value, left, right);
+        }
+        if (rightSize > DELTA * leftSize) {
+            if (size(right.left) < GAMMA * size(right.right)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            Node<T> middle = right.left;
+            return new Node<>(middle.value, new Node<>(value, left, middle.left),
+                    new Node<>(right.value, middle.right, right.right));
+        }
+        if (leftSize > DELTA * rightSize) {
+            if (size(left.right) < GAMMA * size(left.left)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            Node<T> middle = left.right;
+            return new Node<>(middle.value, new Node<>(left.value, left.left, middle.left),
+                    new Node<>(value, middle.right, right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+    }
+}
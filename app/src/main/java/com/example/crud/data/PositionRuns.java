@@ -0,0 +1,40 @@
+package com.example.crud.data;
+
+/**
+ * Groups sorted list positions into runs of consecutive positions, so a batch change can be
+ * reported as a few range notifications instead of one per row
+ */
+public final class PositionRuns {
+
+    private PositionRuns() {
+    }
+
+    /**
+     * Number of runs in ascending, distinct positions
+     */
+    public static int count(int[] sortedPositions) {
+        int runs = 0;
+        for (int i = 0; i < sortedPositions.length; i++) {
+            if (i == 0 || sortedPositions[i] != sortedPositions[i - 1] + 1) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Runs as {@code [start0, length0, start1, length1, ...]} in ascending order
+     */
+    public static int[] of(int[] sortedPositions) {
+        int[] runs = new int[count(sortedPositions) * 2];
+        int run = -1;
+        for (int i = 0; i < sortedPositions.length; i++) {
+            if (i == 0 || sortedPositions[i] != sortedPositions[i - 1] + 1) {
+                run++;
+                runs[run * 2] = sortedPositions[i];
+            }
+            runs[run * 2 + 1]++;
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.crud.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Map from student ID to an int (a list position, a slot, ...).
+ *
+ * Canonical numeric IDs live in a primitive {@link LongIntHashMap}; anything else
+ * (leading zeros, very long IDs) falls back to a regular map so it is still matched exactly.
+ */
+public class StudentIdMap {
+
+    public static final int NO_VALUE = LongIntHashMap.NO_VALUE;
+
+    private final LongIntHashMap numeric;
+    private final Map<String, Integer> text = new HashMap<>();
+
+    public StudentIdMap() {
+        this(16);
+    }
+
+    public StudentIdMap(int expectedSize) {
+        numeric = new LongIntHashMap(expectedSize);
+    }
+
+    /**
+     * Get the value for an ID, or {@link #NO_VALUE}
+     */
+    public int get(String id) {
+        long key = StudentIds.toKey(id);
+        if (key != StudentIds.NO_KEY) {
+            return numeric.get(key);
+        }
+        Integer value = text.get(id);
+        return value != null ? value : NO_VALUE;
+    }
+
+    public boolean containsKey(String id) {
+        return get(id) != NO_VALUE;
+    }
+
+    /**
+     * Values must be non-negative
+     */
+    public void put(String id, int value) {
+        long key = StudentIds.toKey(id);
+        if (key != StudentIds.NO_KEY) {
+            numeric.put(key, value);
+        } else {
+            text.put(id, value);
+        }
+    }
+
+    /**
+     * Remove an ID, returning its value or {@link #NO_VALUE}
+     */
+    public int remove(String id) {
+        long key = StudentIds.toKey(id);
+        if (key != StudentIds.NO_KEY) {
+            return numeric.remove(key);
+        }
+        Integer value = text.remove(id);
+        return value != null ? value : NO_VALUE;
+    }
+
+    public int size() {
+        return numeric.size() + text.size();
+    }
+
+    public void clear() {
+        numeric.clear();
+        text.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.crud.data;
+
+/**
+ * Helpers for turning digits-only student IDs into primitive keys
+ */
+public final class StudentIds {
+
+    /** Returned by {@link #toKey(String)} when an ID has no canonical numeric form */
+    public static final long NO_KEY = -1L;
+
+    // 18 digits always fit in a long without overflow checks
+    private static final int MAX_KEY_DIGITS = 18;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StudentIds() {
+    }
+
+    /**
+     * Convert an ID to its numeric key.
+     * IDs with leading zeros, non-digits or more than 18 digits return {@link #NO_KEY}
+     * so that "007" and "7" never collapse onto the same key.
+     */
+    public static long toKey(String id) {
+        if (id == null) {
+            return NO_KEY;
+        }
+        int length = id.length();
+        if (length == 0 || length > MAX_KEY_DIGITS) {
+            return NO_KEY;
+        }
+        if (length > 1 && id.charAt(0) == '0') {
+            return NO_KEY;
+        }
+
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_KEY;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Stable 64-bit identity for an ID, for use as a RecyclerView item ID.
+     * Numeric IDs map to their key (never negative); other IDs map to a hash with the top
+     * two bits set to 10, so they can never equal a numeric key or a small negative number.
+     */
+    public static long stableId(String id) {
+        long key = toKey(id);
+        if (key != NO_KEY) {
+            return key;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return (hash >>> 2) | Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.crud.data;
+
+import com.example.crud.models.Student;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Owns the student list together with a hash index from student ID to list position.
+ * Lookups, duplicate checks, appends and edits are constant-time; inserting or removing
+ * in the middle costs the same as the ArrayList shift it already implies.
+ *
+ * All changes must go through this class (not Student setters) to keep the index and
+ * any registered {@link Listener}s in sync.
+ */
+public class StudentRepository {
+
+    /**
+     * Notified after every change, on the thread that made it
+     */
+    public interface Listener {
+        void onStudentAdded(Student student);
+
+        void onStudentRemoved(Student student);
+
+        void onStudentUpdated(Student student, String oldName, String oldId);
+
+        void onStudentsCleared();
+
+        /**
+         * A batch of changes starts; the per-student callbacks that follow belong to it
+         */
+        default void onBatchStarted() {
+        }
+
+        /**
+         * The batch started by {@link #onBatchStarted()} is complete
+         */
+        default void onBatchFinished() {
+        }
+    }
+
+    private final List<Student> students;
+    private final List<Student> readOnlyStudents;
+    private final StudentIdMap positions;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private int batchDepth;
+    private int modificationCount;
+
+    public StudentRepository() {
+        this(16);
+    }
+
+    public StudentRepository(int expectedSize) {
+        students = new ArrayList<>(expectedSize);
+        readOnlyStudents = Collections.unmodifiableList(students);
+        positions = new StudentIdMap(expectedSize);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Read-only live view of the students in display order
+     */
+    public List<Student> asList() {
+        return readOnlyStudents;
+    }
+
+    public int size() {
+        return students.size();
+    }
+
+    public boolean isEmpty() {
+        return students.isEmpty();
+    }
+
+    /**
+     * Counter that changes whenever the students do, to tell if a snapshot is still current
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Mark the start of a group of changes. Listeners are told once for the outermost batch,
+     * so they can hold back per-student work until {@link #endBatch()}.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            for (Listener listener : listeners) {
+                listener.onBatchStarted();
+            }
+        }
+    }
+
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("endBatch() without beginBatch()");
+        }
+        if (--batchDepth == 0) {
+            for (Listener listener : listeners) {
+                listener.onBatchFinished();
+            }
+        }
+    }
+
+    /**
+     * Get student at specific position
+     */
+    public Student get(int position) {
+        return students.get(position);
+    }
+
+    /**
+     * Find the position of a student by ID, or -1 if not found
+     */
+    public int indexOf(String id) {
+        return positions.get(id);
+    }
+
+    /**
+     * Check if student ID exists
+     */
+    public boolean containsId(String id) {
+        return indexOf(id) != -1;
+    }
+
+    /**
+     * Find a student by ID, or null if not found
+     */
+    public Student findById(String id) {
+        int position = indexOf(id);
+        return position != -1 ? students.get(position) : null;
+    }
+
+    /**
+     * Append a student to the end of the list
+     */
+    public void add(Student student) {
+        requireNewId(student.getId());
+        students.add(student);
+        positions.put(student.getId(), students.size() - 1);
+        modificationCount++;
+        for (Listener listener : listeners) {
+            listener.onStudentAdded(student);
+        }
+    }
+
+    /**
+     * Append several students as one batch. Fails before changing anything if an ID is taken.
+     */
+    public void addAll(List<Student> added) {
+        StudentIdMap batchIds = new StudentIdMap(added.size());
+        for (int i = 0; i < added.size(); i++) {
+            String id = added.get(i).getId();
+            requireNewId(id);
+            if (batchIds.containsKey(id)) {
+                throw new IllegalArgumentException("Student ID already exists: " + id);
+            }
+            batchIds.put(id, i);
+        }
+
+        modificationCount++;
+        beginBatch();
+        try {
+            for (Student student : added) {
+                students.add(student);
+                positions.put(student.getId(), students.size() - 1);
+                for (Listener listener : listeners) {
+                    listener.onStudentAdded(student);
+                }
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Insert a student at a specific position (used by undo)
+     */
+    public void add(int position, Student student) {
+        requireNewId(student.getId());
+        students.add(position, student);
+        reindexFrom(position);
+        modificationCount++;
+        for (Listener listener : listeners) {
+            listener.onStudentAdded(student);
+        }
+    }
+
+    /**
+     * Remove student at specific position
+     */
+    public Student remove(int position) {
+        Student removed = students.remove(position);
+        positions.remove(removed.getId());
+        reindexFrom(position);
+        modificationCount++;
+        for (Listener listener : listeners) {
+            listener.onStudentRemoved(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Remove the students at the given positions in one pass.
+     * Positions must be strictly ascending. Returns the removed students in the same order.
+     */
+    public Student[] removeAll(int[] sortedPositions) {
+        int count = sortedPositions.length;
+        Student[] removed = new Student[count];
+        if (count == 0) {
+            return removed;
+        }
+        int size = students.size();
+        for (int i = 0; i < count; i++) {
+            int position = sortedPositions[i];
+            if (position < 0 || position >= size || (i > 0 && position <= sortedPositions[i - 1])) {
+                throw new IllegalArgumentException("Positions must be ascending and in range");
+            }
+        }
+
+        // Compact the survivors down over the gaps
+        int write = sortedPositions[0];
+        int next = 0;
+        for (int read = write; read < size; read++) {
+            Student student = students.get(read);
+            if (next < count && sortedPositions[next] == read) {
+                removed[next++] = student;
+                positions.remove(student.getId());
+            } else {
+                students.set(write++, student);
+            }
+        }
+        students.subList(write, size).clear();
+        reindexFrom(sortedPositions[0]);
+        modificationCount++;
+
+        beginBatch();
+        try {
+            for (Listener listener : listeners) {
+                for (Student student : removed) {
+                    listener.onStudentRemoved(student);
+                }
+            }
+        } finally {
+            endBatch();
+        }
+        return removed;
+    }
+
+    /**
+     * Insert students in one pass so that each ends up at its requested position.
+     * Positions must be ascending; ones past the end of the list append in order.
+     */
+    public void insertAll(int[] sortedPositions, Student[] inserted) {
+        int count = inserted.length;
+        if (sortedPositions.length != count) {
+            throw new IllegalArgumentException("Need one position per student");
+        }
+        if (count == 0) {
+            return;
+        }
+        StudentIdMap batchIds = new StudentIdMap(count);
+        for (int i = 0; i < count; i++) {
+            String id = inserted[i].getId();
+            requireNewId(id);
+            if (batchIds.containsKey(id)) {
+                throw new IllegalArgumentException("Student ID already exists: " + id);
+            }
+            batchIds.put(id, i);
+            if (i > 0 && sortedPositions[i] < sortedPositions[i - 1]) {
+                throw new IllegalArgumentException("Positions must be ascending");
+            }
+        }
+
+        // Merge the tail of the list with the new students from the first insert point on
+        int start = Math.max(0, Math.min(sortedPositions[0], students.size()));
+        List<Student> tail = new ArrayList<>(students.subList(start, students.size()));
+        students.subList(start, students.size()).clear();
+        int next = 0;
+        int read = 0;
+        while (next < count || read < tail.size()) {
+            boolean insertHere = next < count
+                    && (read == tail.size() || sortedPositions[next] <= students.size());
+            students.add(insertHere ? inserted[next++] : tail.get(read++));
+        }
+        reindexFrom(start);
+        modificationCount++;
+
+        beginBatch();
+        try {
+            for (Listener listener : listeners) {
+                for (Student student : inserted) {
+                    listener.onStudentAdded(student);
+                }
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Update name and ID of the student at a specific position
+     */
+    public void update(int position, String name, String id) {
+        Student student = students.get(position);
+        String oldName = student.getName();
+        String oldId = student.getId();
+        if (!oldId.equals(id)) {
+            requireNewId(id);
+            positions.remove(oldId);
+            positions.put(id, position);
+        }
+        student.setName(name);
+        student.setId(id);
+        modificationCount++;
+        for (Listener listener : listeners) {
+            listener.onStudentUpdated(student, oldName, oldId);
+        }
+    }
+
+    /**
+     * Remove all students
+     */
+    public void clear() {
+        students.clear();
+        positions.clear();
+        modificationCount++;
+        for (Listener listener : listeners) {
+            listener.onStudentsCleared();
+        }
+    }
+
+    /**
+     * Get all student IDs
+     */
+    public String[] getAllIds() {
+        String[] ids = new String[students.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = students.get(i).getId();
+        }
+        return ids;
+    }
+
+    private void requireNewId(String id) {
+        if (containsId(id)) {
+            throw new IllegalArgumentException("Student ID already exists: " + id);
+        }
+    }
+
+    private void reindexFrom(int position) {
+        for (int i = position; i < students.size(); i++) {
+            positions.put(students.get(i).getId(), i);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.crud.data;
+
+/**
+ * Validation rules shared by the add form, the edit dialog and bulk import.
+ * Each check returns an error message, or null when the value is valid.
+ */
+public final class StudentValidator {
+
+    public static final int MIN_NAME_LENGTH = 2;
+
+    private StudentValidator() {
+    }
+
+    /**
+     * Check a trimmed student name
+     */
+    public static String validateName(String name) {
+        if (name.isEmpty()) {
+            return "Student name is required";
+        }
+        if (name.length() < MIN_NAME_LENGTH) {
+            return "Name must be at least 2 characters";
+        }
+        return null;
+    }
+
+    /**
+     * Check a trimmed student ID
+     */
+    public static String validateId(String id) {
+        if (id.isEmpty()) {
+            return "Student ID is required";
+        }
+        if (!isDigits(id)) {
+            return "Student ID must contain only numbers";
+        }
+        return null;
+    }
+
+    /**
+     * Same as matching {@code \d+}, without compiling a regex per call
+     */
+    public static boolean isDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
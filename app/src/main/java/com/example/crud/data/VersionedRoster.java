@@ -0,0 +1,182 @@
+package com.example.crud.data;
+
+import com.example.crud.models.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes immutable snapshots of a repository's students for readers on other threads.
+ *
+ * The repository stays single-threaded: it is changed on one thread, which also keeps this
+ * roster in step, O(log n) per change. After each change, or once per batch, a new snapshot
+ * is published through a volatile field. Snapshots share structure with each other (see
+ * {@link PersistentList}), so publishing never copies the roster, and a reader holding one
+ * sees the same students for as long as it likes without locks or copies of its own.
+ *
+ * In the app the writing thread is the main thread, since the adapter, the sorted views and
+ * the undo history all follow the repository there. Imports and syncs read, parse, validate
+ * and check IDs in the background and only hand finished batches to it; search and export
+ * read snapshots.
+ *
+ * Students in a snapshot are frozen copies; their setters throw.
+ */
+public class VersionedRoster implements StudentRepository.Listener {
+
+    /**
+     * The students as they were at one repository modification count
+     */
+    public static final class Snapshot {
+        private final int version;
+        private final PersistentList<Student> students;
+
+        Snapshot(int version, PersistentList<Student> students) {
+            this.version = version;
+            this.students = students;
+        }
+
+        /**
+         * The repository's {@link StudentRepository#getModificationCount()} when this was taken
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * Immutable list of the students in display order
+         */
+        public List<Student> getStudents() {
+            return students;
+        }
+
+        public int size() {
+            return students.size();
+        }
+    }
+
+    private final StudentRepository repository;
+    private PersistentList<Student> working;
+    private boolean inBatch;
+    private volatile Snapshot current;
+
+    /**
+     * Copy the repository's current students, O(n), and follow its changes from then on.
+     * Call on the thread that changes the repository.
+     */
+    public VersionedRoster(StudentRepository repository) {
+        this.repository = repository;
+        working = freezeAll(repository.asList());
+        publish();
+        repository.addListener(this);
+    }
+
+    /**
+     * The latest snapshot; safe to call from any thread
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    public void detach() {
+        repository.removeListener(this);
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        // Called once the student is in place, so the repository knows its position
+        working = working.plus(repository.indexOf(student.getId()), freeze(student));
+        publishIfIdle();
+    }
+
+    @Override
+    public void onStudentRemoved(Student student) {
+        int position = firstDifference();
+        if (position < working.size() && working.get(position).getId().equals(student.getId())) {
+            working = working.minus(position);
+        } else {
+            working = freezeAll(repository.asList()); // Not expected; start over from the repository
+        }
+        publishIfIdle();
+    }
+
+    @Override
+    public void onStudentUpdated(Student student, String oldName, String oldId) {
+        working = working.with(repository.indexOf(student.getId()), freeze(student));
+        publishIfIdle();
+    }
+
+    @Override
+    public void onStudentsCleared() {
+        working = PersistentList.empty();
+        publishIfIdle();
+    }
+
+    @Override
+    public void onBatchStarted() {
+        inBatch = true;
+    }
+
+    @Override
+    public void onBatchFinished() {
+        inBatch = false;
+        publish();
+    }
+
+    /**
+     * First position where the roster and the repository disagree, O(log² n).
+     * Removal callbacks come after the removal and in list order, so the roster holds the
+     * repository's students plus the removed ones not yet dropped here, and the two agree up
+     * to the first of those.
+     */
+    private int firstDifference() {
+        int low = 0;
+        int high = Math.min(working.size(), repository.size());
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (working.get(middle).getId().equals(repository.get(middle).getId())) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void publishIfIdle() {
+        if (!inBatch) {
+            publish();
+        }
+    }
+
+    private void publish() {
+        current = new Snapshot(repository.getModificationCount(), working);
+    }
+
+    private static PersistentList<Student> freezeAll(List<Student> students) {
+        List<Student> frozen = new ArrayList<>(students.size());
+        for (Student student : students) {
+            frozen.add(freeze(student));
+        }
+        return PersistentList.of(frozen);
+    }
+
+    private static Student freeze(Student student) {
+        return new FrozenStudent(student.getName(), student.getId());
+    }
+
+    private static final class FrozenStudent extends Student {
+        FrozenStudent(String name, String id) {
+            super(name, id);
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Snapshot students are read-only");
+        }
+
+        @Override
+        public void setId(String id) {
+            throw new UnsupportedOperationException("Snapshot students are read-only");
+        }
+    }
+}
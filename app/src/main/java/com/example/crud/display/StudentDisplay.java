@@ -0,0 +1,121 @@
+package com.example.crud.display;
+
+import com.example.crud.models.Student;
+
+/**
+ * Text shown for one student row, formatted once and reused on every bind.
+ *
+ * Holds on to the exact name and ID strings it was built from, so a cheap reference
+ * comparison tells whether the student was edited since.
+ */
+public final class StudentDisplay {
+
+    static final String ID_PREFIX = "ID: ";
+    static final String UNKNOWN_INITIAL = "?";
+    static final String COHORT_SEPARATOR = " · ";
+
+    // Shared initials for ASCII letters so most rows don't allocate one
+    private static final String[] ASCII_INITIALS = new String[128];
+
+    static {
+        for (char c = 0; c < ASCII_INITIALS.length; c++) {
+            ASCII_INITIALS[c] = String.valueOf(Character.toUpperCase(c)).intern();
+        }
+    }
+
+    private final String name;
+    private final String id;
+    private final String idLabel;
+    private final String initial;
+    private final String cohort;
+    private String idCohortLabel; // Built on first use; only lists mixing classes show it
+
+    // Measured name text, filled in from a background thread once ready
+    private volatile CharSequence preparedName;
+    private boolean preparing;
+
+    StudentDisplay(String name, String id, String cohort) {
+        this.name = name;
+        this.id = id;
+        this.idLabel = formatId(id);
+        this.initial = initialOf(name);
+        this.cohort = cohort;
+    }
+
+    /**
+     * Check if this was built from the student's current name, ID and class
+     */
+    boolean matches(Student student) {
+        return student.getName() == name && student.getId() == id && student.getCohort() == cohort;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIdLabel() {
+        return idLabel;
+    }
+
+    /**
+     * ID label followed by the student's class, for lists that show several classes
+     */
+    public String getIdCohortLabel() {
+        if (idCohortLabel == null) {
+            idCohortLabel = cohort.isEmpty() ? idLabel : idLabel + COHORT_SEPARATOR + cohort;
+        }
+        return idCohortLabel;
+    }
+
+    public String getInitial() {
+        return initial;
+    }
+
+    /**
+     * Name text to show: the measured version if it is ready, the plain name otherwise
+     */
+    public CharSequence getNameText() {
+        CharSequence prepared = preparedName;
+        return prepared != null ? prepared : name;
+    }
+
+    /**
+     * Claim this display for measuring. Returns false if it is already measured or being measured.
+     * Call from the thread that owns the cache.
+     */
+    public boolean startPreparing() {
+        if (preparing || preparedName != null) {
+            return false;
+        }
+        preparing = true;
+        return true;
+    }
+
+    /**
+     * Store the measured name; may be called from any thread
+     */
+    public void setPreparedName(CharSequence preparedName) {
+        this.preparedName = preparedName;
+    }
+
+    /**
+     * Format a student ID with the "ID: " prefix
+     */
+    public static String formatId(String id) {
+        return ID_PREFIX + id;
+    }
+
+    /**
+     * Upper-case first letter of a name, or "?" for an empty name
+     */
+    public static String initialOf(String name) {
+        if (name == null || name.isEmpty()) {
+            return UNKNOWN_INITIAL;
+        }
+        char first = name.charAt(0);
+        if (first < ASCII_INITIALS.length) {
+            return ASCII_INITIALS[first];
+        }
+        return name.substring(0, Character.charCount(name.codePointAt(0))).toUpperCase();
+    }
+}
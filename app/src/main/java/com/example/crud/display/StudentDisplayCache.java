@@ -0,0 +1,73 @@
+package com.example.crud.display;
+
+import com.example.crud.models.Student;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of {@link StudentDisplay}s keyed by student instance.
+ *
+ * A hit is a map lookup and three reference comparisons, with no allocation. An entry built
+ * before the student was edited is replaced on the next lookup. Not thread-safe; use it
+ * from the UI thread.
+ */
+public class StudentDisplayCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<Student, StudentDisplay> displays;
+    private int misses;
+
+    public StudentDisplayCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StudentDisplayCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        // Student does not override equals/hashCode, so this is an identity map
+        displays = new LinkedHashMap<Student, StudentDisplay>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Student, StudentDisplay> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the display text for a student, formatting it only if missing or stale
+     */
+    public StudentDisplay get(Student student) {
+        StudentDisplay display = displays.get(student);
+        if (display == null || !display.matches(student)) {
+            misses++;
+            display = new StudentDisplay(student.getName(), student.getId(), student.getCohort());
+            displays.put(student, display);
+        }
+        return display;
+    }
+
+    /**
+     * Drop a student's cached text
+     */
+    public void invalidate(Student student) {
+        displays.remove(student);
+    }
+
+    public void clear() {
+        displays.clear();
+    }
+
+    public int size() {
+        return displays.size();
+    }
+
+    /**
+     * Number of lookups that had to format text
+     */
+    public int getMissCount() {
+        return misses;
+    }
+}
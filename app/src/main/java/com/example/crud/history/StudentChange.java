@@ -0,0 +1,139 @@
+package com.example.crud.history;
+
+import com.example.crud.models.Student;
+import com.example.crud.persistence.StudentMutation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What an undo or redo did to the repository, so the caller can notify the list and the journal
+ */
+public final class StudentChange {
+
+    public enum Kind {
+        /** Nothing applied, e.g. the student was deleted since */
+        NONE,
+        INSERTED,
+        REMOVED,
+        CHANGED
+    }
+
+    static final StudentChange NONE = new StudentChange(Kind.NONE, new int[0], new Student[0], null, false, false);
+
+    private final Kind kind;
+    private final int[] positions;
+    private final Student[] students;
+    private final String oldId;
+    private final boolean nameChanged;
+    private final boolean idChanged;
+
+    private StudentChange(Kind kind, int[] positions, Student[] students, String oldId,
+                          boolean nameChanged, boolean idChanged) {
+        this.kind = kind;
+        this.positions = positions;
+        this.students = students;
+        this.oldId = oldId;
+        this.nameChanged = nameChanged;
+        this.idChanged = idChanged;
+    }
+
+    static StudentChange inserted(int[] positions, Student[] students) {
+        return new StudentChange(Kind.INSERTED, positions, students, null, false, false);
+    }
+
+    static StudentChange removed(int[] positions, Student[] students) {
+        return new StudentChange(Kind.REMOVED, positions, students, null, false, false);
+    }
+
+    static StudentChange changed(int position, Student student, String oldId, boolean nameChanged, boolean idChanged) {
+        return new StudentChange(Kind.CHANGED, new int[] {position}, new Student[] {student}, oldId,
+                nameChanged, idChanged);
+    }
+
+    static StudentChange renamed(int[] positions, Student[] students) {
+        return new StudentChange(Kind.CHANGED, positions, students, null, true, false);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Number of rows inserted, removed or changed
+     */
+    public int getCount() {
+        return positions.length;
+    }
+
+    /**
+     * Affected positions, ascending; do not modify
+     */
+    public int[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Lowest affected position. Removed rows report positions from before the removal.
+     */
+    public int getFirstPosition() {
+        return positions.length > 0 ? positions[0] : -1;
+    }
+
+    /**
+     * Check if the affected rows form one block, so a single range notification covers them
+     */
+    public boolean isContiguous() {
+        return positions.length > 0 && positions[positions.length - 1] - positions[0] == positions.length - 1;
+    }
+
+    public boolean isNameChanged() {
+        return nameChanged;
+    }
+
+    public boolean isIdChanged() {
+        return idChanged;
+    }
+
+    /**
+     * Journal entry that records this change; batches are one record, applied all or not at all
+     */
+    public StudentMutation toMutation() {
+        List<StudentMutation> mutations = toMutations();
+        return mutations.size() == 1 ? mutations.get(0) : StudentMutation.batch(mutations);
+    }
+
+    /**
+     * Journal entries that record this change, one per row
+     */
+    public List<StudentMutation> toMutations() {
+        switch (kind) {
+            case INSERTED: {
+                List<StudentMutation> mutations = new ArrayList<>(students.length);
+                for (int i = 0; i < students.length; i++) {
+                    mutations.add(StudentMutation.add(positions[i], students[i]));
+                }
+                return mutations;
+            }
+            case REMOVED: {
+                List<StudentMutation> mutations = new ArrayList<>(students.length);
+                for (Student student : students) {
+                    mutations.add(StudentMutation.delete(student.getId()));
+                }
+                return mutations;
+            }
+            case CHANGED: {
+                List<StudentMutation> mutations = new ArrayList<>(students.length);
+                for (Student student : students) {
+                    // Renames keep IDs, so only a single edit has an old ID of its own
+                    String fromId = oldId != null ? oldId : student.getId();
+                    mutations.add(StudentMutation.update(fromId, student.getName(), student.getId()));
+                }
+                return mutations;
+            }
+            default:
+                return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.crud.history;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One undoable add, edit or delete, covering a single student or a whole batch.
+ *
+ * Only IDs, the changed fields and the positions rows had are kept, never copies of the list.
+ * Undo and redo find rows by ID, so they still work after unrelated changes have shifted
+ * positions; positions are only used to put re-inserted rows back where they were.
+ */
+public final class StudentCommand {
+
+    public static final byte TYPE_ADD = 1;
+    public static final byte TYPE_EDIT = 2;
+    public static final byte TYPE_DELETE = 3;
+    public static final byte TYPE_RENAME = 4;
+
+    // Rough heap cost of a command and of each row it holds, used for the log's memory cap
+    private static final long COMMAND_OVERHEAD_BYTES = 64;
+    private static final long ROW_OVERHEAD_BYTES = 4 + 2 * 48;
+
+    private final byte type;
+
+    // Add and delete: ascending positions with the rows that were there
+    // Rename: IDs with their old names in names and new names in newNames
+    private final int[] positions;
+    private final String[] names;
+    private final String[] ids;
+    private final String[] newNames;
+
+    // Edit: the name fields are null when the name did not change
+    private final String oldId;
+    private final String newId;
+    private final String oldName;
+    private final String newName;
+
+    private final long estimatedBytes;
+
+    private StudentCommand(byte type, int[] positions, String[] names, String[] ids, String[] newNames,
+                           String oldId, String newId, String oldName, String newName) {
+        this.type = type;
+        this.positions = positions;
+        this.names = names;
+        this.ids = ids;
+        this.newNames = newNames;
+        this.oldId = oldId;
+        this.newId = newId;
+        this.oldName = oldName;
+        this.newName = newName;
+        this.estimatedBytes = computeBytes();
+    }
+
+    /**
+     * A student was inserted at a position
+     */
+    public static StudentCommand added(int position, Student student) {
+        return rows(TYPE_ADD, new int[] {position}, new Student[] {student});
+    }
+
+    /**
+     * Students were inserted; positions are where each ended up, ascending
+     */
+    public static StudentCommand addedAll(int[] positions, List<Student> students) {
+        return rows(TYPE_ADD, positions, students.toArray(new Student[0]));
+    }
+
+    /**
+     * A student was removed from a position
+     */
+    public static StudentCommand deleted(int position, Student student) {
+        return rows(TYPE_DELETE, new int[] {position}, new Student[] {student});
+    }
+
+    /**
+     * Students were removed; positions are where each was before the removal, ascending
+     */
+    public static StudentCommand deletedAll(int[] positions, Student[] students) {
+        return rows(TYPE_DELETE, positions, students);
+    }
+
+    /**
+     * A student's name and/or ID was changed
+     */
+    public static StudentCommand edited(String oldName, String oldId, String newName, String newId) {
+        boolean nameChanged = !oldName.equals(newName);
+        return new StudentCommand(TYPE_EDIT, null, null, null, null, oldId, newId,
+                nameChanged ? oldName : null, nameChanged ? newName : null);
+    }
+
+    /**
+     * Several students were renamed at once; IDs are unchanged
+     */
+    public static StudentCommand renamedAll(String[] ids, String[] oldNames, String[] newNames) {
+        if (oldNames.length != ids.length || newNames.length != ids.length) {
+            throw new IllegalArgumentException("Need an old and a new name per student");
+        }
+        return new StudentCommand(TYPE_RENAME, null, oldNames.clone(), ids.clone(), newNames.clone(),
+                null, null, null, null);
+    }
+
+    private static StudentCommand rows(byte type, int[] positions, Student[] students) {
+        if (positions.length != students.length) {
+            throw new IllegalArgumentException("Need one position per student");
+        }
+        String[] names = new String[students.length];
+        String[] ids = new String[students.length];
+        for (int i = 0; i < students.length; i++) {
+            names[i] = students[i].getName();
+            ids[i] = students[i].getId();
+        }
+        return new StudentCommand(type, positions.clone(), names, ids, null, null, null, null, null);
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * Number of students this command touches
+     */
+    public int getRowCount() {
+        return type == TYPE_EDIT ? 1 : ids.length;
+    }
+
+    /**
+     * Approximate heap held by this command
+     */
+    long estimateBytes() {
+        return estimatedBytes;
+    }
+
+    private long computeBytes() {
+        if (type == TYPE_EDIT) {
+            return COMMAND_OVERHEAD_BYTES + 2L * (length(oldId) + length(newId) + length(oldName) + length(newName));
+        }
+        long bytes = COMMAND_OVERHEAD_BYTES;
+        for (int i = 0; i < ids.length; i++) {
+            bytes += ROW_OVERHEAD_BYTES + 2L * (names[i].length() + ids[i].length());
+            if (newNames != null) {
+                bytes += 8 + 2L * newNames[i].length();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Reverse this command
+     */
+    public StudentChange undo(StudentRepository repository) {
+        switch (type) {
+            case TYPE_ADD:
+                return removeRows(repository);
+            case TYPE_DELETE:
+                return insertRows(repository);
+            case TYPE_RENAME:
+                return rename(repository, names);
+            default:
+                return edit(repository, newId, oldId, oldName);
+        }
+    }
+
+    /**
+     * Apply this command again after it was undone
+     */
+    public StudentChange redo(StudentRepository repository) {
+        switch (type) {
+            case TYPE_ADD:
+                return insertRows(repository);
+            case TYPE_DELETE:
+                return removeRows(repository);
+            case TYPE_RENAME:
+                return rename(repository, newNames);
+            default:
+                return edit(repository, oldId, newId, newName);
+        }
+    }
+
+    private StudentChange insertRows(StudentRepository repository) {
+        // Rows whose ID was taken again in the meantime stay out
+        int[] insertPositions = new int[ids.length];
+        Student[] students = new Student[ids.length];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!repository.containsId(ids[i])) {
+                insertPositions[count] = positions[i];
+                students[count++] = new Student(names[i], ids[i]);
+            }
+        }
+        if (count == 0) {
+            return StudentChange.NONE;
+        }
+
+        if (count == 1) {
+            int position = Math.max(0, Math.min(insertPositions[0], repository.size()));
+            repository.add(position, students[0]);
+        } else {
+            repository.insertAll(Arrays.copyOf(insertPositions, count), Arrays.copyOf(students, count));
+        }
+
+        // Report where the rows actually landed
+        int[] landed = new int[count];
+        for (int i = 0; i < count; i++) {
+            landed[i] = repository.indexOf(students[i].getId());
+        }
+        return StudentChange.inserted(landed, Arrays.copyOf(students, count));
+    }
+
+    private StudentChange removeRows(StudentRepository repository) {
+        int[] current = new int[ids.length];
+        int count = 0;
+        for (String id : ids) {
+            int position = repository.indexOf(id);
+            if (position != -1) {
+                current[count++] = position;
+            }
+        }
+        if (count == 0) {
+            return StudentChange.NONE;
+        }
+
+        current = Arrays.copyOf(current, count);
+        Student[] removed;
+        if (count == 1) {
+            removed = new Student[] {repository.remove(current[0])};
+        } else {
+            // Other changes may have reordered the rows
+            Arrays.sort(current);
+            removed = repository.removeAll(current);
+        }
+        return StudentChange.removed(current, removed);
+    }
+
+    private StudentChange rename(StudentRepository repository, String[] toNames) {
+        int[] renamed = new int[ids.length];
+        int count = 0;
+        repository.beginBatch();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                int position = repository.indexOf(ids[i]);
+                if (position != -1) {
+                    repository.update(position, toNames[i], ids[i]);
+                    renamed[count++] = position;
+                }
+            }
+        } finally {
+            repository.endBatch();
+        }
+        if (count == 0) {
+            return StudentChange.NONE;
+        }
+
+        renamed = Arrays.copyOf(renamed, count);
+        Arrays.sort(renamed);
+        Student[] students = new Student[count];
+        for (int i = 0; i < count; i++) {
+            students[i] = repository.get(renamed[i]);
+        }
+        return StudentChange.renamed(renamed, students);
+    }
+
+    private StudentChange edit(StudentRepository repository, String fromId, String toId, String toName) {
+        int position = repository.indexOf(fromId);
+        if (position == -1) {
+            return StudentChange.NONE;
+        }
+        int existing = repository.indexOf(toId);
+        if (existing != -1 && existing != position) {
+            // Another student has taken the ID since
+            return StudentChange.NONE;
+        }
+
+        Student student = repository.get(position);
+        String previousName = student.getName();
+        String name = toName != null ? toName : previousName;
+        repository.update(position, name, toId);
+        return StudentChange.changed(position, student, fromId, !previousName.equals(name), !fromId.equals(toId));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.crud.history;
+
+import com.example.crud.data.StudentRepository;
+
+/**
+ * Undo/redo history as a ring buffer of {@link StudentCommand}s.
+ *
+ * Bounded both by number of commands and by their estimated memory; the oldest commands
+ * are dropped first. Recording a new command discards anything that could be redone.
+ * Not thread-safe; use it from the thread that changes the repository.
+ */
+public class StudentCommandLog {
+
+    public static final int DEFAULT_MAX_COMMANDS = 100;
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    private final StudentCommand[] ring;
+    private final long maxBytes;
+    private int head;   // Oldest command
+    private int count;  // Commands held, undone ones included
+    private int cursor; // Commands currently applied; the ones past it can be redone
+    private long bytes;
+
+    public StudentCommandLog() {
+        this(DEFAULT_MAX_COMMANDS, DEFAULT_MAX_BYTES);
+    }
+
+    public StudentCommandLog(int maxCommands, long maxBytes) {
+        if (maxCommands <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        ring = new StudentCommand[maxCommands];
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Record a command that was just applied.
+     * A command larger than the memory cap cannot be undone; it clears the history and
+     * false is returned.
+     */
+    public boolean record(StudentCommand command) {
+        // A new change forks history; redo entries no longer apply
+        while (count > cursor) {
+            dropNewest();
+        }
+
+        long size = command.estimateBytes();
+        if (size > maxBytes) {
+            clear();
+            return false;
+        }
+
+        if (count == ring.length) {
+            dropOldest();
+        }
+        ring[slot(count)] = command;
+        count++;
+        cursor++;
+        bytes += size;
+        while (bytes > maxBytes) {
+            dropOldest();
+        }
+        return true;
+    }
+
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    public boolean canRedo() {
+        return cursor < count;
+    }
+
+    /**
+     * Command that {@link #undo} would reverse, or null
+     */
+    public StudentCommand peekUndo() {
+        return canUndo() ? ring[slot(cursor - 1)] : null;
+    }
+
+    /**
+     * Command that {@link #redo} would apply, or null
+     */
+    public StudentCommand peekRedo() {
+        return canRedo() ? ring[slot(cursor)] : null;
+    }
+
+    /**
+     * Reverse the most recent applied command
+     */
+    public StudentChange undo(StudentRepository repository) {
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        cursor--;
+        return ring[slot(cursor)].undo(repository);
+    }
+
+    /**
+     * Re-apply the most recently undone command
+     */
+    public StudentChange redo(StudentRepository repository) {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        StudentCommand command = ring[slot(cursor)];
+        cursor++;
+        return command.redo(repository);
+    }
+
+    public void clear() {
+        while (count > 0) {
+            dropNewest();
+        }
+        head = 0;
+        cursor = 0;
+    }
+
+    /**
+     * Number of commands held, including undone ones
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Estimated memory held by the recorded commands
+     */
+    public long getEstimatedBytes() {
+        return bytes;
+    }
+
+    private int slot(int offset) {
+        return (head + offset) % ring.length;
+    }
+
+    private void dropOldest() {
+        bytes -= ring[head].estimateBytes();
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        count--;
+        if (cursor > 0) {
+            cursor--;
+        }
+    }
+
+    private void dropNewest() {
+        int last = slot(count - 1);
+        bytes -= ring[last].estimateBytes();
+        ring[last] = null;
+        count--;
+        cursor = Math.min(cursor, count);
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.crud.io;
+
+import com.example.crud.data.LongIntHashMap;
+import com.example.crud.data.StudentIds;
+import com.example.crud.data.StudentValidator;
+import com.example.crud.models.Student;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Streams students out of a CSV file.
+ *
+ * Lines are read in chunks; each chunk is parsed and checked against {@link StudentValidator}
+ * in parallel, then checked for IDs repeated within the file. Accepted rows are handed to the
+ * {@link Listener} in large batches, in file order. Checking against students already in the
+ * roster is left to the listener, which owns the roster.
+ *
+ * Expected columns are {@code name,id}; a header row naming the columns may reorder them.
+ */
+public class StudentCsvImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 16384;
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ExecutorService validationPool;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int batchSize;
+
+    private volatile boolean cancelled;
+
+    public interface Listener {
+        /**
+         * Accepted rows, in file order. Called on the importing thread; an IOException stops
+         * the import.
+         */
+        void onBatch(List<Student> students) throws InterruptedException, IOException;
+
+        /**
+         * Called after every chunk
+         */
+        void onProgress(long rowsRead, long accepted, long rejected);
+    }
+
+    /**
+     * A row that was not imported
+     */
+    public static final class RowError {
+        public final long lineNumber;
+        public final String message;
+
+        public RowError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + message;
+        }
+    }
+
+    /**
+     * Totals for a finished import. Only the first {@link #MAX_REPORTED_ERRORS} errors are kept.
+     */
+    public static final class Result {
+        public final long rowsRead;
+        public final long accepted;
+        public final long rejected;
+        public final List<RowError> errors;
+
+        Result(long rowsRead, long accepted, long rejected, List<RowError> errors) {
+            this.rowsRead = rowsRead;
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+    }
+
+    public StudentCsvImporter(ExecutorService validationPool, int parallelism) {
+        this(validationPool, parallelism, DEFAULT_CHUNK_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    public StudentCsvImporter(ExecutorService validationPool, int parallelism, int chunkSize, int batchSize) {
+        this.validationPool = validationPool;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Stop the running import after the current chunk
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Import everything from a reader. Blocks the calling thread, which should not be the UI thread.
+     */
+    public Result importFrom(Reader source, Listener listener) throws IOException, InterruptedException {
+        BufferedReader reader = source instanceof BufferedReader
+                ? (BufferedReader) source : new BufferedReader(source, 64 * 1024);
+
+        int nameColumn = 0;
+        int idColumn = 1;
+        long lineNumber = 0;
+        long rowsRead = 0;
+        long accepted = 0;
+        long rejected = 0;
+        List<RowError> errors = new ArrayList<>();
+
+        // IDs seen earlier in this file
+        LongIntHashMap seenNumeric = new LongIntHashMap(chunkSize);
+        Set<String> seenText = new HashSet<>();
+
+        List<Student> batch = new ArrayList<>(batchSize);
+        String[] lines = new String[chunkSize];
+        long[] lineNumbers = new long[chunkSize];
+        ParsedRow[] rows = new ParsedRow[chunkSize];
+
+        boolean firstLine = true;
+        while (!cancelled) {
+            int count = 0;
+            String line;
+            while (count < chunkSize && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (firstLine) {
+                    firstLine = false;
+                    List<String> header = parseFields(line);
+                    int headerName = indexOfIgnoreCase(header, "name");
+                    int headerId = indexOfIgnoreCase(header, "id");
+                    if (headerName != -1 && headerId != -1) {
+                        nameColumn = headerName;
+                        idColumn = headerId;
+                        continue;
+                    }
+                }
+                lines[count] = line;
+                lineNumbers[count] = lineNumber;
+                count++;
+            }
+            if (count == 0) {
+                break;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            validateChunk(lines, rows, count, nameColumn, idColumn);
+
+            for (int i = 0; i < count; i++) {
+                ParsedRow row = rows[i];
+                String error = row.error;
+                if (error == null && !markSeen(row.id, seenNumeric, seenText)) {
+                    error = "Duplicate student ID " + row.id + " in file";
+                }
+
+                if (error == null) {
+                    batch.add(new Student(row.name, row.id));
+                    accepted++;
+                } else {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new RowError(lineNumbers[i], error));
+                    }
+                }
+                lines[i] = null;
+                rows[i] = null;
+            }
+            rowsRead += count;
+
+            if (batch.size() >= batchSize) {
+                listener.onBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+            listener.onProgress(rowsRead, accepted, rejected);
+        }
+
+        if (!batch.isEmpty() && !cancelled) {
+            listener.onBatch(batch);
+        }
+        return new Result(rowsRead, accepted, rejected, errors);
+    }
+
+    /**
+     * Parse and validate a chunk, split across the validation pool
+     */
+    private void validateChunk(String[] lines, ParsedRow[] rows, int count, int nameColumn, int idColumn)
+            throws InterruptedException, IOException {
+        int slices = Math.min(parallelism, Math.max(1, count / 256));
+        if (slices == 1) {
+            validateRange(lines, rows, 0, count, nameColumn, idColumn);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(slices);
+        int sliceSize = (count + slices - 1) / slices;
+        for (int start = 0; start < count; start += sliceSize) {
+            int from = start;
+            int to = Math.min(count, start + sliceSize);
+            tasks.add(() -> {
+                validateRange(lines, rows, from, to, nameColumn, idColumn);
+                return null;
+            });
+        }
+        for (Future<Void> future : validationPool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Validation failed", e.getCause());
+            }
+        }
+    }
+
+    private static void validateRange(String[] lines, ParsedRow[] rows, int from, int to,
+                                      int nameColumn, int idColumn) {
+        for (int i = from; i < to; i++) {
+            rows[i] = parseRow(lines[i], nameColumn, idColumn);
+        }
+    }
+
+    static ParsedRow parseRow(String line, int nameColumn, int idColumn) {
+        List<String> fields = parseFields(line);
+        if (fields.size() <= Math.max(nameColumn, idColumn)) {
+            return new ParsedRow(null, null, "Expected name and ID columns");
+        }
+
+        String name = fields.get(nameColumn).trim();
+        String id = fields.get(idColumn).trim();
+        String error = StudentValidator.validateName(name);
+        if (error == null) {
+            error = StudentValidator.validateId(id);
+        }
+        return new ParsedRow(name, id, error);
+    }
+
+    /**
+     * Split one CSV line, honouring double quotes and doubled-quote escapes
+     */
+    static List<String> parseFields(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder(line.length());
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean markSeen(String id, LongIntHashMap seenNumeric, Set<String> seenText) {
+        long key = StudentIds.toKey(id);
+        if (key != StudentIds.NO_KEY) {
+            return seenNumeric.put(key, 1) == LongIntHashMap.NO_VALUE;
+        }
+        return seenText.add(id);
+    }
+
+    private static int indexOfIgnoreCase(List<String> values, String target) {
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i).trim().equalsIgnoreCase(target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static final class ParsedRow {
+        final String name;
+        final String id;
+        final String error;
+
+        ParsedRow(String name, String id, String error) {
+            this.name = name;
+            this.id = id;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.crud.io;
+
+import com.example.crud.models.Student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams students out as CSV or JSON.
+ *
+ * Rows are encoded to UTF-8 straight from the name and ID characters into a reusable byte
+ * array, which is copied in one go into a direct buffer and written to the channel whenever it
+ * fills up. Nothing is built per row, so memory use does not grow with the roster and a large
+ * export runs at the speed of the channel.
+ *
+ * CSV has a {@code name,id} header, so {@link StudentCsvImporter} can read it back. JSON is an
+ * array of {@code {"name": ..., "id": ...}} objects.
+ */
+public class StudentExporter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int PROGRESS_INTERVAL = 16384;
+
+    // Room for the longest encoding of one character: a six-byte JSON escape
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        JSON("application/json", "json");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called on the exporting thread every {@link #PROGRESS_INTERVAL} rows and at the end
+         */
+        void onProgress(long rowsWritten, long total);
+    }
+
+    /**
+     * Totals for a finished or cancelled export
+     */
+    public static final class Result {
+        public final long rowsWritten;
+        public final long bytesWritten;
+        public final boolean cancelled;
+
+        Result(long rowsWritten, long bytesWritten, boolean cancelled) {
+            this.rowsWritten = rowsWritten;
+            this.bytesWritten = bytesWritten;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private final byte[] bytes;
+    private int count;
+    private final ByteBuffer buffer;
+    private WritableByteChannel channel;
+    private long bytesWritten;
+
+    private volatile boolean cancelled;
+
+    public StudentExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public StudentExporter(int bufferSize) {
+        bytes = new byte[Math.max(256, bufferSize)];
+        buffer = ByteBuffer.allocateDirect(bytes.length);
+    }
+
+    /**
+     * Stop the running export after the current row; the output is left incomplete
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Write every student to a channel. Blocks the calling thread, which should not be the UI
+     * thread. The list must not change while it is exported, e.g. a roster snapshot.
+     */
+    public Result export(List<Student> students, Format format, WritableByteChannel out, Listener listener)
+            throws IOException {
+        channel = out;
+        bytesWritten = 0;
+        count = 0;
+        long total = students.size();
+        long rows = 0;
+        try {
+            if (format == Format.CSV) {
+                putAscii("name,id\n");
+            } else {
+                putAscii("[");
+            }
+            for (Student student : students) {
+                if (cancelled) {
+                    break;
+                }
+                if (format == Format.CSV) {
+                    putCsvField(student.getName());
+                    putByte((byte) ',');
+                    putCsvField(student.getId());
+                    putByte((byte) '\n');
+                } else {
+                    putAscii(rows == 0 ? "\n{\"name\":" : ",\n{\"name\":");
+                    putJsonString(student.getName());
+                    putAscii(",\"id\":");
+                    putJsonString(student.getId());
+                    putByte((byte) '}');
+                }
+                if (++rows % PROGRESS_INTERVAL == 0 && listener != null) {
+                    listener.onProgress(rows, total);
+                }
+            }
+            if (format == Format.JSON && !cancelled) {
+                putAscii(rows == 0 ? "]\n" : "\n]\n");
+            }
+            flush();
+        } finally {
+            channel = null;
+        }
+        if (listener != null && !cancelled) {
+            listener.onProgress(rows, total);
+        }
+        return new Result(rows, bytesWritten, cancelled);
+    }
+
+    /**
+     * Quote the field only if it holds a comma, quote or line break, doubling any quotes
+     */
+    private void putCsvField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putUtf8(value);
+            return;
+        }
+        putByte((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                putByte((byte) '"');
+            }
+            i = putChar(value, i);
+        }
+        putByte((byte) '"');
+    }
+
+    private void putJsonString(String value) throws IOException {
+        putByte((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                if (count == bytes.length) {
+                    flush();
+                }
+                bytes[count++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                ensureRoom(2);
+                bytes[count++] = '\\';
+                bytes[count++] = (byte) c;
+            } else if (c < 0x20) {
+                ensureRoom(MAX_CHAR_BYTES);
+                bytes[count++] = '\\';
+                bytes[count++] = 'u';
+                bytes[count++] = '0';
+                bytes[count++] = '0';
+                bytes[count++] = HEX[c >> 4];
+                bytes[count++] = HEX[c & 0xF];
+            } else {
+                i = putChar(value, i);
+            }
+        }
+        putByte((byte) '"');
+    }
+
+    private void putUtf8(String value) throws IOException {
+        int length = value.length();
+        int i = 0;
+        // Plain ASCII, the usual case, is copied a byte per char without further checks
+        ensureRoom(Math.min(length, bytes.length));
+        while (i < length && count < bytes.length) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            bytes[count++] = (byte) c;
+            i++;
+        }
+        for (; i < length; i++) {
+            i = putChar(value, i);
+        }
+    }
+
+    /**
+     * Encode the character at {@code i}, or the surrogate pair starting there, and return the
+     * index of the last char used
+     */
+    private int putChar(String value, int i) throws IOException {
+        ensureRoom(MAX_CHAR_BYTES);
+        char c = value.charAt(i);
+        if (c < 0x80) {
+            bytes[count++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[count++] = (byte) (0xC0 | c >> 6);
+            bytes[count++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            bytes[count++] = (byte) (0xF0 | codePoint >> 18);
+            bytes[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            bytes[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            bytes[count++] = (byte) (0x80 | codePoint & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+            bytes[count++] = '?'; // Unpaired surrogate, as String.getBytes() would write it
+        } else {
+            bytes[count++] = (byte) (0xE0 | c >> 12);
+            bytes[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[count++] = (byte) (0x80 | c & 0x3F);
+        }
+        return i;
+    }
+
+    private void putAscii(String value) throws IOException {
+        ensureRoom(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            bytes[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void putByte(byte b) throws IOException {
+        ensureRoom(1);
+        bytes[count++] = b;
+    }
+
+    private void ensureRoom(int needed) throws IOException {
+        if (count + needed > bytes.length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.clear();
+        buffer.put(bytes, 0, count);
+        count = 0;
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
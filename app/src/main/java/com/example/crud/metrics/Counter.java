@@ -0,0 +1,42 @@
+package com.example.crud.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free event count, e.g. how many rows were rebound
+ */
+public final class Counter {
+
+    private final String name;
+    private final MetricsRegistry registry;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, MetricsRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        if (registry.isEnabled()) {
+            count.increment();
+        }
+    }
+
+    public void add(long amount) {
+        if (registry.isEnabled()) {
+            count.add(amount);
+        }
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.crud.metrics;
+
+/**
+ * Latest value of something that goes up and down, e.g. the list size
+ */
+public final class Gauge {
+
+    private final String name;
+    private final MetricsRegistry registry;
+    private volatile long value;
+
+    Gauge(String name, MetricsRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void set(long value) {
+        if (registry.isEnabled()) {
+            this.value = value;
+        }
+    }
+
+    public long get() {
+        return value;
+    }
+}
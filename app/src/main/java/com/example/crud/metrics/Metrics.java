@@ -0,0 +1,54 @@
+package com.example.crud.metrics;
+
+/**
+ * The app's hot-path metrics. Off by default; see {@link MetricsRegistry} for the cost.
+ *
+ * Time an operation with:
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.STUDENT_ADD.recordSince(start);
+ * </pre>
+ */
+public final class Metrics {
+
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    // MainActivity
+    public static final LatencyHistogram STUDENT_ADD = REGISTRY.histogram("student.add");
+    public static final LatencyHistogram STUDENT_VALIDATE = REGISTRY.histogram("student.validate");
+    public static final LatencyHistogram STUDENT_EDIT = REGISTRY.histogram("student.edit");
+    public static final LatencyHistogram STUDENT_DELETE = REGISTRY.histogram("student.delete");
+    // onCreate with the retained roster, and with the roster loaded from disk
+    public static final LatencyHistogram ACTIVITY_RECREATE = REGISTRY.histogram("activity.recreate");
+    public static final LatencyHistogram ROSTER_LOAD = REGISTRY.histogram("roster.load");
+
+    // StudentAdapter
+    public static final LatencyHistogram ADAPTER_CREATE = REGISTRY.histogram("adapter.create");
+    public static final LatencyHistogram ADAPTER_BIND = REGISTRY.histogram("adapter.bind");
+    public static final LatencyHistogram ADAPTER_REBIND = REGISTRY.histogram("adapter.rebind");
+    public static final Counter FULL_BINDS = REGISTRY.counter("adapter.binds.full");
+    public static final Counter PARTIAL_BINDS = REGISTRY.counter("adapter.binds.partial");
+    public static final LatencyHistogram ROW_PREWARM = REGISTRY.histogram("adapter.prewarm");
+    public static final Counter PREWARMED_ROWS = REGISTRY.counter("adapter.rows.prewarmed");
+    public static final Counter CHANGE_FLUSHES = REGISTRY.counter("adapter.flushes");
+    public static final Counter CHANGE_NOTIFICATIONS = REGISTRY.counter("adapter.notifications");
+
+    // Persistence and search, on their background threads
+    public static final LatencyHistogram JOURNAL_WRITE = REGISTRY.histogram("journal.write");
+    public static final LatencyHistogram JOURNAL_COMPACT = REGISTRY.histogram("journal.compact");
+    public static final Counter JOURNAL_RECORDS = REGISTRY.counter("journal.records");
+    // One class's shard replayed, and every shard loaded in parallel
+    public static final LatencyHistogram COHORT_LOAD = REGISTRY.histogram("roster.cohort.load");
+    public static final LatencyHistogram COHORT_LOAD_ALL = REGISTRY.histogram("roster.cohorts.load");
+    public static final LatencyHistogram SEARCH = REGISTRY.histogram("search.query");
+
+    public static final Gauge LIST_SIZE = REGISTRY.gauge("list.size");
+
+    private Metrics() {
+    }
+
+    public static long start() {
+        return REGISTRY.start();
+    }
+}
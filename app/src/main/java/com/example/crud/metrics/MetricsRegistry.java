@@ -0,0 +1,119 @@
+package com.example.crud.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Named histograms, counters and gauges that share one on/off switch.
+ *
+ * While off, recording costs one volatile read: {@link #start()} returns 0 without reading
+ * the clock, and every metric ignores updates. Metrics are created once, up front, and keep
+ * their memory for the life of the registry.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+    private volatile boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Start timing an operation; pass the result to {@link LatencyHistogram#recordSince(long)}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public synchronized LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(name, this);
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    public synchronized Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter(name, this);
+            counters.put(name, counter);
+        }
+        return counter;
+    }
+
+    public synchronized Gauge gauge(String name) {
+        Gauge gauge = gauges.get(name);
+        if (gauge == null) {
+            gauge = new Gauge(name, this);
+            gauges.put(name, gauge);
+        }
+        return gauge;
+    }
+
+    /**
+     * Snapshots of every histogram that has recorded something
+     */
+    public synchronized List<LatencyHistogram.Snapshot> snapshots() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>(histograms.size());
+        for (LatencyHistogram histogram : histograms.values()) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.count > 0) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Write a plain-text report: percentiles in microseconds per histogram, then counters and gauges
+     */
+    public synchronized void dump(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "%-28s %8s %9s %9s %9s %9s %9s %9s%n",
+                "latency (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (LatencyHistogram.Snapshot snapshot : snapshots()) {
+            out.append(String.format(Locale.US, "%-28s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    snapshot.name, snapshot.count,
+                    micros(snapshot.meanNanos()),
+                    micros(snapshot.percentileNanos(50)),
+                    micros(snapshot.percentileNanos(90)),
+                    micros(snapshot.percentileNanos(99)),
+                    micros(snapshot.percentileNanos(99.9)),
+                    micros(snapshot.maxNanos)));
+        }
+        for (Counter counter : counters.values()) {
+            out.append(String.format(Locale.US, "%-28s %8d%n", counter.getName(), counter.get()));
+        }
+        for (Gauge gauge : gauges.values()) {
+            out.append(String.format(Locale.US, "%-28s %8d%n", gauge.getName(), gauge.get()));
+        }
+    }
+
+    /**
+     * Clear every metric, e.g. after dumping them
+     */
+    public synchronized void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -1,17 +1,29 @@
 package com.example.crud.models;
 
 public class Student {
+    /** Cohort of students not in any class */
+    public static final String NO_COHORT = "";
+
     private String name;
     private String id;
+    private String cohort = NO_COHORT;
 
     public Student(String name, String id) {
         this.name = name;
         this.id = id;
     }
 
+    public Student(String name, String id, String cohort) {
+        this.name = name;
+        this.id = id;
+        this.cohort = cohort;
+    }
+
     public String getName() { return name; }
     public String getId() { return id; }
+    public String getCohort() { return cohort; }
 
     public void setName(String name) { this.name = name; }
     public void setId(String id) { this.id = id; }
+    public void setCohort(String cohort) { this.cohort = cohort; }
 }
@@ -0,0 +1,158 @@
+package com.example.crud.paging;
+
+import com.example.crud.models.Student;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Read-only list over a {@link StudentPageSource} that only keeps a window of pages in memory.
+ *
+ * {@link #get(int)} returns null (a placeholder) for rows whose page is not loaded yet and
+ * starts loading it, plus the next page in the direction the caller is moving. Loaded pages
+ * are kept in a bounded LRU, so memory stays flat no matter how large the source is.
+ *
+ * Must be used from a single thread (the UI thread); pages are loaded on {@code loadExecutor}
+ * and handed back through {@code callbackExecutor}.
+ */
+public class PagedStudentList extends AbstractList<Student> {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_PAGES = 8;
+
+    public interface Listener {
+        /**
+         * Rows that were placeholders now have data
+         */
+        void onRangeLoaded(int start, int count);
+
+        void onLoadFailed(Exception error);
+    }
+
+    private final StudentPageSource source;
+    private final int size;
+    private final int pageSize;
+    private final int maxPages;
+    private final Executor loadExecutor;
+    private final Executor callbackExecutor;
+    private final Listener listener;
+
+    private final Map<Integer, List<Student>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private int lastIndex = -1;
+    private int direction = 1;
+
+    public PagedStudentList(StudentPageSource source, Executor loadExecutor, Executor callbackExecutor,
+                            Listener listener) {
+        this(source, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, loadExecutor, callbackExecutor, listener);
+    }
+
+    public PagedStudentList(StudentPageSource source, int pageSize, int maxPages, Executor loadExecutor,
+                            Executor callbackExecutor, Listener listener) {
+        if (maxPages < 3) {
+            throw new IllegalArgumentException("Need room for the current page and one on each side");
+        }
+        this.source = source;
+        this.size = source.size();
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.loadExecutor = loadExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        this.pages = new LinkedHashMap<Integer, List<Student>>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Student>> eldest) {
+                return size() > PagedStudentList.this.maxPages;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the student at a position, or null while its page is loading
+     */
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+
+        if (lastIndex != -1 && index != lastIndex) {
+            direction = index > lastIndex ? 1 : -1;
+        }
+        lastIndex = index;
+
+        int page = index / pageSize;
+        List<Student> students = pages.get(page);
+        ensureLoaded(page);
+        // Prefetch ahead in the scroll direction
+        ensureLoaded(page + direction);
+
+        if (students == null) {
+            return null;
+        }
+        int offset = index - page * pageSize;
+        return offset < students.size() ? students.get(offset) : null;
+    }
+
+    /**
+     * Check if a row's data is in memory, without triggering a load
+     */
+    public boolean isLoaded(int index) {
+        return pages.containsKey(index / pageSize);
+    }
+
+    /**
+     * Position of the student with this ID, or -1, without loading any page
+     */
+    public int indexOfId(String id) {
+        return source.indexOfId(id);
+    }
+
+    /**
+     * Every student's ID, in order, without loading any page
+     */
+    public String[] getIds() {
+        return source.getIds();
+    }
+
+    /**
+     * Number of pages currently held in memory
+     */
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    private void ensureLoaded(int page) {
+        if (page < 0 || page * pageSize >= size || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+
+        int offset = page * pageSize;
+        int count = Math.min(pageSize, size - offset);
+        loadExecutor.execute(() -> {
+            try {
+                List<Student> loaded = source.loadPage(offset, count);
+                callbackExecutor.execute(() -> {
+                    loading.remove(page);
+                    pages.put(page, loaded);
+                    listener.onRangeLoaded(offset, count);
+                });
+            } catch (Exception e) {
+                callbackExecutor.execute(() -> {
+                    loading.remove(page);
+                    listener.onLoadFailed(e);
+                });
+            }
+        });
+    }
+}
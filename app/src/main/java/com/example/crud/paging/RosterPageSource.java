@@ -0,0 +1,61 @@
+package com.example.crud.paging;
+
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.models.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages out of a roster that does not change while it is paged: a {@link VersionedRoster}
+ * snapshot, or the read-only list of every class. Both already hold every change, including
+ * those still in the journal and not yet compacted into the snapshot file.
+ *
+ * A page is a copy of the references in its range, so the adapter only ever holds the pages
+ * in the list's window, however large the roster is.
+ */
+public class RosterPageSource implements StudentPageSource {
+
+    private final List<Student> students;
+
+    public RosterPageSource(VersionedRoster.Snapshot snapshot) {
+        this(snapshot.getStudents());
+    }
+
+    /**
+     * @param students must not change while the source is in use
+     */
+    public RosterPageSource(List<Student> students) {
+        this.students = students;
+    }
+
+    @Override
+    public int size() {
+        return students.size();
+    }
+
+    @Override
+    public List<Student> loadPage(int offset, int count) {
+        int end = Math.min(offset + count, students.size());
+        return new ArrayList<>(students.subList(Math.min(offset, end), end));
+    }
+
+    @Override
+    public int indexOfId(String id) {
+        for (int i = 0; i < students.size(); i++) {
+            if (students.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String[] getIds() {
+        String[] ids = new String[students.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = students.get(i).getId();
+        }
+        return ids;
+    }
+}
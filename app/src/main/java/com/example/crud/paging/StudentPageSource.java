@@ -0,0 +1,32 @@
+package com.example.crud.paging;
+
+import com.example.crud.models.Student;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Random-access source of students that can be read one page at a time
+ */
+public interface StudentPageSource {
+
+    /**
+     * Total number of students; fixed for the lifetime of the source
+     */
+    int size();
+
+    /**
+     * Load {@code count} students starting at {@code offset}. Called on a background thread.
+     */
+    List<Student> loadPage(int offset, int count) throws IOException;
+
+    /**
+     * Position of the student with this ID, or -1. Answered without loading pages.
+     */
+    int indexOfId(String id);
+
+    /**
+     * Every student's ID, in order, without loading pages
+     */
+    String[] getIds();
+}
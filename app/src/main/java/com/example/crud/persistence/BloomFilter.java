@@ -0,0 +1,79 @@
+package com.example.crud.persistence;
+
+/**
+ * Bloom filter over long keys. {@link #mightContain(long)} is never wrong about a key that was
+ * added; for any other key it is wrong about 1% of the time at 10 bits per key.
+ *
+ * The bit positions come from one 64-bit mix of the key, split into two halves and combined
+ * as {@code h1 + i * h2} (Kirsch and Mitzenmacher), so a probe costs one mix however many
+ * hashes are used.
+ */
+final class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * An empty filter sized for {@code expectedKeys} keys at {@code bitsPerKey} bits each
+     */
+    BloomFilter(long expectedKeys, int bitsPerKey) {
+        long bits = Math.max(64, expectedKeys * bitsPerKey);
+        this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6)];
+        this.bitCount = (long) words.length << 6;
+        // ln 2 * bits per key minimises false positives
+        this.hashCount = Math.max(1, Math.min(30, (int) Math.round(bitsPerKey * 0.6931)));
+    }
+
+    /**
+     * A filter over bits read back from a file
+     */
+    BloomFilter(long[] words, int hashCount) {
+        this.words = words;
+        this.bitCount = (long) words.length << 6;
+        this.hashCount = hashCount;
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xffffffffL;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xffffffffL;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * The 64-bit finaliser from MurmurHash3; sequential IDs come out spread over all bits
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
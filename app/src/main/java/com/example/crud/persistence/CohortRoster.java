@@ -0,0 +1,487 @@
+package com.example.crud.persistence;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.metrics.Metrics;
+import com.example.crud.models.Student;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The roster split into one shard per class (cohort), so working in one class never reads
+ * the others. Each shard has its own journal and snapshot, and its repository keeps its own
+ * index of IDs.
+ *
+ * Layout under the root directory:
+ * <pre>
+ * ./                 students in no class; the same files as before there were classes
+ * cohorts/&lt;hex&gt;/    one class; the directory name is the class name's UTF-8 in hex
+ * ids/               {@link StudentIdIndex} of the IDs in every class
+ * </pre>
+ * A shard is replayed the first time its class is opened; {@link #loadAll()} replays the
+ * missing ones in parallel, one per core. {@link #takenIds} checks IDs against the ID index,
+ * so a duplicate check does not load other classes. If the ID index was not closed or
+ * checkpointed after its last change, it may have missed some; {@link #open} then rebuilds it
+ * from every shard before any class can change.
+ *
+ * Only the open class changes, on one thread, usually the main thread. The other loaded
+ * shards stay as they are, so they are read from the loader threads too. Opening, loading and
+ * checking IDs read the disk, so none of them belongs on the main thread.
+ */
+public class CohortRoster implements Closeable {
+
+    private static final String COHORTS_DIRECTORY = "cohorts";
+    private static final String IDS_DIRECTORY = "ids";
+
+    // Students in no class first, then by name ignoring case
+    private static final Comparator<String> COHORT_ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    /**
+     * One class's students and the writer that persists their changes. The writer, with its
+     * thread and open journal file, is only started for a class that is changed, so loading
+     * every class to list them costs neither.
+     */
+    public static final class Shard {
+        private final String cohort;
+        private final StudentRepository repository;
+        private final StudentJournal journal;
+        private JournalWriter journalWriter;
+
+        Shard(String cohort, StudentRepository repository, StudentJournal journal) {
+            this.cohort = cohort;
+            this.repository = repository;
+            this.journal = journal;
+        }
+
+        public String getCohort() {
+            return cohort;
+        }
+
+        public StudentRepository getRepository() {
+            return repository;
+        }
+
+        /**
+         * The writer for this class's changes, started on the first call
+         */
+        public synchronized JournalWriter getJournalWriter() {
+            if (journalWriter == null) {
+                journalWriter = new JournalWriter(journal);
+            }
+            return journalWriter;
+        }
+
+        synchronized void close() throws IOException {
+            // The writer closes the journal once it has written what is queued
+            if (journalWriter != null) {
+                journalWriter.close();
+            } else {
+                journal.close();
+            }
+        }
+    }
+
+    private final File directory;
+    private final StudentIdIndex ids;
+    private final ExecutorService loader;
+    private final Set<String> cohorts = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, CompletableFuture<Shard>> shards = new ConcurrentHashMap<>();
+    // The ID index is out of step with the shards: it was not closed cleanly and is about to
+    // be rebuilt, or a shard was cleared and it still has that shard's IDs
+    private volatile boolean idsStale;
+
+    private CohortRoster(File directory, StudentIdIndex ids, int loaderThreads) {
+        this.directory = directory;
+        this.ids = ids;
+        this.idsStale = !ids.wasClosedCleanly();
+        this.loader = Executors.newFixedThreadPool(loaderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "cohort-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static CohortRoster open(File directory) throws IOException {
+        return open(directory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Open the roster kept in {@code directory}. Only the class names and the ID index are
+     * read, and no shard is loaded, unless the ID index has to be rebuilt from all of them.
+     */
+    public static CohortRoster open(File directory, int loaderThreads) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create roster directory " + directory);
+        }
+        CohortRoster roster = new CohortRoster(directory,
+                StudentIdIndex.open(new File(directory, IDS_DIRECTORY)), loaderThreads);
+        roster.cohorts.add(Student.NO_COHORT);
+        File[] shardDirectories = new File(directory, COHORTS_DIRECTORY).listFiles(File::isDirectory);
+        for (File shardDirectory : shardDirectories != null ? shardDirectories : new File[0]) {
+            String cohort = fromHex(shardDirectory.getName());
+            if (cohort != null) {
+                roster.cohorts.add(cohort);
+            }
+        }
+        if (roster.idsStale) {
+            // Now, before the open class can change underneath the rebuild
+            roster.rebuildIds();
+        }
+        return roster;
+    }
+
+    /**
+     * Every class, starting with {@link Student#NO_COHORT}, then by name
+     */
+    public List<String> getCohorts() {
+        List<String> sorted = new ArrayList<>(cohorts);
+        sorted.sort(COHORT_ORDER);
+        return sorted;
+    }
+
+    public boolean isLoaded(String cohort) {
+        CompletableFuture<Shard> loading = shards.get(cohort);
+        return loading != null && loading.isDone() && !loading.isCompletedExceptionally();
+    }
+
+    /**
+     * The class's shard, replayed on the calling thread unless it is loaded or loading
+     * already. A class that does not exist yet is created empty.
+     */
+    public Shard load(String cohort) throws IOException {
+        CompletableFuture<Shard> loading = new CompletableFuture<>();
+        CompletableFuture<Shard> existing = shards.putIfAbsent(cohort, loading);
+        if (existing == null) {
+            replay(cohort, loading);
+            existing = loading;
+        }
+        return await(existing);
+    }
+
+    /**
+     * Replay every shard that is not loaded yet, in parallel. Completes with all the shards
+     * in {@link #getCohorts()} order, or with the first failure.
+     */
+    public CompletableFuture<List<Shard>> loadAll() {
+        long start = Metrics.start();
+        List<String> names = getCohorts();
+        List<CompletableFuture<Shard>> loads = new ArrayList<>(names.size());
+        for (String cohort : names) {
+            CompletableFuture<Shard> loading = new CompletableFuture<>();
+            CompletableFuture<Shard> existing = shards.putIfAbsent(cohort, loading);
+            if (existing == null) {
+                loader.execute(() -> replay(cohort, loading));
+                existing = loading;
+            }
+            loads.add(existing);
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Shard> loaded = new ArrayList<>(loads.size());
+            for (CompletableFuture<Shard> load : loads) {
+                loaded.add(load.join());
+            }
+            Metrics.COHORT_LOAD_ALL.recordSince(start);
+            return loaded;
+        });
+    }
+
+    /**
+     * The IDs among {@code candidates} that a class other than {@code openCohort} has. IDs of
+     * the open class may be reported too: it may be changing while this runs, so the caller
+     * checks it itself, on its own thread. Reads the disk; call off the main thread.
+     */
+    public Set<String> takenIds(String openCohort, Collection<String> candidates) throws IOException {
+        Set<String> taken = new HashSet<>();
+        if (!idsStale && loadedCount() < cohorts.size()) {
+            for (String id : candidates) {
+                if (ids.contains(id)) {
+                    taken.add(id);
+                }
+            }
+            return taken;
+        }
+        // Every class is loaded, or the index still has the IDs of a cleared class: the other
+        // shards answer exactly
+        for (Shard shard : await(loadAll())) {
+            if (!shard.cohort.equals(openCohort)) {
+                for (String id : candidates) {
+                    if (shard.repository.containsId(id)) {
+                        taken.add(id);
+                    }
+                }
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * {@link #takenIds} on a loader thread, e.g. for a check started on the main thread
+     */
+    public CompletableFuture<Set<String>> findTakenIds(String openCohort, Collection<String> candidates) {
+        List<String> copy = new ArrayList<>(candidates);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return takenIds(openCohort, copy);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, loader);
+    }
+
+    /**
+     * Students of the given shards, one class after another, as a read-only list that
+     * follows their changes
+     */
+    public static List<Student> mergedView(List<Shard> shards) {
+        StudentRepository[] parts = new StudentRepository[shards.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = shards.get(i).repository;
+        }
+        return new MergedView(parts);
+    }
+
+    /**
+     * Make the ID index durable in the background, e.g. when the app is sent to the
+     * background, so a killed process does not have to rebuild it. Shards need nothing:
+     * their journals are durable as they go.
+     */
+    public CompletableFuture<Void> checkpoint() {
+        return CompletableFuture.runAsync(() -> {
+            if (idsStale) {
+                // Left unclean, so it is rebuilt after a restart too
+                return;
+            }
+            try {
+                ids.checkpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, loader);
+    }
+
+    /**
+     * Finish loading, then close every shard's journal and the ID index. Call from the thread
+     * that changes the shards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (idsStale && loadedCount() == cohorts.size()) {
+            // Cheap with every class in memory, and saves a rebuild on the next open
+            rebuildIds();
+        }
+        loader.shutdown();
+        try {
+            loader.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException failure = null;
+        for (Shard shard : loadedShards()) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        try {
+            if (idsStale) {
+                ids.closeUnclean();
+            } else {
+                ids.close();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private List<Shard> loadedShards() {
+        List<Shard> loaded = new ArrayList<>(shards.size());
+        for (CompletableFuture<Shard> loading : shards.values()) {
+            if (loading.isDone() && !loading.isCompletedExceptionally()) {
+                loaded.add(loading.join());
+            }
+        }
+        return loaded;
+    }
+
+    private int loadedCount() {
+        return loadedShards().size();
+    }
+
+    private void replay(String cohort, CompletableFuture<Shard> loading) {
+        long start = Metrics.start();
+        try {
+            StudentRepository repository = new StudentRepository();
+            StudentJournal journal = new StudentJournal(directoryOf(cohort));
+            journal.replay(repository);
+            for (Student student : repository.asList()) {
+                student.setCohort(cohort);
+            }
+            repository.addListener(new ShardListener(cohort));
+            cohorts.add(cohort);
+            loading.complete(new Shard(cohort, repository, journal));
+            Metrics.COHORT_LOAD.recordSince(start);
+        } catch (IOException | RuntimeException e) {
+            // Not kept, so the next load tries again
+            shards.remove(cohort, loading);
+            loading.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Load every shard and fill the ID index from them afresh
+     */
+    private void rebuildIds() throws IOException {
+        List<Shard> all = await(loadAll());
+        ids.clear();
+        for (Shard shard : all) {
+            for (Student student : shard.repository.asList()) {
+                ids.add(student.getId());
+            }
+        }
+        idsStale = false;
+    }
+
+    private File directoryOf(String cohort) {
+        if (cohort.isEmpty()) {
+            return directory;
+        }
+        return new File(new File(directory, COHORTS_DIRECTORY), toHex(cohort));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    static String toHex(String cohort) {
+        byte[] bytes = cohort.getBytes(StandardCharsets.UTF_8);
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The class name a directory stands for, or null if it is not one of ours
+     */
+    static String fromHex(String hex) {
+        if (hex.isEmpty() || hex.length() % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tags the shard's students with its class and keeps the ID index up to date
+     */
+    private final class ShardListener implements StudentRepository.Listener {
+        private final String cohort;
+
+        ShardListener(String cohort) {
+            this.cohort = cohort;
+        }
+
+        @Override
+        public void onStudentAdded(Student student) {
+            student.setCohort(cohort);
+            ids.add(student.getId());
+        }
+
+        @Override
+        public void onStudentRemoved(Student student) {
+            ids.remove(student.getId());
+        }
+
+        @Override
+        public void onStudentUpdated(Student student, String oldName, String oldId) {
+            if (!oldId.equals(student.getId())) {
+                ids.remove(oldId);
+                ids.add(student.getId());
+            }
+        }
+
+        @Override
+        public void onStudentsCleared() {
+            // The cleared IDs are not known any more, so the index may report them as taken
+            idsStale = true;
+        }
+    }
+
+    /**
+     * Concatenation of several repositories' live lists
+     */
+    private static final class MergedView extends AbstractList<Student> implements RandomAccess {
+        private final StudentRepository[] parts;
+
+        MergedView(StudentRepository[] parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public Student get(int index) {
+            if (index >= 0) {
+                int remaining = index;
+                for (StudentRepository part : parts) {
+                    if (remaining < part.size()) {
+                        return part.get(remaining);
+                    }
+                    remaining -= part.size();
+                }
+            }
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (StudentRepository part : parts) {
+                size += part.size();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.crud.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * One immutable, sorted run of {@link StudentIdIndex}: ID keys in ascending order, each either
+ * present or deleted, plus a Bloom filter over all of them.
+ *
+ * Layout (little endian):
+ * <pre>
+ * header   magic:int "IDRN", version:short, flags:short, sequence:long,
+ *          count:int, hashCount:int, bloomWords:int, crc32:int
+ * keys     count longs, ascending
+ * deleted  ceil(count / 64) longs; bit i set when key i is a deletion
+ * bloom    bloomWords longs
+ * </pre>
+ * The CRC covers everything after the header. The file is memory-mapped; only the Bloom filter
+ * and every {@value #FENCE_INTERVAL}th key are copied to the heap, so a lookup that gets past
+ * the filter reads one or two pages of keys.
+ */
+final class IdRun implements Closeable {
+
+    static final int MAGIC = 0x4e524449; // "IDRN" read little endian
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int FENCE_INTERVAL = 512;
+
+    // Results of find()
+    static final int ABSENT = 0;
+    static final int PRESENT = 1;
+    static final int DELETED = 2;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final long sequence;
+    private final int count;
+    private final int deletedStart;
+    private final BloomFilter bloom;
+    private final long[] fences;
+
+    private IdRun(File file, RandomAccessFile raf, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.raf = raf;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an ID index run: " + file);
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported ID index version " + buffer.getShort(4));
+        }
+        sequence = buffer.getLong(8);
+        count = buffer.getInt(16);
+        int hashCount = buffer.getInt(20);
+        int bloomWords = buffer.getInt(24);
+        long bloomStart = HEADER_SIZE + count * 8L + wordsFor(count) * 8L;
+        if (count < 0 || bloomWords <= 0 || bloomStart + bloomWords * 8L != buffer.capacity()) {
+            throw new IOException("Truncated ID index run: " + file);
+        }
+        deletedStart = HEADER_SIZE + count * 8;
+        verifyChecksum(buffer.getInt(28));
+
+        long[] words = new long[bloomWords];
+        ByteBuffer bloomBytes = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        bloomBytes.position((int) bloomStart);
+        bloomBytes.asLongBuffer().get(words);
+        bloom = new BloomFilter(words, hashCount);
+
+        fences = new long[(count + FENCE_INTERVAL - 1) / FENCE_INTERVAL];
+        for (int i = 0; i < fences.length; i++) {
+            fences[i] = keyAt(i * FENCE_INTERVAL);
+        }
+    }
+
+    /**
+     * Map a run file and verify its checksum
+     */
+    static IdRun open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new IdRun(file, raf, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int size() {
+        return count;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * False means the key is certainly not in this run, present or deleted
+     */
+    boolean mightContain(long key) {
+        return bloom.mightContain(key);
+    }
+
+    /**
+     * {@link #PRESENT}, {@link #DELETED} or {@link #ABSENT}
+     */
+    int find(long key) {
+        int fence = Arrays.binarySearch(fences, key);
+        if (fence >= 0) {
+            return stateAt(fence * FENCE_INTERVAL);
+        }
+        fence = -fence - 2;
+        if (fence < 0) {
+            return ABSENT;
+        }
+        int low = fence * FENCE_INTERVAL + 1;
+        int high = Math.min(count, low - 1 + FENCE_INTERVAL) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = keyAt(middle);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return stateAt(middle);
+            }
+        }
+        return ABSENT;
+    }
+
+    long keyAt(int index) {
+        return buffer.getLong(HEADER_SIZE + index * 8);
+    }
+
+    boolean isDeleted(int index) {
+        return (buffer.getLong(deletedStart + (index >>> 6) * 8) & (1L << index)) != 0;
+    }
+
+    private int stateAt(int index) {
+        return isDeleted(index) ? DELETED : PRESENT;
+    }
+
+    private void verifyChecksum(int expected) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[64 * 1024];
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        while (body.hasRemaining()) {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("ID index run checksum mismatch: " + file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    private static int wordsFor(int count) {
+        return (int) ((count + 63L) >>> 6);
+    }
+
+    /**
+     * Streams keys in ascending order into a new run file. The file appears under its final
+     * name only once {@link #finish()} has synced it.
+     */
+    static final class Writer implements Closeable {
+
+        private final File file;
+        private final File temp;
+        private final long sequence;
+        private final FileOutputStream fileOut;
+        private final OutputStream out;
+        private final CRC32 crc = new CRC32();
+        private final byte[] scratch = new byte[8];
+        private final BloomFilter bloom;
+        private final long[] deleted;
+        private final int maxKeys;
+        private int count;
+        private long previousKey = Long.MIN_VALUE;
+        private boolean finished;
+
+        /**
+         * @param maxKeys    at most this many keys will be added; sizes the filter
+         * @param bitsPerKey Bloom filter bits per key
+         */
+        Writer(File file, long sequence, int maxKeys, int bitsPerKey) throws IOException {
+            // Keys, deletion bits and the filter must fit one mapping
+            if ((long) maxKeys * (8 + bitsPerKey / 8 + 1) > Integer.MAX_VALUE - HEADER_SIZE) {
+                throw new IOException("Too many IDs for one run: " + maxKeys);
+            }
+            this.file = file;
+            this.temp = new File(file.getPath() + ".tmp");
+            this.sequence = sequence;
+            this.maxKeys = maxKeys;
+            this.bloom = new BloomFilter(maxKeys, bitsPerKey);
+            this.deleted = new long[wordsFor(maxKeys)];
+            this.fileOut = new FileOutputStream(temp);
+            this.out = new BufferedOutputStream(fileOut, 64 * 1024);
+            out.write(new byte[HEADER_SIZE]);
+        }
+
+        void add(long key, boolean isDeleted) throws IOException {
+            if (count == maxKeys || (count > 0 && key <= previousKey)) {
+                throw new IllegalStateException("Keys must be unique, ascending and at most " + maxKeys);
+            }
+            if (isDeleted) {
+                deleted[count >>> 6] |= 1L << count;
+            }
+            bloom.add(key);
+            writeLong(key);
+            previousKey = key;
+            count++;
+        }
+
+        /**
+         * Write the deletion bits, filter and header, sync, and open the finished run
+         */
+        IdRun finish() throws IOException {
+            for (int i = 0; i < wordsFor(count); i++) {
+                writeLong(deleted[i]);
+            }
+            long[] words = bloom.words();
+            for (long word : words) {
+                writeLong(word);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) 0);
+            header.putLong(sequence);
+            header.putInt(count);
+            header.putInt(bloom.hashCount());
+            header.putInt(words.length);
+            header.putInt((int) crc.getValue());
+            header.flip();
+            FileChannel channel = fileOut.getChannel();
+            channel.write(header, 0);
+            channel.force(true);
+            fileOut.close();
+            finished = true;
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not replace ID index run " + file);
+            }
+            return open(file);
+        }
+
+        private void writeLong(long value) throws IOException {
+            for (int i = 0; i < 8; i++) {
+                scratch[i] = (byte) (value >>> (i * 8));
+            }
+            out.write(scratch);
+            crc.update(scratch);
+        }
+
+        /**
+         * Abandon an unfinished run and remove its temp file
+         */
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                fileOut.close();
+                temp.delete();
+            }
+        }
+    }
+}
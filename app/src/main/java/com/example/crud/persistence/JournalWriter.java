@@ -0,0 +1,337 @@
+package com.example.crud.persistence;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.metrics.Metrics;
+import com.example.crud.models.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background thread that owns all journal writes.
+ *
+ * Mutations that arrive within a short window are written together and made durable
+ * with one fsync (group commit), so throughput grows with batch size instead of being
+ * capped by fsync latency. Each mutation gets a future that completes once it is on disk.
+ * When the queue is full, {@link #submit} blocks the caller until the writer catches up.
+ * {@link #close()} queues a stop marker behind everything submitted before it, so the writer
+ * is never interrupted in the middle of a write.
+ */
+public class JournalWriter implements Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_BATCH = 512;
+    public static final long DEFAULT_BATCH_WINDOW_MICROS = 2000;
+
+    private final StudentJournal journal;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long batchWindowNanos;
+    private final Thread thread;
+    // Held while checking closed and queueing, so nothing lands behind the stop marker
+    private final Object enqueueLock = new Object();
+    private final Pending stop = new Pending(null, null, null, null);
+
+    private volatile boolean closed;
+    private volatile boolean compactionQueued;
+    private volatile long batchCount;
+    private volatile long writtenCount;
+
+    public JournalWriter(StudentJournal journal) {
+        this(journal, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH, DEFAULT_BATCH_WINDOW_MICROS);
+    }
+
+    public JournalWriter(StudentJournal journal, int queueCapacity, int maxBatch, long batchWindowMicros) {
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(batchWindowMicros);
+        this.thread = new Thread(this::run, "journal-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue a mutation; the returned future completes once it has been fsynced
+     */
+    public CompletableFuture<Void> submit(StudentMutation mutation) {
+        return enqueue(new Pending(Collections.singletonList(mutation), null, null, null));
+    }
+
+    /**
+     * Queue several mutations as one entry (e.g. an imported batch), so a large batch
+     * takes a single queue slot; the future completes once all of them are fsynced
+     */
+    public CompletableFuture<Void> submitAll(List<StudentMutation> mutations) {
+        return enqueue(new Pending(new ArrayList<>(mutations), null, null, null));
+    }
+
+    /**
+     * Queue a compaction of the repository's current state. The copy is taken now, so it lines up
+     * exactly with the mutations submitted before this call.
+     */
+    public CompletableFuture<Void> compact(StudentRepository repository) {
+        String[] ids = repository.getAllIds();
+        String[] names = new String[ids.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = repository.get(i).getName();
+        }
+        compactionQueued = true;
+        return enqueue(new Pending(null, names, ids, null));
+    }
+
+    /**
+     * Same as {@link #compact(StudentRepository)} for an immutable snapshot, e.g. from
+     * {@link com.example.crud.data.VersionedRoster}. It must match the mutations submitted so
+     * far; it is copied on the writer thread.
+     */
+    public CompletableFuture<Void> compact(List<Student> snapshot) {
+        compactionQueued = true;
+        return enqueue(new Pending(null, null, null, snapshot));
+    }
+
+    /**
+     * Check if the journal has grown past its compaction threshold
+     */
+    public boolean needsCompaction() {
+        return !compactionQueued && journal.needsCompaction();
+    }
+
+    /**
+     * Number of fsynced batches written so far
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Number of mutations made durable so far
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Write everything submitted so far, then stop the writer and close the journal.
+     * Later submits fail.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (enqueueLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // The writer keeps draining, so this waits for room at most
+            putUninterruptibly(stop);
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    private CompletableFuture<Void> enqueue(Pending pending) {
+        synchronized (enqueueLock) {
+            if (closed) {
+                pending.future.completeExceptionally(new IOException("Journal writer is closed"));
+                return pending.future;
+            }
+            try {
+                queue.put(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.future.completeExceptionally(e);
+            }
+        }
+        return pending.future;
+    }
+
+    private void putUninterruptibly(Pending pending) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(pending);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<StudentMutation> mutations = new ArrayList<>(maxBatch);
+        while (true) {
+            Pending first;
+            try {
+                first = queue.take();
+            } catch (InterruptedException e) {
+                // Only close() stops the writer, and it does so with the stop marker
+                continue;
+            }
+            if (first == stop) {
+                // Everything submitted before close() is written
+                return;
+            }
+
+            if (first.isCompaction()) {
+                runCompaction(first);
+                continue;
+            }
+
+            batch.add(first);
+            boolean stopped = collectBatch(batch);
+            writeBatch(batch, mutations);
+            if (stopped) {
+                return;
+            }
+
+            // A compaction marker stops the batch so it sees exactly the mutations before it
+            Pending next = queue.peek();
+            if (next != null && next != stop && next.isCompaction()) {
+                runCompaction(queue.poll());
+            }
+            batch.clear();
+            mutations.clear();
+        }
+    }
+
+    /**
+     * Add what arrives within the batch window to the batch. Returns true if the stop marker
+     * was taken, so the writer stops after this batch.
+     */
+    private boolean collectBatch(List<Pending> batch) {
+        long deadline = System.nanoTime() + batchWindowNanos;
+        while (batch.size() < maxBatch) {
+            Pending next = queue.peek();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closed) {
+                    return false;
+                }
+                try {
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+                if (next == null) {
+                    return false;
+                }
+                if (next == stop) {
+                    return true;
+                }
+                if (next.isCompaction()) {
+                    // Cannot put it back at the head, so run it right after this batch
+                    batch.add(next);
+                    return false;
+                }
+                batch.add(next);
+            } else if (next.isCompaction() || next == stop) {
+                // Left at the head for run()
+                return false;
+            } else {
+                batch.add(queue.poll());
+            }
+        }
+        return false;
+    }
+
+    private void writeBatch(List<Pending> batch, List<StudentMutation> mutations) {
+        Pending trailingCompaction = null;
+        for (Pending pending : batch) {
+            if (pending.isCompaction()) {
+                trailingCompaction = pending;
+            } else {
+                mutations.addAll(pending.mutations);
+            }
+        }
+
+        try {
+            long start = Metrics.start();
+            journal.appendAll(mutations);
+            Metrics.JOURNAL_WRITE.recordSince(start);
+            Metrics.JOURNAL_RECORDS.add(mutations.size());
+            batchCount++;
+            writtenCount += mutations.size();
+            for (Pending pending : batch) {
+                if (!pending.isCompaction()) {
+                    pending.future.complete(null);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Pending pending : batch) {
+                if (!pending.isCompaction()) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+        }
+
+        if (trailingCompaction != null) {
+            runCompaction(trailingCompaction);
+        }
+    }
+
+    private void runCompaction(Pending pending) {
+        try {
+            long start = Metrics.start();
+            if (pending.snapshot != null) {
+                int size = pending.snapshot.size();
+                String[] names = new String[size];
+                String[] ids = new String[size];
+                int i = 0;
+                for (Student student : pending.snapshot) {
+                    names[i] = student.getName();
+                    ids[i++] = student.getId();
+                }
+                journal.compact(names, ids);
+            } else {
+                journal.compact(pending.names, pending.ids);
+            }
+            Metrics.JOURNAL_COMPACT.recordSince(start);
+            pending.future.complete(null);
+        } catch (IOException | RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        } finally {
+            compactionQueued = false;
+        }
+    }
+
+    private static final class Pending {
+        final List<StudentMutation> mutations;
+        final String[] names;
+        final String[] ids;
+        final List<Student> snapshot;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending(List<StudentMutation> mutations, String[] names, String[] ids, List<Student> snapshot) {
+            this.mutations = mutations;
+            this.names = names;
+            this.ids = ids;
+            this.snapshot = snapshot;
+        }
+
+        boolean isCompaction() {
+            return mutations == null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.crud.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the screen needs to come back after process death, as a small blob for the saved
+ * instance state. The students themselves are not in it: they are restored from the journal,
+ * which already has them on disk. Only IDs are kept, for the row at the top of the list and
+ * the selection, so the blob's size does not depend on the size of the roster.
+ *
+ * A selection larger than {@link #MAX_SELECTED_IDS} is not saved, to keep the blob well under
+ * the Binder transaction limit.
+ */
+public final class RosterSavedState {
+
+    public static final int MAX_SELECTED_IDS = 500;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final String sortMode;
+    private final String anchorId;
+    private final int anchorOffset;
+    private final int rosterSize;
+    private final List<String> selectedIds;
+
+    /**
+     * @param sortMode     name of the list order
+     * @param anchorId     ID of the student in the top visible row, or null
+     * @param anchorOffset pixels that row's top is below the top of the list
+     * @param rosterSize   number of students when saved, to tell if the journal is behind
+     * @param selectedIds  IDs of the selected students; dropped if there are too many
+     */
+    public RosterSavedState(String sortMode, String anchorId, int anchorOffset, int rosterSize,
+                            Collection<String> selectedIds) {
+        this.sortMode = sortMode;
+        this.anchorId = anchorId;
+        this.anchorOffset = anchorOffset;
+        this.rosterSize = rosterSize;
+        this.selectedIds = selectedIds.size() <= MAX_SELECTED_IDS
+                ? Collections.unmodifiableList(new ArrayList<>(selectedIds))
+                : Collections.emptyList();
+    }
+
+    public String getSortMode() {
+        return sortMode;
+    }
+
+    public String getAnchorId() {
+        return anchorId;
+    }
+
+    public int getAnchorOffset() {
+        return anchorOffset;
+    }
+
+    public int getRosterSize() {
+        return rosterSize;
+    }
+
+    public List<String> getSelectedIds() {
+        return selectedIds;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + selectedIds.size() * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(sortMode);
+            out.writeBoolean(anchorId != null);
+            if (anchorId != null) {
+                out.writeUTF(anchorId);
+            }
+            out.writeInt(anchorOffset);
+            out.writeInt(rosterSize);
+            out.writeInt(selectedIds.size());
+            for (String id : selectedIds) {
+                out.writeUTF(id);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read a blob written by {@link #toBytes()}; null if it is missing, from another version
+     * of the app or damaged
+     */
+    public static RosterSavedState fromBytes(byte[] blob) {
+        if (blob == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+            String sortMode = in.readUTF();
+            String anchorId = in.readBoolean() ? in.readUTF() : null;
+            int anchorOffset = in.readInt();
+            int rosterSize = in.readInt();
+            int count = in.readInt();
+            if (count < 0 || count > MAX_SELECTED_IDS) {
+                return null;
+            }
+            List<String> selectedIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                selectedIds.add(in.readUTF());
+            }
+            if (in.read() != -1) {
+                return null;
+            }
+            return new RosterSavedState(sortMode, anchorId, anchorOffset, rosterSize, selectedIds);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
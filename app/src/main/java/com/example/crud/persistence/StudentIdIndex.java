@@ -0,0 +1,576 @@
+package com.example.crud.persistence;
+
+import com.example.crud.data.LongIntHashMap;
+import com.example.crud.data.StudentIds;
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers "is this student ID taken?" for rosters whose IDs do not all fit in memory.
+ *
+ * New adds and deletes go into a small in-memory buffer. A full buffer is sorted and written
+ * in the background as an immutable run file ({@link IdRun}). Once there are more than
+ * {@value #MAX_RUNS} runs, the newest are merged together with any older run no more than twice
+ * their size, so each ID is rewritten a logarithmic number of times. Every run carries a
+ * Bloom filter, so an ID that is not taken (the usual case when adding a student) is answered
+ * from memory, and any other lookup reads a page or two of one run. The heap holds the buffer
+ * plus about 1.3 bytes per ID (the filters and the runs' fence keys), whatever the roster size.
+ * Adding never waits for the disk: while the writer is behind, the buffer grows instead.
+ *
+ * IDs are kept as 64-bit keys: numeric IDs exactly, other IDs (such as "007") as a 62-bit
+ * hash, so two of those could in theory collide. Fed as a {@link StudentRepository.Listener},
+ * the index follows the roster. The last buffer is written by {@link #close()} or
+ * {@link #checkpoint()}; if neither happened after the last change, {@link #wasClosedCleanly()}
+ * is false and the index should be rebuilt from the roster.
+ */
+public class StudentIdIndex implements StudentRepository.Listener, Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_BITS_PER_KEY = 10;
+
+    // More runs than this start a merge
+    static final int MAX_RUNS = 4;
+    // Full buffers waiting to be written; past this the buffer grows until the writer catches
+    // up, so add() never waits for disk
+    private static final int MAX_PENDING_FLUSHES = 2;
+
+    private static final String RUN_PREFIX = "ids-";
+    private static final String RUN_SUFFIX = ".run";
+    private static final String CLEAN_MARKER = "clean";
+    private static final int PRESENT = 1;
+    private static final int DELETED = 0;
+
+    private final File directory;
+    private final int bufferSize;
+    private final int bitsPerKey;
+    private final boolean closedCleanly;
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-id-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this. The arrays are replaced rather than changed, newest first, so a lookup
+    // takes them under the lock and searches them, and the mapped runs, outside it.
+    private final LongIntHashMap buffer;
+    private FrozenBuffer[] flushing = new FrozenBuffer[0];
+    private IdRun[] runs = new IdRun[0];
+    private long nextSequence;
+    private int epoch; // Bumped by clear() so writes started before it are thrown away
+    private boolean mergeQueued;
+    private boolean dirty = true; // The clean marker is missing
+    private IOException failure;
+
+    private StudentIdIndex(File directory, int bufferSize, int bitsPerKey, boolean closedCleanly) {
+        this.directory = directory;
+        this.bufferSize = bufferSize;
+        this.bitsPerKey = bitsPerKey;
+        this.closedCleanly = closedCleanly;
+        this.buffer = new LongIntHashMap(bufferSize);
+    }
+
+    public static StudentIdIndex open(File directory) throws IOException {
+        return open(directory, DEFAULT_BUFFER_SIZE, DEFAULT_BITS_PER_KEY);
+    }
+
+    /**
+     * Open the index kept in {@code directory}, creating it if needed. A damaged or unclean
+     * index is opened empty, with {@link #wasClosedCleanly()} false.
+     *
+     * @param bufferSize IDs held in memory before they are written as a run
+     * @param bitsPerKey Bloom filter bits per ID; 10 gives about 1% false positives
+     */
+    public static StudentIdIndex open(File directory, int bufferSize, int bitsPerKey) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        // Removing the marker now means a crash before close() leaves it missing
+        File marker = new File(directory, CLEAN_MARKER);
+        boolean clean = marker.delete();
+        StudentIdIndex index = new StudentIdIndex(directory, bufferSize, bitsPerKey, clean);
+
+        File[] files = directory.listFiles();
+        List<File> runFiles = new ArrayList<>();
+        for (File file : files != null ? files : new File[0]) {
+            if (file.getName().endsWith(".tmp")) {
+                file.delete();
+            } else if (file.getName().startsWith(RUN_PREFIX) && file.getName().endsWith(RUN_SUFFIX)) {
+                runFiles.add(file);
+            }
+        }
+        if (!clean) {
+            deleteAll(runFiles);
+            return index;
+        }
+        List<IdRun> runs = new ArrayList<>();
+        try {
+            for (File file : runFiles) {
+                runs.add(IdRun.open(file));
+            }
+        } catch (IOException e) {
+            runs.forEach(StudentIdIndex::closeQuietly);
+            deleteAll(runFiles);
+            return new StudentIdIndex(directory, bufferSize, bitsPerKey, false);
+        }
+        runs.sort((a, b) -> Long.compare(b.getSequence(), a.getSequence()));
+        index.runs = runs.toArray(new IdRun[0]);
+        index.nextSequence = runs.isEmpty() ? 0 : runs.get(0).getSequence() + 1;
+        return index;
+    }
+
+    /**
+     * False when the index was not closed last time, or its files were damaged, so it
+     * started empty and should be filled from the roster
+     */
+    public boolean wasClosedCleanly() {
+        return closedCleanly;
+    }
+
+    public boolean contains(String id) {
+        return contains(keyOf(id));
+    }
+
+    public void add(String id) {
+        put(keyOf(id), PRESENT);
+    }
+
+    public void remove(String id) {
+        put(keyOf(id), DELETED);
+    }
+
+    /**
+     * Forget every ID
+     */
+    public synchronized void clear() {
+        markDirty();
+        epoch++;
+        buffer.clear();
+        flushing = new FrozenBuffer[0];
+        IdRun[] dropped = runs;
+        runs = new IdRun[0];
+        // After any write in progress, so the files are not in use
+        writeExecutor.execute(() -> {
+            for (IdRun run : dropped) {
+                closeQuietly(run);
+                run.getFile().delete();
+            }
+        });
+    }
+
+    boolean contains(long key) {
+        FrozenBuffer[] flushing;
+        IdRun[] runs;
+        synchronized (this) {
+            int state = buffer.get(key);
+            if (state != LongIntHashMap.NO_VALUE) {
+                return state == PRESENT;
+            }
+            flushing = this.flushing;
+            runs = this.runs;
+        }
+        // A run closed meanwhile by a merge or clear() stays mapped, and holds the same answer
+        for (FrozenBuffer frozen : flushing) {
+            int found = frozen.find(key);
+            if (found != IdRun.ABSENT) {
+                return found == IdRun.PRESENT;
+            }
+        }
+        for (IdRun run : runs) {
+            if (run.mightContain(key)) {
+                int found = run.find(key);
+                if (found != IdRun.ABSENT) {
+                    return found == IdRun.PRESENT;
+                }
+            }
+        }
+        return false;
+    }
+
+    private synchronized void put(long key, int state) {
+        markDirty();
+        buffer.put(key, state);
+        // Called on the main thread, so a slow writer lets the buffer grow rather than block
+        if (buffer.size() >= bufferSize && (flushing.length < MAX_PENDING_FLUSHES || failure != null)) {
+            freeze();
+        }
+    }
+
+    /**
+     * Move the buffer's contents into a sorted array and have it written as a run
+     */
+    private void freeze() {
+        long[] keys = new long[buffer.size()];
+        buffer.copyKeys(keys);
+        Arrays.sort(keys);
+        long[] deleted = new long[(keys.length + 63) >>> 6];
+        for (int i = 0; i < keys.length; i++) {
+            if (buffer.get(keys[i]) == DELETED) {
+                deleted[i >>> 6] |= 1L << i;
+            }
+        }
+        buffer.clear();
+
+        FrozenBuffer frozen = new FrozenBuffer(nextSequence++, keys, deleted);
+        flushing = prepend(frozen, flushing);
+        int flushEpoch = epoch;
+        writeExecutor.execute(() -> flush(frozen, flushEpoch));
+    }
+
+    private void flush(FrozenBuffer frozen, int flushEpoch) {
+        IdRun run;
+        try (IdRun.Writer writer = new IdRun.Writer(runFile(frozen.sequence), frozen.sequence,
+                frozen.keys.length, bitsPerKey)) {
+            for (int i = 0; i < frozen.keys.length; i++) {
+                writer.add(frozen.keys[i], frozen.isDeleted(i));
+            }
+            run = writer.finish();
+        } catch (IOException e) {
+            synchronized (this) {
+                // The buffer stays in memory, so lookups are still right; close() reports it
+                failure = e;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (flushEpoch != epoch) {
+                discard(run);
+                return;
+            }
+            runs = prepend(run, runs);
+            List<FrozenBuffer> stillFlushing = new ArrayList<>(Arrays.asList(flushing));
+            stillFlushing.remove(frozen);
+            flushing = stillFlushing.toArray(new FrozenBuffer[0]);
+            if (runs.length > MAX_RUNS) {
+                queueMerge();
+            }
+        }
+    }
+
+    private void merge() {
+        try {
+            mergeNewestRuns();
+        } finally {
+            synchronized (this) {
+                // Cleared only now, so awaitWrites() cannot see a merge in progress as done
+                mergeQueued = false;
+                if (runs.length > MAX_RUNS && failure == null) {
+                    queueMerge();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a merge unless one is waiting already. Call while holding the lock.
+     */
+    private void queueMerge() {
+        if (!mergeQueued) {
+            mergeQueued = true;
+            writeExecutor.execute(this::merge);
+        }
+    }
+
+    /**
+     * Merge the newest runs into one. Runs only on the write thread, so no flush lands meanwhile.
+     */
+    private void mergeNewestRuns() {
+        List<IdRun> inputs;
+        boolean includesOldest;
+        int mergeEpoch;
+        long total;
+        synchronized (this) {
+            if (runs.length <= 1) {
+                return;
+            }
+            int take = 2;
+            total = runs[0].size() + (long) runs[1].size();
+            while (take < runs.length && runs[take].size() <= 2 * total) {
+                total += runs[take].size();
+                take++;
+            }
+            inputs = Arrays.asList(Arrays.copyOf(runs, take));
+            includesOldest = take == runs.length;
+            mergeEpoch = epoch;
+        }
+
+        // Takes the newest input's sequence and file name, so it sorts behind any newer run
+        long sequence = inputs.get(0).getSequence();
+        IdRun merged;
+        try (IdRun.Writer writer = new IdRun.Writer(runFile(sequence), sequence,
+                (int) Math.min(Integer.MAX_VALUE, total), bitsPerKey)) {
+            int[] positions = new int[inputs.size()];
+            while (true) {
+                int winner = -1;
+                long smallest = 0;
+                for (int r = 0; r < positions.length; r++) {
+                    if (positions[r] < inputs.get(r).size()) {
+                        long key = inputs.get(r).keyAt(positions[r]);
+                        // On a tie the newest run, which comes first, wins
+                        if (winner == -1 || key < smallest) {
+                            winner = r;
+                            smallest = key;
+                        }
+                    }
+                }
+                if (winner == -1) {
+                    break;
+                }
+                boolean deleted = inputs.get(winner).isDeleted(positions[winner]);
+                for (int r = 0; r < positions.length; r++) {
+                    if (positions[r] < inputs.get(r).size() && inputs.get(r).keyAt(positions[r]) == smallest) {
+                        positions[r]++;
+                    }
+                }
+                // A deletion only matters while an older run may still have the ID
+                if (!deleted || !includesOldest) {
+                    writer.add(smallest, deleted);
+                }
+            }
+            merged = writer.finish();
+        } catch (IOException e) {
+            synchronized (this) {
+                // The inputs are untouched and still answer lookups
+                failure = e;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (mergeEpoch != epoch) {
+                discard(merged);
+                return;
+            }
+            IdRun[] remaining = Arrays.copyOfRange(runs, inputs.size() - 1, runs.length);
+            remaining[0] = merged;
+            runs = remaining;
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            closeQuietly(inputs.get(i));
+            if (i > 0) {
+                // The newest input's file was replaced by the merged run
+                inputs.get(i).getFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Wait until every full buffer is written and merged
+     */
+    void awaitWrites() throws IOException {
+        try {
+            do {
+                writeExecutor.submit(() -> { }).get();
+            } while (isWriting());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private synchronized boolean isWriting() {
+        return (flushing.length > 0 && failure == null) || mergeQueued;
+    }
+
+    synchronized int getRunCount() {
+        return runs.length;
+    }
+
+    /**
+     * Write the buffer as a run, wait for it and mark the index clean, so a process killed
+     * without {@link #close()} still opens with every ID up to here. The next change removes
+     * the mark again. Returns at once if nothing changed since the last checkpoint.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                freeze();
+            }
+        }
+        awaitWrites();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+            // Changes made meanwhile are not on disk yet, so the index stays unclean
+            if (buffer.isEmpty() && flushing.length == 0 && !mergeQueued) {
+                markClean();
+            }
+        }
+    }
+
+    /**
+     * Write the buffer as a run, wait for writes and merges to finish and mark the index clean
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!buffer.isEmpty()) {
+                freeze();
+            }
+        }
+        try {
+            awaitWrites();
+        } finally {
+            writeExecutor.shutdown();
+        }
+        try {
+            writeExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        synchronized (this) {
+            for (IdRun run : runs) {
+                closeQuietly(run);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (flushing.length == 0) {
+                markClean();
+            }
+        }
+    }
+
+    /**
+     * Close, but leave the index unclean so the next open starts empty; for an index known
+     * to have missed changes
+     */
+    void closeUnclean() throws IOException {
+        try {
+            close();
+        } finally {
+            synchronized (this) {
+                markDirty();
+            }
+        }
+    }
+
+    /**
+     * Call while holding the lock
+     */
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            new File(directory, CLEAN_MARKER).delete();
+        }
+    }
+
+    /**
+     * Call while holding the lock, once everything is on disk
+     */
+    private void markClean() throws IOException {
+        File marker = new File(directory, CLEAN_MARKER);
+        if (!marker.exists() && !marker.createNewFile()) {
+            throw new IOException("Could not mark ID index clean");
+        }
+        dirty = false;
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        add(student.getId());
+    }
+
+    @Override
+    public void onStudentRemoved(Student student) {
+        remove(student.getId());
+    }
+
+    @Override
+    public void onStudentUpdated(Student student, String oldName, String oldId) {
+        if (!oldId.equals(student.getId())) {
+            remove(oldId);
+            add(student.getId());
+        }
+    }
+
+    @Override
+    public void onStudentsCleared() {
+        clear();
+    }
+
+    /**
+     * Non-negative key for an ID. Hashed IDs have the top bit set; shifting it down puts them
+     * above every numeric key, which stays below 10^18.
+     */
+    static long keyOf(String id) {
+        long key = StudentIds.stableId(id);
+        return key >= 0 ? key : key >>> 1;
+    }
+
+    private File runFile(long sequence) {
+        return new File(directory, RUN_PREFIX + sequence + RUN_SUFFIX);
+    }
+
+    private static <T> T[] prepend(T first, T[] rest) {
+        T[] all = Arrays.copyOf(rest, rest.length + 1);
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        all[0] = first;
+        return all;
+    }
+
+    private static void discard(IdRun run) {
+        closeQuietly(run);
+        run.getFile().delete();
+    }
+
+    private static void deleteAll(List<File> files) {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static void closeQuietly(IdRun run) {
+        try {
+            run.close();
+        } catch (IOException ignored) {
+            // Read-only mapping; nothing was written through it
+        }
+    }
+
+    /**
+     * A full buffer, sorted, while it is being written
+     */
+    private static final class FrozenBuffer {
+        final long sequence;
+        final long[] keys;
+        final long[] deleted;
+
+        FrozenBuffer(long sequence, long[] keys, long[] deleted) {
+            this.sequence = sequence;
+            this.keys = keys;
+            this.deleted = deleted;
+        }
+
+        boolean isDeleted(int index) {
+            return (deleted[index >>> 6] & (1L << index)) != 0;
+        }
+
+        int find(long key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return IdRun.ABSENT;
+            }
+            return isDeleted(index) ? IdRun.DELETED : IdRun.PRESENT;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.crud.persistence;
+
+import com.example.crud.data.StudentRepository;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of roster mutations.
+ *
+ * Each record is {@code [int length][int crc32][body]}, so a write torn by a crash is detected
+ * on replay and cut off. Journals are numbered by generation: compaction starts a new
+ * generation, writes a snapshot of the state at the end of the previous one in the background,
+ * and only then deletes the old journals. Replay loads the snapshot and applies every journal
+ * from the generation stored in it, so a crash at any point leaves a consistent roster.
+ */
+public class StudentJournal implements Closeable {
+
+    /** Journal size after which {@link #needsCompaction()} reports true */
+    public static final long DEFAULT_COMPACT_THRESHOLD = 1024 * 1024;
+
+    private static final String SNAPSHOT_FILE = "students.snapshot";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8;
+
+    private final File directory;
+    private final long compactThreshold;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CRC32 crc = new CRC32();
+
+    // Opened on the first write, so a journal that is only replayed holds no file open
+    private FileChannel channel;
+    private boolean open;
+    private long generation;
+    private volatile long journalSize;
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(256);
+    private volatile Future<?> pendingCompaction;
+
+    public StudentJournal(File directory) {
+        this(directory, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    public StudentJournal(File directory, long compactThreshold) {
+        this.directory = directory;
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Load the snapshot and replay all newer journals into an empty repository. Appends then
+     * go to the latest journal, which is opened by the first of them.
+     */
+    public synchronized void replay(StudentRepository repository) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create journal directory " + directory);
+        }
+
+        long firstGeneration = StudentSnapshot.read(snapshotFile(), repository);
+        generation = firstGeneration;
+        for (long journalGeneration : listGenerations()) {
+            if (journalGeneration < firstGeneration) {
+                // Already folded into the snapshot; left behind by an interrupted compaction
+                deleteJournal(journalGeneration);
+                continue;
+            }
+            replayJournal(journalFile(journalGeneration), repository);
+            generation = journalGeneration;
+        }
+
+        journalSize = journalFile(generation).length();
+        open = true;
+    }
+
+    /**
+     * Durably append one mutation. Costs one record write and one fsync regardless of roster size.
+     */
+    public synchronized void append(StudentMutation mutation) throws IOException {
+        writeRecord(mutation);
+        channel.force(false);
+    }
+
+    /**
+     * Write several mutations and make them durable with a single fsync (group commit)
+     */
+    public synchronized void appendAll(List<StudentMutation> mutations) throws IOException {
+        for (StudentMutation mutation : mutations) {
+            writeRecord(mutation);
+        }
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Check if the current journal has grown past the compaction threshold
+     */
+    public boolean needsCompaction() {
+        return journalSize >= compactThreshold
+                && (pendingCompaction == null || pendingCompaction.isDone());
+    }
+
+    /**
+     * Start a new journal generation and write a snapshot of the repository in the background.
+     * Only the ID and name references are copied on the calling thread.
+     */
+    public synchronized Future<?> compact(StudentRepository repository) throws IOException {
+        String[] ids = repository.getAllIds();
+        String[] names = new String[ids.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = repository.get(i).getName();
+        }
+        return compact(names, ids);
+    }
+
+    /**
+     * Same as {@link #compact(StudentRepository)} for a copy taken earlier.
+     * The copy must reflect exactly the mutations appended so far.
+     */
+    public synchronized Future<?> compact(String[] names, String[] ids) throws IOException {
+        if (pendingCompaction != null && !pendingCompaction.isDone()) {
+            return pendingCompaction;
+        }
+
+        if (!open) {
+            throw new IllegalStateException("Journal is not open; call replay() first");
+        }
+        // Everything written so far is in the copy; new mutations go to the next generation
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        generation++;
+        openJournal();
+
+        long firstGeneration = generation;
+        pendingCompaction = compactor.submit(() -> {
+            StudentSnapshot.write(snapshotFile(), firstGeneration, names, ids);
+            for (long oldGeneration : listGenerations()) {
+                if (oldGeneration < firstGeneration) {
+                    deleteJournal(oldGeneration);
+                }
+            }
+            return null;
+        });
+        return pendingCompaction;
+    }
+
+    /**
+     * Size in bytes of the journal currently being appended to
+     */
+    public long getJournalSize() {
+        return journalSize;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        compactor.shutdown();
+        open = false;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void writeRecord(StudentMutation mutation) throws IOException {
+        if (!open) {
+            throw new IllegalStateException("Journal is not open; call replay() first");
+        }
+        if (channel == null) {
+            openJournal();
+        }
+
+        ByteBuffer record = encode(mutation);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        journalSize = channel.position();
+    }
+
+    private ByteBuffer encode(StudentMutation mutation) {
+        recordBuffer.clear();
+        recordBuffer.position(HEADER_SIZE);
+        putMutation(mutation);
+
+        ByteBuffer buffer = recordBuffer;
+        int bodySize = buffer.position() - HEADER_SIZE;
+        crc.reset();
+        crc.update(buffer.array(), HEADER_SIZE, bodySize);
+        buffer.putInt(0, bodySize);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Batches are written as their type and part count followed by each part
+     */
+    private void putMutation(StudentMutation mutation) {
+        if (mutation.getType() == StudentMutation.TYPE_BATCH) {
+            ensureRemaining(1 + 4);
+            recordBuffer.put(mutation.getType());
+            recordBuffer.putInt(mutation.getParts().size());
+            for (StudentMutation part : mutation.getParts()) {
+                putMutation(part);
+            }
+            return;
+        }
+
+        byte[] name = bytesOf(mutation.getName());
+        byte[] id = bytesOf(mutation.getId());
+        byte[] oldId = bytesOf(mutation.getOldId());
+        ensureRemaining(1 + 4 + sizeOf(name) + sizeOf(id) + sizeOf(oldId));
+        ByteBuffer buffer = recordBuffer;
+        buffer.put(mutation.getType());
+        buffer.putInt(mutation.getPosition());
+        putBytes(buffer, name);
+        putBytes(buffer, id);
+        putBytes(buffer, oldId);
+    }
+
+    private void ensureRemaining(int size) {
+        if (recordBuffer.remaining() < size) {
+            ByteBuffer grown = ByteBuffer.allocate(Integer.highestOneBit(recordBuffer.position() + size) << 1);
+            recordBuffer.flip();
+            grown.put(recordBuffer);
+            recordBuffer = grown;
+        }
+    }
+
+    private void replayJournal(File file, StudentRepository repository) throws IOException {
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            byte[] body = new byte[256];
+            while (true) {
+                int bodySize;
+                int checksum;
+                try {
+                    bodySize = in.readInt();
+                    checksum = in.readInt();
+                    if (bodySize <= 0) {
+                        break;
+                    }
+                    if (body.length < bodySize) {
+                        body = new byte[Integer.highestOneBit(bodySize) << 1];
+                    }
+                    in.readFully(body, 0, bodySize);
+                } catch (EOFException e) {
+                    // Torn write at the tail
+                    break;
+                }
+
+                crc.reset();
+                crc.update(body, 0, bodySize);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                decode(ByteBuffer.wrap(body, 0, bodySize)).applyTo(repository);
+                validLength += HEADER_SIZE + bodySize;
+            }
+        }
+
+        if (validLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+    }
+
+    private static StudentMutation decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        int position = buffer.getInt();
+        if (type == StudentMutation.TYPE_BATCH) {
+            // For a batch the position slot holds the number of parts
+            List<StudentMutation> parts = new ArrayList<>(position);
+            for (int i = 0; i < position; i++) {
+                parts.add(decode(buffer));
+            }
+            return StudentMutation.batch(parts);
+        }
+        String name = getString(buffer);
+        String id = getString(buffer);
+        String oldId = getString(buffer);
+        return new StudentMutation(type, position, oldId, name, id);
+    }
+
+    private void openJournal() throws IOException {
+        channel = new RandomAccessFile(journalFile(generation), "rw").getChannel();
+        journalSize = channel.size();
+        channel.position(journalSize);
+    }
+
+    private List<Long> listGenerations() {
+        List<Long> generations = new ArrayList<>();
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX)) {
+                    try {
+                        generations.add(Long.parseLong(name.substring(
+                                JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // Not one of ours
+                    }
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private void deleteJournal(long journalGeneration) throws IOException {
+        File file = journalFile(journalGeneration);
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not delete " + file);
+        }
+    }
+
+    private File journalFile(long journalGeneration) {
+        return new File(directory, JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+
+    private File snapshotFile() {
+        return new File(directory, SNAPSHOT_FILE);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 4 + (bytes != null ? bytes.length : 0);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
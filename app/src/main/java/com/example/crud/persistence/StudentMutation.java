@@ -0,0 +1,176 @@
+package com.example.crud.persistence;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single change to the roster, as written to the journal
+ */
+public final class StudentMutation {
+
+    public static final byte TYPE_ADD = 1;
+    public static final byte TYPE_UPDATE = 2;
+    public static final byte TYPE_DELETE = 3;
+    public static final byte TYPE_BATCH = 4;
+
+    private final byte type;
+    private final int position;
+    private final String oldId;
+    private final String name;
+    private final String id;
+    private final List<StudentMutation> parts;
+
+    StudentMutation(byte type, int position, String oldId, String name, String id) {
+        this.type = type;
+        this.position = position;
+        this.oldId = oldId;
+        this.name = name;
+        this.id = id;
+        this.parts = Collections.emptyList();
+    }
+
+    private StudentMutation(List<StudentMutation> parts) {
+        this.type = TYPE_BATCH;
+        this.position = -1;
+        this.oldId = null;
+        this.name = null;
+        this.id = null;
+        this.parts = parts;
+    }
+
+    /**
+     * Student inserted at a position (appends use the last position)
+     */
+    public static StudentMutation add(int position, Student student) {
+        return new StudentMutation(TYPE_ADD, position, null, student.getName(), student.getId());
+    }
+
+    /**
+     * Student identified by oldId now has the given name and ID
+     */
+    public static StudentMutation update(String oldId, String name, String id) {
+        return new StudentMutation(TYPE_UPDATE, -1, oldId, name, id);
+    }
+
+    /**
+     * Student with the given ID removed
+     */
+    public static StudentMutation delete(String id) {
+        return new StudentMutation(TYPE_DELETE, -1, null, null, id);
+    }
+
+    /**
+     * Several changes written as one journal record, so they are replayed all or not at all
+     */
+    public static StudentMutation batch(List<StudentMutation> mutations) {
+        List<StudentMutation> parts = new ArrayList<>(mutations.size());
+        for (StudentMutation mutation : mutations) {
+            if (mutation.type == TYPE_BATCH) {
+                parts.addAll(mutation.parts);
+            } else {
+                parts.add(mutation);
+            }
+        }
+        return new StudentMutation(Collections.unmodifiableList(parts));
+    }
+
+    public byte getType() { return type; }
+    public int getPosition() { return position; }
+    public String getOldId() { return oldId; }
+    public String getName() { return name; }
+    public String getId() { return id; }
+    public List<StudentMutation> getParts() { return parts; }
+
+    /**
+     * Apply this change to a repository. Changes that no longer match
+     * (e.g. already covered by a snapshot) are skipped.
+     */
+    public void applyTo(StudentRepository repository) {
+        switch (type) {
+            case TYPE_ADD:
+                if (!repository.containsId(id)) {
+                    int insertPosition = Math.max(0, Math.min(position, repository.size()));
+                    repository.add(insertPosition, new Student(name, id));
+                }
+                break;
+            case TYPE_UPDATE: {
+                int current = repository.indexOf(oldId);
+                int existing = repository.indexOf(id);
+                if (current != -1 && (existing == -1 || existing == current)) {
+                    repository.update(current, name, id);
+                }
+                break;
+            }
+            case TYPE_DELETE: {
+                int current = repository.indexOf(id);
+                if (current != -1) {
+                    repository.remove(current);
+                }
+                break;
+            }
+            case TYPE_BATCH:
+                applyBatch(repository);
+                break;
+            default:
+                throw new IllegalStateException("Unknown mutation type: " + type);
+        }
+    }
+
+    /**
+     * Large deletes and position inserts go through the repository's one-pass batch operations,
+     * so replaying a batch stays linear in the size of the list
+     */
+    private void applyBatch(StudentRepository repository) {
+        if (allOfType(TYPE_DELETE)) {
+            int[] positions = new int[parts.size()];
+            int count = 0;
+            for (StudentMutation part : parts) {
+                int current = repository.indexOf(part.id);
+                if (current != -1) {
+                    positions[count++] = current;
+                }
+            }
+            positions = Arrays.copyOf(positions, count);
+            Arrays.sort(positions);
+            repository.removeAll(positions);
+        } else if (allOfType(TYPE_ADD) && ascendingPositions()) {
+            int[] positions = new int[parts.size()];
+            Student[] students = new Student[parts.size()];
+            int count = 0;
+            for (StudentMutation part : parts) {
+                if (!repository.containsId(part.id)) {
+                    positions[count] = part.position;
+                    students[count++] = new Student(part.name, part.id);
+                }
+            }
+            repository.insertAll(Arrays.copyOf(positions, count), Arrays.copyOf(students, count));
+        } else {
+            for (StudentMutation part : parts) {
+                part.applyTo(repository);
+            }
+        }
+    }
+
+    private boolean allOfType(byte partType) {
+        for (StudentMutation part : parts) {
+            if (part.type != partType) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean ascendingPositions() {
+        for (int i = 1; i < parts.size(); i++) {
+            if (parts.get(i).position < parts.get(i - 1).position) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.crud.persistence;
+
+import com.example.crud.data.StudentIds;
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary copy of the roster, written during journal compaction.
+ *
+ * Layout (little endian):
+ * <pre>
+ * header   magic:int "STUD", version:short, flags:short, firstGeneration:long,
+ *          count:int, recordsLength:int, stringsLength:int, crc32:int
+ * records  per student: varint idTag, varint nameOffset, varint nameLength
+ *          idTag low bit 0: zigzag delta from the previous numeric ID, shifted left by one
+ *          idTag low bit 1: text ID at string offset (idTag >>> 1), followed by varint length
+ * strings  UTF-8 bytes; identical names are stored once and shared by offset
+ * </pre>
+ * The CRC covers the records and strings sections. Snapshots are read through a
+ * memory-mapped buffer, so loading does not go through stream or per-record wrapper objects.
+ */
+public final class StudentSnapshot {
+
+    static final int MAGIC = 0x44555453; // "STUD" read little endian
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 32;
+
+    private StudentSnapshot() {
+    }
+
+    /**
+     * Write a snapshot atomically: data goes to a temp file which replaces the target once synced
+     */
+    public static void write(File file, long firstGeneration, String[] names, String[] ids) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream(Math.max(64, ids.length * 12));
+        Map<String, Integer> nameOffsets = new HashMap<>();
+        long recordsLength = 0;
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            OutputStream out = new BufferedOutputStream(fileOut, 64 * 1024);
+            out.write(new byte[HEADER_SIZE]);
+
+            byte[] scratch = new byte[4 * 10];
+            long previousKey = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int length = 0;
+                long key = StudentIds.toKey(ids[i]);
+                if (key != StudentIds.NO_KEY) {
+                    length = putVarint(scratch, length, zigzag(key - previousKey) << 1);
+                    previousKey = key;
+                } else {
+                    byte[] idBytes = ids[i].getBytes(StandardCharsets.UTF_8);
+                    length = putVarint(scratch, length, ((long) strings.size() << 1) | 1);
+                    length = putVarint(scratch, length, idBytes.length);
+                    strings.write(idBytes);
+                }
+
+                Integer nameOffset = nameOffsets.get(names[i]);
+                byte[] nameBytes = names[i].getBytes(StandardCharsets.UTF_8);
+                if (nameOffset == null) {
+                    nameOffset = strings.size();
+                    strings.write(nameBytes);
+                    nameOffsets.put(names[i], nameOffset);
+                }
+                length = putVarint(scratch, length, nameOffset);
+                length = putVarint(scratch, length, nameBytes.length);
+
+                out.write(scratch, 0, length);
+                crc.update(scratch, 0, length);
+                recordsLength += length;
+            }
+
+            byte[] stringBytes = strings.toByteArray();
+            out.write(stringBytes);
+            crc.update(stringBytes);
+            out.flush();
+            if (recordsLength > Integer.MAX_VALUE) {
+                throw new IOException("Roster too large for snapshot format");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) 0);
+            header.putLong(firstGeneration);
+            header.putInt(ids.length);
+            header.putInt((int) recordsLength);
+            header.putInt(stringBytes.length);
+            header.putInt((int) crc.getValue());
+            header.flip();
+            FileChannel channel = fileOut.getChannel();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not replace snapshot " + file);
+        }
+    }
+
+    /**
+     * Load a snapshot into an empty repository.
+     * Returns the first journal generation to replay, or 0 when there is no snapshot.
+     */
+    public static long read(File file, StudentRepository repository) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (Reader reader = Reader.open(file)) {
+            while (reader.next()) {
+                repository.add(new Student(reader.name(), reader.id()));
+            }
+            return reader.getFirstGeneration();
+        }
+    }
+
+    /**
+     * Forward-only cursor over a memory-mapped snapshot. Only {@link #id()} and {@link #name()}
+     * allocate, and only the Strings that the caller asks for.
+     */
+    public static final class Reader implements Closeable {
+
+        private final RandomAccessFile file;
+        private final MappedByteBuffer buffer;
+        private final long firstGeneration;
+        private final int count;
+        private final int recordsEnd;
+        private final int stringsStart;
+
+        private byte[] scratch = new byte[64];
+        private int index = -1;
+        private long numericId;
+        private int textIdOffset = -1;
+        private int textIdLength;
+        private int nameOffset;
+        private int nameLength;
+
+        private Reader(RandomAccessFile file, MappedByteBuffer buffer) throws IOException {
+            this.file = file;
+            this.buffer = buffer;
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a student snapshot");
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + buffer.getShort(4));
+            }
+            firstGeneration = buffer.getLong(8);
+            count = buffer.getInt(16);
+            int recordsLength = buffer.getInt(20);
+            int stringsLength = buffer.getInt(24);
+            if ((long) HEADER_SIZE + recordsLength + stringsLength != buffer.capacity()) {
+                throw new IOException("Truncated snapshot");
+            }
+            recordsEnd = HEADER_SIZE + recordsLength;
+            stringsStart = recordsEnd;
+            verifyChecksum(buffer.getInt(28));
+            buffer.position(HEADER_SIZE);
+        }
+
+        /**
+         * Map a snapshot file and verify its checksum
+         */
+        public static Reader open(File file) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                return new Reader(raf, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException | RuntimeException e) {
+                raf.close();
+                throw e;
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public long getFirstGeneration() {
+            return firstGeneration;
+        }
+
+        /**
+         * Advance to the next record, returning false at the end
+         */
+        public boolean next() throws IOException {
+            if (index + 1 >= count) {
+                return false;
+            }
+            if (buffer.position() >= recordsEnd) {
+                throw new IOException("Snapshot record section ended early");
+            }
+            index++;
+
+            long idTag = getVarint();
+            if ((idTag & 1) == 0) {
+                numericId += unzigzag(idTag >>> 1);
+                textIdOffset = -1;
+            } else {
+                textIdOffset = (int) (idTag >>> 1);
+                textIdLength = (int) getVarint();
+            }
+            nameOffset = (int) getVarint();
+            nameLength = (int) getVarint();
+            return true;
+        }
+
+        /**
+         * Numeric key of the current ID, or {@link StudentIds#NO_KEY} for IDs stored as text
+         */
+        public long numericId() {
+            return textIdOffset == -1 ? numericId : StudentIds.NO_KEY;
+        }
+
+        public String id() {
+            return textIdOffset == -1 ? Long.toString(numericId) : decode(textIdOffset, textIdLength);
+        }
+
+        public String name() {
+            return decode(nameOffset, nameLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+
+        private String decode(int offset, int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Integer.highestOneBit(length) << 1];
+            }
+            int position = buffer.position();
+            buffer.position(stringsStart + offset);
+            buffer.get(scratch, 0, length);
+            buffer.position(position);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private long getVarint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        private void verifyChecksum(int expected) throws IOException {
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[64 * 1024];
+            ByteBuffer body = buffer.duplicate();
+            body.position(HEADER_SIZE);
+            while (body.hasRemaining()) {
+                int length = Math.min(chunk.length, body.remaining());
+                body.get(chunk, 0, length);
+                crc.update(chunk, 0, length);
+            }
+            if ((int) crc.getValue() != expected) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+        }
+    }
+
+    private static int putVarint(byte[] target, int offset, long value) {
+        while ((value & ~0x7fL) != 0) {
+            target[offset++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
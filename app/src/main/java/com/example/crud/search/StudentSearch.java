@@ -0,0 +1,123 @@
+package com.example.crud.search;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.metrics.Metrics;
+import com.example.crud.models.Student;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a {@link StudentSearchIndex} in step with a repository and answers queries off the
+ * calling thread.
+ *
+ * Index updates and queries all run in order on one background thread, so the thread that
+ * mutates the repository never waits on the index, and a query always sees every change
+ * made before it was submitted.
+ */
+public class StudentSearch implements StudentRepository.Listener {
+
+    public static final int DEFAULT_LIMIT = 200;
+
+    public interface Callback {
+        /**
+         * Called on the search thread
+         */
+        void onResults(String query, List<Student> results);
+    }
+
+    private final StudentSearchIndex index = new StudentSearchIndex();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger latestQuery = new AtomicInteger();
+
+    /**
+     * Index the current contents of a repository and follow its changes from now on
+     */
+    public void attach(StudentRepository repository) {
+        int count = repository.size();
+        Student[] students = new Student[count];
+        String[] names = new String[count];
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            students[i] = repository.get(i);
+            names[i] = students[i].getName();
+            ids[i] = students[i].getId();
+        }
+        repository.addListener(this);
+        executor.execute(() -> {
+            for (int i = 0; i < count; i++) {
+                index.add(students[i], names[i], ids[i]);
+            }
+        });
+    }
+
+    /**
+     * Run a query in the background. Results of a query superseded by a newer one are dropped.
+     */
+    public void search(String query, int limit, Callback callback) {
+        int token = latestQuery.incrementAndGet();
+        executor.execute(() -> {
+            if (token != latestQuery.get()) {
+                return;
+            }
+            long start = Metrics.start();
+            List<Student> results = index.search(query, limit);
+            Metrics.SEARCH.recordSince(start);
+            if (token == latestQuery.get()) {
+                callback.onResults(query, results);
+            }
+        });
+    }
+
+    /**
+     * Drop any query that has not delivered results yet
+     */
+    public void cancelPending() {
+        latestQuery.incrementAndGet();
+    }
+
+    /**
+     * Stop following a repository that outlives this search, before {@link #shutdown()}
+     */
+    public void detach(StudentRepository repository) {
+        repository.removeListener(this);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        String name = student.getName();
+        String id = student.getId();
+        executor.execute(() -> index.add(student, name, id));
+    }
+
+    @Override
+    public void onStudentRemoved(Student student) {
+        String id = student.getId();
+        executor.execute(() -> index.remove(id));
+    }
+
+    @Override
+    public void onStudentUpdated(Student student, String oldName, String oldId) {
+        String name = student.getName();
+        String id = student.getId();
+        executor.execute(() -> {
+            index.remove(oldId);
+            index.add(student, name, id);
+        });
+    }
+
+    @Override
+    public void onStudentsCleared() {
+        executor.execute(index::clear);
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.crud.search;
+
+import com.example.crud.data.LongIntHashMap;
+import com.example.crud.data.StudentIdMap;
+import com.example.crud.models.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental search index over student names and IDs.
+ *
+ * Names are lowercased and broken into bigrams and trigrams, each with a posting list of
+ * document slots. A query is answered from the shortest posting list of its grams and
+ * verified against the name, stopping once enough matches are found. Digit-only queries
+ * are answered from a sorted prefix index over IDs.
+ *
+ * Removed documents leave dead slots behind which are skipped during queries and dropped
+ * when the index is rebuilt after they outnumber live ones.
+ *
+ * Not thread-safe; {@link StudentSearch} confines it to a single thread.
+ */
+public class StudentSearchIndex {
+
+    private static final int MIN_REBUILD_DEAD = 1024;
+
+    // Document slots; a null student marks a dead slot
+    private Student[] students = new Student[1024];
+    private String[] names = new String[1024];
+    private int slotCount;
+    private int liveCount;
+
+    private final StudentIdMap slotById = new StudentIdMap();
+    private final TreeMap<String, Integer> slotByIdPrefix = new TreeMap<>();
+
+    // Gram key -> index into postings
+    private final LongIntHashMap gramIndex = new LongIntHashMap(4096);
+    private final List<Postings> postings = new ArrayList<>();
+
+    /**
+     * Index a student under the given name and ID.
+     * Values are passed separately because the student object may already have changed.
+     */
+    public void add(Student student, String name, String id) {
+        if (slotById.containsKey(id)) {
+            remove(id);
+        }
+        if (slotCount == students.length) {
+            students = Arrays.copyOf(students, slotCount * 2);
+            names = Arrays.copyOf(names, slotCount * 2);
+        }
+
+        int slot = slotCount++;
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        students[slot] = student;
+        names[slot] = lowerName;
+        slotById.put(id, slot);
+        slotByIdPrefix.put(id, slot);
+        liveCount++;
+
+        for (int i = 0; i + 1 < lowerName.length(); i++) {
+            postingsFor(gramKey(lowerName, i, 2), true).add(slot);
+            if (i + 2 < lowerName.length()) {
+                postingsFor(gramKey(lowerName, i, 3), true).add(slot);
+            }
+        }
+    }
+
+    /**
+     * Remove a student by ID
+     */
+    public void remove(String id) {
+        int slot = slotById.remove(id);
+        if (slot == StudentIdMap.NO_VALUE) {
+            return;
+        }
+        slotByIdPrefix.remove(id);
+        students[slot] = null;
+        names[slot] = null;
+        liveCount--;
+
+        int dead = slotCount - liveCount;
+        if (dead > MIN_REBUILD_DEAD && dead > liveCount) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Drop everything
+     */
+    public void clear() {
+        Arrays.fill(students, 0, slotCount, null);
+        Arrays.fill(names, 0, slotCount, null);
+        slotCount = 0;
+        liveCount = 0;
+        slotById.clear();
+        slotByIdPrefix.clear();
+        gramIndex.clear();
+        postings.clear();
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Find up to {@code limit} students whose ID starts with the query (digit-only queries)
+     * or whose name contains it, ignoring case
+     */
+    public List<Student> search(String query, int limit) {
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Student> results = new ArrayList<>(Math.min(limit, 64));
+        if (isDigits(needle)) {
+            searchIds(needle, limit, results);
+        }
+        if (results.size() < limit) {
+            searchNames(needle, limit, results);
+        }
+        return results;
+    }
+
+    private void searchIds(String prefix, int limit, List<Student> results) {
+        Map<String, Integer> range = slotByIdPrefix.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (int slot : range.values()) {
+            results.add(students[slot]);
+            if (results.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    private void searchNames(String needle, int limit, List<Student> results) {
+        int skipFrom = results.size();
+        if (needle.length() == 1) {
+            // Single letters match most names, so a scan fills the page almost immediately
+            char c = needle.charAt(0);
+            for (int slot = 0; slot < slotCount && results.size() < limit; slot++) {
+                if (names[slot] != null && names[slot].indexOf(c) >= 0) {
+                    addUnique(results, skipFrom, students[slot]);
+                }
+            }
+            return;
+        }
+
+        // Pick the rarest gram of the query; its posting list is the candidate set
+        int gramSize = Math.min(3, needle.length());
+        Postings best = null;
+        for (int i = 0; i + gramSize <= needle.length(); i++) {
+            Postings candidate = postingsFor(gramKey(needle, i, gramSize), false);
+            if (candidate == null) {
+                return;
+            }
+            if (best == null || candidate.size < best.size) {
+                best = candidate;
+            }
+        }
+
+        boolean exact = needle.length() == gramSize;
+        for (int i = 0; i < best.size && results.size() < limit; i++) {
+            int slot = best.slots[i];
+            String name = names[slot];
+            if (name != null && (exact || name.contains(needle))) {
+                addUnique(results, skipFrom, students[slot]);
+            }
+        }
+    }
+
+    private static void addUnique(List<Student> results, int idMatches, Student student) {
+        // Only ID matches come before name matches, and there are few of them
+        for (int i = 0; i < idMatches; i++) {
+            if (results.get(i) == student) {
+                return;
+            }
+        }
+        results.add(student);
+    }
+
+    /**
+     * Re-add all live documents into fresh slots, dropping dead ones from every posting list
+     */
+    private void rebuild() {
+        Student[] oldStudents = Arrays.copyOf(students, slotCount);
+        String[] oldIds = new String[slotCount];
+        String[] oldNames = new String[slotCount];
+        for (Map.Entry<String, Integer> entry : slotByIdPrefix.entrySet()) {
+            oldIds[entry.getValue()] = entry.getKey();
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            oldNames[slot] = names[slot];
+        }
+
+        int count = slotCount;
+        clear();
+        for (int slot = 0; slot < count; slot++) {
+            if (oldStudents[slot] != null) {
+                // Names are already lowercased, which add() leaves unchanged
+                add(oldStudents[slot], oldNames[slot], oldIds[slot]);
+            }
+        }
+    }
+
+    private Postings postingsFor(long gram, boolean create) {
+        int index = gramIndex.get(gram);
+        if (index != LongIntHashMap.NO_VALUE) {
+            return postings.get(index);
+        }
+        if (!create) {
+            return null;
+        }
+        Postings created = new Postings();
+        gramIndex.put(gram, postings.size());
+        postings.add(created);
+        return created;
+    }
+
+    /**
+     * Pack 2 or 3 chars into a non-negative long, tagged with the gram size
+     */
+    private static long gramKey(String text, int start, int size) {
+        long key = size;
+        for (int i = 0; i < size; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key;
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Growable list of slots, in increasing order
+     */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            // A name repeating a gram would add its slot twice in a row
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.crud.sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorted sequence with O(log n) insert, remove, rank and select, as a treap whose nodes
+ * live in parallel primitive arrays (about 20 bytes per element plus the element itself).
+ * The comparator must be a total order: no two elements in the tree may compare equal.
+ *
+ * Elements are found by comparison, but an element whose sort key has already changed can
+ * still be located: {@link #indexOf(Object, Object)} walks the tree with a probe holding the
+ * old key and matches the target by reference.
+ */
+public class OrderStatisticTree<T> {
+
+    private static final int NIL = 0; // Node 0 is a sentinel with size 0
+
+    private final Comparator<? super T> comparator;
+    private int[] left;
+    private int[] right;
+    private int[] size;
+    private int[] priority;
+    private Object[] values;
+    private int root = NIL;
+    private int allocated = 1;
+    private int freeList = NIL; // Freed nodes, chained through right[]
+    private int seed = 0x2545F491;
+
+    // Results of split(), to avoid allocating a pair per call
+    private int splitLeft;
+    private int splitRight;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this(comparator, 16);
+    }
+
+    public OrderStatisticTree(Comparator<? super T> comparator, int expectedSize) {
+        this.comparator = comparator;
+        int capacity = Math.max(2, expectedSize + 1);
+        left = new int[capacity];
+        right = new int[capacity];
+        size = new int[capacity];
+        priority = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    public int size() {
+        return size[root];
+    }
+
+    /**
+     * Element at a rank, O(log n)
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size());
+        }
+        int node = root;
+        while (true) {
+            int leftSize = size[left[node]];
+            if (index < leftSize) {
+                node = left[node];
+            } else if (index == leftSize) {
+                return (T) values[node];
+            } else {
+                index -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * Insert an element and return its rank
+     */
+    public int insert(T value) {
+        int node = allocate(value);
+        root = insert(root, node);
+        return indexOf(value, value);
+    }
+
+    /**
+     * Rank of {@code target}, found by walking the tree as if looking for {@code probe}.
+     * Pass the element twice when its key has not changed. Returns -1 if it is not in the tree.
+     */
+    @SuppressWarnings("unchecked")
+    public int indexOf(T probe, T target) {
+        int node = root;
+        int rank = 0;
+        while (node != NIL) {
+            if (values[node] == target) {
+                return rank + size[left[node]];
+            }
+            int c = comparator.compare(probe, (T) values[node]);
+            if (c < 0) {
+                node = left[node];
+            } else if (c > 0) {
+                rank += size[left[node]] + 1;
+                node = right[node];
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove and return the element at a rank
+     */
+    @SuppressWarnings("unchecked")
+    public T removeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size());
+        }
+        root = removeAt(root, index);
+        int removed = splitLeft; // Set by removeAt(int, int)
+        T value = (T) values[removed];
+        free(removed);
+        return value;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, allocated, null);
+        root = NIL;
+        allocated = 1;
+        freeList = NIL;
+    }
+
+    /**
+     * Replace the contents with already sorted elements in O(n)
+     */
+    public void build(T[] sorted) {
+        clear();
+        ensureCapacity(sorted.length + 1);
+
+        // Cartesian tree construction: keep the right spine on a stack
+        int[] stack = new int[sorted.length];
+        int top = -1;
+        for (T value : sorted) {
+            int node = allocate(value);
+            int last = NIL;
+            while (top >= 0 && priority[stack[top]] < priority[node]) {
+                last = stack[top--];
+                update(last);
+            }
+            left[node] = last;
+            if (top >= 0) {
+                right[stack[top]] = node;
+            }
+            stack[++top] = node;
+        }
+        while (top >= 0) {
+            update(stack[top--]);
+        }
+        root = sorted.length > 0 ? stack[0] : NIL;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int insert(int node, int inserted) {
+        if (node == NIL) {
+            return inserted;
+        }
+        if (priority[inserted] > priority[node]) {
+            split(node, (T) values[inserted]);
+            left[inserted] = splitLeft;
+            right[inserted] = splitRight;
+            update(inserted);
+            return inserted;
+        }
+        if (comparator.compare((T) values[inserted], (T) values[node]) < 0) {
+            left[node] = insert(left[node], inserted);
+        } else {
+            right[node] = insert(right[node], inserted);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Split a subtree into elements ordered before {@code value} and the rest
+     */
+    @SuppressWarnings("unchecked")
+    private void split(int node, T value) {
+        if (node == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+        if (comparator.compare((T) values[node], value) < 0) {
+            split(right[node], value);
+            right[node] = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            split(left[node], value);
+            left[node] = splitRight;
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    /**
+     * Remove by rank; the detached node is left in splitLeft
+     */
+    private int removeAt(int node, int index) {
+        int leftSize = size[left[node]];
+        if (index < leftSize) {
+            left[node] = removeAt(left[node], index);
+        } else if (index > leftSize) {
+            right[node] = removeAt(right[node], index - leftSize - 1);
+        } else {
+            int merged = merge(left[node], right[node]);
+            splitLeft = node;
+            return merged;
+        }
+        update(node);
+        return node;
+    }
+
+    private void update(int node) {
+        size[node] = size[left[node]] + size[right[node]] + 1;
+    }
+
+    private int allocate(Object value) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = right[node];
+        } else {
+            ensureCapacity(allocated + 1);
+            node = allocated++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        size[node] = 1;
+        priority[node] = nextPriority();
+        values[node] = value;
+        return node;
+    }
+
+    private void free(int node) {
+        values[node] = null;
+        left[node] = NIL;
+        size[node] = 0;
+        right[node] = freeList;
+        freeList = node;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= values.length) {
+            return;
+        }
+        int grown = Math.max(capacity, values.length + (values.length >> 1));
+        left = Arrays.copyOf(left, grown);
+        right = Arrays.copyOf(right, grown);
+        size = Arrays.copyOf(size, grown);
+        priority = Arrays.copyOf(priority, grown);
+        values = Arrays.copyOf(values, grown);
+    }
+
+    private int nextPriority() {
+        // xorshift32
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
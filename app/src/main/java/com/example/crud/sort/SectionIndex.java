@@ -0,0 +1,340 @@
+package com.example.crud.sort;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.display.StudentDisplay;
+import com.example.crud.models.Student;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Students per initial letter, kept up to date as the repository changes, for section headers
+ * and a letter rail over the list in {@link StudentOrder#BY_NAME} order.
+ *
+ * Names that {@link StudentOrder#BY_NAME} ranks by the same first character form one section,
+ * and sections come in the same order as their names, so a section's rows are contiguous. The
+ * counts are kept in a Fenwick tree over the sections: a change costs O(log k) for k sections,
+ * and the first row of a section or the section of a row is found in O(log k), with no scan
+ * of the list. Adding the first student of a new initial, or removing the last one, rebuilds
+ * the tree in O(k).
+ */
+public class SectionIndex implements StudentRepository.Listener {
+
+    /**
+     * Notified after a section appeared or disappeared; counts changing is not reported
+     */
+    public interface Listener {
+        void onSectionsChanged();
+    }
+
+    // Section key of an empty name, which sorts before every other
+    private static final int EMPTY_KEY = -1;
+
+    private final StudentRepository repository;
+    private int[] keys;
+    private String[] labels;
+    private int[] counts;
+    private int[] tree; // Fenwick tree over counts, 1-based
+    private int sectionCount;
+    private int total;
+    private Listener listener;
+    private boolean inBatch;
+    private boolean sectionsChanged;
+
+    /**
+     * Count the repository's students, O(n), and follow its changes from then on
+     */
+    public SectionIndex(StudentRepository repository) {
+        this(repository, names(repository.asList()));
+        repository.addListener(this);
+    }
+
+    // Not yet following the repository; create() counts these off the repository's thread
+    private SectionIndex(StudentRepository repository, String[] names) {
+        this.repository = repository;
+        build(names);
+    }
+
+    /**
+     * Create an index without counting on the calling thread, which must be the one that
+     * changes the repository. The names are counted on {@code background}, from the roster's
+     * snapshot when it is current; the index is handed over on {@code foreground}, or the count
+     * starts over if the repository changed in the meantime.
+     */
+    public static void create(StudentRepository repository, VersionedRoster roster,
+                              Executor background, Executor foreground, Consumer<SectionIndex> callback) {
+        int version = repository.getModificationCount();
+        VersionedRoster.Snapshot snapshot = roster != null ? roster.current() : null;
+
+        // Names are immutable, so copying the references is enough when there is no snapshot
+        String[] copied = snapshot != null && snapshot.getVersion() == version ? null : names(repository.asList());
+
+        background.execute(() -> {
+            String[] names = copied != null ? copied : names(snapshot.getStudents());
+            SectionIndex counted = new SectionIndex(repository, names);
+            foreground.execute(() -> {
+                if (repository.getModificationCount() != version) {
+                    create(repository, roster, background, foreground, callback);
+                    return;
+                }
+                repository.addListener(counted);
+                callback.accept(counted);
+            });
+        });
+    }
+
+    private static String[] names(List<Student> students) {
+        String[] names = new String[students.size()];
+        int i = 0;
+        for (Student student : students) {
+            names[i++] = student.getName();
+        }
+        return names;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stop following the repository
+     */
+    public void detach() {
+        repository.removeListener(this);
+        listener = null;
+    }
+
+    public int getSectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * Labels of all sections in order, e.g. for a letter rail
+     */
+    public String[] getSections() {
+        return Arrays.copyOf(labels, sectionCount);
+    }
+
+    public String getLabel(int section) {
+        checkSection(section);
+        return labels[section];
+    }
+
+    public int getCount(int section) {
+        checkSection(section);
+        return counts[section];
+    }
+
+    /**
+     * Number of students counted, which matches the repository's size
+     */
+    public int size() {
+        return total;
+    }
+
+    /**
+     * Row of the first student in a section, O(log k)
+     */
+    public int getPositionForSection(int section) {
+        checkSection(section);
+        int sum = 0;
+        for (int i = section; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Section holding the student at a row, O(log k)
+     */
+    public int getSectionForPosition(int position) {
+        if (position < 0 || position >= total) {
+            throw new IndexOutOfBoundsException("Position " + position + " of " + total);
+        }
+        // Walk down the tree for the last section that starts at or before the position
+        int section = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(sectionCount); step > 0; step >>= 1) {
+            int next = section + step;
+            if (next <= sectionCount && tree[next] <= remaining) {
+                section = next;
+                remaining -= tree[next];
+            }
+        }
+        return section;
+    }
+
+    /**
+     * Check if the student at a row is the first of its section
+     */
+    public boolean isSectionStart(int position) {
+        return getPositionForSection(getSectionForPosition(position)) == position;
+    }
+
+    /**
+     * Key that orders and groups names the way {@link StudentOrder#BY_NAME} compares their
+     * first character: {@link String#CASE_INSENSITIVE_ORDER} folds each char through upper
+     * then lower case
+     */
+    static int sectionKey(String name) {
+        if (name.isEmpty()) {
+            return EMPTY_KEY;
+        }
+        return Character.toLowerCase(Character.toUpperCase(name.charAt(0)));
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        add(student.getName(), 1);
+    }
+
+    @Override
+    public void onStudentRemoved(Student student) {
+        add(student.getName(), -1);
+    }
+
+    @Override
+    public void onStudentUpdated(Student student, String oldName, String oldId) {
+        if (sectionKey(oldName) != sectionKey(student.getName())) {
+            add(oldName, -1);
+            add(student.getName(), 1);
+        }
+    }
+
+    @Override
+    public void onStudentsCleared() {
+        boolean hadSections = sectionCount > 0;
+        build(new String[0]);
+        if (hadSections) {
+            sectionsChanged();
+        }
+    }
+
+    @Override
+    public void onBatchStarted() {
+        inBatch = true;
+    }
+
+    @Override
+    public void onBatchFinished() {
+        inBatch = false;
+        if (sectionsChanged) {
+            sectionsChanged();
+        }
+    }
+
+    private void add(String name, int delta) {
+        int key = sectionKey(name);
+        int section = Arrays.binarySearch(keys, 0, sectionCount, key);
+        total += delta;
+        if (section < 0) {
+            // First student with this initial
+            insertSection(-section - 1, key, StudentDisplay.initialOf(name), delta);
+            return;
+        }
+        counts[section] += delta;
+        if (counts[section] == 0) {
+            removeSection(section);
+            return;
+        }
+        for (int i = section + 1; i <= sectionCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void insertSection(int section, int key, String label, int count) {
+        if (sectionCount == keys.length) {
+            int grown = Math.max(8, sectionCount * 2);
+            keys = Arrays.copyOf(keys, grown);
+            labels = Arrays.copyOf(labels, grown);
+            counts = Arrays.copyOf(counts, grown);
+            tree = new int[grown + 1];
+        }
+        System.arraycopy(keys, section, keys, section + 1, sectionCount - section);
+        System.arraycopy(labels, section, labels, section + 1, sectionCount - section);
+        System.arraycopy(counts, section, counts, section + 1, sectionCount - section);
+        keys[section] = key;
+        labels[section] = label;
+        counts[section] = count;
+        sectionCount++;
+        rebuildTree();
+        sectionsChanged();
+    }
+
+    private void removeSection(int section) {
+        System.arraycopy(keys, section + 1, keys, section, sectionCount - section - 1);
+        System.arraycopy(labels, section + 1, labels, section, sectionCount - section - 1);
+        System.arraycopy(counts, section + 1, counts, section, sectionCount - section - 1);
+        sectionCount--;
+        labels[sectionCount] = null;
+        rebuildTree();
+        sectionsChanged();
+    }
+
+    /**
+     * Count names into sections, O(n); keys are chars, so a flat array serves as the map
+     */
+    private void build(String[] names) {
+        int[] countByKey = new int[Character.MAX_VALUE + 2];
+        String[] labelByKey = new String[countByKey.length];
+        for (String name : names) {
+            int slot = sectionKey(name) + 1;
+            if (countByKey[slot]++ == 0) {
+                labelByKey[slot] = StudentDisplay.initialOf(name);
+            }
+        }
+        int found = 0;
+        for (int count : countByKey) {
+            if (count > 0) {
+                found++;
+            }
+        }
+        int capacity = Math.max(8, found);
+        keys = new int[capacity];
+        labels = new String[capacity];
+        counts = new int[capacity];
+        tree = new int[capacity + 1];
+        sectionCount = 0;
+        for (int slot = 0; slot < countByKey.length; slot++) {
+            if (countByKey[slot] > 0) {
+                keys[sectionCount] = slot - 1;
+                labels[sectionCount] = labelByKey[slot];
+                counts[sectionCount] = countByKey[slot];
+                sectionCount++;
+            }
+        }
+        total = names.length;
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        Arrays.fill(tree, 0);
+        for (int i = 1; i <= sectionCount; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= sectionCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void sectionsChanged() {
+        if (inBatch) {
+            sectionsChanged = true;
+            return;
+        }
+        sectionsChanged = false;
+        if (listener != null) {
+            listener.onSectionsChanged();
+        }
+    }
+
+    private void checkSection(int section) {
+        if (section < 0 || section >= sectionCount) {
+            throw new IndexOutOfBoundsException("Section " + section + " of " + sectionCount);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.crud.sort;
+
+/**
+ * How the student list is ordered on screen
+ */
+public enum SortMode {
+    /** The order students were added in */
+    INSERTION("Date added"),
+    NAME("Name (A–Z)"),
+    ID_ASCENDING("ID (ascending)"),
+    ID_DESCENDING("ID (descending)");
+
+    private final String label;
+
+    SortMode(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
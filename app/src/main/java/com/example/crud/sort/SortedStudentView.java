@@ -0,0 +1,260 @@
+package com.example.crud.sort;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.models.Student;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Read-only list of the repository's students in sorted order, kept up to date as the
+ * repository changes instead of being re-sorted.
+ *
+ * Each add, remove or edit costs O(log n) and is reported to the {@link Listener} with the
+ * exact positions involved, including where an edited student moved to. Inside a repository
+ * batch the per-student reports are held back and a single {@link Listener#onReset()} is sent
+ * when the batch finishes.
+ */
+public class SortedStudentView extends AbstractList<Student> implements StudentRepository.Listener {
+
+    /**
+     * Notified with positions in this view, after it has changed
+     */
+    public interface Listener {
+        void onInserted(int position);
+
+        /**
+         * Position is the one the student had before it was removed
+         */
+        void onRemoved(int position);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position);
+
+        /**
+         * Too much changed to report row by row
+         */
+        void onReset();
+    }
+
+    private final StudentRepository repository;
+    private final OrderStatisticTree<Student> tree;
+    private boolean descending;
+    private Listener listener;
+    private boolean inBatch;
+
+    /**
+     * Sort the repository's current students, O(n log n), and follow its changes from then on
+     */
+    public SortedStudentView(StudentRepository repository, Comparator<Student> comparator) {
+        this(repository, comparator, sort(repository.asList().toArray(new Student[0]), comparator));
+    }
+
+    private SortedStudentView(StudentRepository repository, Comparator<Student> comparator, Student[] sorted) {
+        this.repository = repository;
+        tree = new OrderStatisticTree<>(comparator, sorted.length);
+        tree.build(sorted);
+        repository.addListener(this);
+    }
+
+    /**
+     * Create a view without sorting on the calling thread, which must be the one that changes
+     * the repository. A copy of the sort keys is sorted on {@code background}; back on
+     * {@code foreground} the view is built in O(n), or the sort starts over if the repository
+     * changed in the meantime.
+     */
+    public static void create(StudentRepository repository, Comparator<Student> comparator,
+                              Executor background, Executor foreground, Consumer<SortedStudentView> callback) {
+        create(repository, null, comparator, background, foreground, callback);
+    }
+
+    /**
+     * Same as {@link #create(StudentRepository, Comparator, Executor, Executor, Consumer)}, but
+     * when the roster's snapshot is current the sort keys are copied from it on
+     * {@code background}, so the calling thread does no O(n) work at all
+     */
+    public static void create(StudentRepository repository, VersionedRoster roster, Comparator<Student> comparator,
+                              Executor background, Executor foreground, Consumer<SortedStudentView> callback) {
+        int version = repository.getModificationCount();
+        VersionedRoster.Snapshot snapshot = roster != null ? roster.current() : null;
+
+        // Students are mutable, so the background thread gets copies holding the current keys
+        SortKey[] keys = snapshot != null && snapshot.getVersion() == version ? null : keys(repository.asList());
+
+        background.execute(() -> {
+            SortKey[] sorted = keys != null ? keys : keys(snapshot.getStudents());
+            Arrays.parallelSort(sorted, comparator);
+            foreground.execute(() -> {
+                if (repository.getModificationCount() != version) {
+                    create(repository, roster, comparator, background, foreground, callback);
+                    return;
+                }
+                Student[] students = new Student[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    students[i] = repository.get(sorted[i].position);
+                }
+                callback.accept(new SortedStudentView(repository, comparator, students));
+            });
+        });
+    }
+
+    private static SortKey[] keys(List<Student> students) {
+        SortKey[] keys = new SortKey[students.size()];
+        int position = 0;
+        for (Student student : students) {
+            keys[position] = new SortKey(student, position);
+            position++;
+        }
+        return keys;
+    }
+
+    /**
+     * Copy of a student's sort keys at the time of the snapshot, with its position then
+     */
+    private static final class SortKey extends Student {
+        final int position;
+
+        SortKey(Student student, int position) {
+            super(student.getName(), student.getId());
+            this.position = position;
+        }
+    }
+
+    private static Student[] sort(Student[] students, Comparator<Student> comparator) {
+        Arrays.sort(students, comparator);
+        return students;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stop following the repository
+     */
+    public void detach() {
+        repository.removeListener(this);
+        listener = null;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Reverse the order; O(1), since positions are just counted from the other end
+     */
+    public void setDescending(boolean descending) {
+        if (this.descending != descending) {
+            this.descending = descending;
+            if (listener != null) {
+                listener.onReset();
+            }
+        }
+    }
+
+    @Override
+    public Student get(int index) {
+        return tree.get(descending ? tree.size() - 1 - index : index);
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * Position of a student in this view, or -1 if there is no student with that ID
+     */
+    public int indexOfId(String id) {
+        Student student = repository.findById(id);
+        return student != null ? toView(tree.indexOf(student, student)) : -1;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Student)) {
+            return -1;
+        }
+        Student student = (Student) o;
+        return toView(tree.indexOf(student, student));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        int position = toView(tree.insert(student));
+        if (listener != null && !inBatch) {
+            listener.onInserted(position);
+        }
+    }
+
+    @Override
+    public void onStudentRemoved(Student student) {
+        int rank = tree.indexOf(student, student);
+        if (rank == -1) {
+            return;
+        }
+        int position = toView(rank);
+        tree.removeAt(rank);
+        if (listener != null && !inBatch) {
+            listener.onRemoved(position);
+        }
+    }
+
+    @Override
+    public void onStudentUpdated(Student student, String oldName, String oldId) {
+        // The student already holds its new values; find it by the ones it was sorted under
+        int rank = tree.indexOf(new Student(oldName, oldId), student);
+        if (rank == -1) {
+            return;
+        }
+        int from = toView(rank);
+        tree.removeAt(rank);
+        int to = toView(tree.insert(student));
+        if (listener != null && !inBatch) {
+            if (from != to) {
+                listener.onMoved(from, to);
+            }
+            listener.onChanged(to);
+        }
+    }
+
+    @Override
+    public void onStudentsCleared() {
+        tree.clear();
+        if (listener != null && !inBatch) {
+            listener.onReset();
+        }
+    }
+
+    @Override
+    public void onBatchStarted() {
+        inBatch = true;
+    }
+
+    @Override
+    public void onBatchFinished() {
+        inBatch = false;
+        if (listener != null) {
+            listener.onReset();
+        }
+    }
+
+    private int toView(int rank) {
+        if (rank == -1) {
+            return -1;
+        }
+        return descending ? tree.size() - 1 - rank : rank;
+    }
+}
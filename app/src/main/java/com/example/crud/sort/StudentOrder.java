@@ -0,0 +1,54 @@
+package com.example.crud.sort;
+
+import com.example.crud.models.Student;
+
+import java.util.Comparator;
+
+/**
+ * Total orders over students. Each one breaks ties on the ID, which is unique,
+ * so no two students in the repository ever compare equal.
+ */
+public final class StudentOrder {
+
+    /** Name A–Z ignoring case, then ID */
+    public static final Comparator<Student> BY_NAME = (a, b) -> {
+        int c = String.CASE_INSENSITIVE_ORDER.compare(a.getName(), b.getName());
+        return c != 0 ? c : compareIds(a.getId(), b.getId());
+    };
+
+    /** ID in numeric order */
+    public static final Comparator<Student> BY_ID = (a, b) -> compareIds(a.getId(), b.getId());
+
+    private StudentOrder() {
+    }
+
+    /**
+     * Compare digit-only IDs by numeric value without parsing, so IDs of any length work.
+     * IDs with the same value but different leading zeros fall back to string order.
+     */
+    public static int compareIds(String a, String b) {
+        int startA = skipZeros(a);
+        int startB = skipZeros(b);
+        int lengthA = a.length() - startA;
+        int lengthB = b.length() - startB;
+        if (lengthA != lengthB) {
+            return lengthA < lengthB ? -1 : 1;
+        }
+        for (int i = 0; i < lengthA; i++) {
+            char ca = a.charAt(startA + i);
+            char cb = b.charAt(startB + i);
+            if (ca != cb) {
+                return ca < cb ? -1 : 1;
+            }
+        }
+        return a.compareTo(b);
+    }
+
+    private static int skipZeros(String id) {
+        int i = 0;
+        while (i < id.length() - 1 && id.charAt(i) == '0') {
+            i++;
+        }
+        return i;
+    }
+}
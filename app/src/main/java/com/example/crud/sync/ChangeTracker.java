@@ -0,0 +1,153 @@
+package com.example.crud.sync;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the students changed since the last sync, one merged delta per ID, by listening to
+ * the repository. Changing an ID is recorded as removing the old ID and adding the new one.
+ *
+ * Clearing the repository is not tracked; it is a local reset, not a change to sync.
+ * Used on the thread that changes the repository.
+ */
+public class ChangeTracker implements StudentRepository.Listener {
+
+    private final LongSupplier clock;
+    private final Map<String, StudentDelta> pending = new LinkedHashMap<>();
+    private long lastTime;
+    private boolean paused;
+
+    public ChangeTracker() {
+        this(System::currentTimeMillis);
+    }
+
+    public ChangeTracker(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Copy of the pending deltas, in the order the students were first changed
+     */
+    public List<StudentDelta> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Mark every current student as changed, for a first sync that uploads the whole roster
+     */
+    public void trackAll(StudentRepository repository) {
+        long time = now();
+        for (Student student : repository.asList()) {
+            record(StudentDelta.added(student.getId(), student.getName(), time));
+        }
+    }
+
+    /**
+     * Forget deltas that were pushed, unless the student changed again since
+     */
+    public void acknowledge(List<StudentDelta> pushed) {
+        for (StudentDelta delta : pushed) {
+            if (delta.equals(pending.get(delta.getId()))) {
+                pending.remove(delta.getId());
+            }
+        }
+    }
+
+    /**
+     * Merge a remote delta with the local one: returns the remote fields that win, and drops
+     * them from the pending local delta so the losing local values are not pushed
+     */
+    public StudentDelta resolve(StudentDelta remote) {
+        StudentDelta local = pending.get(remote.getId());
+        StudentDelta winner = StudentDelta.winningFields(local, remote);
+        if (local != null) {
+            StudentDelta remaining = local.without(winner);
+            if (remaining.isEmpty()) {
+                pending.remove(remote.getId());
+            } else {
+                pending.put(remote.getId(), remaining);
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Stop recording, e.g. while remote changes are being applied
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DeltaCodec.writeDeltas(getPending(), out);
+    }
+
+    /**
+     * Restore deltas saved with {@link #writeTo(OutputStream)}, merged into any recorded since
+     */
+    public void readFrom(InputStream in) throws IOException {
+        for (StudentDelta delta : DeltaCodec.readDeltas(in)) {
+            StudentDelta recorded = pending.get(delta.getId());
+            pending.put(delta.getId(), recorded != null ? StudentDelta.merge(delta, recorded) : delta);
+            lastTime = Math.max(lastTime, Math.max(delta.getPresenceTime(), delta.getNameTime()));
+        }
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        if (!paused) {
+            record(StudentDelta.added(student.getId(), student.getName(), now()));
+        }
+    }
+
+    @Override
+    public void onStudentRemoved(Student student) {
+        if (!paused) {
+            record(StudentDelta.removed(student.getId(), now()));
+        }
+    }
+
+    @Override
+    public void onStudentUpdated(Student student, String oldName, String oldId) {
+        if (paused) {
+            return;
+        }
+        long time = now();
+        if (!oldId.equals(student.getId())) {
+            record(StudentDelta.removed(oldId, time));
+            record(StudentDelta.added(student.getId(), student.getName(), time));
+        } else if (!oldName.equals(student.getName())) {
+            record(StudentDelta.renamed(student.getId(), student.getName(), time));
+        }
+    }
+
+    @Override
+    public void onStudentsCleared() {
+    }
+
+    private void record(StudentDelta delta) {
+        pending.put(delta.getId(), StudentDelta.merge(pending.get(delta.getId()), delta));
+    }
+
+    /**
+     * Wall-clock milliseconds, but never repeating or going backwards, so later local edits
+     * always win over earlier ones
+     */
+    private long now() {
+        lastTime = Math.max(lastTime + 1, clock.getAsLong());
+        return lastTime;
+    }
+}
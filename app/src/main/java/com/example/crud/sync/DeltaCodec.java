@@ -0,0 +1,115 @@
+package com.example.crud.sync;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped binary wire format for sync messages.
+ *
+ * A push body is a list of deltas; a pull response is a {@link PullPage}, i.e. a cursor and
+ * a has-more flag followed by a list of deltas. Each delta is a flags byte, the ID, then
+ * the presence time and the name with its time when present.
+ */
+public final class DeltaCodec {
+
+    static final int MAGIC = 0x53444C31; // "SDL1"
+    public static final String CONTENT_TYPE = "application/x-student-delta";
+
+    private static final int FLAG_HAS_PRESENCE = 1;
+    private static final int FLAG_PRESENT = 2;
+    private static final int FLAG_HAS_NAME = 4;
+
+    private DeltaCodec() {
+    }
+
+    public static void writeDeltas(List<StudentDelta> deltas, OutputStream out) throws IOException {
+        DataOutputStream data = open(out);
+        writeList(data, deltas);
+        data.close();
+    }
+
+    public static List<StudentDelta> readDeltas(InputStream in) throws IOException {
+        DataInputStream data = open(in);
+        return readList(data);
+    }
+
+    public static void writePage(PullPage page, OutputStream out) throws IOException {
+        DataOutputStream data = open(out);
+        data.writeLong(page.cursor);
+        data.writeBoolean(page.hasMore);
+        writeList(data, page.deltas);
+        data.close();
+    }
+
+    public static PullPage readPage(InputStream in) throws IOException {
+        DataInputStream data = open(in);
+        long cursor = data.readLong();
+        boolean hasMore = data.readBoolean();
+        return new PullPage(readList(data), cursor, hasMore);
+    }
+
+    private static DataOutputStream open(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(out, 8192), 8192));
+        data.writeInt(MAGIC);
+        return data;
+    }
+
+    private static DataInputStream open(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 8192), 8192));
+        int magic = data.readInt();
+        if (magic != MAGIC) {
+            throw new IOException("Not a student delta message: " + Integer.toHexString(magic));
+        }
+        return data;
+    }
+
+    private static void writeList(DataOutputStream data, List<StudentDelta> deltas) throws IOException {
+        data.writeInt(deltas.size());
+        for (StudentDelta delta : deltas) {
+            int flags = (delta.hasPresence() ? FLAG_HAS_PRESENCE : 0)
+                    | (delta.isPresent() ? FLAG_PRESENT : 0)
+                    | (delta.hasName() ? FLAG_HAS_NAME : 0);
+            data.writeByte(flags);
+            data.writeUTF(delta.getId());
+            if (delta.hasPresence()) {
+                data.writeLong(delta.getPresenceTime());
+            }
+            if (delta.hasName()) {
+                data.writeUTF(delta.getName());
+                data.writeLong(delta.getNameTime());
+            }
+        }
+    }
+
+    private static List<StudentDelta> readList(DataInputStream data) throws IOException {
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("Bad delta count: " + count);
+        }
+        List<StudentDelta> deltas = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            int flags = data.readUnsignedByte();
+            String id = data.readUTF();
+            boolean hasPresence = (flags & FLAG_HAS_PRESENCE) != 0;
+            long presenceTime = hasPresence ? data.readLong() : 0;
+            String name = null;
+            long nameTime = 0;
+            if ((flags & FLAG_HAS_NAME) != 0) {
+                name = data.readUTF();
+                nameTime = data.readLong();
+            }
+            deltas.add(new StudentDelta(id, hasPresence, (flags & FLAG_PRESENT) != 0, presenceTime, name, nameTime));
+        }
+        return deltas;
+    }
+}
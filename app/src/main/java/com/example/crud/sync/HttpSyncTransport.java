@@ -0,0 +1,129 @@
+package com.example.crud.sync;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Talks to the registry over HTTP:
+ * <ul>
+ * <li>{@code GET <base>/changes?since=<cursor>&limit=<n>} returns a {@link PullPage}</li>
+ * <li>{@code POST <base>/changes} sends a list of deltas</li>
+ * </ul>
+ * Bodies use {@link DeltaCodec}, which compresses them itself. Every request names the client
+ * in {@code X-Client-Id}, so the registry can leave out changes the client made.
+ */
+public class HttpSyncTransport implements SyncTransport {
+
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private final String baseUrl;
+    private final String clientId;
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    public HttpSyncTransport(String baseUrl, String clientId) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.clientId = clientId;
+    }
+
+    @Override
+    public PullPage pull(long cursor, int limit) throws IOException {
+        HttpURLConnection connection = open(baseUrl + "/changes?since=" + cursor + "&limit=" + limit);
+        try {
+            connection.setRequestMethod("GET");
+            checkResponse(connection);
+            try (InputStream in = new CountingInputStream(connection.getInputStream(), bytesReceived)) {
+                return DeltaCodec.readPage(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void push(List<StudentDelta> deltas) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DeltaCodec.writeDeltas(deltas, body);
+
+        HttpURLConnection connection = open(baseUrl + "/changes");
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", DeltaCodec.CONTENT_TYPE);
+            connection.setFixedLengthStreamingMode(body.size());
+            try (OutputStream out = connection.getOutputStream()) {
+                body.writeTo(out);
+            }
+            bytesSent.addAndGet(body.size());
+            checkResponse(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Compressed body bytes sent so far
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Compressed body bytes received so far
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    private HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestProperty(CLIENT_HEADER, clientId);
+        return connection;
+    }
+
+    private static void checkResponse(HttpURLConnection connection) throws IOException {
+        int code = connection.getResponseCode();
+        if (code < 200 || code >= 300) {
+            throw new IOException("Sync request failed: HTTP " + code + " " + connection.getResponseMessage());
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count.addAndGet(read);
+            }
+            return read;
+        }
+    }
+}
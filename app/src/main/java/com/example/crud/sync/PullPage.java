@@ -0,0 +1,19 @@
+package com.example.crud.sync;
+
+import java.util.List;
+
+/**
+ * One page of remote changes. {@code cursor} is what to pass as "since" for the next page.
+ */
+public final class PullPage {
+
+    public final List<StudentDelta> deltas;
+    public final long cursor;
+    public final boolean hasMore;
+
+    public PullPage(List<StudentDelta> deltas, long cursor, boolean hasMore) {
+        this.deltas = deltas;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.crud.sync;
+
+/**
+ * What changed about one student, field by field, each field with the time it was written.
+ *
+ * There are two fields: whether the student exists, and the name. A delta may carry either or
+ * both. Deltas are merged last-writer-wins per field; on equal times the incoming delta wins,
+ * so the side that merges second (the client on pull, the server on push) decides.
+ */
+public final class StudentDelta {
+
+    private final String id;
+    private final boolean hasPresence;
+    private final boolean present;
+    private final long presenceTime;
+    private final String name; // null when the name is not part of the delta
+    private final long nameTime;
+
+    public StudentDelta(String id, boolean hasPresence, boolean present, long presenceTime,
+                        String name, long nameTime) {
+        this.id = id;
+        this.hasPresence = hasPresence;
+        this.present = present;
+        this.presenceTime = presenceTime;
+        this.name = name;
+        this.nameTime = nameTime;
+    }
+
+    public static StudentDelta added(String id, String name, long time) {
+        return new StudentDelta(id, true, true, time, name, time);
+    }
+
+    public static StudentDelta removed(String id, long time) {
+        return new StudentDelta(id, true, false, time, null, 0);
+    }
+
+    public static StudentDelta renamed(String id, String name, long time) {
+        return new StudentDelta(id, false, false, 0, name, time);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean hasPresence() {
+        return hasPresence;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public long getPresenceTime() {
+        return presenceTime;
+    }
+
+    public boolean hasName() {
+        return name != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNameTime() {
+        return nameTime;
+    }
+
+    public boolean isEmpty() {
+        return !hasPresence && name == null;
+    }
+
+    /**
+     * Per-field last-writer-wins merge of two deltas for the same student.
+     * Fields only one side has are kept; on equal times {@code incoming} wins.
+     */
+    public static StudentDelta merge(StudentDelta current, StudentDelta incoming) {
+        if (current == null) {
+            return incoming;
+        }
+        StudentDelta presence = presenceWins(current, incoming) ? incoming : current;
+        StudentDelta naming = nameWins(current, incoming) ? incoming : current;
+        return new StudentDelta(incoming.id, presence.hasPresence, presence.present, presence.presenceTime,
+                naming.name, naming.nameTime);
+    }
+
+    /**
+     * The fields of {@code incoming} that win against {@code current}, as a delta that is empty
+     * when nothing wins
+     */
+    public static StudentDelta winningFields(StudentDelta current, StudentDelta incoming) {
+        if (current == null) {
+            return incoming;
+        }
+        boolean presenceWins = presenceWins(current, incoming);
+        boolean nameWins = nameWins(current, incoming);
+        return new StudentDelta(incoming.id, presenceWins, presenceWins && incoming.present,
+                presenceWins ? incoming.presenceTime : 0,
+                nameWins ? incoming.name : null, nameWins ? incoming.nameTime : 0);
+    }
+
+    private static boolean presenceWins(StudentDelta current, StudentDelta incoming) {
+        return incoming.hasPresence && (!current.hasPresence || incoming.presenceTime >= current.presenceTime);
+    }
+
+    private static boolean nameWins(StudentDelta current, StudentDelta incoming) {
+        return incoming.name != null && (current.name == null || incoming.nameTime >= current.nameTime);
+    }
+
+    /**
+     * This delta without the fields that {@code winner} carries
+     */
+    StudentDelta without(StudentDelta winner) {
+        boolean keepPresence = hasPresence && !winner.hasPresence;
+        boolean keepName = name != null && winner.name == null;
+        return new StudentDelta(id, keepPresence, keepPresence && present, keepPresence ? presenceTime : 0,
+                keepName ? name : null, keepName ? nameTime : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StudentDelta)) {
+            return false;
+        }
+        StudentDelta other = (StudentDelta) o;
+        return id.equals(other.id) && hasPresence == other.hasPresence && present == other.present
+                && presenceTime == other.presenceTime && nameTime == other.nameTime
+                && (name == null ? other.name == null : name.equals(other.name));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id.hashCode();
+        result = 31 * result + Long.hashCode(presenceTime);
+        result = 31 * result + Long.hashCode(nameTime);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "StudentDelta{" + id
+                + (hasPresence ? (present ? " present@" : " removed@") + presenceTime : "")
+                + (name != null ? " name=" + name + "@" + nameTime : "") + "}";
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.crud.sync;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Two-way delta sync of the roster with a central registry.
+ *
+ * A sync pulls every remote change since the last cursor, then pushes the pending local ones:
+ * <ol>
+ * <li>Pull pages on the background thread until the registry has no more, and look up the
+ * added IDs with the {@link IdCheck}, if there is one</li>
+ * <li>On the main thread, resolve each remote delta against the pending local one per field,
+ * last writer wins, and apply the winners in one repository batch: removals in one pass,
+ * renames in place, additions appended unless the check found their ID taken</li>
+ * <li>Push what is still pending in batches on the background thread</li>
+ * <li>On the main thread, forget the pushed deltas and keep the new cursor</li>
+ * </ol>
+ * The registry keeps the winning record per ID, tagged with a sequence number and the client
+ * that sent it, and leaves a client's own changes out of its pulls. The first sync marks the
+ * whole local roster as changed so the registry receives it.
+ *
+ * Create, sync and read results on the thread that changes the repository. Only one sync may
+ * run at a time. If the background executor is shut down while a sync runs, the sync fails
+ * through the callback instead of throwing.
+ */
+public class SyncEngine {
+
+    /** Cursor of a client that has never synced; its first sync uploads the whole roster */
+    public static final long NEVER_SYNCED = -1;
+    public static final int DEFAULT_PULL_LIMIT = 5000;
+    public static final int DEFAULT_PUSH_BATCH = 5000;
+
+    public interface Callback {
+        void onSynced(SyncResult result);
+
+        /**
+         * @param applied the pulled changes, if they were applied before the push failed; the
+         *                list and the journal must still hear about them. Null otherwise.
+         */
+        void onSyncFailed(IOException error, SyncResult applied);
+    }
+
+    /**
+     * Finds IDs that are taken outside the synced repository, e.g. in other classes. Called on
+     * the background thread.
+     */
+    public interface IdCheck {
+        /**
+         * @return the subset of {@code ids} that is taken elsewhere
+         */
+        Set<String> findTaken(Collection<String> ids) throws IOException;
+    }
+
+    /**
+     * What a sync changed locally, for list notifications and the journal
+     */
+    public static final class SyncResult {
+        /** Positions the removed students had before the removal, ascending */
+        public final int[] removedPositions;
+        public final Student[] removed;
+        /** Positions of renamed students after the removals, ascending */
+        public final int[] renamedPositions;
+        /** Appended students start here */
+        public final int insertedStart;
+        public final List<Student> inserted;
+        public final int pulled;
+        public final int pushed;
+        /** Remote additions left out because their ID is taken elsewhere */
+        public final int rejected;
+
+        SyncResult(int[] removedPositions, Student[] removed, int[] renamedPositions,
+                   int insertedStart, List<Student> inserted, int pulled, int pushed, int rejected) {
+            this.removedPositions = removedPositions;
+            this.removed = removed;
+            this.renamedPositions = renamedPositions;
+            this.insertedStart = insertedStart;
+            this.inserted = inserted;
+            this.pulled = pulled;
+            this.pushed = pushed;
+            this.rejected = rejected;
+        }
+
+        public boolean changedRoster() {
+            return removed.length > 0 || renamedPositions.length > 0 || !inserted.isEmpty();
+        }
+    }
+
+    private final StudentRepository repository;
+    private final ChangeTracker tracker;
+    private final SyncTransport transport;
+    private IdCheck idCheck;
+    private long cursor;
+    private int pullLimit = DEFAULT_PULL_LIMIT;
+    private int pushBatch = DEFAULT_PUSH_BATCH;
+    private boolean running;
+
+    public SyncEngine(StudentRepository repository, ChangeTracker tracker, SyncTransport transport, long cursor) {
+        this.repository = repository;
+        this.tracker = tracker;
+        this.transport = transport;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Where the next pull starts; save it to resume incremental syncs after a restart
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setPullLimit(int pullLimit) {
+        this.pullLimit = pullLimit;
+    }
+
+    public void setPushBatch(int pushBatch) {
+        this.pushBatch = pushBatch;
+    }
+
+    /**
+     * Check remote additions against IDs kept outside the repository; without a check every
+     * winning addition is applied
+     */
+    public void setIdCheck(IdCheck idCheck) {
+        this.idCheck = idCheck;
+    }
+
+    /**
+     * Run one sync. Network calls run on {@code background}; the repository is only touched on
+     * {@code main}, the thread this is called on, and so is the callback.
+     */
+    public void sync(Executor background, Executor main, Callback callback) {
+        if (running) {
+            throw new IllegalStateException("Sync already running");
+        }
+        running = true;
+        if (cursor == NEVER_SYNCED) {
+            tracker.trackAll(repository);
+        }
+        long since = Math.max(0, cursor);
+        IdCheck check = idCheck;
+        try {
+            background.execute(() -> {
+                List<StudentDelta> remote = new ArrayList<>();
+                long next;
+                Set<String> takenElsewhere;
+                try {
+                    next = pullAll(since, remote);
+                    takenElsewhere = check != null ? check.findTaken(addedIds(remote)) : Collections.emptySet();
+                } catch (IOException e) {
+                    main.execute(() -> fail(callback, e, null));
+                    return;
+                }
+                main.execute(() -> {
+                    SyncResult applied = apply(remote, takenElsewhere);
+                    push(background, main, callback, next, applied);
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            fail(callback, new IOException("Sync cancelled", e), null);
+        }
+    }
+
+    private long pullAll(long since, List<StudentDelta> into) throws IOException {
+        long next = since;
+        PullPage page;
+        do {
+            page = transport.pull(next, pullLimit);
+            into.addAll(page.deltas);
+            next = page.cursor;
+        } while (page.hasMore);
+        return next;
+    }
+
+    private static Set<String> addedIds(List<StudentDelta> remote) {
+        Set<String> ids = new HashSet<>();
+        for (StudentDelta delta : remote) {
+            if (delta.hasPresence() && delta.isPresent()) {
+                ids.add(delta.getId());
+            }
+        }
+        return ids;
+    }
+
+    private void push(Executor background, Executor main, Callback callback, long next, SyncResult applied) {
+        List<StudentDelta> pending = tracker.getPending();
+        try {
+            background.execute(() -> {
+                try {
+                    for (int from = 0; from < pending.size(); from += pushBatch) {
+                        transport.push(pending.subList(from, Math.min(pending.size(), from + pushBatch)));
+                    }
+                } catch (IOException e) {
+                    main.execute(() -> failPush(callback, e, next, applied));
+                    return;
+                }
+                main.execute(() -> {
+                    tracker.acknowledge(pending);
+                    cursor = next;
+                    running = false;
+                    callback.onSynced(new SyncResult(applied.removedPositions, applied.removed,
+                            applied.renamedPositions, applied.insertedStart, applied.inserted,
+                            applied.pulled, pending.size(), applied.rejected));
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            failPush(callback, new IOException("Sync cancelled", e), next, applied);
+        }
+    }
+
+    private void failPush(Callback callback, IOException e, long next, SyncResult applied) {
+        // The pulled changes are applied; keep the cursor so they are not pulled again
+        cursor = next;
+        fail(callback, e, applied);
+    }
+
+    private void fail(Callback callback, IOException e, SyncResult applied) {
+        running = false;
+        callback.onSyncFailed(e, applied);
+    }
+
+    /**
+     * Apply the remote changes that win against local edits, as one repository batch. Additions
+     * whose ID is in {@code takenElsewhere} are left out and counted as rejected.
+     */
+    SyncResult apply(List<StudentDelta> remote, Set<String> takenElsewhere) {
+        int[] removedPositions = new int[remote.size()];
+        int removedCount = 0;
+        List<StudentDelta> renames = new ArrayList<>();
+        List<Student> added = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int rejected = 0;
+
+        for (StudentDelta delta : remote) {
+            if (!seen.add(delta.getId())) {
+                continue; // The registry sends one record per ID; ignore repeats
+            }
+            StudentDelta winner = tracker.resolve(delta);
+            int position = repository.indexOf(delta.getId());
+            if (winner.hasPresence() && !winner.isPresent()) {
+                if (position != -1) {
+                    removedPositions[removedCount++] = position;
+                }
+            } else if (position == -1) {
+                // Re-added only if the remote add is newer than a local removal
+                String name = winner.hasName() ? winner.getName() : delta.getName();
+                if (winner.hasPresence() && name != null) {
+                    if (takenElsewhere.contains(delta.getId())) {
+                        rejected++;
+                    } else {
+                        added.add(new Student(name, delta.getId()));
+                    }
+                }
+            } else if (winner.hasName() && !winner.getName().equals(repository.get(position).getName())) {
+                renames.add(winner);
+            }
+        }
+
+        tracker.setPaused(true);
+        repository.beginBatch();
+        try {
+            removedPositions = Arrays.copyOf(removedPositions, removedCount);
+            Arrays.sort(removedPositions);
+            Student[] removed = repository.removeAll(removedPositions);
+
+            int[] renamedPositions = new int[renames.size()];
+            int renamedCount = 0;
+            for (StudentDelta rename : renames) {
+                int position = repository.indexOf(rename.getId());
+                if (position != -1) {
+                    repository.update(position, rename.getName(), rename.getId());
+                    renamedPositions[renamedCount++] = position;
+                }
+            }
+            renamedPositions = Arrays.copyOf(renamedPositions, renamedCount);
+            Arrays.sort(renamedPositions);
+
+            int insertedStart = repository.size();
+            repository.addAll(added);
+            return new SyncResult(removedPositions, removed, renamedPositions, insertedStart, added,
+                    remote.size(), 0, rejected);
+        } finally {
+            repository.endBatch();
+            tracker.setPaused(false);
+        }
+    }
+}
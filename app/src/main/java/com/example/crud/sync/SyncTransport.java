@@ -0,0 +1,20 @@
+package com.example.crud.sync;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * How the sync engine talks to the central registry. Called on a background thread.
+ */
+public interface SyncTransport {
+
+    /**
+     * Changes made by other clients since a cursor, oldest first, at most {@code limit} of them
+     */
+    PullPage pull(long cursor, int limit) throws IOException;
+
+    /**
+     * Send local changes; the registry merges them last-writer-wins per field
+     */
+    void push(List<StudentDelta> deltas) throws IOException;
+}
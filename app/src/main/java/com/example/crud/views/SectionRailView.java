@@ -0,0 +1,122 @@
+package com.example.crud.views;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.crud.R;
+
+/**
+ * Vertical rail of section labels for fast scrolling. Touching or dragging along it reports
+ * the section under the finger. When there are more labels than fit, only every n-th one is
+ * drawn, but every section can still be reached by dragging.
+ */
+public class SectionRailView extends View {
+
+    public interface OnSectionSelectedListener {
+        void onSectionSelected(int section);
+    }
+
+    private static final String[] NO_SECTIONS = new String[0];
+
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint activePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private String[] sections = NO_SECTIONS;
+    private int activeSection = -1;
+    private OnSectionSelectedListener listener;
+
+    public SectionRailView(Context context) {
+        this(context, null);
+    }
+
+    public SectionRailView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11,
+                context.getResources().getDisplayMetrics());
+        textPaint.setTextSize(textSize);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setColor(ContextCompat.getColor(context, R.color.secondary_text_color));
+        activePaint.set(textPaint);
+        activePaint.setColor(ContextCompat.getColor(context, R.color.primary_color));
+        activePaint.setFakeBoldText(true);
+    }
+
+    public void setSections(String[] sections) {
+        this.sections = sections;
+        activeSection = -1;
+        invalidate();
+    }
+
+    public void setOnSectionSelectedListener(OnSectionSelectedListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int count = sections.length;
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (count == 0 || height <= 0) {
+            return;
+        }
+        float slot = (float) height / count;
+        float lineHeight = textPaint.getFontSpacing();
+        int every = (int) Math.ceil(lineHeight / slot);
+        float x = getPaddingLeft() + (getWidth() - getPaddingLeft() - getPaddingRight()) / 2f;
+        float centering = -(textPaint.descent() + textPaint.ascent()) / 2;
+        for (int i = 0; i < count; i += every) {
+            float y = getPaddingTop() + slot * (i + 0.5f) + centering;
+            canvas.drawText(sections[i], x, y, i == activeSection ? activePaint : textPaint);
+        }
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (sections.length == 0) {
+            return false;
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                getParent().requestDisallowInterceptTouchEvent(true);
+                setPressed(true);
+                // Fall through to select the section under the finger
+            case MotionEvent.ACTION_MOVE:
+                select(sectionAt(event.getY()));
+                return true;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                setPressed(false);
+                activeSection = -1;
+                invalidate();
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    private int sectionAt(float y) {
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        int section = (int) ((y - getPaddingTop()) * sections.length / Math.max(1, height));
+        return Math.max(0, Math.min(sections.length - 1, section));
+    }
+
+    private void select(int section) {
+        if (section == activeSection) {
+            return;
+        }
+        activeSection = section;
+        invalidate();
+        if (listener != null) {
+            listener.onSectionSelected(section);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.crud.views;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.crud.R;
+
+/**
+ * A student row drawn by a single view: the initial circle, the name, the ID and the
+ * more-actions glyph are painted directly instead of being separate child views. The only
+ * child is the Edit/Delete bar from {@code item_student_actions}, inflated the first time the
+ * row is expanded.
+ *
+ * Matches the look of {@code item_student} with one view to create, measure and lay out
+ * instead of eight.
+ */
+public class StudentRowView extends ViewGroup {
+
+    public interface OnActionsInflatedListener {
+        /**
+         * Called once, when the actions bar is first shown, to hook up its buttons
+         */
+        void onActionsInflated(View actions);
+    }
+
+    private final int padding;
+    private final int badgeSize;
+    private final int textStart;
+    private final int idTopMargin;
+    private final int moreSize;
+    private final int smallGap;
+
+    private final Paint badgePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint initialPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint namePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint idPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint morePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetricsInt nameMetrics;
+    private final Paint.FontMetricsInt idMetrics;
+
+    private String initial = "";
+    private CharSequence name = "";
+    private CharSequence idLabel = "";
+    private String moreLabel = "";
+    private boolean moreVisible = true;
+
+    // Name and ID cut to the width they get, redone only when text or width change
+    private int textWidth;
+    private CharSequence shownName;
+    private CharSequence shownId;
+
+    private View actions;
+    private OnActionsInflatedListener actionsListener;
+
+    public StudentRowView(Context context) {
+        this(context, null);
+    }
+
+    public StudentRowView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setWillNotDraw(false);
+        setClickable(true);
+        setFocusable(true);
+        setBackgroundResource(R.drawable.bg_student_item);
+        TypedArray ripple = context.obtainStyledAttributes(new int[] {android.R.attr.selectableItemBackground});
+        setForeground(ripple.getDrawable(0));
+        ripple.recycle();
+
+        padding = getResources().getDimensionPixelSize(R.dimen.spacing_medium);
+        smallGap = getResources().getDimensionPixelSize(R.dimen.spacing_small);
+        badgeSize = dp(40);
+        textStart = padding + badgeSize + padding;
+        idTopMargin = dp(2);
+        moreSize = dp(36);
+        setPadding(padding, padding, padding, padding);
+
+        badgePaint.setColor(ContextCompat.getColor(context, R.color.primary_color));
+        setUpText(initialPaint, R.color.white, 16, true);
+        initialPaint.setTextAlign(Paint.Align.CENTER);
+        setUpText(namePaint, R.color.primary_text_color, 16, true);
+        setUpText(idPaint, R.color.secondary_text_color, 14, false);
+        setUpText(morePaint, R.color.secondary_text_color, 16, false);
+        morePaint.setTextAlign(Paint.Align.CENTER);
+        nameMetrics = namePaint.getFontMetricsInt();
+        idMetrics = idPaint.getFontMetricsInt();
+    }
+
+    private void setUpText(Paint paint, int color, int sp, boolean bold) {
+        paint.setColor(ContextCompat.getColor(getContext(), color));
+        paint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp,
+                getResources().getDisplayMetrics()));
+        if (bold) {
+            paint.setTypeface(Typeface.DEFAULT_BOLD);
+        }
+    }
+
+    public void setInitial(String initial) {
+        if (!initial.equals(this.initial)) {
+            this.initial = initial;
+            invalidate();
+        }
+    }
+
+    public void setName(CharSequence name) {
+        if (name != this.name) {
+            this.name = name;
+            shownName = null;
+            invalidate();
+        }
+    }
+
+    public void setIdLabel(CharSequence idLabel) {
+        if (idLabel != this.idLabel) {
+            this.idLabel = idLabel;
+            shownId = null;
+            invalidate();
+        }
+    }
+
+    public void setMoreLabel(String moreLabel) {
+        if (!moreLabel.equals(this.moreLabel)) {
+            this.moreLabel = moreLabel;
+            invalidate();
+        }
+    }
+
+    /**
+     * Hide the more-actions glyph while keeping its space, like View.INVISIBLE
+     */
+    public void setMoreVisible(boolean moreVisible) {
+        if (moreVisible != this.moreVisible) {
+            this.moreVisible = moreVisible;
+            invalidate();
+        }
+    }
+
+    public void setOnActionsInflatedListener(OnActionsInflatedListener actionsListener) {
+        this.actionsListener = actionsListener;
+    }
+
+    /**
+     * Show or hide the Edit/Delete bar; it is inflated the first time it is shown
+     */
+    public void setActionsVisible(boolean visible) {
+        if (actions == null) {
+            if (!visible) {
+                return;
+            }
+            actions = LayoutInflater.from(getContext()).inflate(R.layout.item_student_actions, this, false);
+            addView(actions);
+            if (actionsListener != null) {
+                actionsListener.onActionsInflated(actions);
+            }
+        }
+        actions.setVisibility(visible ? VISIBLE : GONE);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int content = Math.max(badgeSize, moreSize);
+        content = Math.max(content, lineHeight(nameMetrics) + idTopMargin + lineHeight(idMetrics));
+        if (actionsShown()) {
+            measureChildWithMargins(actions, widthMeasureSpec, 0, heightMeasureSpec, 0);
+            content = Math.max(content, actions.getMeasuredHeight());
+        }
+        setMeasuredDimension(width, content + getPaddingTop() + getPaddingBottom());
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        int width = right - left;
+        int textEnd = width - getPaddingRight() - moreSize - smallGap;
+        if (actionsShown()) {
+            MarginLayoutParams params = (MarginLayoutParams) actions.getLayoutParams();
+            int actionsRight = textEnd;
+            int actionsLeft = actionsRight - actions.getMeasuredWidth();
+            int actionsTop = (bottom - top - actions.getMeasuredHeight()) / 2;
+            actions.layout(mirror(actionsLeft, actions.getMeasuredWidth(), width), actionsTop,
+                    mirror(actionsLeft, actions.getMeasuredWidth(), width) + actions.getMeasuredWidth(),
+                    actionsTop + actions.getMeasuredHeight());
+            textEnd = actionsLeft - params.getMarginStart();
+        }
+        int available = Math.max(0, textEnd - textStart);
+        if (available != textWidth) {
+            textWidth = available;
+            shownName = null;
+            shownId = null;
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int width = getWidth();
+        int centerY = getHeight() / 2;
+
+        float badgeCenterX = mirror(getPaddingLeft(), badgeSize, width) + badgeSize / 2f;
+        canvas.drawCircle(badgeCenterX, centerY, badgeSize / 2f, badgePaint);
+        canvas.drawText(initial, badgeCenterX, centerY - (initialPaint.descent() + initialPaint.ascent()) / 2,
+                initialPaint);
+
+        if (shownName == null) {
+            shownName = TextUtils.ellipsize(name, namePaint, textWidth,
+                    TextUtils.TruncateAt.END);
+        }
+        if (shownId == null) {
+            shownId = TextUtils.ellipsize(idLabel, idPaint, textWidth,
+                    TextUtils.TruncateAt.END);
+        }
+        int nameHeight = lineHeight(nameMetrics);
+        int blockTop = centerY - (nameHeight + idTopMargin + lineHeight(idMetrics)) / 2;
+        boolean rtl = getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+        float nameX = rtl ? width - textStart - namePaint.measureText(shownName, 0, shownName.length()) : textStart;
+        float idX = rtl ? width - textStart - idPaint.measureText(shownId, 0, shownId.length()) : textStart;
+        canvas.drawText(shownName, 0, shownName.length(), nameX, blockTop - nameMetrics.top, namePaint);
+        canvas.drawText(shownId, 0, shownId.length(), idX,
+                blockTop + nameHeight + idTopMargin - idMetrics.top, idPaint);
+
+        if (moreVisible) {
+            int moreLeft = width - getPaddingRight() - moreSize;
+            float moreCenterX = mirror(moreLeft, moreSize, width) + moreSize / 2f;
+            canvas.drawText(moreLabel, moreCenterX, centerY - (morePaint.descent() + morePaint.ascent()) / 2,
+                    morePaint);
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        // Nothing is a TextView here, so say what the row shows
+        info.setContentDescription(name + ", " + idLabel);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(LayoutParams params) {
+        return new MarginLayoutParams(params);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(LayoutParams params) {
+        return params instanceof MarginLayoutParams;
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    private boolean actionsShown() {
+        return actions != null && actions.getVisibility() != GONE;
+    }
+
+    /**
+     * Left edge of a box placed at {@code left} in a left-to-right row, in the actual direction
+     */
+    private int mirror(int left, int boxWidth, int width) {
+        return getLayoutDirection() == LAYOUT_DIRECTION_RTL ? width - left - boxWidth : left;
+    }
+
+    private static int lineHeight(Paint.FontMetricsInt metrics) {
+        // TextView's default font padding uses top and bottom rather than ascent and descent
+        return metrics.bottom - metrics.top;
+    }
+
+    private int dp(int value) {
+        return Math.round(value * getResources().getDisplayMetrics().density);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.crud.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ChangeCoalescerTest {
+
+    private static final Object NAME = "name";
+    private static final Object ID = "id";
+
+    @Test
+    public void burstOfAppendsIsOneNotification() {
+        ChangeCoalescer coalescer = new ChangeCoalescer();
+        for (int i = 0; i < 10_000; i++) {
+            coalescer.inserted(i, 1);
+        }
+        CountingTarget target = new CountingTarget();
+        assertEquals(1, coalescer.dispatchTo(target));
+        assertEquals(1, target.notifications);
+        assertTrue(coalescer.isEmpty());
+    }
+
+    @Test
+    public void burstOfScatteredRemovesIsOneReset() {
+        ChangeCoalescer coalescer = new ChangeCoalescer();
+        Random random = new Random(7);
+        for (int size = 20_000; size > 10_000; size--) {
+            coalescer.removed(random.nextInt(size), 1);
+        }
+        CountingTarget target = new CountingTarget();
+        assertEquals(1, coalescer.dispatchTo(target));
+        assertEquals(1, target.resets);
+    }
+
+    @Test
+    public void rowsRemovedAfterInsertingNeverReachTheList() {
+        ChangeCoalescer coalescer = new ChangeCoalescer();
+        coalescer.inserted(5, 3);
+        coalescer.changed(6, 1, NAME);
+        coalescer.removed(5, 3);
+        assertTrue(coalescer.isEmpty());
+        assertEquals(0, coalescer.dispatchTo(new CountingTarget()));
+    }
+
+    @Test
+    public void editsToNeighbouringRowsMergePerPayload() {
+        ChangeCoalescer coalescer = new ChangeCoalescer();
+        for (int i = 0; i < 10_000; i++) {
+            coalescer.changed(i, 1, NAME);
+            coalescer.changed(i, 1, ID);
+        }
+        CountingTarget target = new CountingTarget();
+        assertEquals(2, coalescer.dispatchTo(target));
+    }
+
+    @Test
+    public void coalescedChangesLeaveTheListAsTheRawOnesDo() {
+        Random random = new Random(42);
+        int compared = 0;
+        for (int round = 0; round < 500; round++) {
+            List<String> model = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                model.add("row" + i);
+            }
+            ModelTarget raw = new ModelTarget(model);
+            ModelTarget coalesced = new ModelTarget(model);
+            ChangeCoalescer coalescer = new ChangeCoalescer();
+            int size = model.size();
+            int operations = 1 + random.nextInt(100);
+            for (int i = 0; i < operations; i++) {
+                int kind = random.nextInt(size == 0 ? 1 : 4);
+                if (kind == 0) {
+                    int position = random.nextInt(size + 1);
+                    int count = 1 + random.nextInt(3);
+                    raw.onInserted(position, count);
+                    coalescer.inserted(position, count);
+                    size += count;
+                } else if (kind == 1) {
+                    int position = random.nextInt(size);
+                    int count = 1 + random.nextInt(Math.min(3, size - position));
+                    raw.onRemoved(position, count);
+                    coalescer.removed(position, count);
+                    size -= count;
+                } else if (kind == 2) {
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+                    raw.onMoved(from, to);
+                    coalescer.moved(from, to);
+                } else {
+                    int position = random.nextInt(size);
+                    int count = 1 + random.nextInt(Math.min(3, size - position));
+                    Object payload = random.nextBoolean() ? NAME : ID;
+                    raw.onChanged(position, count, payload);
+                    coalescer.changed(position, count, payload);
+                }
+            }
+            coalescer.dispatchTo(coalesced);
+            // After a reset the list rebinds everything, so there is nothing to compare
+            if (!coalesced.reset) {
+                assertEquals("round " + round, raw.rows, coalesced.rows);
+                compared++;
+            }
+        }
+        assertTrue("compared " + compared, compared > 100);
+    }
+
+    private static final class CountingTarget implements ChangeCoalescer.Target {
+        int notifications;
+        int resets;
+
+        @Override
+        public void onInserted(int position, int count) {
+            notifications++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifications++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifications++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifications++;
+        }
+
+        @Override
+        public void onReset() {
+            notifications++;
+            resets++;
+        }
+    }
+
+    /**
+     * Applies notifications to a list of row labels, as a list view would: inserted rows are
+     * new, changed rows are marked stale along with the payload
+     */
+    private static final class ModelTarget implements ChangeCoalescer.Target {
+        final List<String> rows;
+        boolean reset;
+
+        ModelTarget(List<String> rows) {
+            this.rows = new ArrayList<>(rows);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                rows.add(position + i, "new");
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            rows.subList(position, position + count).clear();
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            rows.add(toPosition, rows.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            for (int i = position; i < position + count; i++) {
+                // A new row is bound in full, so a change to it adds nothing
+                String row = rows.get(i);
+                if (!row.startsWith("new")) {
+                    String base = row.split("\\+")[0];
+                    boolean name = payload == NAME || row.contains("+" + NAME);
+                    boolean id = payload == ID || row.contains("+" + ID);
+                    rows.set(i, base + (name ? "+" + NAME : "") + (id ? "+" + ID : ""));
+                }
+            }
+        }
+
+        @Override
+        public void onReset() {
+            reset = true;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.crud.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PositionRunsTest {
+
+    @Test
+    public void groupsConsecutivePositions() {
+        int[] positions = {2, 3, 4, 7, 9, 10};
+        assertEquals(3, PositionRuns.count(positions));
+        assertArrayEquals(new int[] {2, 3, 7, 1, 9, 2}, PositionRuns.of(positions));
+        assertArrayEquals(new int[0], PositionRuns.of(new int[0]));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.crud.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StudentIdsTest {
+
+    @Test
+    public void keysOnlyForCanonicalNumbers() {
+        assertEquals(12345L, StudentIds.toKey("12345"));
+        assertEquals(0L, StudentIds.toKey("0"));
+        assertEquals(StudentIds.NO_KEY, StudentIds.toKey("007"));
+        assertEquals(StudentIds.NO_KEY, StudentIds.toKey("12a"));
+        assertEquals(StudentIds.NO_KEY, StudentIds.toKey("1234567890123456789"));
+    }
+
+    @Test
+    public void stableIdsKeepNumericAndTextIdsApart() {
+        assertEquals(7L, StudentIds.stableId("7"));
+
+        long text = StudentIds.stableId("007");
+        assertEquals(text, StudentIds.stableId("007"));
+        assertNotEquals(StudentIds.stableId("7"), text);
+        assertNotEquals(StudentIds.stableId("008"), text);
+        // Text IDs land in their own negative range, clear of item IDs like RecyclerView.NO_ID
+        assertTrue(text < Long.MIN_VALUE / 2);
+        assertTrue(StudentIds.stableId("") < Long.MIN_VALUE / 2);
+    }
+}
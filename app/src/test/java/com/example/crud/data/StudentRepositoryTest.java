@@ -0,0 +1,95 @@
+package com.example.crud.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+public class StudentRepositoryTest {
+
+    @Test
+    public void indexFollowsAddRemoveAndUndo() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Alice", "1"));
+        repository.add(new Student("Bob", "2"));
+        repository.add(new Student("Cara", "3"));
+
+        Student removed = repository.remove(0);
+        assertEquals(-1, repository.indexOf("1"));
+        assertEquals(0, repository.indexOf("2"));
+        assertEquals(1, repository.indexOf("3"));
+
+        // Undo puts the student back at its old position
+        repository.add(0, removed);
+        assertEquals(0, repository.indexOf("1"));
+        assertEquals(1, repository.indexOf("2"));
+        assertEquals(2, repository.indexOf("3"));
+    }
+
+    @Test
+    public void updateMovesIdInIndex() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Alice", "1"));
+        repository.add(new Student("Bob", "2"));
+
+        repository.update(1, "Bobby", "20");
+        assertFalse(repository.containsId("2"));
+        assertEquals(1, repository.indexOf("20"));
+        assertEquals("Bobby", repository.get(1).getName());
+
+        assertThrows(IllegalArgumentException.class, () -> repository.update(1, "Bobby", "1"));
+    }
+
+    @Test
+    public void leadingZerosAreDistinctIds() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Alice", "7"));
+        repository.add(new Student("Bob", "007"));
+
+        assertEquals(0, repository.indexOf("7"));
+        assertEquals(1, repository.indexOf("007"));
+        assertFalse(repository.containsId("07"));
+    }
+
+    @Test
+    public void largeRosterStaysConsistent() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 10_000; i++) {
+            repository.add(new Student("Student " + i, String.valueOf(i)));
+        }
+        for (int i = 9_999; i >= 0; i -= 3) {
+            repository.remove(i);
+        }
+        for (int i = 0; i < repository.size(); i++) {
+            assertEquals(i, repository.indexOf(repository.get(i).getId()));
+        }
+        assertTrue(repository.containsId("1"));
+        assertFalse(repository.containsId("9999"));
+    }
+
+    @Test
+    public void batchRemoveAndInsertKeepIndexInStep() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 10; i++) {
+            repository.add(new Student("Student " + i, String.valueOf(i)));
+        }
+
+        Student[] removed = repository.removeAll(new int[] {1, 4, 5, 9});
+        assertEquals(6, repository.size());
+        assertEquals("4", removed[1].getId());
+        assertEquals(-1, repository.indexOf("5"));
+        assertEquals(3, repository.indexOf("6"));
+
+        repository.insertAll(new int[] {1, 4, 5, 9}, removed);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, repository.indexOf(String.valueOf(i)));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.insertAll(new int[] {0}, new Student[] {new Student("Dup", "3")}));
+        assertThrows(IllegalArgumentException.class, () -> repository.removeAll(new int[] {2, 2}));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.crud.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VersionedRosterTest {
+
+    @Test
+    public void persistentListMatchesArrayListAndKeepsOldVersions() {
+        PersistentList<Integer> list = PersistentList.of(Arrays.asList(0, 1, 2));
+        List<Integer> expected = new ArrayList<>(list);
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) {
+            PersistentList<Integer> before = list;
+            List<Integer> beforeExpected = new ArrayList<>(expected);
+            int op = random.nextInt(4);
+            if (op == 0 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                list = list.minus(index);
+                expected.remove(index);
+            } else if (op == 1 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                list = list.with(index, -i);
+                expected.set(index, -i);
+            } else {
+                int index = random.nextInt(expected.size() + 1);
+                list = list.plus(index, i);
+                expected.add(index, i);
+            }
+            assertEquals(beforeExpected, before);
+            if (i % 97 == 0) {
+                assertEquals(expected, list);
+                assertEquals(expected, new ArrayList<>(list)); // Through the iterator
+            }
+        }
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void snapshotsFollowTheRepository() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 20; i++) {
+            repository.add(new Student("Student " + i, String.valueOf(i)));
+        }
+        VersionedRoster roster = new VersionedRoster(repository);
+        assertMatches(repository, roster.current());
+
+        VersionedRoster.Snapshot first = roster.current();
+        repository.remove(3);
+        repository.add(0, new Student("Front", "100"));
+        repository.update(5, "Renamed", "101");
+        assertMatches(repository, roster.current());
+        assertEquals(20, first.size());
+        assertEquals("Student 3", first.getStudents().get(3).getName());
+
+        repository.removeAll(new int[] {0, 4, 5, 18});
+        assertMatches(repository, roster.current());
+        repository.insertAll(new int[] {0, 2, 2, 50}, new Student[] {
+                new Student("A", "200"), new Student("B", "201"), new Student("C", "202"), new Student("D", "203")});
+        assertMatches(repository, roster.current());
+        repository.addAll(Arrays.asList(new Student("E", "204"), new Student("F", "205")));
+        assertMatches(repository, roster.current());
+
+        repository.beginBatch();
+        repository.update(1, "Batched", repository.get(1).getId());
+        repository.remove(2);
+        VersionedRoster.Snapshot during = roster.current();
+        repository.endBatch();
+        assertTrue(during.getVersion() < repository.getModificationCount());
+        assertMatches(repository, roster.current());
+
+        repository.clear();
+        assertMatches(repository, roster.current());
+    }
+
+    @Test
+    public void snapshotStudentsAreReadOnly() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Alice", "1"));
+        VersionedRoster roster = new VersionedRoster(repository);
+        try {
+            roster.current().getStudents().get(0).setName("Mallory");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            // Snapshots cannot be changed through their students
+        }
+        assertEquals("Alice", repository.get(0).getName());
+    }
+
+    @Test
+    public void readersSeeConsistentSnapshotsWhileTheRosterChanges() throws InterruptedException {
+        StudentRepository repository = new StudentRepository();
+        VersionedRoster roster = new VersionedRoster(repository);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> problem = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                VersionedRoster.Snapshot snapshot = roster.current();
+                // Every student i is added with ID i and none are removed, so a snapshot is
+                // consistent exactly when it holds IDs 0 to size - 1 in order
+                int expected = 0;
+                for (Student student : snapshot.getStudents()) {
+                    if (!student.getId().equals(String.valueOf(expected++))) {
+                        problem.set("Out of order at " + expected);
+                    }
+                }
+                if (expected != snapshot.size()) {
+                    problem.set("Size " + snapshot.size() + " but " + expected + " students");
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20_000; i++) {
+            repository.add(new Student("Student " + i, String.valueOf(i)));
+        }
+        done.set(true);
+        reader.join();
+        assertEquals(null, problem.get());
+        assertEquals(20_000, roster.current().size());
+    }
+
+    private static void assertMatches(StudentRepository repository, VersionedRoster.Snapshot snapshot) {
+        assertEquals(repository.getModificationCount(), snapshot.getVersion());
+        assertEquals(repository.size(), snapshot.size());
+        for (int i = 0; i < repository.size(); i++) {
+            Student student = snapshot.getStudents().get(i);
+            assertEquals(repository.get(i).getId(), student.getId());
+            assertEquals(repository.get(i).getName(), student.getName());
+        }
+    }
+}
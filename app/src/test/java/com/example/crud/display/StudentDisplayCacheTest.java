@@ -0,0 +1,73 @@
+package com.example.crud.display;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+public class StudentDisplayCacheTest {
+
+    @Test
+    public void formatsOnceAndReusesUntilEdited() {
+        StudentDisplayCache cache = new StudentDisplayCache();
+        Student student = new Student("alice", "42");
+
+        StudentDisplay display = cache.get(student);
+        assertEquals("ID: 42", display.getIdLabel());
+        assertEquals("A", display.getInitial());
+        assertSame(display, cache.get(student));
+        assertEquals(1, cache.getMissCount());
+
+        // Editing the student makes the cached text stale
+        student.setName("bob");
+        StudentDisplay edited = cache.get(student);
+        assertNotSame(display, edited);
+        assertEquals("B", edited.getInitial());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        StudentDisplayCache cache = new StudentDisplayCache(2);
+        Student a = new Student("A", "1");
+        Student b = new Student("B", "2");
+        Student c = new Student("C", "3");
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        assertEquals(2, cache.size());
+        cache.get(a);
+        assertEquals(3, cache.getMissCount());
+        cache.get(b);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void preparedNameReplacesPlainText() {
+        StudentDisplay display = new StudentDisplayCache().get(new Student("Cara", "7"));
+        assertEquals("Cara", display.getNameText());
+        assertTrue(display.startPreparing());
+        assertFalse(display.startPreparing());
+
+        CharSequence measured = new StringBuilder("Cara");
+        display.setPreparedName(measured);
+        assertSame(measured, display.getNameText());
+    }
+
+    @Test
+    public void initials() {
+        assertEquals("?", StudentDisplay.initialOf(""));
+        assertEquals("?", StudentDisplay.initialOf(null));
+        assertEquals("Z", StudentDisplay.initialOf("zoe"));
+        assertSame(StudentDisplay.initialOf("zed"), StudentDisplay.initialOf("Zoe"));
+        assertEquals("É", StudentDisplay.initialOf("élodie"));
+        assertEquals("𝐀", StudentDisplay.initialOf("𝐀bc"));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.crud.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+import com.example.crud.persistence.StudentMutation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StudentCommandLogTest {
+
+    @Test
+    public void undoAndRedoFindRowsById() {
+        StudentRepository repository = new StudentRepository();
+        StudentCommandLog log = new StudentCommandLog();
+        repository.add(new Student("Alice", "1"));
+        log.record(StudentCommand.added(0, repository.get(0)));
+        repository.add(new Student("Bob", "2"));
+        log.record(StudentCommand.added(1, repository.get(1)));
+        repository.update(0, "Alicia", "10");
+        log.record(StudentCommand.edited("Alice", "1", "Alicia", "10"));
+        Student removed = repository.remove(1);
+        log.record(StudentCommand.deleted(1, removed));
+
+        StudentChange change = log.undo(repository);
+        assertEquals(StudentChange.Kind.INSERTED, change.getKind());
+        assertEquals(1, repository.indexOf("2"));
+
+        change = log.undo(repository);
+        assertEquals(StudentChange.Kind.CHANGED, change.getKind());
+        assertTrue(change.isNameChanged());
+        assertTrue(change.isIdChanged());
+        assertEquals("Alice", repository.get(0).getName());
+        assertEquals(0, repository.indexOf("1"));
+
+        change = log.redo(repository);
+        assertEquals("Alicia", repository.get(0).getName());
+        assertEquals(StudentMutation.TYPE_UPDATE, change.toMutations().get(0).getType());
+        assertEquals("1", change.toMutations().get(0).getOldId());
+        assertTrue(log.canRedo());
+
+        // A new change forks the history
+        repository.add(new Student("Cara", "3"));
+        log.record(StudentCommand.added(2, repository.get(2)));
+        assertFalse(log.canRedo());
+        assertEquals(4, log.size());
+    }
+
+    @Test
+    public void undoSkipsRowsChangedSince() {
+        StudentRepository repository = new StudentRepository();
+        StudentCommandLog log = new StudentCommandLog();
+        repository.add(new Student("Alice", "1"));
+        log.record(StudentCommand.added(0, repository.get(0)));
+        repository.remove(0);
+
+        assertEquals(StudentChange.Kind.NONE, log.undo(repository).getKind());
+        assertTrue(log.canRedo());
+    }
+
+    @Test
+    public void batchDeleteUndoesInOneStep() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 20_000; i++) {
+            repository.add(new Student("Student " + i, String.valueOf(i)));
+        }
+        // Every other row from 10000 on: 5000 rows
+        int[] positions = new int[5_000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = 10_000 + i * 2;
+        }
+        StudentCommandLog log = new StudentCommandLog();
+        log.record(StudentCommand.deletedAll(positions, repository.removeAll(positions)));
+        assertEquals(15_000, repository.size());
+
+        StudentChange change = log.undo(repository);
+        assertEquals(StudentChange.Kind.INSERTED, change.getKind());
+        assertEquals(5_000, change.getCount());
+        assertFalse(change.isContiguous());
+        assertEquals(20_000, repository.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(String.valueOf(i), repository.get(i).getId());
+            assertEquals(i, repository.indexOf(String.valueOf(i)));
+        }
+
+        change = log.redo(repository);
+        assertEquals(StudentChange.Kind.REMOVED, change.getKind());
+        assertEquals(10_000, change.getFirstPosition());
+        assertEquals(15_000, repository.size());
+        assertEquals(-1, repository.indexOf("10000"));
+        assertEquals(10_000, repository.indexOf("10001"));
+    }
+
+    @Test
+    public void undoingAnImportIsOneRangeRemoval() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Existing", "1"));
+        List<Student> imported = new ArrayList<>();
+        int[] positions = new int[10_000];
+        for (int i = 0; i < positions.length; i++) {
+            Student student = new Student("Imported " + i, String.valueOf(1000 + i));
+            repository.add(student);
+            imported.add(student);
+            positions[i] = i + 1;
+        }
+        StudentCommandLog log = new StudentCommandLog();
+        log.record(StudentCommand.addedAll(positions, imported));
+
+        StudentChange change = log.undo(repository);
+        assertTrue(change.isContiguous());
+        assertEquals(1, change.getFirstPosition());
+        assertEquals(10_000, change.getCount());
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    public void boundedByCountAndMemory() {
+        StudentCommandLog log = new StudentCommandLog(3, 1_000_000);
+        for (int i = 0; i < 5; i++) {
+            log.record(StudentCommand.added(i, new Student("Student", String.valueOf(i))));
+        }
+        assertEquals(3, log.size());
+        // The newest command is still there to undo
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Student", "4"));
+        log.undo(repository);
+        assertTrue(repository.isEmpty());
+
+        StudentCommandLog small = new StudentCommandLog(100, 1_000);
+        for (int i = 0; i < 20; i++) {
+            small.record(StudentCommand.added(i, new Student("Student", String.valueOf(i))));
+        }
+        assertTrue(small.getEstimatedBytes() <= 1_000);
+        assertTrue(small.size() < 20);
+
+        // Too big to keep at all
+        Student[] many = new Student[100];
+        int[] positions = new int[100];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = new Student("Student", String.valueOf(i));
+            positions[i] = i;
+        }
+        assertFalse(small.record(StudentCommand.deletedAll(positions, many)));
+        assertEquals(0, small.size());
+        assertEquals(0, small.getEstimatedBytes());
+    }
+
+    @Test
+    public void batchRenameUndoesAsOneChange() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 5; i++) {
+            repository.add(new Student("Class A " + i, String.valueOf(i)));
+        }
+        String[] ids = {"1", "3"};
+        String[] oldNames = {"Class A 1", "Class A 3"};
+        String[] newNames = {"Class B 1", "Class B 3"};
+        repository.update(1, newNames[0], "1");
+        repository.update(3, newNames[1], "3");
+        StudentCommandLog log = new StudentCommandLog();
+        log.record(StudentCommand.renamedAll(ids, oldNames, newNames));
+
+        StudentChange change = log.undo(repository);
+        assertEquals(StudentChange.Kind.CHANGED, change.getKind());
+        assertEquals(2, change.getCount());
+        assertEquals("Class A 1", repository.get(1).getName());
+        assertEquals("Class A 3", repository.get(3).getName());
+        assertEquals(StudentMutation.TYPE_BATCH, change.toMutation().getType());
+        assertEquals("3", change.toMutation().getParts().get(1).getOldId());
+    }
+}
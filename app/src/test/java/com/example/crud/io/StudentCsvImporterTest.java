@@ -0,0 +1,86 @@
+package com.example.crud.io;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.crud.models.Student;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class StudentCsvImporterTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void reportsInvalidAndDuplicateRows() throws Exception {
+        String csv = "id,name\n"
+                + "1,Alice\n"
+                + "2,B\n"
+                + "x3,Cara\n"
+                + "1,Alice Again\n"
+                + "\n"
+                + "4,\"Doe, Jane\"\n"
+                + "5\n";
+        List<Student> imported = new ArrayList<>();
+        StudentCsvImporter.Result result = importCsv(csv, imported, new StudentCsvImporter(pool, 4));
+
+        assertEquals(6, result.rowsRead);
+        assertEquals(2, result.accepted);
+        assertEquals(4, result.rejected);
+        assertEquals("Alice", imported.get(0).getName());
+        assertEquals("Doe, Jane", imported.get(1).getName());
+        assertEquals("4", imported.get(1).getId());
+
+        assertEquals(3, result.errors.get(0).lineNumber);
+        assertEquals("Name must be at least 2 characters", result.errors.get(0).message);
+        assertEquals("Student ID must contain only numbers", result.errors.get(1).message);
+        assertEquals("Duplicate student ID 1 in file", result.errors.get(2).message);
+        assertEquals(8, result.errors.get(3).lineNumber);
+    }
+
+    @Test
+    public void largeFileKeepsOrderAcrossBatches() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        int rows = 50_000;
+        for (int i = 0; i < rows; i++) {
+            csv.append("Student ").append(i).append(',').append(i).append('\n');
+        }
+        // Repeat an earlier ID in a later chunk
+        csv.append("Late Duplicate,10\n");
+
+        List<Student> imported = new ArrayList<>();
+        StudentCsvImporter importer = new StudentCsvImporter(pool, 4, 1000, 5000);
+        StudentCsvImporter.Result result = importCsv(csv.toString(), imported, importer);
+
+        assertEquals(rows, result.accepted);
+        assertEquals(1, result.rejected);
+        for (int i = 0; i < rows; i++) {
+            assertEquals(String.valueOf(i), imported.get(i).getId());
+        }
+    }
+
+    private static StudentCsvImporter.Result importCsv(String csv, List<Student> sink,
+                                                       StudentCsvImporter importer) throws Exception {
+        return importer.importFrom(new StringReader(csv), new StudentCsvImporter.Listener() {
+            @Override
+            public void onBatch(List<Student> students) {
+                sink.addAll(students);
+            }
+
+            @Override
+            public void onProgress(long rowsRead, long accepted, long rejected) {
+            }
+        });
+    }
+}
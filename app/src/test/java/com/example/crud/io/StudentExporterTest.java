@@ -0,0 +1,106 @@
+package com.example.crud.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.models.Student;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class StudentExporterTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void csvExportImportsBack() throws Exception {
+        List<Student> students = Arrays.asList(
+                new Student("Alice", "1"),
+                new Student("Doe, Jane", "2"),
+                new Student("Say \"hi\"", "3"),
+                new Student("Zoë Ødegård 😀", "4"));
+        // A tiny buffer, so rows are split across many writes
+        String csv = export(students, StudentExporter.Format.CSV, new StudentExporter(16));
+        assertTrue(csv.startsWith("name,id\nAlice,1\n\"Doe, Jane\",2\n\"Say \"\"hi\"\"\",3\n"));
+
+        List<Student> imported = new ArrayList<>();
+        new StudentCsvImporter(pool, 2).importFrom(new StringReader(csv), new StudentCsvImporter.Listener() {
+            @Override
+            public void onBatch(List<Student> batch) {
+                imported.addAll(batch);
+            }
+
+            @Override
+            public void onProgress(long rowsRead, long accepted, long rejected) {
+            }
+        });
+        assertEquals(students.size(), imported.size());
+        for (int i = 0; i < students.size(); i++) {
+            assertEquals(students.get(i).getName(), imported.get(i).getName());
+            assertEquals(students.get(i).getId(), imported.get(i).getId());
+        }
+    }
+
+    @Test
+    public void jsonEscapesNamesAndMatchesStringEncoding() throws IOException {
+        List<Student> students = Arrays.asList(
+                new Student("Back\\slash \"quoted\"", "1"),
+                new Student("Tab\there", "2"),
+                new Student("日本語 😀", "3"));
+        String expected = "[\n"
+                + "{\"name\":\"Back\\\\slash \\\"quoted\\\"\",\"id\":\"1\"},\n"
+                + "{\"name\":\"Tab\\u0009here\",\"id\":\"2\"},\n"
+                + "{\"name\":\"日本語 😀\",\"id\":\"3\"}\n"
+                + "]\n";
+        assertEquals(expected, export(students, StudentExporter.Format.JSON, new StudentExporter(16)));
+        assertEquals("[]\n", export(new ArrayList<>(), StudentExporter.Format.JSON, new StudentExporter()));
+    }
+
+    @Test
+    public void reportsProgressAndStopsWhenCancelled() throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < StudentExporter.PROGRESS_INTERVAL * 3; i++) {
+            students.add(new Student("Student " + i, String.valueOf(i)));
+        }
+        StudentExporter exporter = new StudentExporter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+        StudentExporter.Result result = exporter.export(students, StudentExporter.Format.CSV,
+                Channels.newChannel(out), (rows, total) -> {
+                    progress.add(rows);
+                    if (rows == StudentExporter.PROGRESS_INTERVAL) {
+                        exporter.cancel();
+                    }
+                });
+
+        assertTrue(result.cancelled);
+        assertEquals(StudentExporter.PROGRESS_INTERVAL, result.rowsWritten);
+        assertEquals(Arrays.asList((long) StudentExporter.PROGRESS_INTERVAL), progress);
+        assertEquals(out.size(), result.bytesWritten);
+    }
+
+    private static String export(List<Student> students, StudentExporter.Format format, StudentExporter exporter)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StudentExporter.Result result = exporter.export(students, format, Channels.newChannel(out), null);
+        assertEquals(students.size(), result.rowsWritten);
+        assertEquals(out.size(), result.bytesWritten);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.crud.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsStayWithinAnEighthOfTheValue() {
+        for (long value = 0; value < 1_000_000; value += 37) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(value + " above its bucket", value <= upper);
+            assertTrue(value + " in too wide a bucket", upper - value <= value / 8);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void reportsPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        LatencyHistogram histogram = registry.histogram("test");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count);
+        assertEquals(1_000_000, snapshot.maxNanos);
+        assertEquals(500_500, snapshot.meanNanos());
+        assertEquals(500_000, snapshot.percentileNanos(50), 500_000 / 8);
+        assertEquals(990_000, snapshot.percentileNanos(99), 990_000 / 8);
+        assertEquals(1_000_000, snapshot.percentileNanos(100));
+    }
+
+    @Test
+    public void recordsNothingWhileDisabled() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.histogram("test");
+        Counter counter = registry.counter("count");
+        assertEquals(0, registry.start());
+        histogram.recordSince(registry.start());
+        histogram.record(5);
+        counter.increment();
+
+        assertEquals(0, histogram.snapshot().count);
+        assertEquals(0, counter.get());
+        StringBuilder report = new StringBuilder();
+        registry.dump(report);
+        assertTrue(report.toString().contains("count"));
+    }
+
+    @Test
+    public void countsEveryValueRecordedConcurrently() throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        LatencyHistogram histogram = registry.histogram("test");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long base = t * 10_000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(base + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.snapshot().count);
+        assertEquals(39_999, histogram.snapshot().maxNanos);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.crud.paging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PagedStudentListTest {
+
+    @Test
+    public void loadsPagesOnDemandWithBoundedMemory() {
+        int count = 10_000;
+        StudentRepository repository = new StudentRepository(count);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            students.add(new Student("Student " + i, String.valueOf(5000 + i * 3)));
+        }
+        repository.addAll(students);
+        VersionedRoster roster = new VersionedRoster(repository);
+
+        // Loads are queued and run by hand, like a background executor would
+        List<Runnable> pendingLoads = new ArrayList<>();
+        List<Integer> loadedStarts = new ArrayList<>();
+        PagedStudentList list = new PagedStudentList(new RosterPageSource(roster.current()), 50, 4,
+                pendingLoads::add, Runnable::run, new PagedStudentList.Listener() {
+                    @Override
+                    public void onRangeLoaded(int start, int rangeCount) {
+                        loadedStarts.add(start);
+                    }
+
+                    @Override
+                    public void onLoadFailed(Exception error) {
+                        throw new AssertionError(error);
+                    }
+                });
+
+        assertEquals(count, list.size());
+        assertNull(list.get(0));
+        // Current page plus one prefetched page
+        assertEquals(2, pendingLoads.size());
+        runAll(pendingLoads);
+        assertEquals(Integer.valueOf(0), loadedStarts.get(0));
+        assertEquals("Student 0", list.get(0).getName());
+
+        // Scroll through everything; memory never grows past the LRU bound
+        for (int i = 0; i < count; i++) {
+            list.get(i);
+            runAll(pendingLoads);
+            assertTrue(list.getLoadedPageCount() <= 4);
+        }
+        assertEquals(String.valueOf(5000 + (count - 1) * 3), list.get(count - 1).getId());
+
+        // Jump back to a page that was evicted
+        assertNull(list.get(1234));
+        runAll(pendingLoads);
+        assertEquals("Student 1234", list.get(1234).getName());
+        roster.detach();
+    }
+
+    @Test
+    public void idsAreAnsweredWithoutLoadingPages() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 500; i++) {
+            repository.add(new Student("Student " + i, "S" + i));
+        }
+        VersionedRoster roster = new VersionedRoster(repository);
+        List<Runnable> pendingLoads = new ArrayList<>();
+        PagedStudentList list = new PagedStudentList(new RosterPageSource(roster.current()), 50, 4,
+                pendingLoads::add, Runnable::run, failOnError());
+
+        assertEquals(321, list.indexOfId("S321"));
+        assertEquals(-1, list.indexOfId("missing"));
+        assertArrayEquals(repository.getAllIds(), list.getIds());
+        assertEquals(0, pendingLoads.size());
+        assertEquals(0, list.getLoadedPageCount());
+        roster.detach();
+    }
+
+    @Test
+    public void pagesShowChangesMadeBeforeTheSnapshotOnly() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 100; i++) {
+            repository.add(new Student("Student " + i, "S" + i));
+        }
+        VersionedRoster roster = new VersionedRoster(repository);
+        // Edited after the roster was loaded, as if it were only in the journal so far
+        repository.update(7, "Renamed", "S7");
+        VersionedRoster.Snapshot snapshot = roster.current();
+        repository.update(8, "Later", "S8");
+
+        List<Runnable> pendingLoads = new ArrayList<>();
+        PagedStudentList list = new PagedStudentList(new RosterPageSource(snapshot), 50, 4,
+                pendingLoads::add, Runnable::run, failOnError());
+        list.get(0);
+        runAll(pendingLoads);
+        assertEquals("Renamed", list.get(7).getName());
+        assertEquals("Student 8", list.get(8).getName());
+        roster.detach();
+    }
+
+    private static PagedStudentList.Listener failOnError() {
+        return new PagedStudentList.Listener() {
+            @Override
+            public void onRangeLoaded(int start, int count) {
+            }
+
+            @Override
+            public void onLoadFailed(Exception error) {
+                throw new AssertionError(error);
+            }
+        };
+    }
+
+    private static void runAll(List<Runnable> pending) {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+}
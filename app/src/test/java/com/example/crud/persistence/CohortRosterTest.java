@@ -0,0 +1,181 @@
+package com.example.crud.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.models.Student;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class CohortRosterTest {
+
+    private static final int CLASSES = 200;
+    private static final int CLASS_SIZE = 25;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void openingOneClassOnlyLoadsItsShard() throws Exception {
+        File dir = folder.newFolder();
+        try (CohortRoster roster = CohortRoster.open(dir)) {
+            fill(roster);
+        }
+
+        try (CohortRoster roster = CohortRoster.open(dir)) {
+            List<String> cohorts = roster.getCohorts();
+            assertEquals(CLASSES + 1, cohorts.size());
+            assertEquals(Student.NO_COHORT, cohorts.get(0));
+            assertTrue(cohorts.contains("Class 117 – Biology"));
+
+            CohortRoster.Shard shard = roster.load("Class 117 – Biology");
+            assertEquals(CLASS_SIZE, shard.getRepository().size());
+            assertEquals("Class 117 – Biology", shard.getRepository().get(0).getCohort());
+
+            // Taken in other classes, answered without loading them
+            Set<String> taken = roster.takenIds("Class 117 – Biology",
+                    Arrays.asList(idOf(3, 4), idOf(199, 24), "999999999"));
+            assertEquals(new HashSet<>(Arrays.asList(idOf(3, 4), idOf(199, 24))), taken);
+            assertEquals(1, loadedCount(roster));
+        }
+    }
+
+    @Test
+    public void loadAllReadsEveryShardInParallel() throws Exception {
+        File dir = folder.newFolder();
+        try (CohortRoster roster = CohortRoster.open(dir)) {
+            fill(roster);
+        }
+
+        try (CohortRoster roster = CohortRoster.open(dir, 4)) {
+            CohortRoster.Shard first = roster.load("Class 000 – Biology");
+            List<CohortRoster.Shard> shards = roster.loadAll().get();
+            assertEquals(CLASSES + 1, shards.size());
+            assertSame(first, shards.get(1));
+            assertEquals(CLASSES + 1, loadedCount(roster));
+            // Nothing was changed, so no class started a journal writer
+            assertEquals(0, writerThreads());
+
+            List<Student> merged = CohortRoster.mergedView(shards);
+            assertEquals(CLASSES * CLASS_SIZE, merged.size());
+            for (int c = 0; c < CLASSES; c++) {
+                for (int s = 0; s < CLASS_SIZE; s++) {
+                    Student student = merged.get(c * CLASS_SIZE + s);
+                    assertEquals(idOf(c, s), student.getId());
+                    assertEquals(cohortOf(c), student.getCohort());
+                }
+            }
+
+            // Follows changes to the shards
+            shards.get(1).getRepository().remove(0);
+            assertEquals(CLASSES * CLASS_SIZE - 1, merged.size());
+            assertEquals(idOf(0, 1), merged.get(0).getId());
+        }
+    }
+
+    @Test
+    public void idIndexSurvivesAKillAfterACheckpointAndIsRebuiltOtherwise() throws Exception {
+        File dir = folder.newFolder();
+        try (CohortRoster roster = CohortRoster.open(dir)) {
+            fill(roster);
+        }
+
+        // Killed after a checkpoint: nothing to rebuild
+        CohortRoster killed = CohortRoster.open(dir);
+        CohortRoster reopened = null;
+        try {
+            add(killed.load(cohortOf(5)), new Student("Checkpointed", "555000"));
+            killed.checkpoint().get();
+            reopened = CohortRoster.open(dir);
+            reopened.load(cohortOf(6));
+            assertTrue(isTaken(reopened, cohortOf(6), "555000"));
+            assertEquals(1, loadedCount(reopened));
+
+            // Killed before a checkpoint: the index is rebuilt from every shard when opened
+            add(reopened.load(cohortOf(6)), new Student("Unsaved", "666000"));
+            try (CohortRoster rebuilt = CohortRoster.open(dir)) {
+                assertEquals(CLASSES + 1, loadedCount(rebuilt));
+                rebuilt.load(cohortOf(7));
+                assertTrue(isTaken(rebuilt, cohortOf(7), "666000"));
+                assertTrue(isTaken(rebuilt, cohortOf(7), "555000"));
+                assertFalse(isTaken(rebuilt, cohortOf(7), "777000"));
+            }
+        } finally {
+            // Only now, as a kill would not have closed them; frees their writers and files
+            if (reopened != null) {
+                reopened.close();
+            }
+            killed.close();
+        }
+    }
+
+    /**
+     * Add each class the way the app imports a batch: check every class for the IDs first,
+     * then write them together
+     */
+    private static void fill(CohortRoster roster) throws Exception {
+        for (int c = 0; c < CLASSES; c++) {
+            CohortRoster.Shard shard = roster.load(cohortOf(c));
+            List<String> ids = new ArrayList<>(CLASS_SIZE);
+            for (int s = 0; s < CLASS_SIZE; s++) {
+                ids.add(idOf(c, s));
+            }
+            assertTrue(roster.takenIds(cohortOf(c), ids).isEmpty());
+
+            List<StudentMutation> adds = new ArrayList<>(CLASS_SIZE);
+            for (int s = 0; s < CLASS_SIZE; s++) {
+                Student student = new Student("Student " + s, idOf(c, s));
+                shard.getRepository().add(student);
+                adds.add(StudentMutation.add(shard.getRepository().size() - 1, student));
+            }
+            shard.getJournalWriter().submitAll(adds).get();
+        }
+    }
+
+    private static void add(CohortRoster.Shard shard, Student student) throws Exception {
+        shard.getRepository().add(student);
+        shard.getJournalWriter()
+                .submit(StudentMutation.add(shard.getRepository().size() - 1, student))
+                .get();
+    }
+
+    private static boolean isTaken(CohortRoster roster, String openCohort, String id) throws Exception {
+        return !roster.takenIds(openCohort, Collections.singletonList(id)).isEmpty();
+    }
+
+    private static long writerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("journal-writer"))
+                .count();
+    }
+
+    private static int loadedCount(CohortRoster roster) {
+        int loaded = 0;
+        for (String cohort : roster.getCohorts()) {
+            if (roster.isLoaded(cohort)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private static String cohortOf(int c) {
+        return String.format("Class %03d – Biology", c);
+    }
+
+    private static String idOf(int c, int s) {
+        return String.valueOf(1_000_000 + c * 1_000 + s);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.crud.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class JournalWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void bulkInsertIsGroupCommitted() throws Exception {
+        File dir = folder.newFolder();
+        StudentJournal journal = new StudentJournal(dir);
+        journal.replay(new StudentRepository());
+
+        int count = 5_000;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        try (JournalWriter writer = new JournalWriter(journal)) {
+            for (int i = 0; i < count; i++) {
+                futures[i] = writer.submit(StudentMutation.add(i, new Student("Student " + i, String.valueOf(i))));
+            }
+            CompletableFuture.allOf(futures).get();
+
+            assertEquals(count, writer.getWrittenCount());
+            // Far fewer fsyncs than mutations
+            assertTrue(writer.getBatchCount() < count / 10);
+        }
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal reopened = new StudentJournal(dir)) {
+            reopened.replay(restored);
+        }
+        assertEquals(count, restored.size());
+        assertEquals("4999", restored.get(count - 1).getId());
+    }
+
+    @Test
+    public void closeWritesEverythingStillQueued() throws Exception {
+        File dir = folder.newFolder();
+        StudentJournal journal = new StudentJournal(dir);
+        journal.replay(new StudentRepository());
+
+        int count = 3_000;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        JournalWriter writer = new JournalWriter(journal);
+        for (int i = 0; i < count; i++) {
+            futures[i] = writer.submit(StudentMutation.add(i, new Student("Student " + i, String.valueOf(i))));
+        }
+        // Closed while most of them are still queued or being written
+        writer.close();
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+        assertEquals(count, writer.getWrittenCount());
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal reopened = new StudentJournal(dir)) {
+            reopened.replay(restored);
+        }
+        assertEquals(count, restored.size());
+    }
+
+    @Test
+    public void submitRacingCloseIsWrittenOrFailsButNeverHangs() throws Exception {
+        for (int run = 0; run < 20; run++) {
+            File dir = folder.newFolder();
+            StudentJournal journal = new StudentJournal(dir);
+            journal.replay(new StudentRepository());
+            JournalWriter writer = new JournalWriter(journal);
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            Thread submitter = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    futures.add(writer.submit(StudentMutation.add(i, new Student("Student " + i, String.valueOf(i)))));
+                }
+            });
+            submitter.start();
+            writer.close();
+            submitter.join();
+
+            int written = 0;
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    written++;
+                } catch (ExecutionException e) {
+                    // Submitted after close(), so rejected
+                }
+            }
+            StudentRepository restored = new StudentRepository();
+            try (StudentJournal reopened = new StudentJournal(dir)) {
+                reopened.replay(restored);
+            }
+            assertEquals(written, restored.size());
+        }
+    }
+
+    @Test
+    public void compactionLinesUpWithQueuedMutations() throws Exception {
+        File dir = folder.newFolder();
+        StudentRepository repository = new StudentRepository();
+        StudentJournal journal = new StudentJournal(dir, 1);
+        journal.replay(repository);
+
+        try (JournalWriter writer = new JournalWriter(journal)) {
+            for (int i = 0; i < 50; i++) {
+                Student student = new Student("Student " + i, String.valueOf(i));
+                repository.add(student);
+                writer.submit(StudentMutation.add(i, student));
+            }
+            writer.compact(repository);
+            repository.remove(0);
+            writer.submit(StudentMutation.delete("0")).get();
+        }
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal reopened = new StudentJournal(dir)) {
+            reopened.replay(restored);
+        }
+        assertEquals(49, restored.size());
+        assertEquals("1", restored.get(0).getId());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.crud.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RosterSavedStateTest {
+
+    @Test
+    public void roundTrips() {
+        RosterSavedState state = new RosterSavedState("NAME", "12345", -42, 1_000_000,
+                Arrays.asList("7", "007", "李"));
+        RosterSavedState read = RosterSavedState.fromBytes(state.toBytes());
+        assertEquals("NAME", read.getSortMode());
+        assertEquals("12345", read.getAnchorId());
+        assertEquals(-42, read.getAnchorOffset());
+        assertEquals(1_000_000, read.getRosterSize());
+        assertEquals(Arrays.asList("7", "007", "李"), read.getSelectedIds());
+
+        RosterSavedState empty = new RosterSavedState("INSERTION", null, 0, 0, Collections.emptyList());
+        assertArrayEquals(empty.toBytes(), RosterSavedState.fromBytes(empty.toBytes()).toBytes());
+    }
+
+    @Test
+    public void sizeDoesNotGrowWithTheRosterOrALargeSelection() {
+        List<String> everyone = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            everyone.add(String.valueOf(20_250_000 + i));
+        }
+        byte[] blob = new RosterSavedState("ID_ASCENDING", "20250000", 0, everyone.size(), everyone).toBytes();
+        assertTrue("blob " + blob.length, blob.length < 64);
+        assertTrue(RosterSavedState.fromBytes(blob).getSelectedIds().isEmpty());
+
+        byte[] withSelection = new RosterSavedState("NAME", "1", 0, everyone.size(),
+                everyone.subList(0, RosterSavedState.MAX_SELECTED_IDS)).toBytes();
+        assertTrue("blob " + withSelection.length, withSelection.length < 8 * 1024);
+    }
+
+    @Test
+    public void rejectsDamagedBlobs() {
+        byte[] blob = new RosterSavedState("NAME", "1", 0, 3, Arrays.asList("1", "2")).toBytes();
+        assertNull(RosterSavedState.fromBytes(null));
+        assertNull(RosterSavedState.fromBytes(Arrays.copyOf(blob, blob.length - 1)));
+        assertNull(RosterSavedState.fromBytes(Arrays.copyOf(blob, blob.length + 1)));
+        blob[0] = 99;
+        assertNull(RosterSavedState.fromBytes(blob));
+    }
+}
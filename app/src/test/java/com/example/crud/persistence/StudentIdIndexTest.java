@@ -0,0 +1,167 @@
+package com.example.crud.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class StudentIdIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void followsTheRosterThroughRunsMergesAndReopening() throws Exception {
+        File dir = folder.newFolder();
+        StudentRepository repository = new StudentRepository();
+        int count = 20_000;
+        try (StudentIdIndex index = StudentIdIndex.open(dir, 256, StudentIdIndex.DEFAULT_BITS_PER_KEY)) {
+            assertFalse(index.wasClosedCleanly());
+            repository.addListener(index);
+            for (int i = 0; i < count; i++) {
+                repository.add(new Student("Student " + i, String.valueOf(1_000_000 + i)));
+            }
+            for (int i = count - 1; i >= 0; i -= 7) {
+                repository.remove(i);
+            }
+            for (int i = 0; i < repository.size(); i += 11) {
+                Student student = repository.get(i);
+                repository.update(i, student.getName(), "9" + student.getId());
+            }
+            repository.add(new Student("Bond", "007"));
+            index.awaitWrites();
+            assertTrue("runs " + index.getRunCount(), index.getRunCount() <= StudentIdIndex.MAX_RUNS);
+            assertMatches(repository, index, count);
+        }
+
+        try (StudentIdIndex index = StudentIdIndex.open(dir, 256, StudentIdIndex.DEFAULT_BITS_PER_KEY)) {
+            assertTrue(index.wasClosedCleanly());
+            assertMatches(repository, index, count);
+        }
+    }
+
+    @Test
+    public void newIdsAreAnsweredQuicklyAtAMillionIds() throws Exception {
+        int count = 1_000_000;
+        try (StudentIdIndex index = StudentIdIndex.open(folder.newFolder())) {
+            for (int i = 0; i < count; i++) {
+                index.add(String.valueOf(20_000_000 + i * 3L));
+            }
+            index.awaitWrites();
+
+            Random random = new Random(42);
+            int lookups = 100_000;
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < lookups; i++) {
+                // Two in three miss; the hits are spread over every run
+                if (index.contains(String.valueOf(20_000_000 + random.nextInt(count * 3)))) {
+                    found++;
+                }
+            }
+            long averageNanos = (System.nanoTime() - start) / lookups;
+            assertTrue("found " + found, found > lookups / 4 && found < lookups / 2);
+            assertTrue("average " + averageNanos + " ns", averageNanos < 1_000_000);
+        }
+    }
+
+    @Test
+    public void lookupsStayRightWhileRunsAreWrittenAndMerged() throws Exception {
+        int count = 50_000;
+        try (StudentIdIndex index = StudentIdIndex.open(folder.newFolder(), 128, StudentIdIndex.DEFAULT_BITS_PER_KEY)) {
+            AtomicInteger added = new AtomicInteger();
+            AtomicReference<String> wrong = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                Random random = new Random(7);
+                while (added.get() < count && wrong.get() == null) {
+                    int known = added.get();
+                    if (known > 0) {
+                        String id = String.valueOf(3_000_000 + random.nextInt(known));
+                        if (!index.contains(id)) {
+                            wrong.set(id);
+                        }
+                    }
+                }
+            });
+            reader.start();
+            for (int i = 0; i < count; i++) {
+                index.add(String.valueOf(3_000_000 + i));
+                added.incrementAndGet();
+            }
+            reader.join();
+            assertTrue("missed " + wrong.get(), wrong.get() == null);
+            index.awaitWrites();
+            assertTrue(index.contains(String.valueOf(3_000_000 + count - 1)));
+        }
+    }
+
+    @Test
+    public void bloomFilterRarelyLetsANewIdThrough() {
+        BloomFilter filter = new BloomFilter(100_000, StudentIdIndex.DEFAULT_BITS_PER_KEY);
+        for (long key = 0; key < 100_000; key++) {
+            filter.add(key);
+        }
+        for (long key = 0; key < 100_000; key++) {
+            assertTrue(filter.mightContain(key));
+        }
+        int falsePositives = 0;
+        for (long key = 100_000; key < 200_000; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives " + falsePositives, falsePositives < 2_000);
+    }
+
+    @Test
+    public void damagedOrUncleanIndexStartsEmpty() throws Exception {
+        File dir = folder.newFolder();
+        try (StudentIdIndex index = StudentIdIndex.open(dir, 64, StudentIdIndex.DEFAULT_BITS_PER_KEY)) {
+            for (int i = 0; i < 1_000; i++) {
+                index.add(String.valueOf(i));
+            }
+        }
+        File[] runs = dir.listFiles((parent, name) -> name.endsWith(".run"));
+        try (RandomAccessFile file = new RandomAccessFile(runs[0], "rw")) {
+            file.seek(file.length() - 1);
+            file.write(file.readByte() ^ 0xff);
+        }
+        try (StudentIdIndex index = StudentIdIndex.open(dir, 64, StudentIdIndex.DEFAULT_BITS_PER_KEY)) {
+            assertFalse(index.wasClosedCleanly());
+            assertFalse(index.contains("1"));
+            index.add("1");
+        }
+
+        // Not closed, as after a crash: the next open must not trust what is on disk
+        StudentIdIndex crashed = StudentIdIndex.open(dir, 64, StudentIdIndex.DEFAULT_BITS_PER_KEY);
+        assertTrue(crashed.wasClosedCleanly());
+        assertTrue(crashed.contains("1"));
+        crashed.add("2");
+        StudentIdIndex reopened = StudentIdIndex.open(dir, 64, StudentIdIndex.DEFAULT_BITS_PER_KEY);
+        assertFalse(reopened.wasClosedCleanly());
+        assertEquals(0, reopened.getRunCount());
+    }
+
+    private static void assertMatches(StudentRepository repository, StudentIdIndex index, int count) {
+        for (int i = 0; i < count; i++) {
+            String id = String.valueOf(1_000_000 + i);
+            assertEquals(id, repository.containsId(id), index.contains(id));
+            String renamed = "9" + id;
+            assertEquals(renamed, repository.containsId(renamed), index.contains(renamed));
+        }
+        assertTrue(index.contains("007"));
+        assertFalse(index.contains("7"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.crud.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StudentJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayRestoresMutations() throws Exception {
+        File dir = folder.newFolder();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(new StudentRepository());
+            journal.append(StudentMutation.add(0, new Student("Alice", "1")));
+            journal.append(StudentMutation.add(1, new Student("Bob", "2")));
+            journal.append(StudentMutation.add(2, new Student("Cara", "3")));
+            journal.append(StudentMutation.update("2", "Bobby", "20"));
+            journal.append(StudentMutation.delete("1"));
+        }
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(restored);
+        }
+        assertEquals(2, restored.size());
+        assertEquals("Bobby", restored.get(0).getName());
+        assertEquals("20", restored.get(0).getId());
+        assertEquals("3", restored.get(1).getId());
+    }
+
+    @Test
+    public void tornTailIsDiscarded() throws Exception {
+        File dir = folder.newFolder();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(new StudentRepository());
+            journal.append(StudentMutation.add(0, new Student("Alice", "1")));
+            journal.append(StudentMutation.add(1, new Student("Bob", "2")));
+        }
+
+        // Simulate a crash halfway through the second record
+        File log = new File(dir, "journal-0.log");
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(restored);
+            // New records land after the last good one
+            journal.append(StudentMutation.add(1, new Student("Cara", "3")));
+        }
+        assertEquals(1, restored.size());
+
+        StudentRepository again = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(again);
+        }
+        assertEquals(2, again.size());
+        assertTrue(again.containsId("3"));
+        assertFalse(again.containsId("2"));
+    }
+
+    @Test
+    public void compactionFoldsJournalIntoSnapshot() throws Exception {
+        File dir = folder.newFolder();
+        StudentRepository repository = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir, 512)) {
+            journal.replay(repository);
+            for (int i = 0; i < 100; i++) {
+                Student student = new Student("Student " + i, String.valueOf(i));
+                repository.add(student);
+                journal.append(StudentMutation.add(i, student));
+            }
+            assertTrue(journal.needsCompaction());
+            journal.compact(repository).get();
+
+            // Written after the snapshot, so it must come from the new journal
+            journal.append(StudentMutation.delete("0"));
+            assertFalse(new File(dir, "journal-0.log").exists());
+        }
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(restored);
+        }
+        assertEquals(99, restored.size());
+        assertEquals("1", restored.get(0).getId());
+        assertEquals("Student 99", restored.get(98).getName());
+    }
+
+    @Test
+    public void batchIsReplayedAllOrNothing() throws Exception {
+        File dir = folder.newFolder();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(new StudentRepository());
+            List<StudentMutation> adds = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                adds.add(StudentMutation.add(i, new Student("Student " + i, String.valueOf(i))));
+            }
+            journal.append(StudentMutation.batch(adds));
+
+            List<StudentMutation> deletes = new ArrayList<>();
+            for (int i = 0; i < 5_000; i += 2) {
+                deletes.add(StudentMutation.delete(String.valueOf(i)));
+            }
+            journal.append(StudentMutation.batch(deletes));
+        }
+
+        StudentRepository restored = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(restored);
+        }
+        assertEquals(2_500, restored.size());
+        assertEquals("1", restored.get(0).getId());
+        assertEquals(1, restored.indexOf("3"));
+
+        // Cut into the delete batch: none of its deletes survive
+        File log = new File(dir, "journal-0.log");
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.setLength(raf.length() - 100);
+        }
+        restored = new StudentRepository();
+        try (StudentJournal journal = new StudentJournal(dir)) {
+            journal.replay(restored);
+        }
+        assertEquals(5_000, restored.size());
+    }
+}
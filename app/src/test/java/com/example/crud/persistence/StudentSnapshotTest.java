@@ -0,0 +1,75 @@
+package com.example.crud.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+public class StudentSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsAllIdShapes() throws Exception {
+        String[] names = {"Alice", "Zoë Ångström", "Alice", "李小龙", "Bob"};
+        String[] ids = {"100", "7", "007", "123456789012345678901234", "0"};
+        File file = new File(folder.getRoot(), "students.snapshot");
+        StudentSnapshot.write(file, 42, names, ids);
+
+        StudentRepository repository = new StudentRepository();
+        assertEquals(42, StudentSnapshot.read(file, repository));
+        assertEquals(names.length, repository.size());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], repository.get(i).getName());
+            assertEquals(ids[i], repository.get(i).getId());
+        }
+    }
+
+    @Test
+    public void muchSmallerThanCsv() throws Exception {
+        int count = 100_000;
+        String[] names = new String[count];
+        String[] ids = new String[count];
+        long csvBytes = 0;
+        for (int i = 0; i < count; i++) {
+            names[i] = "Student " + (i % 500);
+            ids[i] = String.valueOf(20_250_000 + i);
+            csvBytes += (names[i] + "," + ids[i] + "\n").getBytes(StandardCharsets.UTF_8).length;
+        }
+        File file = new File(folder.getRoot(), "large.snapshot");
+        StudentSnapshot.write(file, 0, names, ids);
+
+        assertTrue("snapshot " + file.length() + " vs csv " + csvBytes, file.length() * 4 < csvBytes);
+
+        try (StudentSnapshot.Reader reader = StudentSnapshot.Reader.open(file)) {
+            assertEquals(count, reader.size());
+            long expected = 20_250_000;
+            while (reader.next()) {
+                assertEquals(expected++, reader.numericId());
+            }
+        }
+    }
+
+    @Test
+    public void corruptionIsDetected() throws Exception {
+        File file = new File(folder.getRoot(), "corrupt.snapshot");
+        StudentSnapshot.write(file, 0, new String[] {"Alice", "Bob"}, new String[] {"1", "2"});
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write('x');
+        }
+
+        assertThrows(IOException.class, () -> StudentSnapshot.read(file, new StudentRepository()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.crud.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class StudentSearchIndexTest {
+
+    @Test
+    public void findsNameSubstringsIgnoringCase() {
+        StudentSearchIndex index = new StudentSearchIndex();
+        add(index, "John Smith", "100");
+        add(index, "Joanna Jones", "101");
+        add(index, "Mark Johnson", "200");
+
+        assertEquals(2, index.search("JOHN", 10).size());
+        assertEquals(3, index.search("jo", 10).size());
+        assertEquals("Joanna Jones", index.search("anna j", 10).get(0).getName());
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void digitQueriesMatchIdPrefix() {
+        StudentSearchIndex index = new StudentSearchIndex();
+        add(index, "John Smith", "100");
+        add(index, "Joanna Jones", "101");
+        add(index, "Mark Johnson", "200");
+
+        List<Student> results = index.search("10", 10);
+        assertEquals(2, results.size());
+        assertEquals("100", results.get(0).getId());
+    }
+
+    @Test
+    public void followsEditsAndRemovals() {
+        StudentSearchIndex index = new StudentSearchIndex();
+        Student student = add(index, "John Smith", "100");
+
+        index.remove("100");
+        student.setName("Johnny Smith");
+        student.setId("150");
+        index.add(student, "Johnny Smith", "150");
+
+        assertEquals(1, index.search("johnny", 10).size());
+        assertEquals(1, index.search("15", 10).size());
+        assertTrue(index.search("10", 10).isEmpty());
+    }
+
+    @Test
+    public void limitStopsEarlyAndRebuildDropsDeadSlots() {
+        StudentSearchIndex index = new StudentSearchIndex();
+        for (int i = 0; i < 5000; i++) {
+            add(index, "Student " + i, String.valueOf(i));
+        }
+        assertEquals(50, index.search("student", 50).size());
+
+        for (int i = 0; i < 4000; i++) {
+            index.remove(String.valueOf(i));
+        }
+        assertEquals(1000, index.size());
+        List<Student> results = index.search("student 4", 2000);
+        assertEquals(1000, results.size());
+        assertEquals("4000", results.get(0).getId());
+    }
+
+    private static Student add(StudentSearchIndex index, String name, String id) {
+        Student student = new Student(name, id);
+        index.add(student, name, id);
+        return student;
+    }
+}
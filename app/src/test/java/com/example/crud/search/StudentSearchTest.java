@@ -0,0 +1,36 @@
+package com.example.crud.search;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class StudentSearchTest {
+
+    @Test
+    public void detachedSearchNoLongerFollowsTheRepository() throws Exception {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Ada Lovelace", "100"));
+
+        // A class opened, left and opened again: its shard outlives the first search
+        StudentSearch first = new StudentSearch();
+        first.attach(repository);
+        first.detach(repository);
+        first.shutdown();
+        StudentSearch second = new StudentSearch();
+        second.attach(repository);
+
+        repository.add(new Student("Alan Turing", "101"));
+
+        CompletableFuture<List<Student>> results = new CompletableFuture<>();
+        second.search("a", StudentSearch.DEFAULT_LIMIT, (query, found) -> results.complete(found));
+        assertEquals(2, results.get(5, TimeUnit.SECONDS).size());
+        second.shutdown();
+    }
+}
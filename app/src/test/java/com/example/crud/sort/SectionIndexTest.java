@@ -0,0 +1,147 @@
+package com.example.crud.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.display.StudentDisplay;
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SectionIndexTest {
+
+    private static final String[] FIRST = {"alice", "Bob", "bea", "Émile", "émile", "Zoë", "1st", "ß", "Øyvind",
+            "日本", "😀 smile", "Ab", "a", "z"};
+
+    @Test
+    public void sectionsMatchTheSortedViewUnderRandomChanges() {
+        StudentRepository repository = new StudentRepository();
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            repository.add(new Student(randomName(random), String.valueOf(i)));
+        }
+        SortedStudentView view = new SortedStudentView(repository, StudentOrder.BY_NAME);
+        SectionIndex index = new SectionIndex(repository);
+        assertMatches(view, index);
+
+        int nextId = 200;
+        for (int i = 0; i < 3000; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 && !repository.isEmpty()) {
+                repository.remove(random.nextInt(repository.size()));
+            } else if (op == 1 && !repository.isEmpty()) {
+                int position = random.nextInt(repository.size());
+                repository.update(position, randomName(random), repository.get(position).getId());
+            } else {
+                repository.add(new Student(randomName(random), String.valueOf(nextId++)));
+            }
+            if (i % 50 == 0) {
+                assertMatches(view, index);
+            }
+        }
+        assertMatches(view, index);
+
+        repository.clear();
+        assertEquals(0, index.getSectionCount());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void jumpsToSectionsAndReportsNewOnesOncePerBatch() {
+        StudentRepository repository = new StudentRepository();
+        repository.addAll(Arrays.asList(new Student("Carol", "1"), new Student("alice", "2"),
+                new Student("Adam", "3"), new Student("cy", "4")));
+        SectionIndex index = new SectionIndex(repository);
+        assertEquals(Arrays.asList("A", "C"), Arrays.asList(index.getSections()));
+        assertEquals(0, index.getPositionForSection(0));
+        assertEquals(2, index.getPositionForSection(1));
+        assertEquals(1, index.getSectionForPosition(3));
+        assertTrue(index.isSectionStart(2));
+        assertFalse(index.isSectionStart(3));
+
+        AtomicInteger changes = new AtomicInteger();
+        index.setListener(changes::incrementAndGet);
+        repository.add(new Student("Ben", "5"));
+        assertEquals(1, changes.get());
+        assertEquals(Arrays.asList("A", "B", "C"), Arrays.asList(index.getSections()));
+        assertEquals(3, index.getPositionForSection(2));
+
+        repository.beginBatch();
+        repository.add(new Student("Dan", "6"));
+        repository.add(new Student("Eve", "7"));
+        repository.remove(repository.indexOf("5"));
+        repository.endBatch();
+        assertEquals(2, changes.get());
+        assertEquals(Arrays.asList("A", "C", "D", "E"), Arrays.asList(index.getSections()));
+
+        // Edits within a section only move counts around
+        repository.update(repository.indexOf("6"), "Dana", "6");
+        assertEquals(2, changes.get());
+    }
+
+    @Test
+    public void countsInTheBackgroundFromTheSnapshot() {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < 100; i++) {
+            repository.add(new Student(i % 2 == 0 ? "Even " + i : "odd " + i, String.valueOf(i)));
+        }
+        VersionedRoster roster = new VersionedRoster(repository);
+        List<Runnable> background = new ArrayList<>();
+        List<Runnable> foreground = new ArrayList<>();
+        AtomicReference<SectionIndex> created = new AtomicReference<>();
+        SectionIndex.create(repository, roster, background::add, foreground::add, created::set);
+
+        background.remove(0).run();
+        repository.add(new Student("Pat", "100")); // Changed before the index was handed over
+        foreground.remove(0).run();
+        background.remove(0).run();
+        foreground.remove(0).run();
+
+        SectionIndex index = created.get();
+        assertEquals(Arrays.asList("E", "O", "P"), Arrays.asList(index.getSections()));
+        assertEquals(101, index.size());
+        repository.add(new Student("quinn", "101"));
+        assertEquals(Arrays.asList("E", "O", "P", "Q"), Arrays.asList(index.getSections()));
+    }
+
+    /**
+     * Split the sorted view into runs of equal section key and compare with the index
+     */
+    private static void assertMatches(SortedStudentView view, SectionIndex index) {
+        List<String> labels = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        int lastKey = Integer.MIN_VALUE;
+        for (int i = 0; i < view.size(); i++) {
+            String name = view.get(i).getName();
+            int key = SectionIndex.sectionKey(name);
+            if (key != lastKey) {
+                assertTrue("Sections out of order at " + i, key > lastKey);
+                labels.add(StudentDisplay.initialOf(name));
+                starts.add(i);
+                lastKey = key;
+            }
+            assertEquals(starts.size() - 1, index.getSectionForPosition(i));
+            assertEquals(i == starts.get(starts.size() - 1), index.isSectionStart(i));
+        }
+        assertEquals(view.size(), index.size());
+        assertEquals(labels.size(), index.getSectionCount());
+        for (int s = 0; s < labels.size(); s++) {
+            assertEquals(SectionIndex.sectionKey(labels.get(s)), SectionIndex.sectionKey(index.getLabel(s)));
+            assertEquals((int) starts.get(s), index.getPositionForSection(s));
+        }
+    }
+
+    private static String randomName(Random random) {
+        return FIRST[random.nextInt(FIRST.length)] + " " + (char) ('a' + random.nextInt(26));
+    }
+}
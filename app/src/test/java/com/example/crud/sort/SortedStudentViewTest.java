@@ -0,0 +1,174 @@
+package com.example.crud.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.data.VersionedRoster;
+import com.example.crud.models.Student;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class SortedStudentViewTest {
+
+    @Test
+    public void treeMatchesSortedListUnderRandomChanges() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Integer::compare);
+        tree.build(new Integer[] {1, 3, 5});
+        List<Integer> expected = new ArrayList<>(Arrays.asList(1, 3, 5));
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            Integer value = random.nextInt(5000);
+            if (expected.contains(value)) {
+                continue;
+            }
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                int rank = tree.insert(value);
+                int at = 0;
+                while (at < expected.size() && expected.get(at) < value) {
+                    at++;
+                }
+                expected.add(at, value);
+                assertSame(value, tree.get(rank));
+            } else {
+                int rank = random.nextInt(expected.size());
+                assertEquals(expected.remove(rank), tree.removeAt(rank));
+            }
+            assertEquals(expected.size(), tree.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), tree.get(i));
+        }
+    }
+
+    @Test
+    public void reportsWhereAnEditedStudentMoved() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Carol", "3"));
+        repository.add(new Student("alice", "10"));
+        repository.add(new Student("Bob", "2"));
+        SortedStudentView view = new SortedStudentView(repository, StudentOrder.BY_NAME);
+        List<String> events = new ArrayList<>();
+        view.setListener(recorder(events));
+
+        assertEquals(Arrays.asList("alice", "Bob", "Carol"), names(view));
+        repository.update(repository.indexOf("10"), "Zoe", "10");
+        assertEquals(Arrays.asList("Bob", "Carol", "Zoe"), names(view));
+        repository.add(new Student("Ann", "4"));
+        repository.remove(repository.indexOf("3"));
+        assertEquals(Arrays.asList("moved 0 2", "changed 2", "inserted 0", "removed 2"), events);
+        assertEquals(2, view.indexOfId("10"));
+    }
+
+    @Test
+    public void idOrderIsNumericAndCanBeReversed() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("A", "10"));
+        repository.add(new Student("B", "9"));
+        repository.add(new Student("C", "100"));
+        SortedStudentView view = new SortedStudentView(repository, StudentOrder.BY_ID);
+        List<String> events = new ArrayList<>();
+        view.setListener(recorder(events));
+
+        assertEquals(Arrays.asList("B", "A", "C"), names(view));
+        view.setDescending(true);
+        assertEquals(Arrays.asList("C", "A", "B"), names(view));
+        repository.add(new Student("D", "50"));
+        assertEquals(Arrays.asList("reset", "inserted 1"), events);
+        assertEquals(1, view.indexOfId("50"));
+    }
+
+    @Test
+    public void batchesAreReportedAsOneReset() {
+        StudentRepository repository = new StudentRepository();
+        SortedStudentView view = new SortedStudentView(repository, StudentOrder.BY_NAME);
+        List<String> events = new ArrayList<>();
+        view.setListener(recorder(events));
+
+        repository.addAll(Arrays.asList(new Student("B", "1"), new Student("A", "2")));
+        repository.removeAll(new int[] {0});
+        assertEquals(Arrays.asList("reset", "reset"), events);
+        assertEquals(Arrays.asList("A"), names(view));
+    }
+
+    @Test
+    public void createdViewResortsIfTheRosterChangedWhileSorting() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("B", "1"));
+        repository.add(new Student("A", "2"));
+        boolean[] changed = new boolean[1];
+        List<SortedStudentView> created = new ArrayList<>();
+        SortedStudentView.create(repository, StudentOrder.BY_NAME, Runnable::run, task -> {
+            if (!changed[0]) {
+                // Lands between the snapshot and the build
+                changed[0] = true;
+                repository.update(0, "C", "1");
+            }
+            task.run();
+        }, created::add);
+
+        assertEquals(1, created.size());
+        assertEquals(Arrays.asList("A", "C"), names(created.get(0)));
+        repository.add(new Student("B", "3"));
+        assertEquals(Arrays.asList("A", "B", "C"), names(created.get(0)));
+    }
+
+    @Test
+    public void createFromRosterSnapshotHoldsTheLiveStudents() {
+        StudentRepository repository = new StudentRepository();
+        repository.add(new Student("Carol", "3"));
+        repository.add(new Student("Alice", "1"));
+        repository.add(new Student("Bob", "2"));
+        VersionedRoster roster = new VersionedRoster(repository);
+        List<SortedStudentView> created = new ArrayList<>();
+        SortedStudentView.create(repository, roster, StudentOrder.BY_NAME, Runnable::run, Runnable::run, created::add);
+
+        SortedStudentView view = created.get(0);
+        assertEquals(Arrays.asList("Alice", "Bob", "Carol"), names(view));
+        assertSame(repository.get(1), view.get(0));
+        repository.update(1, "Zoe", "1");
+        assertEquals(Arrays.asList("Bob", "Carol", "Zoe"), names(view));
+    }
+
+    private static List<String> names(List<Student> students) {
+        List<String> names = new ArrayList<>();
+        for (Student student : students) {
+            names.add(student.getName());
+        }
+        return names;
+    }
+
+    private static SortedStudentView.Listener recorder(List<String> events) {
+        return new SortedStudentView.Listener() {
+            @Override
+            public void onInserted(int position) {
+                events.add("inserted " + position);
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                events.add("removed " + position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                events.add("moved " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position) {
+                events.add("changed " + position);
+            }
+
+            @Override
+            public void onReset() {
+                events.add("reset");
+            }
+        };
+    }
+}
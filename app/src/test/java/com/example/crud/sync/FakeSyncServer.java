@@ -0,0 +1,125 @@
+package com.example.crud.sync;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-process stand-in for the registry, speaking the protocol of {@link HttpSyncTransport}.
+ * Keeps the last-writer-wins record per ID with the sequence number and client of its last
+ * change.
+ */
+public class FakeSyncServer implements AutoCloseable {
+
+    private static final class Entry {
+        StudentDelta state;
+        long seq;
+        String origin;
+    }
+
+    private final HttpServer server;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<Long, Entry> bySeq = new TreeMap<>();
+    private long lastSeq;
+
+    public FakeSyncServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/changes", this::handle);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Current record for an ID, or null if no client has sent it
+     */
+    public synchronized StudentDelta get(String id) {
+        Entry entry = entries.get(id);
+        return entry != null ? entry.state : null;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String client = exchange.getRequestHeaders().getFirst(HttpSyncTransport.CLIENT_HEADER);
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try (InputStream in = exchange.getRequestBody()) {
+                    accept(DeltaCodec.readDeltas(in), client);
+                }
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                PullPage page = changes(Long.parseLong(query.get("since")),
+                        Integer.parseInt(query.get("limit")), client);
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                DeltaCodec.writePage(page, body);
+                exchange.getResponseHeaders().set("Content-Type", DeltaCodec.CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.size());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    body.writeTo(out);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized void accept(List<StudentDelta> deltas, String client) {
+        for (StudentDelta delta : deltas) {
+            Entry entry = entries.get(delta.getId());
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(delta.getId(), entry);
+            }
+            StudentDelta merged = StudentDelta.merge(entry.state, delta);
+            if (merged.equals(entry.state)) {
+                continue;
+            }
+            bySeq.remove(entry.seq);
+            entry.state = merged;
+            entry.seq = ++lastSeq;
+            entry.origin = client;
+            bySeq.put(entry.seq, entry);
+        }
+    }
+
+    private synchronized PullPage changes(long since, int limit, String client) {
+        List<StudentDelta> deltas = new ArrayList<>();
+        long cursor = since;
+        for (Entry entry : bySeq.tailMap(since, false).values()) {
+            if (deltas.size() == limit) {
+                return new PullPage(deltas, cursor, true);
+            }
+            cursor = entry.seq;
+            if (!entry.origin.equals(client)) {
+                deltas.add(entry.state);
+            }
+        }
+        return new PullPage(deltas, cursor, false);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> values = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            values.put(pair.substring(0, equals), pair.substring(equals + 1));
+        }
+        return values;
+    }
+}
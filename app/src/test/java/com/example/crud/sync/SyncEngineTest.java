@@ -0,0 +1,247 @@
+package com.example.crud.sync;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SyncEngineTest {
+
+    private FakeSyncServer server;
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    @Before
+    public void startServer() throws IOException {
+        server = new FakeSyncServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void clientsConvergeOnTheUnionOfTheirRosters() throws IOException {
+        Client a = new Client("a", new Student("Alice", "1"), new Student("Bob", "2"));
+        Client b = new Client("b", new Student("Carol", "3"));
+
+        assertEquals(2, a.sync().pushed);
+        SyncEngine.SyncResult result = b.sync();
+        assertEquals(2, result.pulled);
+        assertEquals(1, result.insertedStart);
+        assertEquals(2, result.inserted.size());
+        a.sync();
+
+        assertEquals(roster(a), roster(b));
+        assertEquals(3, roster(a).size());
+        assertEquals(0, a.tracker.getPendingCount());
+        assertEquals(0, b.tracker.getPendingCount());
+    }
+
+    @Test
+    public void incrementalSyncSendsOnlyChangedStudents() throws IOException {
+        Client a = new Client("a", new Student("Alice", "1"), new Student("Bob", "2"), new Student("Carol", "3"));
+        Client b = new Client("b");
+        a.sync();
+        b.sync();
+
+        a.repository.update(a.repository.indexOf("2"), "Robert", "2");
+        a.repository.remove(a.repository.indexOf("3"));
+        assertEquals(2, a.sync().pushed);
+
+        SyncEngine.SyncResult result = b.sync();
+        assertEquals(2, result.pulled);
+        assertEquals(0, result.pushed);
+        assertArrayEquals(new int[] {2}, result.removedPositions);
+        assertArrayEquals(new int[] {1}, result.renamedPositions);
+        assertEquals(roster(a), roster(b));
+    }
+
+    @Test
+    public void laterEditWinsPerField() throws IOException {
+        Client a = new Client("a", new Student("Alice", "1"), new Student("Bob", "2"));
+        Client b = new Client("b");
+        a.sync();
+        b.sync();
+
+        // Both rename student 1; b's rename is later and wins everywhere
+        a.repository.update(a.repository.indexOf("1"), "Alicia", "1");
+        b.repository.update(b.repository.indexOf("1"), "Ally", "1");
+        // b renames student 2, but a removes it later, so the removal wins
+        b.repository.update(b.repository.indexOf("2"), "Bobby", "2");
+        a.repository.remove(a.repository.indexOf("2"));
+
+        a.sync();
+        SyncEngine.SyncResult result = b.sync();
+        assertArrayEquals(new int[] {1}, result.removedPositions);
+        assertEquals(0, result.renamedPositions.length);
+        a.sync();
+
+        assertEquals(roster(a), roster(b));
+        assertEquals("Ally", b.repository.findById("1").getName());
+        assertNull(b.repository.findById("2"));
+        assertFalse(server.get("2").isPresent());
+    }
+
+    @Test
+    public void localRemovalBeatsOlderRemoteRename() throws IOException {
+        Client a = new Client("a", new Student("Alice", "1"));
+        Client b = new Client("b");
+        a.sync();
+        b.sync();
+
+        a.repository.update(0, "Alicia", "1");
+        a.sync();
+        b.repository.remove(0);
+        SyncEngine.SyncResult result = b.sync();
+
+        // The rename is pulled but loses to the newer removal, which is then pushed
+        assertEquals(1, result.pulled);
+        assertEquals(0, result.inserted.size());
+        assertEquals(1, result.pushed);
+        a.sync();
+        assertTrue(a.repository.isEmpty());
+        assertTrue(b.repository.isEmpty());
+    }
+
+    @Test
+    public void codecRoundTripsPagesAndPendingChanges() throws IOException {
+        List<StudentDelta> deltas = Arrays.asList(
+                StudentDelta.added("1", "Alice", 5),
+                StudentDelta.removed("2", 6),
+                StudentDelta.renamed("ID-3", "Zoë", 7));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DeltaCodec.writePage(new PullPage(deltas, 42, true), out);
+        PullPage page = DeltaCodec.readPage(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(deltas, page.deltas);
+        assertEquals(42, page.cursor);
+        assertTrue(page.hasMore);
+
+        Client a = new Client("a");
+        a.repository.add(new Student("Alice", "1"));
+        a.repository.update(0, "Alicia", "1");
+        out.reset();
+        a.tracker.writeTo(out);
+        ChangeTracker restored = new ChangeTracker(clock::incrementAndGet);
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(a.tracker.getPending(), restored.getPending());
+        assertEquals("Alicia", restored.getPending().get(0).getName());
+    }
+
+    @Test
+    public void shutDownExecutorFailsTheSyncWithTheAppliedChanges() throws IOException {
+        Client a = new Client("a", new Student("Alice", "1"));
+        a.sync();
+        Client b = new Client("b", new Student("Bob", "2"));
+
+        // Runs the pull, then rejects the push as a shut-down executor would
+        int[] calls = new int[1];
+        Executor background = task -> {
+            if (calls[0]++ > 0) {
+                throw new RejectedExecutionException();
+            }
+            task.run();
+        };
+        SyncEngine.SyncResult[] applied = new SyncEngine.SyncResult[1];
+        IOException[] error = new IOException[1];
+        b.engine.sync(background, Runnable::run, new SyncEngine.Callback() {
+            @Override
+            public void onSynced(SyncEngine.SyncResult result) {
+            }
+
+            @Override
+            public void onSyncFailed(IOException e, SyncEngine.SyncResult result) {
+                error[0] = e;
+                applied[0] = result;
+            }
+        });
+
+        assertNotNull(error[0]);
+        assertEquals(1, applied[0].inserted.size());
+        assertFalse(b.engine.isRunning());
+        assertEquals(2, b.repository.size());
+        // Nothing was pushed, so the next sync sends it
+        assertEquals(1, b.sync().pushed);
+    }
+
+    @Test
+    public void remoteAdditionsTakenElsewhereAreRejected() throws IOException {
+        Client a = new Client("a", new Student("Alice", "1"), new Student("Bob", "2"));
+        a.sync();
+        Client b = new Client("b");
+        // ID 2 belongs to a student in one of b's classes
+        b.engine.setIdCheck(ids -> ids.contains("2") ? Collections.singleton("2") : Collections.emptySet());
+
+        SyncEngine.SyncResult result = b.sync();
+        assertEquals(2, result.pulled);
+        assertEquals(1, result.rejected);
+        assertEquals(1, result.inserted.size());
+        assertEquals("1", b.repository.get(0).getId());
+        assertNull(b.repository.findById("2"));
+    }
+
+    private TreeMap<String, String> roster(Client client) {
+        TreeMap<String, String> names = new TreeMap<>();
+        for (Student student : client.repository.asList()) {
+            names.put(student.getId(), student.getName());
+        }
+        return names;
+    }
+
+    private final class Client {
+        final StudentRepository repository = new StudentRepository();
+        final ChangeTracker tracker = new ChangeTracker(clock::incrementAndGet);
+        final SyncEngine engine;
+
+        Client(String id, Student... students) {
+            for (Student student : students) {
+                repository.add(student);
+            }
+            repository.addListener(tracker);
+            engine = new SyncEngine(repository, tracker, new HttpSyncTransport(server.getUrl(), id),
+                    SyncEngine.NEVER_SYNCED);
+            engine.setPullLimit(2);
+            engine.setPushBatch(2);
+        }
+
+        SyncEngine.SyncResult sync() throws IOException {
+            SyncEngine.SyncResult[] result = new SyncEngine.SyncResult[1];
+            IOException[] error = new IOException[1];
+            engine.sync(Runnable::run, Runnable::run, new SyncEngine.Callback() {
+                @Override
+                public void onSynced(SyncEngine.SyncResult synced) {
+                    result[0] = synced;
+                }
+
+                @Override
+                public void onSyncFailed(IOException e, SyncEngine.SyncResult applied) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            return result[0];
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.models.Student;
+import com.example.crud.persistence.CohortRoster;
+import com.example.crud.persistence.StudentMutation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup of a roster split into classes: opening one class replays one shard, opening every
+ * class replays them all in parallel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CohortRosterBenchmark {
+
+    private static final int CLASS_SIZE = 500;
+
+    @Param({"20", "200"})
+    public int classes;
+
+    private File directory;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("cohorts").toFile();
+        try (CohortRoster roster = CohortRoster.open(directory)) {
+            for (int c = 0; c < classes; c++) {
+                CohortRoster.Shard shard = roster.load(cohortName(c));
+                List<StudentMutation> adds = new ArrayList<>(CLASS_SIZE);
+                for (int s = 0; s < CLASS_SIZE; s++) {
+                    Student student = Rosters.studentAt(c * CLASS_SIZE + s);
+                    shard.getRepository().add(student);
+                    adds.add(StudentMutation.add(s, student));
+                }
+                shard.getJournalWriter().submit(StudentMutation.batch(adds)).get();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String cohortName(int c) {
+        return "Class " + c;
+    }
+
+    @Benchmark
+    public int openOneClass() throws Exception {
+        try (CohortRoster roster = CohortRoster.open(directory)) {
+            return roster.load(cohortName(classes / 2)).getRepository().size();
+        }
+    }
+
+    @Benchmark
+    public int openEveryClass() throws Exception {
+        try (CohortRoster roster = CohortRoster.open(directory)) {
+            return CohortRoster.mergedView(roster.loadAll().get()).size();
+        }
+    }
+}
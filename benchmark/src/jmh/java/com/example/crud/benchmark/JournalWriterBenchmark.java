@@ -0,0 +1,98 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.persistence.JournalWriter;
+import com.example.crud.persistence.StudentJournal;
+import com.example.crud.persistence.StudentMutation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable mutations per second through the group-committing JournalWriter during a bulk
+ * insert, for several batch windows and batch sizes. Each invocation queues a block of adds,
+ * one by one or in submitAll chunks like an import, and waits until the last one is fsynced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JournalWriterBenchmark {
+
+    private static final int BULK = 16_384;
+
+    @Param({"0", "500", "2000"})
+    public long batchWindowMicros;
+
+    @Param({"64", "512"})
+    public int maxBatch;
+
+    /** Mutations per submit: 1 uses submit(), more uses submitAll() */
+    @Param({"1", "256"})
+    public int submitSize;
+
+    private List<StudentMutation> adds;
+    private File directory;
+    private JournalWriter writer;
+
+    @Setup
+    public void setUp() {
+        adds = new ArrayList<>(BULK);
+        for (int i = 0; i < BULK; i++) {
+            adds.add(StudentMutation.add(i, Rosters.studentAt(i)));
+        }
+    }
+
+    // A fresh journal per iteration, so its size does not grow across the run
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+        StudentJournal journal = new StudentJournal(directory, Long.MAX_VALUE);
+        journal.replay(Rosters.repository(0));
+        writer = new JournalWriter(journal, JournalWriter.DEFAULT_QUEUE_CAPACITY, maxBatch, batchWindowMicros);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        writer.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK)
+    public void bulkInsert() throws Exception {
+        CompletableFuture<Void> last = null;
+        if (submitSize == 1) {
+            for (StudentMutation add : adds) {
+                last = writer.submit(add);
+            }
+        } else {
+            for (int from = 0; from < BULK; from += submitSize) {
+                last = writer.submitAll(adds.subList(from, Math.min(BULK, from + submitSize)));
+            }
+        }
+        // The writer completes futures in queue order, so the last one covers the block
+        last.get();
+    }
+}
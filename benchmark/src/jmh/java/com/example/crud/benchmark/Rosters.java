@@ -0,0 +1,40 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+/**
+ * Roster fixtures shared by the benchmarks
+ */
+final class Rosters {
+
+    // Spread IDs out so they look like real, non-consecutive student numbers
+    private static final long FIRST_ID = 50_130;
+    private static final long ID_STEP = 7;
+
+    private Rosters() {
+    }
+
+    static String idAt(int index) {
+        return String.valueOf(FIRST_ID + index * ID_STEP);
+    }
+
+    static Student studentAt(int index) {
+        return new Student("Student " + index, idAt(index));
+    }
+
+    static StudentRepository repository(int size) {
+        StudentRepository repository = new StudentRepository();
+        for (int i = 0; i < size; i++) {
+            repository.add(studentAt(i));
+        }
+        return repository;
+    }
+
+    /**
+     * An ID that is not in a roster of any size
+     */
+    static String missingId() {
+        return String.valueOf(FIRST_ID - 1);
+    }
+}
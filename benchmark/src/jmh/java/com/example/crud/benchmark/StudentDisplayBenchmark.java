@@ -0,0 +1,68 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.display.StudentDisplay;
+import com.example.crud.display.StudentDisplayCache;
+import com.example.crud.models.Student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bind-time text work for one row. Students are visited in order, like a fling; rosters larger
+ * than the cache keep missing, which is the worst case for the cached path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentDisplayBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    private Student[] students;
+    private StudentDisplayCache cache;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        students = new Student[size];
+        for (int i = 0; i < size; i++) {
+            students[i] = Rosters.studentAt(i);
+        }
+        cache = new StudentDisplayCache();
+    }
+
+    private Student nextStudent() {
+        if (++next == students.length) {
+            next = 0;
+        }
+        return students[next];
+    }
+
+    /**
+     * The formatting bind used to do every time: "ID: " + id and an upper-cased initial
+     */
+    @Benchmark
+    public void formatEveryBind(Blackhole blackhole) {
+        Student student = nextStudent();
+        blackhole.consume("ID: " + student.getId());
+        blackhole.consume(student.getName().substring(0, 1).toUpperCase());
+    }
+
+    @Benchmark
+    public void cachedDisplay(Blackhole blackhole) {
+        StudentDisplay display = cache.get(nextStudent());
+        blackhole.consume(display.getIdLabel());
+        blackhole.consume(display.getInitial());
+        blackhole.consume(display.getNameText());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.crud.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per student by the repository's object list and its ID index. The time is how
+ * long loading the roster takes; the bytesPerRecord counter is the heap growth after a full GC
+ * divided by the roster size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class StudentFootprintBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerRecord;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerRecord = 0;
+        }
+    }
+
+    private Object roster; // Kept until the next iteration so the heap is measured with it live
+
+    @Benchmark
+    public Object load(Footprint footprint) {
+        roster = null;
+        long before = usedHeap();
+        roster = Rosters.repository(size);
+        footprint.bytesPerRecord = (usedHeap() - before) / size;
+        return roster;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        // A couple of rounds, since one System.gc() may not collect everything unreachable
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
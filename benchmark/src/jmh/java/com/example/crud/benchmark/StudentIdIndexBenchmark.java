@@ -0,0 +1,92 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.persistence.StudentIdIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate-ID checks against the on-disk StudentIdIndex, for IDs that are new (answered by
+ * the Bloom filters) and IDs that are taken (read from a run file)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentIdIndexBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private File directory;
+    private StudentIdIndex index;
+    private String[] takenIds;
+    private String[] newIds;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("id-index").toFile();
+        try (StudentIdIndex building = StudentIdIndex.open(directory)) {
+            for (int i = 0; i < size; i++) {
+                building.add(Rosters.idAt(i));
+            }
+        }
+        // Reopened, so every ID is in a run file and none in the write buffer
+        index = StudentIdIndex.open(directory);
+
+        Random random = new Random(42);
+        takenIds = new String[QUERY_COUNT];
+        newIds = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String taken = Rosters.idAt(random.nextInt(size));
+            takenIds[i] = taken;
+            // Rosters space IDs 7 apart, so one more is never taken
+            newIds[i] = String.valueOf(Long.parseLong(taken) + 1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return next;
+    }
+
+    /**
+     * The usual check when adding a student
+     */
+    @Benchmark
+    public boolean newId() {
+        return index.contains(newIds[nextQuery()]);
+    }
+
+    @Benchmark
+    public boolean takenId() {
+        return index.contains(takenIds[nextQuery()]);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sync after a few renames on one of two clients that are already in step: the source pushes
+ * the renames and the target pulls them. Cost should follow the number of edits, not the
+ * roster size. The bytesPerSync counter is the average compressed traffic of one round.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentIncrementalSyncBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"1", "10", "100"})
+    public int edits;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Traffic {
+        public long bytesPerSync;
+        private long bytes;
+        private long rounds;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerSync = 0;
+            bytes = 0;
+            rounds = 0;
+        }
+
+        void add(long roundBytes) {
+            bytes += roundBytes;
+            bytesPerSync = bytes / ++rounds;
+        }
+    }
+
+    private SyncFixture.Registry registry;
+    private SyncFixture.Client source;
+    private SyncFixture.Client target;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        registry = new SyncFixture.Registry();
+        source = new SyncFixture.Client(registry, "source", Rosters.repository(size));
+        target = new SyncFixture.Client(registry, "target", new StudentRepository());
+        source.sync();
+        target.sync();
+    }
+
+    @Benchmark
+    public StudentRepository incrementalSync(Traffic traffic) {
+        round++;
+        StudentRepository repository = source.repository;
+        for (int i = 0; i < edits; i++) {
+            int position = (int) ((round * 7919L + i * 104729L) % size);
+            repository.update(position, "Renamed " + round + " " + i, repository.get(position).getId());
+        }
+        long before = registry.bytes;
+        source.sync();
+        target.sync();
+        traffic.add(registry.bytes - before);
+        return target.repository;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delete followed by undo at a fixed position, as the delete dialog and undo snackbar do.
+ * Each operation leaves the roster as it found it, so the size stays constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentListMutationBenchmark {
+
+    public enum Position {
+        FIRST, MIDDLE, LAST
+    }
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param
+    public Position position;
+
+    private StudentRepository repository;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        repository = Rosters.repository(size);
+        switch (position) {
+            case FIRST:
+                index = 0;
+                break;
+            case MIDDLE:
+                index = size / 2;
+                break;
+            default:
+                index = size - 1;
+                break;
+        }
+    }
+
+    @Benchmark
+    public Student deleteAndUndo() {
+        Student removed = repository.remove(index);
+        repository.add(index, removed);
+        return removed;
+    }
+}
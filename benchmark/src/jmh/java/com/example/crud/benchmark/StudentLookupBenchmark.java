@@ -0,0 +1,93 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID lookups behind the add form's duplicate check (MainActivity.isStudentIdExists) and
+ * StudentAdapter.findStudentById / getAllStudentIds
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentLookupBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    private StudentRepository repository;
+    private List<Student> filteredList;
+    private String[] presentIds;
+    private String missingId;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        repository = Rosters.repository(size);
+        // A plain list stands in for search results, which the adapter scans linearly
+        filteredList = new ArrayList<>(repository.asList());
+        missingId = Rosters.missingId();
+
+        // Fresh String instances, as typed into the form, in random order
+        Random random = new Random(42);
+        presentIds = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            presentIds[i] = new String(Rosters.idAt(random.nextInt(size)));
+        }
+    }
+
+    private String nextPresentId() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return presentIds[next];
+    }
+
+    @Benchmark
+    public boolean duplicateCheckHit() {
+        return repository.containsId(nextPresentId());
+    }
+
+    @Benchmark
+    public boolean duplicateCheckMiss() {
+        return repository.containsId(missingId);
+    }
+
+    @Benchmark
+    public int findByIdFullList() {
+        return repository.indexOf(nextPresentId());
+    }
+
+    /**
+     * Same scan StudentAdapter.findStudentById does while a filtered list is shown
+     */
+    @Benchmark
+    public int findByIdFilteredList() {
+        String id = nextPresentId();
+        for (int i = 0; i < filteredList.size(); i++) {
+            if (filteredList.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public String[] getAllIds() {
+        return repository.getAllIds();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.models.Student;
+import com.example.crud.sort.SectionIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Letter rail jumps and section header checks in MainActivity, and the upkeep of the
+ * SectionIndex behind them on every edit
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentSectionIndexBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final String[] FIRST_NAMES = {"Ada", "Ben", "Cleo", "Dmitri", "Émile", "Farah", "Gus", "Hana",
+            "Ines", "Jon", "Kofi", "Lena", "Mateo", "Nia", "Omar", "Priya", "Quinn", "Ravi", "Sofia", "Tariq",
+            "Uma", "Vik", "Wen", "Xena", "Yusuf", "Zoë"};
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private SectionIndex index;
+    private Student renamed;
+    private int[] rows;
+    private int[] sections;
+    private int next;
+    private boolean flipped;
+
+    @Setup
+    public void setUp() {
+        StudentRepository repository = new StudentRepository(size);
+        for (int i = 0; i < size; i++) {
+            repository.add(new Student(FIRST_NAMES[i % FIRST_NAMES.length] + " " + i, Rosters.idAt(i)));
+        }
+        index = new SectionIndex(repository);
+        renamed = new Student("Ada 0", Rosters.idAt(0));
+
+        Random random = new Random(42);
+        rows = new int[QUERY_COUNT];
+        sections = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            rows[i] = random.nextInt(size);
+            sections[i] = random.nextInt(index.getSectionCount());
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return next;
+    }
+
+    /**
+     * Touching a letter on the rail
+     */
+    @Benchmark
+    public int jumpToSection() {
+        return index.getPositionForSection(sections[nextQuery()]);
+    }
+
+    /**
+     * The header check made for every row laid out
+     */
+    @Benchmark
+    public boolean isSectionStart() {
+        return index.isSectionStart(rows[nextQuery()]);
+    }
+
+    /**
+     * An edit that moves a student to another section, as the repository reports it
+     */
+    @Benchmark
+    public int renameAcrossSections() {
+        String oldName = renamed.getName();
+        renamed.setName(flipped ? "Ada 0" : "Zoë 0");
+        flipped = !flipped;
+        index.onStudentUpdated(renamed, oldName, renamed.getId());
+        return index.size();
+    }
+}
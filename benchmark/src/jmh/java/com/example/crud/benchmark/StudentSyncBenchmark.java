@@ -0,0 +1,63 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First sync of a whole roster: one client uploads it and an empty client downloads it.
+ * The bytesSent counter is the compressed traffic both ways.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class StudentSyncBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Traffic {
+        public long bytesSent;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesSent = 0;
+        }
+    }
+
+    private SyncFixture.Registry registry;
+    private SyncFixture.Client source;
+    private SyncFixture.Client target;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        registry = new SyncFixture.Registry();
+        source = new SyncFixture.Client(registry, "source", Rosters.repository(size));
+        target = new SyncFixture.Client(registry, "target", new StudentRepository());
+    }
+
+    @Benchmark
+    public StudentRepository initialSync(Traffic traffic) {
+        source.sync();
+        target.sync();
+        traffic.bytesSent = registry.bytes;
+        return target.repository;
+    }
+}
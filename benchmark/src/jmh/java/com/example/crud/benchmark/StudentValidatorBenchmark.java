@@ -0,0 +1,42 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentValidator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Form validation, against the original {@code String.matches("\\d+")} check as a baseline
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentValidatorBenchmark {
+
+    @Param({"50130", "5013x", "123456789012"})
+    public String id;
+
+    public String name = "Han Vatana";
+
+    @Benchmark
+    public String validateId() {
+        return StudentValidator.validateId(id);
+    }
+
+    @Benchmark
+    public boolean regexBaseline() {
+        return id.matches("\\d+");
+    }
+
+    @Benchmark
+    public String validateName() {
+        return StudentValidator.validateName(name);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.crud.benchmark;
+
+import com.example.crud.data.StudentRepository;
+import com.example.crud.sync.ChangeTracker;
+import com.example.crud.sync.DeltaCodec;
+import com.example.crud.sync.PullPage;
+import com.example.crud.sync.StudentDelta;
+import com.example.crud.sync.SyncEngine;
+import com.example.crud.sync.SyncTransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sync clients and an in-memory registry for the sync benchmarks. Every request and response
+ * is encoded with DeltaCodec as it would be on the wire, so timings include compression and
+ * {@link Registry#bytes} counts the compressed payload; network latency is left out.
+ */
+final class SyncFixture {
+
+    private SyncFixture() {
+    }
+
+    static final class Client {
+        final StudentRepository repository;
+        final SyncEngine engine;
+
+        Client(Registry registry, String id, StudentRepository repository) {
+            this.repository = repository;
+            ChangeTracker tracker = new ChangeTracker();
+            repository.addListener(tracker);
+            engine = new SyncEngine(repository, tracker, registry.transport(id), SyncEngine.NEVER_SYNCED);
+        }
+
+        void sync() {
+            engine.sync(Runnable::run, Runnable::run, new SyncEngine.Callback() {
+                @Override
+                public void onSynced(SyncEngine.SyncResult result) {
+                }
+
+                @Override
+                public void onSyncFailed(IOException error, SyncEngine.SyncResult applied) {
+                    throw new UncheckedIOException(error);
+                }
+            });
+        }
+    }
+
+    /**
+     * Last-writer-wins record per ID, ordered by the sequence number of its last change
+     */
+    static final class Registry {
+        private final Map<String, Long> seqs = new HashMap<>();
+        private final TreeMap<Long, StudentDelta> bySeq = new TreeMap<>();
+        private final Map<Long, String> origins = new HashMap<>();
+        private long lastSeq;
+        long bytes;
+
+        SyncTransport transport(String client) {
+            return new SyncTransport() {
+                @Override
+                public PullPage pull(long cursor, int limit) throws IOException {
+                    List<StudentDelta> deltas = new ArrayList<>();
+                    long next = cursor;
+                    boolean hasMore = false;
+                    for (Map.Entry<Long, StudentDelta> entry : bySeq.tailMap(cursor, false).entrySet()) {
+                        if (deltas.size() == limit) {
+                            hasMore = true;
+                            break;
+                        }
+                        next = entry.getKey();
+                        if (!client.equals(origins.get(next))) {
+                            deltas.add(entry.getValue());
+                        }
+                    }
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    DeltaCodec.writePage(new PullPage(deltas, next, hasMore), out);
+                    bytes += out.size();
+                    return DeltaCodec.readPage(new ByteArrayInputStream(out.toByteArray()));
+                }
+
+                @Override
+                public void push(List<StudentDelta> deltas) throws IOException {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    DeltaCodec.writeDeltas(deltas, out);
+                    bytes += out.size();
+                    for (StudentDelta delta : DeltaCodec.readDeltas(new ByteArrayInputStream(out.toByteArray()))) {
+                        Long seq = seqs.get(delta.getId());
+                        StudentDelta current = seq != null ? bySeq.get(seq) : null;
+                        StudentDelta merged = StudentDelta.merge(current, delta);
+                        if (merged.equals(current)) {
+                            continue;
+                        }
+                        if (seq != null) {
+                            bySeq.remove(seq);
+                            origins.remove(seq);
+                        }
+                        lastSeq++;
+                        seqs.put(delta.getId(), lastSeq);
+                        bySeq.put(lastSeq, merged);
+                        origins.put(lastSeq, client);
+                    }
+                }
+            };
+        }
+    }
+}